@@ -1,14 +1,30 @@
 package ru.sterkhovkv.openweathermap.api;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.sterkhovkv.openweathermap.cache.CacheSnapshot;
+import ru.sterkhovkv.openweathermap.cache.CacheSnapshotStore;
 import ru.sterkhovkv.openweathermap.cache.WeatherCache;
 import ru.sterkhovkv.openweathermap.cache.LRUWeatherCache;
+import ru.sterkhovkv.openweathermap.cache.MappedSegmentCache;
+import ru.sterkhovkv.openweathermap.cache.OffHeapWeatherCache;
+import ru.sterkhovkv.openweathermap.cache.ObservationTtlPolicy;
+import ru.sterkhovkv.openweathermap.cache.SpatialIndex;
+import ru.sterkhovkv.openweathermap.cache.TtlPolicy;
+import ru.sterkhovkv.openweathermap.cache.VolatilityTtlPolicy;
 import ru.sterkhovkv.openweathermap.client.GeocodingClient;
 import ru.sterkhovkv.openweathermap.client.GeocodingClientImpl;
+import ru.sterkhovkv.openweathermap.client.HttpTransport;
 import ru.sterkhovkv.openweathermap.client.WeatherApiClient;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
 import ru.sterkhovkv.openweathermap.config.ApiRateLimiter;
+import ru.sterkhovkv.openweathermap.config.HttpTransportConfig;
+import ru.sterkhovkv.openweathermap.config.RequestPriority;
 import ru.sterkhovkv.openweathermap.config.SDKConfig;
 import ru.sterkhovkv.openweathermap.exception.IllegalSDKStateException;
 import ru.sterkhovkv.openweathermap.exception.SDKException;
@@ -17,14 +33,39 @@ import ru.sterkhovkv.openweathermap.exception.NetworkException;
 import ru.sterkhovkv.openweathermap.exception.ApiRateLimitException;
 import ru.sterkhovkv.openweathermap.exception.BadRequestException;
 import ru.sterkhovkv.openweathermap.exception.InvalidApiKeyException;
+import ru.sterkhovkv.openweathermap.model.BatchWeatherResponse;
 import ru.sterkhovkv.openweathermap.model.CacheEntry;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.NearbyLookupStats;
 import ru.sterkhovkv.openweathermap.model.WeatherResponse;
+import ru.sterkhovkv.openweathermap.model.WeatherInterpolator;
 import ru.sterkhovkv.openweathermap.model.WeatherResponseMapper;
+import ru.sterkhovkv.openweathermap.model.WeatherValues;
+import ru.sterkhovkv.openweathermap.scheduler.PollingCadence;
 import ru.sterkhovkv.openweathermap.scheduler.WeatherPollingScheduler;
 import ru.sterkhovkv.openweathermap.scheduler.PollingSchedulerConfig;
+import ru.sterkhovkv.openweathermap.util.CacheKeys;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
 /**
  * Main SDK class for OpenWeatherMap API.
  * Provides methods to retrieve weather data for cities.
@@ -44,7 +85,23 @@ public class OpenWeatherMapSDK {
     private final GeocodingClient geocodingClient;
     private final WeatherApiClient weatherApiClient;
     private final ApiRateLimiter rateLimiter;
+    private final HttpTransport httpTransport;
+    private final boolean ownsHttpTransport;
     private final ApiVersion apiVersion;
+    private final boolean staleWhileRevalidate;
+    private final ConcurrentMap<String, InFlightFetch> inFlightFetches = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+    private final Cache<String, String> cityAliases = Caffeine.newBuilder()
+        .maximumSize(Constants.GEOCODING_CACHE_MAX_SIZE)
+        .expireAfterWrite(Duration.ofHours(Constants.GEOCODING_CACHE_TTL_HOURS))
+        .build();
+    private final Cache<String, CityIdEntry> cityIds = Caffeine.newBuilder()
+        .maximumSize(Constants.CITY_ID_INDEX_MAX_SIZE)
+        .expireAfterWrite(Duration.ofHours(Constants.GEOCODING_CACHE_TTL_HOURS))
+        .build();
+    private final SpatialIndex spatialIndex;
+    private final CacheSnapshotStore snapshotStore;
+    private ScheduledExecutorService snapshotExecutor;
     private WeatherPollingScheduler pollingScheduler;
     private volatile boolean destroyed = false;
     
@@ -62,13 +119,29 @@ public class OpenWeatherMapSDK {
         this.config = (config != null ? config : SDKConfig.defaultConfig()).validate();
         
         this.rateLimiter = initializeRateLimiter(this.config);
-        this.cache = initializeCache(this.config);
+        this.staleWhileRevalidate = this.mode == SDKMode.ON_DEMAND && this.config.isStaleWhileRevalidate();
+        this.cache = initializeCache(this.config, this.staleWhileRevalidate);
         this.apiVersion = this.config.getApiVersion();
-        this.geocodingClient = initializeGeocodingClient(this.apiKey, this.config, this.rateLimiter);
-        this.weatherApiClient = initializeWeatherApiClient(this.apiVersion, this.apiKey, this.config, this.rateLimiter);
+        this.ownsHttpTransport = this.config.getHttpTransport() == null;
+        this.httpTransport = ownsHttpTransport
+            ? new HttpTransport(HttpTransportConfig.fromSdkConfig(this.config))
+            : this.config.getHttpTransport();
+        this.geocodingClient = initializeGeocodingClient(this.apiKey, this.config, this.rateLimiter,
+            this.httpTransport);
+        this.weatherApiClient = initializeWeatherApiClient(this.apiVersion, this.apiKey, this.config, this.rateLimiter,
+            this.httpTransport);
         
         log.info("Using API version: {}", this.apiVersion);
         
+        this.spatialIndex = this.config.getNearbyCacheRadiusKm() > 0
+            ? new SpatialIndex(this.config.getNearbyCacheRadiusKm())
+            : null;
+        this.snapshotStore = this.config.getSnapshotPath() != null
+            ? new CacheSnapshotStore(this.config.getSnapshotPath())
+            : null;
+        restoreSnapshot();
+        this.snapshotExecutor = initializeSnapshotExecutor(this.config);
+        
         if (this.mode == SDKMode.POLLING) {
             this.pollingScheduler = initializePollingScheduler(this.config);
             log.info("SDK initialized in POLLING mode");
@@ -87,28 +160,103 @@ public class OpenWeatherMapSDK {
     private static ApiRateLimiter initializeRateLimiter(SDKConfig config) {
         return new ApiRateLimiter(
             config.getMaxCallsPerDay(),
-            config.getMaxCallsPerMinute()
+            config.getMaxCallsPerMinute(),
+            config.getInteractiveReservePercent()
         );
     }
     
-    private static WeatherCache initializeCache(SDKConfig config) {
-        return new LRUWeatherCache(
-            config.getCacheSize(),
-            config.getCacheTtlMinutes()
-        );
+    private static MappedSegmentCache initializeDiskTier(SDKConfig config, long retentionMinutes) {
+        if (config.getDiskCachePath() == null) {
+            return null;
+        }
+        return new MappedSegmentCache(
+            config.getDiskCachePath(),
+            config.getDiskCacheMaxMegabytes() * Constants.BYTES_PER_MEGABYTE,
+            retentionMinutes * Constants.MILLIS_PER_MINUTE
+        ).start();
+    }
+    
+    private static WeatherCache initializeCache(SDKConfig config, boolean staleWhileRevalidate) {
+        long retentionMinutes = getRetentionMinutes(config, staleWhileRevalidate);
+        return switch (config.getCacheStorage()) {
+            case HEAP -> new LRUWeatherCache(config.getCacheSize(), config.getCacheTtlMinutes(), retentionMinutes,
+                initializeDiskTier(config, getMaxRetentionMinutes(config, retentionMinutes)),
+                initializeTtlPolicy(config), config.getCacheMaxBytes());
+            case OFF_HEAP -> new OffHeapWeatherCache(config.getCacheSize(), config.getCacheTtlMinutes(), retentionMinutes,
+                config.getCacheMaxBytes());
+        };
+    }
+    
+    /**
+     * Gets how long cache entries are kept: maxStalenessMinutes in stale-while-revalidate mode,
+     * cacheTtlMinutes otherwise.
+     */
+    private static long getRetentionMinutes(SDKConfig config, boolean staleWhileRevalidate) {
+        return staleWhileRevalidate ? config.getMaxStalenessMinutes() : config.getCacheTtlMinutes();
+    }
+    
+    /**
+     * Gets how long the longest-lived entries are kept: with a per-entry TTL an entry is retained
+     * for its own TTL plus the stale period, so up to the longest TTL plus the stale period.
+     */
+    private static long getMaxRetentionMinutes(SDKConfig config, long retentionMinutes) {
+        long staleMinutes = retentionMinutes - config.getCacheTtlMinutes();
+        if (config.isVariableTtl()) {
+            return config.getMaxCacheTtlMinutes() + staleMinutes;
+        }
+        if (config.isObservationAlignedTtl()) {
+            long maxTtlMillis = Constants.MAX_OBSERVATION_INTERVAL_MILLIS + Constants.OBSERVATION_PUBLISH_DELAY_MILLIS;
+            long maxTtlMinutes = Math.ceilDiv(maxTtlMillis, Constants.MILLIS_PER_MINUTE);
+            return Math.max(retentionMinutes, maxTtlMinutes + staleMinutes);
+        }
+        return retentionMinutes;
+    }
+    
+    private static TtlPolicy initializeTtlPolicy(SDKConfig config) {
+        if (config.isVariableTtl()) {
+            return new VolatilityTtlPolicy(
+                config.getMinCacheTtlMinutes() * Constants.MILLIS_PER_MINUTE,
+                config.getMaxCacheTtlMinutes() * Constants.MILLIS_PER_MINUTE
+            );
+        }
+        if (config.isObservationAlignedTtl()) {
+            return new ObservationTtlPolicy();
+        }
+        return null;
     }
     
     private static GeocodingClient initializeGeocodingClient(String apiKey, SDKConfig config,
-                                                             ApiRateLimiter rateLimiter) {
-        return new GeocodingClientImpl(apiKey, config, rateLimiter);
+                                                             ApiRateLimiter rateLimiter,
+                                                             HttpTransport httpTransport) {
+        return new GeocodingClientImpl(apiKey, config, rateLimiter, httpTransport);
     }
     
     private static WeatherApiClient initializeWeatherApiClient(
             ApiVersion apiVersion,
             String apiKey,
             SDKConfig config,
-            ApiRateLimiter rateLimiter) {
-        return WeatherApiClientFactory.create(apiVersion, apiKey, config, rateLimiter);
+            ApiRateLimiter rateLimiter,
+            HttpTransport httpTransport) {
+        return WeatherApiClientFactory.create(apiVersion, apiKey, config, rateLimiter, httpTransport);
+    }
+    
+    private ScheduledExecutorService initializeSnapshotExecutor(SDKConfig config) {
+        if (snapshotStore == null || config.getSnapshotIntervalMinutes() == 0) {
+            return null;
+        }
+        
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "CacheSnapshotScheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(
+            this::saveSnapshot,
+            config.getSnapshotIntervalMinutes(),
+            config.getSnapshotIntervalMinutes(),
+            TimeUnit.MINUTES
+        );
+        return executor;
     }
     
     private WeatherPollingScheduler initializePollingScheduler(SDKConfig config) {
@@ -126,13 +274,16 @@ public class OpenWeatherMapSDK {
             config.getPollingIntervalMinutes(),
             config.getCacheTtlMinutes(),
             config.getPollingStrategy(),
-            config.getPreemptiveEpsilonMinutes()
+            config.getPreemptiveEpsilonMinutes(),
+            rateLimiter,
+            config.isQuotaAwarePolling()
         );
     }
     
     /**
      * Gets weather data for a city.
      * Returns data from cache if available and valid, otherwise fetches from API.
+     * Blocking wrapper over {@link #getWeatherAsync(String)}.
      *
      * @param cityName city name
      * @return weather response
@@ -146,18 +297,239 @@ public class OpenWeatherMapSDK {
      * @throws SDKException if any other SDK error occurs
      */
     public WeatherResponse getWeather(String cityName) {
-        checkNotDestroyed();
-        validateCityName(cityName);
+        return getWeatherAsync(cityName).block();
+    }
+
+    /**
+     * Gets weather data for a city without blocking the caller.
+     * Geocoding, rate limit acquisition, the weather fetch and the cache write are chained
+     * reactively; the returned Mono does nothing until subscribed.
+     * Errors are signalled with the same exception types as {@link #getWeather(String)}.
+     *
+     * @param cityName city name
+     * @return Mono emitting the weather response
+     */
+    public Mono<WeatherResponse> getWeatherAsync(String cityName) {
+        return Mono.defer(() -> {
+            checkNotDestroyed();
+            validateCityName(cityName);
+
+            return lookupWeather(cityLookup(cityName), System.currentTimeMillis());
+        });
+    }
+
+    /**
+     * Gets weather data for a city as a CompletableFuture.
+     * The request is started immediately; see {@link #getWeatherAsync(String)}.
+     *
+     * @param cityName city name
+     * @return future completed with the weather response or failed with an SDK exception
+     */
+    public CompletableFuture<WeatherResponse> getWeatherFuture(String cityName) {
+        return getWeatherAsync(cityName).toFuture();
+    }
+    
+    /**
+     * Gets weather data for geographic coordinates.
+     * Skips geocoding and requests weather for the coordinates directly.
+     * Results are cached by coordinates (rounded to 4 decimal places, about 10 meters).
+     * Blocking wrapper over {@link #getWeatherByCoordinatesAsync(Coordinates)}.
+     *
+     * @param coordinates geographic coordinates
+     * @return weather response
+     * @throws IllegalArgumentException if coordinates are null or out of range
+     * @throws IllegalSDKStateException if SDK has been destroyed
+     * @throws NetworkException if network error occurs
+     * @throws ApiRateLimitException if API rate limit exceeded
+     * @throws SDKException if any other SDK error occurs
+     */
+    public WeatherResponse getWeatherByCoordinates(Coordinates coordinates) {
+        return getWeatherByCoordinatesAsync(coordinates).block();
+    }
+    
+    /**
+     * Gets weather data for a latitude and longitude pair.
+     * See {@link #getWeatherByCoordinates(Coordinates)}.
+     *
+     * @param lat latitude in decimal degrees (-90 to 90)
+     * @param lon longitude in decimal degrees (-180 to 180)
+     * @return weather response
+     */
+    public WeatherResponse getWeatherByCoordinates(double lat, double lon) {
+        return getWeatherByCoordinates(new Coordinates(lat, lon));
+    }
+    
+    /**
+     * Gets weather data for geographic coordinates without blocking the caller.
+     * See {@link #getWeatherByCoordinates(Coordinates)}.
+     *
+     * @param coordinates geographic coordinates
+     * @return Mono emitting the weather response
+     */
+    public Mono<WeatherResponse> getWeatherByCoordinatesAsync(Coordinates coordinates) {
+        return Mono.defer(() -> {
+            checkNotDestroyed();
+            validateCoordinates(coordinates);
+
+            long currentTime = System.currentTimeMillis();
+            WeatherLookup lookup = coordinatesLookup(coordinates);
+            WeatherResponse nearby = findNearbyWeather(lookup.cacheKey(), coordinates, currentTime);
+            if (nearby != null) {
+                return Mono.just(nearby);
+            }
+            return lookupWeather(lookup, currentTime);
+        });
+    }
+    
+    /**
+     * Gets weather data for several cities at once.
+     * Blocking wrapper over {@link #getWeatherBatchAsync(Collection)}.
+     *
+     * @param cityNames city names (duplicates are requested once)
+     * @return batch response with per-city results and failures
+     * @throws IllegalArgumentException if the collection is null or contains a null or blank name
+     * @throws IllegalSDKStateException if SDK has been destroyed
+     */
+    public BatchWeatherResponse getWeatherBatch(Collection<String> cityNames) {
+        return getWeatherBatchAsync(cityNames).block();
+    }
+
+    /**
+     * Gets weather data for several cities at once without blocking the caller.
+     * The cache is checked for all cities in one pass; only misses are fetched, with at most
+     * {@code batchConcurrency} requests in flight (never more than maxCallsPerMinute).
+     * A failure for one city is reported in {@link BatchWeatherResponse#failures()} and does not
+     * fail the batch.
+     *
+     * @param cityNames city names (duplicates are requested once)
+     * @return Mono emitting the batch response
+     */
+    public Mono<BatchWeatherResponse> getWeatherBatchAsync(Collection<String> cityNames) {
+        return Mono.defer(() -> {
+            checkNotDestroyed();
+            List<String> cities = validateCityNames(cityNames);
+
+            long currentTime = System.currentTimeMillis();
+
+            Map<String, WeatherResponse> cachedResults = new HashMap<>();
+            List<WeatherLookup> misses = new ArrayList<>();
+            List<WeatherLookup> staleHits = new ArrayList<>();
+            for (String cityName : cities) {
+                WeatherLookup lookup = cityLookup(cityName);
+                WeatherResponse cached = resolveCachedWeather(lookup, currentTime, staleHits::add);
+                if (cached != null) {
+                    cachedResults.put(cityName, cached);
+                } else {
+                    misses.add(lookup);
+                }
+            }
+            groupByCityId(staleHits).forEach(lookup -> refreshInBackground(lookup, currentTime));
+
+            log.debug("Batch request for {} cities: cached={}, toFetch={}",
+                cities.size(), cachedResults.size(), misses.size());
+
+            int concurrency = Math.min(config.getBatchConcurrency(), rateLimiter.getMaxCallsPerMinute());
+            return Flux.fromIterable(groupByCityId(misses))
+                .flatMap(lookup -> fetchCoalesced(lookup, currentTime)
+                    .map(response -> new BatchOutcome(lookup.displayName(), response, null))
+                    .onErrorResume(SDKException.class,
+                        e -> Mono.just(new BatchOutcome(lookup.displayName(), null, e))),
+                    concurrency)
+                .collectList()
+                .map(outcomes -> assembleBatchResponse(cities, cachedResults, outcomes));
+        });
+    }
+    
+    /**
+     * Replaces the fetchers of lookups whose city id was reported in an earlier response, so that
+     * up to getMaxCityIdBatchSize() of them share one API call. A city missing from the group
+     * response falls back to its own fetch. Lookups stay coalesced by their flight keys.
+     */
+    private List<WeatherLookup> groupByCityId(List<WeatherLookup> lookups) {
+        int batchSize = weatherApiClient.getMaxCityIdBatchSize();
+        if (batchSize <= 0 || lookups.size() < 2) {
+            return lookups;
+        }
         
-        long currentTime = System.currentTimeMillis();
-        long ttlMillis = config.getCacheTtlMinutes() * Constants.MILLIS_PER_MINUTE;
+        Map<Integer, List<WeatherLookup>> lookupsById = new LinkedHashMap<>();
+        Map<WeatherLookup, CityIdEntry> cityIdEntries = new IdentityHashMap<>();
+        for (WeatherLookup lookup : lookups) {
+            CityIdEntry cityIdEntry = lookup.cacheKey() != null ? cityIds.getIfPresent(lookup.cacheKey()) : null;
+            if (cityIdEntry != null) {
+                lookupsById.computeIfAbsent(cityIdEntry.cityId(), id -> new ArrayList<>()).add(lookup);
+                cityIdEntries.put(lookup, cityIdEntry);
+            }
+        }
+        if (lookupsById.size() < 2) {
+            return lookups;
+        }
         
-        WeatherResponse cached = getCachedWeather(cityName, currentTime, ttlMillis);
-        if (cached != null) {
-            return cached;
+        Map<WeatherLookup, WeatherLookup> grouped = new IdentityHashMap<>();
+        List<Integer> groupIds = new ArrayList<>(lookupsById.keySet());
+        for (int from = 0; from < groupIds.size(); from += batchSize) {
+            List<Integer> group = List.copyOf(groupIds.subList(from, Math.min(from + batchSize, groupIds.size())));
+            Mono<Map<Integer, Object>> groupFetch = weatherApiClient.fetchWeatherByCityIdsAsync(group).cache();
+            for (Integer cityId : group) {
+                for (WeatherLookup lookup : lookupsById.get(cityId)) {
+                    grouped.put(lookup, groupedLookup(lookup, cityIdEntries.get(lookup), groupFetch));
+                }
+            }
         }
         
-        return fetchAndCacheWeather(cityName, currentTime);
+        log.debug("Grouped {} lookups into {} calls by city id",
+            grouped.size(), Math.ceilDiv(groupIds.size(), batchSize));
+        return lookups.stream().map(lookup -> grouped.getOrDefault(lookup, lookup)).toList();
+    }
+    
+    private WeatherLookup groupedLookup(WeatherLookup lookup, CityIdEntry cityIdEntry,
+                                        Mono<Map<Integer, Object>> groupFetch) {
+        return new WeatherLookup(
+            lookup.cacheKey(),
+            lookup.flightKey(),
+            lookup.displayName(),
+            currentTime -> groupFetch.flatMap(weatherByCityId -> {
+                Object weatherData = weatherByCityId.get(cityIdEntry.cityId());
+                if (weatherData == null) {
+                    return lookup.fetcher().apply(currentTime);
+                }
+                return Mono.just(cacheAndMap(lookup.cacheKey(), lookup.displayName(),
+                    cityIdEntry.coordinates(), weatherData, currentTime));
+            })
+        );
+    }
+    
+    private static List<String> validateCityNames(Collection<String> cityNames) {
+        if (cityNames == null) {
+            throw new IllegalArgumentException("City names cannot be null");
+        }
+        cityNames.forEach(OpenWeatherMapSDK::validateCityName);
+        return new ArrayList<>(new LinkedHashSet<>(cityNames));
+    }
+    
+    private static BatchWeatherResponse assembleBatchResponse(List<String> cities,
+                                                              Map<String, WeatherResponse> cachedResults,
+                                                              List<BatchOutcome> outcomes) {
+        Map<String, BatchOutcome> outcomesByCity = new HashMap<>();
+        for (BatchOutcome outcome : outcomes) {
+            outcomesByCity.put(outcome.cityName(), outcome);
+        }
+        
+        Map<String, WeatherResponse> results = new LinkedHashMap<>();
+        Map<String, SDKException> failures = new LinkedHashMap<>();
+        for (String cityName : cities) {
+            WeatherResponse cached = cachedResults.get(cityName);
+            if (cached != null) {
+                results.put(cityName, cached);
+                continue;
+            }
+            BatchOutcome outcome = outcomesByCity.get(cityName);
+            if (outcome.error() != null) {
+                failures.put(cityName, outcome.error());
+            } else {
+                results.put(cityName, outcome.response());
+            }
+        }
+        return new BatchWeatherResponse(results, failures);
     }
     
     private static void validateCityName(String cityName) {
@@ -166,39 +538,286 @@ public class OpenWeatherMapSDK {
         }
     }
     
-    private WeatherResponse getCachedWeather(String cityName, long currentTime, long ttlMillis) {
-        CacheEntry cachedEntry = cache.get(cityName);
-        if (cachedEntry != null && cachedEntry.isValid(currentTime, ttlMillis)) {
-            log.debug("Returning cached weather data for city: {}", cityName);
-            return WeatherResponseMapper.toResponse(
-                cachedEntry.weatherData(),
-                cachedEntry.apiVersion(),
-                cityName
+    private static void validateCoordinates(Coordinates coordinates) {
+        if (coordinates == null) {
+            throw new IllegalArgumentException("Coordinates cannot be null");
+        }
+        if (!(coordinates.lat() >= -90 && coordinates.lat() <= 90)) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90");
+        }
+        if (!(coordinates.lon() >= -180 && coordinates.lon() <= 180)) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180");
+        }
+    }
+    
+    /**
+     * City entries are stored under the key of their coordinates, so all aliases that geocode
+     * to the same point ("Berlin", "berlin", "Berlin, DE") share one weather entry.
+     * The alias index maps a canonical city key to that coordinate key.
+     */
+    private WeatherLookup cityLookup(String cityName) {
+        String cityKey = CacheKeys.forCity(cityName);
+        return new WeatherLookup(
+            cityAliases.getIfPresent(cityKey),
+            cityKey,
+            cityName,
+            currentTime -> fetchAndCacheWeather(cityName, cityKey, currentTime)
+        );
+    }
+    
+    private WeatherLookup coordinatesLookup(Coordinates coordinates) {
+        String cacheKey = CacheKeys.forCoordinates(coordinates);
+        return new WeatherLookup(
+            cacheKey,
+            cacheKey,
+            null,
+            currentTime -> fetchAndCacheWeather(cacheKey, coordinates, currentTime)
+        );
+    }
+    
+    /**
+     * Answers a coordinate lookup from fresh entries within nearbyCacheRadiusKm, if the exact
+     * point has no fresh entry: with an interpolation estimate when interpolationNeighbours is set
+     * and enough neighbours are found, otherwise with the nearest entry.
+     */
+    private WeatherResponse findNearbyWeather(String cacheKey, Coordinates coordinates, long currentTime) {
+        if (spatialIndex == null) {
+            return null;
+        }
+        
+        WeatherResponse exact = getCachedWeather(cacheKey, null, currentTime);
+        if (exact != null) {
+            return exact;
+        }
+        
+        WeatherResponse interpolated = interpolateWeather(cacheKey, coordinates, currentTime);
+        if (interpolated != null) {
+            return interpolated;
+        }
+        
+        SpatialIndex.Neighbour neighbour = spatialIndex.findNearest(coordinates,
+            key -> isFreshNeighbour(key, cacheKey, currentTime));
+        if (neighbour == null) {
+            return null;
+        }
+        
+        log.debug("Returning weather data of nearby point {} for lat={}, lon={}, distanceKm={}",
+            neighbour.key(), coordinates.lat(), coordinates.lon(), neighbour.distanceKm());
+        return getCachedWeather(neighbour.key(), null, currentTime);
+    }
+    
+    private WeatherResponse interpolateWeather(String cacheKey, Coordinates coordinates, long currentTime) {
+        int neighbours = config.getInterpolationNeighbours();
+        if (neighbours == 0) {
+            return null;
+        }
+        
+        String[] keys = new String[neighbours];
+        double[] distancesKm = new double[neighbours];
+        int count = spatialIndex.collectNearest(coordinates,
+            key -> isFreshNeighbour(key, cacheKey, currentTime), keys, distancesKm);
+        if (count < neighbours) {
+            return null;
+        }
+        
+        CacheEntry[] entries = new CacheEntry[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = getFreshEntry(keys[i], currentTime);
+            if (entries[i] == null) {
+                return null;
+            }
+        }
+        
+        log.debug("Returning weather interpolated from {} nearby points for lat={}, lon={}",
+            count, coordinates.lat(), coordinates.lon());
+        return WeatherInterpolator.interpolate(entries, distancesKm, count);
+    }
+    
+    /**
+     * Checks if an indexed point other than the queried one has a fresh entry.
+     * Points whose entries were evicted are dropped from the index on the way.
+     */
+    private boolean isFreshNeighbour(String key, String queriedKey, long currentTime) {
+        if (cache.getCoordinates(key) == null) {
+            spatialIndex.remove(key);
+            return false;
+        }
+        return !key.equals(queriedKey) && getFreshEntry(key, currentTime) != null;
+    }
+    
+    private void indexLocation(String cacheKey, Coordinates coordinates) {
+        if (spatialIndex != null) {
+            spatialIndex.add(cacheKey, coordinates);
+        }
+    }
+    
+    private Mono<WeatherResponse> lookupWeather(WeatherLookup lookup, long currentTime) {
+        WeatherResponse cached = resolveCachedWeather(lookup, currentTime);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        
+        return fetchCoalesced(lookup, currentTime);
+    }
+    
+    /**
+     * Looks up an entry in cache. In stale-while-revalidate mode an expired entry that is still
+     * within maxStalenessMinutes is returned as well, and a background refresh is started for it.
+     */
+    private WeatherResponse resolveCachedWeather(WeatherLookup lookup, long currentTime) {
+        return resolveCachedWeather(lookup, currentTime, stale -> refreshInBackground(stale, currentTime));
+    }
+    
+    /**
+     * Looks up an entry in cache, passing a lookup whose stale entry is returned to staleRefresher.
+     */
+    private WeatherResponse resolveCachedWeather(WeatherLookup lookup, long currentTime,
+                                                 Consumer<WeatherLookup> staleRefresher) {
+        if (lookup.cacheKey() == null) {
+            return null;
+        }
+        
+        WeatherResponse cached = getCachedWeather(lookup.cacheKey(), lookup.displayName(), currentTime);
+        if (cached != null || !staleWhileRevalidate) {
+            return cached;
+        }
+        
+        CacheEntry staleEntry = cache.getStale(lookup.cacheKey());
+        if (staleEntry == null) {
+            return null;
+        }
+        
+        log.debug("Returning stale weather data for: {}, ageMs={}",
+            lookup.cacheKey(), currentTime - staleEntry.timestamp());
+        staleRefresher.accept(lookup);
+        return WeatherResponseMapper.fromCacheEntry(staleEntry, lookup.displayName());
+    }
+    
+    private void refreshInBackground(WeatherLookup lookup, long currentTime) {
+        if (inFlightFetches.containsKey(lookup.flightKey())) {
+            return;
+        }
+        
+        fetchCoalesced(lookup, currentTime)
+            .contextWrite(RequestPriority.BACKGROUND.asContext())
+            .subscribe(
+                response -> log.debug("Background refresh completed for: {}", lookup.cacheKey()),
+                e -> log.warn("Background refresh failed for {}: {}", lookup.cacheKey(), e.getMessage())
             );
+    }
+    
+    private WeatherResponse getCachedWeather(String cacheKey, String displayName, long currentTime) {
+        CacheEntry cachedEntry = getFreshEntry(cacheKey, currentTime);
+        if (cachedEntry != null) {
+            log.debug("Returning cached weather data for: {}", cacheKey);
+            return WeatherResponseMapper.fromCacheEntry(cachedEntry, displayName);
         }
         return null;
     }
     
-    private WeatherResponse fetchAndCacheWeather(String cityName, long currentTime) {
-        log.debug("Cache miss for city: {}, fetching from API (version: {})", cityName, apiVersion);
+    private CacheEntry getFreshEntry(String cacheKey, long currentTime) {
+        long ttlMillis = config.getCacheTtlMinutes() * Constants.MILLIS_PER_MINUTE;
         
-        try {
-            Coordinates coordinates = geocodingClient.getCoordinates(cityName);
-            Object weatherData = weatherApiClient.fetchWeather(coordinates);
-            cache.put(cityName, coordinates, weatherData, apiVersion, currentTime);
+        CacheEntry cachedEntry = cache.get(cacheKey);
+        return cachedEntry != null && cachedEntry.isValid(currentTime, cachedEntry.effectiveTtlMillis(ttlMillis))
+            ? cachedEntry
+            : null;
+    }
+    
+    /**
+     * Fetches weather for a lookup, sharing a single upstream fetch between concurrent callers.
+     * Callers whose flight key (normalized city name or coordinate key) matches a fetch already
+     * in flight join it and receive its result or exception instead of starting their own.
+     * A fetch that completes without a value fails all of them with NetworkException.
+     * The fetch runs with the RequestPriority of the caller that starts it. An INTERACTIVE caller
+     * never joins a BACKGROUND fetch, which may be rejected by the rate limiter to spare the
+     * interactive reserve; it starts its own fetch, which later callers join instead.
+     */
+    private Mono<WeatherResponse> fetchCoalesced(WeatherLookup lookup, long currentTime) {
+        return Mono.deferContextual(context -> {
+            String key = lookup.flightKey();
+            RequestPriority priority = RequestPriority.from(context);
             
-            if (mode == SDKMode.POLLING) {
-                log.debug("City {} cached and will be updated by polling scheduler", cityName);
+            InFlightFetch inFlight = inFlightFetches.get(key);
+            if (inFlight != null && inFlight.serves(priority)) {
+                return joinInFlight(key, inFlight);
             }
             
-            return WeatherResponseMapper.toResponse(weatherData, apiVersion, cityName);
+            Sinks.One<WeatherResponse> sink = Sinks.one();
+            InFlightFetch started = new InFlightFetch(sink.asMono(), priority);
+            inFlight = inFlightFetches.compute(key,
+                (k, existing) -> existing != null && existing.serves(priority) ? existing : started);
+            if (inFlight != started) {
+                return joinInFlight(key, inFlight);
+            }
             
-        } catch (SDKException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Unexpected error getting weather for city: {}", cityName, e);
-            throw new SDKException("Failed to get weather for city: " + cityName, e);
+            lookup.fetcher().apply(currentTime)
+                .switchIfEmpty(Mono.error(() -> new NetworkException("Empty response for: " + key)))
+                .doFinally(signal -> inFlightFetches.remove(key, started))
+                .contextWrite(priority.asContext())
+                .subscribe(sink::tryEmitValue, sink::tryEmitError);
+            return started.response();
+        });
+    }
+    
+    private Mono<WeatherResponse> joinInFlight(String key, InFlightFetch inFlight) {
+        coalescedRequests.incrementAndGet();
+        log.debug("Joining in-flight fetch for: {}, priority={}", key, inFlight.priority());
+        return inFlight.response();
+    }
+    
+    private Mono<WeatherResponse> fetchAndCacheWeather(String cityName, String cityKey, long currentTime) {
+        log.debug("Cache miss for city: {}, fetching from API (version: {})", cityName, apiVersion);
+        
+        return geocodingClient.getCoordinatesAsync(cityName)
+            .flatMap(coordinates -> {
+                String cacheKey = CacheKeys.forCoordinates(coordinates);
+                cityAliases.put(cityKey, cacheKey);
+                
+                // Another alias of the same place may already have a fresh entry
+                WeatherResponse cached = getCachedWeather(cacheKey, cityName, currentTime);
+                if (cached != null) {
+                    return Mono.just(cached);
+                }
+                return weatherApiClient.fetchWeatherAsync(coordinates)
+                    .map(weatherData -> cacheAndMap(cacheKey, cityName, coordinates, weatherData, currentTime));
+            })
+            .onErrorMap(e -> !(e instanceof SDKException), e -> {
+                log.error("Unexpected error getting weather for city: {}", cityName, e);
+                return new SDKException("Failed to get weather for city: " + cityName, e);
+            });
+    }
+    
+    private Mono<WeatherResponse> fetchAndCacheWeather(String cacheKey, Coordinates coordinates, long currentTime) {
+        log.debug("Cache miss for coordinates: lat={}, lon={}, fetching from API (version: {})",
+            coordinates.lat(), coordinates.lon(), apiVersion);
+        
+        return weatherApiClient.fetchWeatherAsync(coordinates)
+            .map(weatherData -> cacheAndMap(cacheKey, null, coordinates, weatherData, currentTime))
+            .onErrorMap(e -> !(e instanceof SDKException), e -> {
+                log.error("Unexpected error getting weather for coordinates: lat={}, lon={}",
+                    coordinates.lat(), coordinates.lon(), e);
+                return new SDKException("Failed to get weather for coordinates: "
+                    + coordinates.lat() + ", " + coordinates.lon(), e);
+            });
+    }
+    
+    private WeatherResponse cacheAndMap(String cacheKey, String displayName, Coordinates coordinates,
+                                        Object weatherData, long currentTime) {
+        WeatherResponse response = WeatherResponseMapper.toResponse(weatherData, apiVersion, displayName);
+        cache.put(cacheKey, coordinates, weatherData, response, apiVersion, currentTime);
+        indexLocation(cacheKey, coordinates);
+        
+        Integer cityId = WeatherValues.cityId(weatherData);
+        if (cityId != null) {
+            cityIds.put(cacheKey, new CityIdEntry(cityId, coordinates));
+        }
+        
+        if (mode == SDKMode.POLLING) {
+            log.debug("Entry {} cached and will be updated by polling scheduler", cacheKey);
         }
+        
+        return response;
     }
     
     /**
@@ -217,7 +836,13 @@ public class OpenWeatherMapSDK {
         
         try {
             stopPollingScheduler();
+            stopSnapshotExecutor();
+            saveSnapshot();
             clearCache();
+            cache.close();
+            if (ownsHttpTransport) {
+                httpTransport.close();
+            }
             log.info("SDK instance destroyed");
         } catch (Exception e) {
             log.error("Error during SDK destruction", e);
@@ -237,9 +862,91 @@ public class OpenWeatherMapSDK {
         }
     }
     
+    private void stopSnapshotExecutor() {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdown();
+            try {
+                if (!snapshotExecutor.awaitTermination(Constants.SCHEDULER_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    snapshotExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                log.warn("Interrupted while waiting for snapshot scheduler to terminate");
+                snapshotExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            } finally {
+                snapshotExecutor = null;
+            }
+        }
+    }
+    
+    /**
+     * Loads the cache snapshot, if configured.
+     * Entries keep their original timestamps and TTLs; entries past the retention period are skipped.
+     * A missing or unreadable snapshot leaves the caches empty.
+     */
+    private void restoreSnapshot() {
+        if (snapshotStore == null) {
+            return;
+        }
+        
+        try {
+            CacheSnapshot snapshot = snapshotStore.read();
+            long currentTime = System.currentTimeMillis();
+            long ttlMillis = config.getCacheTtlMinutes() * Constants.MILLIS_PER_MINUTE;
+            long staleMillis = getRetentionMinutes(config, staleWhileRevalidate) * Constants.MILLIS_PER_MINUTE - ttlMillis;
+            
+            int restored = 0;
+            for (CacheEntry entry : snapshot.weatherEntries()) {
+                long retentionMillis = entry.effectiveTtlMillis(ttlMillis) + staleMillis;
+                if (entry.apiVersion() != apiVersion || !entry.isValid(currentTime, retentionMillis)) {
+                    continue;
+                }
+                // Restored as is, so that an entry keeps the TTL the policy gave it when it was fetched
+                WeatherResponse response = WeatherResponseMapper.toResponse(entry.weatherData(), apiVersion, null);
+                cache.restore(new CacheEntry(entry.cityName(), entry.coordinates(), entry.weatherData(), response,
+                    entry.apiVersion(), entry.timestamp(), entry.ttlMillis(), entry.weightBytes()));
+                indexLocation(entry.cityName(), entry.coordinates());
+                restored++;
+            }
+            geocodingClient.importCache(snapshot.geocodingEntries());
+            
+            log.info("Cache snapshot restored: weatherEntries={}, geocodingEntries={}",
+                restored, snapshot.geocodingEntries().size());
+        } catch (Exception e) {
+            log.warn("Failed to restore cache snapshot: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Saves the weather and geocoding caches to the snapshot file, if configured.
+     */
+    private void saveSnapshot() {
+        if (snapshotStore == null) {
+            return;
+        }
+        
+        try {
+            List<CacheEntry> entries = new ArrayList<>();
+            for (String cacheKey : cache.getAllCities()) {
+                CacheEntry entry = cache.getStale(cacheKey);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+            snapshotStore.write(new CacheSnapshot(entries, geocodingClient.exportCache()));
+        } catch (Exception e) {
+            log.error("Failed to save cache snapshot", e);
+        }
+    }
+    
     private void clearCache() {
         try {
             cache.clear();
+            cityAliases.invalidateAll();
+            cityIds.invalidateAll();
+            if (spatialIndex != null) {
+                spatialIndex.clear();
+            }
         } catch (Exception e) {
             log.error("Error clearing cache", e);
         }
@@ -276,5 +983,87 @@ public class OpenWeatherMapSDK {
     public int getCacheSize() {
         return cache.size();
     }
-}
 
+    /**
+     * Gets the estimated memory used by the weather cache.
+     * With cacheMaxBytes set this is the total the cache evicts against.
+     *
+     * @return size of all cached entries in bytes
+     */
+    public long getCacheWeightBytes() {
+        return cache.weightBytes();
+    }
+    
+    /**
+     * Gets the number of requests that joined an already running fetch for the same city
+     * instead of calling the API themselves.
+     *
+     * @return number of coalesced requests since SDK creation
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedRequests.get();
+    }
+
+    /**
+     * Gets statistics of coordinate lookups answered from a nearby cached point.
+     * All values are zero unless nearbyCacheRadiusKm is set.
+     *
+     * @return nearby lookup statistics since SDK creation
+     */
+    public NearbyLookupStats getNearbyLookupStats() {
+        return spatialIndex != null ? spatialIndex.getStats() : new NearbyLookupStats(0, 0, 0, 0);
+    }
+
+    /**
+     * Gets the polling cadence planned after the latest tick in POLLING mode with quotaAwarePolling.
+     *
+     * @return planned cadence, or null in ON_DEMAND mode, without quotaAwarePolling or before the first tick
+     */
+    public PollingCadence getPollingCadence() {
+        return pollingScheduler != null ? pollingScheduler.getPlannedCadence() : null;
+    }
+
+    /**
+     * Describes how to find and fetch one weather entry.
+     *
+     * @param cacheKey    key of the entry in the weather cache
+     * @param flightKey   key used to coalesce concurrent fetches
+     * @param displayName name reported in the response when the API does not provide one
+     * @param fetcher     fetches the entry from the API and caches it, given the current time
+     */
+    private record WeatherLookup(
+        String cacheKey,
+        String flightKey,
+        String displayName,
+        LongFunction<Mono<WeatherResponse>> fetcher
+    ) {
+    }
+
+    /**
+     * Fetch shared by concurrent callers of fetchCoalesced.
+     *
+     * @param response result of the fetch, replayed to every caller
+     * @param priority priority the fetch runs with
+     */
+    private record InFlightFetch(Mono<WeatherResponse> response, RequestPriority priority) {
+        
+        /**
+         * Checks whether a caller with the given priority may join this fetch.
+         */
+        boolean serves(RequestPriority callerPriority) {
+            return priority == RequestPriority.INTERACTIVE || callerPriority == RequestPriority.BACKGROUND;
+        }
+    }
+
+    /**
+     * City id the API reported for a cache entry, with the coordinates of the entry.
+     */
+    private record CityIdEntry(int cityId, Coordinates coordinates) {
+    }
+
+    /**
+     * Outcome of fetching a single city within a batch.
+     */
+    private record BatchOutcome(String cityName, WeatherResponse response, SDKException error) {
+    }
+}
@@ -1,5 +1,6 @@
 package ru.sterkhovkv.openweathermap.api;
 
+import ru.sterkhovkv.openweathermap.client.HttpTransport;
 import ru.sterkhovkv.openweathermap.client.WeatherApiClient;
 import ru.sterkhovkv.openweathermap.client.WeatherApiV2Client;
 import ru.sterkhovkv.openweathermap.client.WeatherApiV3Client;
@@ -21,17 +22,19 @@ final class WeatherApiClientFactory {
      * @param apiKey API key
      * @param config SDK configuration
      * @param rateLimiter rate limiter
+     * @param httpTransport HTTP transport
      * @return WeatherApiClient instance
      */
     static WeatherApiClient create(
             ApiVersion apiVersion,
             String apiKey,
             SDKConfig config,
-            ApiRateLimiter rateLimiter) {
+            ApiRateLimiter rateLimiter,
+            HttpTransport httpTransport) {
         
         return switch (apiVersion) {
-            case V2_5 -> new WeatherApiV2Client(apiKey, config, rateLimiter);
-            case V3_0 -> new WeatherApiV3Client(apiKey, config, rateLimiter);
+            case V2_5 -> new WeatherApiV2Client(apiKey, config, rateLimiter, httpTransport);
+            case V3_0 -> new WeatherApiV3Client(apiKey, config, rateLimiter, httpTransport);
         };
     }
 }
@@ -0,0 +1,179 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedOutputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.exception.CacheException;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.CompactWeatherData;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.model.v3.WeatherDataV3;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of cache entries.
+ * Layout: format version (1 byte), API version code (1 byte), weather data type (1 byte: API model or
+ * CompactWeatherData), timestamp (8 bytes), TTL (8 bytes), latitude and longitude (8 bytes each),
+ * city name (4-byte length + UTF-8), weather data encoded with Jackson Smile (binary JSON) up to the end
+ * of the record.
+ * Records of any other format version are rejected.
+ * API versions are stored as fixed codes, so reordering or adding {@link ApiVersion} constants
+ * does not change the meaning of stored records.
+ * The mapped response is not encoded; decoded entries have a null response.
+ */
+public final class CacheEntryCodec {
+
+    private static final byte FORMAT_VERSION = 3;
+    private static final byte DATA_TYPE_API_MODEL = 0;
+    private static final byte DATA_TYPE_COMPACT = 1;
+    private static final byte API_VERSION_V2_5 = 0;
+    private static final byte API_VERSION_V3_0 = 1;
+    private static final int COORDINATES_OFFSET = 3 + 2 * Long.BYTES;
+    private static final int HEADER_SIZE = COORDINATES_OFFSET + 2 * Double.BYTES + Integer.BYTES;
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory());
+
+    private CacheEntryCodec() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Encodes a cache entry.
+     *
+     * @param entry cache entry
+     * @return encoded entry
+     * @throws CacheException if weather data cannot be encoded
+     */
+    public static byte[] encode(CacheEntry entry) {
+        try {
+            byte[] cityName = entry.cityName().getBytes(StandardCharsets.UTF_8);
+            byte[] weatherData = SMILE_MAPPER.writeValueAsBytes(entry.weatherData());
+
+            return putHeader(ByteBuffer.allocate(HEADER_SIZE + cityName.length + weatherData.length), entry, cityName)
+                .put(weatherData)
+                .array();
+        } catch (IOException e) {
+            throw new CacheException("Failed to encode cache entry for city: " + entry.cityName(), e);
+        }
+    }
+
+    /**
+     * Encodes a cache entry directly into a buffer, starting at its position.
+     * The weather data is streamed into the buffer without an intermediate array.
+     * If the entry does not fit, the buffer content past its position is undefined.
+     *
+     * @param entry cache entry
+     * @param target buffer to write to
+     * @return number of bytes written, or -1 if the entry does not fit into the remaining bytes
+     * @throws CacheException if weather data cannot be encoded
+     */
+    public static int encode(CacheEntry entry, ByteBuffer target) {
+        byte[] cityName = entry.cityName().getBytes(StandardCharsets.UTF_8);
+        if (target.remaining() < HEADER_SIZE + cityName.length) {
+            return -1;
+        }
+
+        ByteBuffer record = target.slice();
+        try {
+            putHeader(record, entry, cityName);
+            SMILE_MAPPER.writeValue(new ByteBufferBackedOutputStream(record), entry.weatherData());
+            return record.position();
+        } catch (BufferOverflowException e) {
+            return -1;
+        } catch (IOException e) {
+            throw new CacheException("Failed to encode cache entry for city: " + entry.cityName(), e);
+        }
+    }
+
+    private static ByteBuffer putHeader(ByteBuffer buffer, CacheEntry entry, byte[] cityName) {
+        return buffer
+            .put(FORMAT_VERSION)
+            .put(apiVersionCode(entry.apiVersion()))
+            .put(entry.weatherData() instanceof CompactWeatherData ? DATA_TYPE_COMPACT : DATA_TYPE_API_MODEL)
+            .putLong(entry.timestamp())
+            .putLong(entry.ttlMillis())
+            .putDouble(entry.coordinates().lat())
+            .putDouble(entry.coordinates().lon())
+            .putInt(cityName.length)
+            .put(cityName);
+    }
+
+    /**
+     * Decodes a cache entry from the remaining bytes of a buffer.
+     * The buffer position is not changed.
+     *
+     * @param buffer encoded entry
+     * @return decoded entry
+     * @throws CacheException if the entry cannot be decoded
+     */
+    public static CacheEntry decode(ByteBuffer buffer) {
+        ByteBuffer record = buffer.duplicate();
+        try {
+            byte formatVersion = record.get();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new CacheException("Unsupported cache entry format: " + formatVersion);
+            }
+            ApiVersion apiVersion = apiVersionOf(record.get());
+            byte dataType = record.get();
+            long timestamp = record.getLong();
+            long ttlMillis = record.getLong();
+            Coordinates coordinates = new Coordinates(record.getDouble(), record.getDouble());
+
+            byte[] cityName = new byte[record.getInt()];
+            record.get(cityName);
+
+
+            Class<?> weatherDataType = dataType == DATA_TYPE_COMPACT
+                ? CompactWeatherData.class
+                : switch (apiVersion) {
+                    case V3_0 -> WeatherDataV3.class;
+                    case V2_5 -> WeatherDataV2.class;
+                };
+            return new CacheEntry(
+                new String(cityName, StandardCharsets.UTF_8),
+                coordinates,
+                SMILE_MAPPER.readValue(new ByteBufferBackedInputStream(record), weatherDataType),
+                null,
+                apiVersion,
+                timestamp,
+                ttlMillis
+            );
+        } catch (CacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CacheException("Failed to decode cache entry", e);
+        }
+    }
+
+    private static byte apiVersionCode(ApiVersion apiVersion) {
+        return switch (apiVersion) {
+            case V2_5 -> API_VERSION_V2_5;
+            case V3_0 -> API_VERSION_V3_0;
+        };
+    }
+
+    private static ApiVersion apiVersionOf(byte code) {
+        return switch (code) {
+            case API_VERSION_V2_5 -> ApiVersion.V2_5;
+            case API_VERSION_V3_0 -> ApiVersion.V3_0;
+            default -> throw new CacheException("Unsupported API version code: " + code);
+        };
+    }
+
+    /**
+     * Reads only the coordinates of an encoded entry.
+     *
+     * @param buffer encoded entry
+     * @return coordinates
+     */
+    public static Coordinates decodeCoordinates(ByteBuffer buffer) {
+        int offset = buffer.position() + COORDINATES_OFFSET;
+        return new Coordinates(buffer.getDouble(offset), buffer.getDouble(offset + Double.BYTES));
+    }
+}
@@ -0,0 +1,36 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.GeocodingEntry;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contents of the weather and geocoding caches saved for a warm restart.
+ *
+ * @param weatherEntries   weather cache entries with their original timestamps
+ * @param geocodingEntries geocoding cache entries keyed by normalized city name
+ */
+public record CacheSnapshot(
+
+    List<CacheEntry> weatherEntries,
+
+    Map<String, GeocodingEntry> geocodingEntries
+
+) {
+
+    public CacheSnapshot {
+        weatherEntries = List.copyOf(weatherEntries);
+        geocodingEntries = Map.copyOf(geocodingEntries);
+    }
+
+    /**
+     * Creates an empty snapshot.
+     *
+     * @return snapshot without entries
+     */
+    public static CacheSnapshot empty() {
+        return new CacheSnapshot(List.of(), Map.of());
+    }
+}
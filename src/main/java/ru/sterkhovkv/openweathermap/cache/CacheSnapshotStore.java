@@ -0,0 +1,129 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.sterkhovkv.openweathermap.exception.CacheException;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.GeocodingEntry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores cache snapshots in a local binary file.
+ * Weather entries are encoded with {@link CacheEntryCodec}; geocoding entries as
+ * city key, latitude, longitude and timestamp. The file is replaced atomically,
+ * so a crash while writing leaves the previous snapshot intact.
+ */
+@Slf4j
+public class CacheSnapshotStore {
+
+    private static final int MAGIC = 0x4F574D53;
+    private static final byte FORMAT_VERSION = 1;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final Path path;
+
+    public CacheSnapshotStore(Path path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Snapshot path cannot be null");
+        }
+        this.path = path;
+    }
+
+    /**
+     * Writes a snapshot, replacing the previous one.
+     *
+     * @param snapshot snapshot to write
+     * @throws CacheException if the snapshot cannot be written
+     */
+    public void write(CacheSnapshot snapshot) {
+        Path tempFile = path.resolveSibling(path.getFileName() + TEMP_FILE_SUFFIX);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(FORMAT_VERSION);
+
+                out.writeInt(snapshot.weatherEntries().size());
+                for (CacheEntry entry : snapshot.weatherEntries()) {
+                    byte[] encoded = CacheEntryCodec.encode(entry);
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                }
+
+                out.writeInt(snapshot.geocodingEntries().size());
+                for (Map.Entry<String, GeocodingEntry> entry : snapshot.geocodingEntries().entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeDouble(entry.getValue().coordinates().lat());
+                    out.writeDouble(entry.getValue().coordinates().lon());
+                    out.writeLong(entry.getValue().timestamp());
+                }
+            }
+
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Cache snapshot written to {}: weatherEntries={}, geocodingEntries={}",
+                path, snapshot.weatherEntries().size(), snapshot.geocodingEntries().size());
+        } catch (IOException e) {
+            throw new CacheException("Failed to write cache snapshot to " + path, e);
+        }
+    }
+
+    /**
+     * Reads the snapshot.
+     *
+     * @return stored snapshot, or an empty snapshot if the file does not exist
+     * @throws CacheException if the file cannot be read or is not a valid snapshot
+     */
+    public CacheSnapshot read() {
+        if (!Files.exists(path)) {
+            return CacheSnapshot.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new CacheException("Not a cache snapshot file: " + path);
+            }
+            byte formatVersion = in.readByte();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new CacheException("Unsupported cache snapshot format: " + formatVersion);
+            }
+
+            int weatherCount = in.readInt();
+            List<CacheEntry> weatherEntries = new ArrayList<>(weatherCount);
+            for (int i = 0; i < weatherCount; i++) {
+                byte[] encoded = new byte[in.readInt()];
+                in.readFully(encoded);
+                weatherEntries.add(CacheEntryCodec.decode(ByteBuffer.wrap(encoded)));
+            }
+
+            int geocodingCount = in.readInt();
+            Map<String, GeocodingEntry> geocodingEntries = new HashMap<>();
+            for (int i = 0; i < geocodingCount; i++) {
+                String cityKey = in.readUTF();
+                Coordinates coordinates = new Coordinates(in.readDouble(), in.readDouble());
+                geocodingEntries.put(cityKey, new GeocodingEntry(coordinates, in.readLong()));
+            }
+
+            return new CacheSnapshot(weatherEntries, geocodingEntries);
+        } catch (IOException e) {
+            throw new CacheException("Failed to read cache snapshot from " + path, e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Estimates the heap size of cached object graphs (CacheEntry, WeatherDataV2/V3, WeatherResponse).
+ * Assumes a 64-bit JVM with compressed references and compact (Latin-1) strings.
+ * SDK classes are walked field by field; strings, boxed values, collections and arrays are sized
+ * from their contents; enums and other shared objects are not counted.
+ */
+final class HeapSizeEstimator {
+
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int OBJECT_ALIGNMENT_BYTES = 8;
+    private static final int BOXED_VALUE_BYTES = 16;
+    private static final int STRING_BYTES = 24;
+    private static final int COLLECTION_BYTES = 24;
+    private static final int MAX_DEPTH = 16;
+    private static final String SDK_PACKAGE = "ru.sterkhovkv.openweathermap";
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return Layout.of(type);
+        }
+    };
+
+    private HeapSizeEstimator() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Estimates the retained size of an object graph.
+     *
+     * @param object root object, may be null
+     * @return estimated size in bytes, 0 for null
+     */
+    static long estimate(Object object) {
+        return estimate(object, 0);
+    }
+
+    private static long estimate(Object object, int depth) {
+        if (object == null || object instanceof Enum<?> || depth > MAX_DEPTH) {
+            return 0;
+        }
+        if (object instanceof String string) {
+            return STRING_BYTES + align(ARRAY_HEADER_BYTES + (long) string.length() * (isLatin1(string) ? 1 : 2));
+        }
+        if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+            return BOXED_VALUE_BYTES;
+        }
+        if (object instanceof Collection<?> collection) {
+            long size = COLLECTION_BYTES + align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * collection.size());
+            for (Object element : collection) {
+                size += estimate(element, depth + 1);
+            }
+            return size;
+        }
+
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            return estimateArray(object, type.getComponentType(), depth);
+        }
+        if (!type.getPackageName().startsWith(SDK_PACKAGE)) {
+            return align(OBJECT_HEADER_BYTES);
+        }
+
+        Layout layout = LAYOUTS.get(type);
+        long size = layout.shallowBytes();
+        try {
+            for (Field field : layout.references()) {
+                size += estimate(field.get(object), depth + 1);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read field of " + type.getName(), e);
+        }
+        return size;
+    }
+
+    private static long estimateArray(Object array, Class<?> componentType, int depth) {
+        int length = Array.getLength(array);
+        if (componentType.isPrimitive()) {
+            return align(ARRAY_HEADER_BYTES + (long) length * primitiveBytes(componentType));
+        }
+
+        long size = align(ARRAY_HEADER_BYTES + (long) length * REFERENCE_BYTES);
+        for (int i = 0; i < length; i++) {
+            size += estimate(Array.get(array, i), depth + 1);
+        }
+        return size;
+    }
+
+    private static boolean isLatin1(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int primitiveBytes(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return Long.BYTES;
+        }
+        if (type == int.class || type == float.class) {
+            return Integer.BYTES;
+        }
+        if (type == short.class || type == char.class) {
+            return Short.BYTES;
+        }
+        return Byte.BYTES;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + OBJECT_ALIGNMENT_BYTES - 1) / OBJECT_ALIGNMENT_BYTES * OBJECT_ALIGNMENT_BYTES;
+    }
+
+    /**
+     * Shallow size of a class and its reference fields, including inherited ones.
+     */
+    private record Layout(long shallowBytes, Field[] references) {
+
+        static Layout of(Class<?> type) {
+            long bytes = OBJECT_HEADER_BYTES;
+            List<Field> references = new ArrayList<>();
+            for (Class<?> c = type; c != null && c.getPackageName().startsWith(SDK_PACKAGE); c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (field.getType().isPrimitive()) {
+                        bytes += primitiveBytes(field.getType());
+                    } else {
+                        bytes += REFERENCE_BYTES;
+                        field.setAccessible(true);
+                        references.add(field);
+                    }
+                }
+            }
+            return new Layout(align(bytes), references.toArray(new Field[0]));
+        }
+    }
+}
@@ -2,11 +2,14 @@ package ru.sterkhovkv.openweathermap.cache;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import lombok.extern.slf4j.Slf4j;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
 import ru.sterkhovkv.openweathermap.exception.CacheException;
 import ru.sterkhovkv.openweathermap.model.CacheEntry;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.WeatherResponse;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
 import java.util.ArrayList;
@@ -16,8 +19,15 @@ import java.util.concurrent.TimeUnit;
 /**
  * LRU cache implementation for weather data using Caffeine.
  * Features:
- * - Maximum size: 10 entries (as per requirements)
+ * - Size bound: a maximum number of entries (default 10), or optionally a maximum
+ *   estimated heap size in bytes, with entries weighed instead of counted
  * - TTL: configurable (default 10 minutes)
+ * - Soft expiry: entries past TTL may be retained longer and read with {@link #getStale(String)}
+ * - Optional variable TTL: each entry gets its own TTL from a {@link TtlPolicy}
+ * - Atomic writes: put and update replace an entry in one step and never overwrite newer data
+ * - Optional disk tier: entries evicted by the size bound are demoted to a
+ *   {@link MappedSegmentCache} and promoted back on a miss; neither tier is overwritten
+ *   with older data
  * - LRU eviction policy
  * - Thread-safe
  */
@@ -26,6 +36,10 @@ public class LRUWeatherCache implements WeatherCache {
     
     private final Cache<String, CacheEntry> cache;
     private final long ttlMillis;
+    private final long retentionMillis;
+    private final MappedSegmentCache diskTier;
+    private final TtlPolicy ttlPolicy;
+    private final boolean weighted;
     
     /**
      * Creates a new cache instance.
@@ -34,19 +48,102 @@ public class LRUWeatherCache implements WeatherCache {
      * @param ttlMinutes time-to-live in minutes (default: 10)
      */
     public LRUWeatherCache(int maxSize, long ttlMinutes) {
+        this(maxSize, ttlMinutes, ttlMinutes);
+    }
+    
+    /**
+     * Creates a new cache instance that keeps soft-expired entries.
+     * Entries older than the TTL are not returned by {@link #get(String)}, but remain available
+     * through {@link #getStale(String)} until the retention period passes.
+     *
+     * @param maxSize maximum number of entries
+     * @param ttlMinutes time-to-live in minutes
+     * @param retentionMinutes how long entries are kept in minutes (not less than ttlMinutes)
+     */
+    public LRUWeatherCache(int maxSize, long ttlMinutes, long retentionMinutes) {
+        this(maxSize, ttlMinutes, retentionMinutes, null);
+    }
+    
+    /**
+     * Creates a new cache instance with a disk tier.
+     * Entries evicted from memory because of maxSize are moved to the disk tier, and a miss
+     * in memory moves the entry back from it. Entries keep their timestamps in both tiers.
+     *
+     * @param maxSize maximum number of entries in memory
+     * @param ttlMinutes time-to-live in minutes
+     * @param retentionMinutes how long entries are kept in minutes (not less than ttlMinutes)
+     * @param diskTier disk tier for evicted entries, or null to drop them
+     */
+    public LRUWeatherCache(int maxSize, long ttlMinutes, long retentionMinutes, MappedSegmentCache diskTier) {
+        this(maxSize, ttlMinutes, retentionMinutes, diskTier, null);
+    }
+    
+    /**
+     * Creates a new cache instance with a disk tier and per-entry TTLs.
+     * When a policy is given, each put or update stores the TTL it computes for the new entry;
+     * ttlMinutes applies to entries without one. An entry is retained for its
+     * own TTL plus (retentionMinutes - ttlMinutes).
+     *
+     * @param maxSize maximum number of entries in memory
+     * @param ttlMinutes time-to-live in minutes
+     * @param retentionMinutes how long entries are kept in minutes (not less than ttlMinutes)
+     * @param diskTier disk tier for evicted entries, or null to drop them
+     * @param ttlPolicy policy computing per-entry TTLs, or null to use ttlMinutes for all entries
+     */
+    public LRUWeatherCache(int maxSize, long ttlMinutes, long retentionMinutes, MappedSegmentCache diskTier,
+                           TtlPolicy ttlPolicy) {
+        this(maxSize, ttlMinutes, retentionMinutes, diskTier, ttlPolicy, 0);
+    }
+    
+    /**
+     * Creates a new cache instance bounded by memory instead of entry count.
+     * When maxWeightBytes is positive, entries are weighed by their estimated heap size
+     * (weather data, mapped response and bookkeeping) and maxSize is not used for eviction.
+     * The size is estimated once when an entry is written and stored in it.
+     *
+     * @param maxSize maximum number of entries in memory, used if maxWeightBytes is 0
+     * @param ttlMinutes time-to-live in minutes
+     * @param retentionMinutes how long entries are kept in minutes (not less than ttlMinutes)
+     * @param diskTier disk tier for evicted entries, or null to drop them
+     * @param ttlPolicy policy computing per-entry TTLs, or null to use ttlMinutes for all entries
+     * @param maxWeightBytes maximum estimated size of all entries in bytes, or 0 to bound by maxSize
+     */
+    public LRUWeatherCache(int maxSize, long ttlMinutes, long retentionMinutes, MappedSegmentCache diskTier,
+                           TtlPolicy ttlPolicy, long maxWeightBytes) {
         if (maxSize <= 0) {
             throw new IllegalArgumentException("maxSize must be positive");
         }
         if (ttlMinutes <= 0) {
             throw new IllegalArgumentException("ttlMinutes must be positive");
         }
+        if (retentionMinutes < ttlMinutes) {
+            throw new IllegalArgumentException("retentionMinutes cannot be less than ttlMinutes");
+        }
+        if (maxWeightBytes < 0) {
+            throw new IllegalArgumentException("maxWeightBytes cannot be negative");
+        }
         
         this.ttlMillis = ttlMinutes * Constants.MILLIS_PER_MINUTE;
+        this.retentionMillis = retentionMinutes * Constants.MILLIS_PER_MINUTE;
+        this.diskTier = diskTier;
+        this.ttlPolicy = ttlPolicy;
+        this.weighted = maxWeightBytes > 0;
+        
+        Caffeine<String, CacheEntry> builder = Caffeine.newBuilder()
+            .expireAfter(new CacheEntryExpiry());
+        if (maxWeightBytes > 0) {
+            builder.maximumWeight(maxWeightBytes).weigher(LRUWeatherCache::weigh);
+        } else {
+            builder.maximumSize(maxSize);
+        }
         
-        this.cache = Caffeine.newBuilder()
-            .maximumSize(maxSize)
-            .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
-            .removalListener((key, value, cause) -> {
+        this.cache = builder
+            .evictionListener((String key, CacheEntry value, RemovalCause cause) -> {
+                if (cause == RemovalCause.SIZE && diskTier != null && value != null) {
+                    demote(key, value);
+                }
+            })
+            .removalListener((String key, CacheEntry value, RemovalCause cause) -> {
                 if (log.isDebugEnabled()) {
                     log.debug("Cache entry removed: city={}, cause={}", key, cause);
                 }
@@ -54,6 +151,21 @@ public class LRUWeatherCache implements WeatherCache {
             .build();
     }
     
+    /**
+     * Moves an entry evicted by size to the disk tier.
+     * Runs synchronously with the eviction, while the evicted mapping may still be visible,
+     * and skips the write if memory already holds another entry with the same or newer data;
+     * the disk tier itself keeps a newer record. The write only appends to the segment;
+     * compaction of a full segment is left to the disk tier's background thread.
+     */
+    private void demote(String key, CacheEntry entry) {
+        CacheEntry current = cache.asMap().get(key);
+        if (current != null && current != entry && current.timestamp() >= entry.timestamp()) {
+            return;
+        }
+        diskTier.put(entry);
+    }
+    
     @Override
     public CacheEntry get(String cityName) {
         if (cityName == null || cityName.isBlank()) {
@@ -61,15 +173,15 @@ public class LRUWeatherCache implements WeatherCache {
         }
         
         try {
-            CacheEntry entry = cache.getIfPresent(cityName);
+            CacheEntry entry = getOrPromote(cityName);
             if (entry == null) {
                 return null;
             }
             
             // Additional TTL check (Caffeine also checks, but we verify explicitly)
             long currentTime = System.currentTimeMillis();
-            if (!entry.isValid(currentTime, ttlMillis)) {
-                cache.invalidate(cityName);
+            if (!entry.isValid(currentTime, entry.effectiveTtlMillis(ttlMillis))) {
+                invalidateIfNotRetained(cityName, entry, currentTime);
                 return null;
             }
             
@@ -81,7 +193,96 @@ public class LRUWeatherCache implements WeatherCache {
     }
     
     @Override
-    public void put(String cityName, Coordinates coordinates, Object weatherData,
+    public CacheEntry getStale(String cityName) {
+        if (cityName == null || cityName.isBlank()) {
+            return null;
+        }
+        
+        try {
+            CacheEntry entry = getOrPromote(cityName);
+            if (entry == null) {
+                return null;
+            }
+            
+            long currentTime = System.currentTimeMillis();
+            if (invalidateIfNotRetained(cityName, entry, currentTime)) {
+                return null;
+            }
+            
+            return entry;
+        } catch (Exception e) {
+            log.error("Error getting stale cache entry for city: {}", cityName, e);
+            throw new CacheException("Failed to get stale cache entry", e);
+        }
+    }
+    
+    /**
+     * Gets an entry from memory, or moves it back from the disk tier on a miss.
+     * A concurrent put of newer data wins over the promoted copy, and the disk copy is removed
+     * only once the promotion has taken effect.
+     * The disk tier does not store the mapped response, so a promoted entry has a null response.
+     */
+    private CacheEntry getOrPromote(String cityName) {
+        CacheEntry entry = cache.getIfPresent(cityName);
+        if (entry != null || diskTier == null) {
+            return entry;
+        }
+        
+        CacheEntry stored = diskTier.get(cityName);
+        if (stored == null) {
+            return null;
+        }
+        CacheEntry promoted = weighted ? stored.withWeightBytes(estimateWeight(cityName, stored)) : stored;
+        
+        CacheEntry winner = cache.asMap().compute(cityName, (key, current) ->
+            current == null || !isNewer(current, promoted.timestamp()) ? promoted : current);
+        if (winner == promoted) {
+            diskTier.invalidate(cityName, promoted.timestamp());
+            log.debug("Cache entry promoted from disk tier: city={}", cityName);
+        }
+        return winner;
+    }
+    
+    /**
+     * Removes an entry whose age exceeds the retention period.
+     *
+     * @return true if the entry was removed, false if it is still retained
+     */
+    private boolean invalidateIfNotRetained(String cityName, CacheEntry entry, long currentTime) {
+        if (entry.isValid(currentTime, retentionOf(entry))) {
+            return false;
+        }
+        cache.invalidate(cityName);
+        return true;
+    }
+    
+    /**
+     * Checks whether the stored entry holds newer data than a write with the given timestamp.
+     * Writes with the same timestamp are applied.
+     */
+    private static boolean isNewer(CacheEntry existing, long timestamp) {
+        return existing != null && existing.timestamp() > timestamp;
+    }
+    
+    /**
+     * Gets how long an entry is kept: its TTL plus the soft-expiry period.
+     */
+    private long retentionOf(CacheEntry entry) {
+        return entry.effectiveTtlMillis(ttlMillis) + retentionMillis - ttlMillis;
+    }
+    
+    /**
+     * Computes the TTL of a new entry for a city, or 0 if variable TTL is disabled.
+     */
+    private long ttlFor(String cityName, CacheEntry previous, Object weatherData, long timestamp) {
+        if (ttlPolicy == null) {
+            return 0;
+        }
+        return ttlPolicy.ttlFor(cityName, previous, weatherData, timestamp);
+    }
+    
+    @Override
+    public void put(String cityName, Coordinates coordinates, Object weatherData, WeatherResponse response,
                     ApiVersion apiVersion, long timestamp) {
         if (cityName == null || cityName.isBlank()) {
             throw new IllegalArgumentException("City name cannot be null or blank");
@@ -97,12 +298,21 @@ public class LRUWeatherCache implements WeatherCache {
         }
         
         try {
-            CacheEntry entry = new CacheEntry(cityName, coordinates, weatherData, apiVersion, timestamp);
-            cache.put(cityName, entry);
+            int weightBytes = weighted
+                ? estimateWeight(cityName, new CacheEntry(cityName, coordinates, weatherData, response, apiVersion,
+                    timestamp))
+                : 0;
+            CacheEntry entry = cache.asMap().compute(cityName, (key, existing) -> {
+                if (isNewer(existing, timestamp)) {
+                    return existing;
+                }
+                return new CacheEntry(cityName, coordinates, weatherData, response, apiVersion, timestamp,
+                    ttlFor(cityName, existing, weatherData, timestamp), weightBytes);
+            });
             
             if (log.isDebugEnabled()) {
-                log.debug("Cache entry added: city={}, apiVersion={}, timestamp={}",
-                    cityName, apiVersion, timestamp);
+                log.debug("Cache entry added: city={}, apiVersion={}, timestamp={}, ttlMillis={}, applied={}",
+                    cityName, apiVersion, timestamp, entry.effectiveTtlMillis(ttlMillis), entry.timestamp() == timestamp);
             }
         } catch (Exception e) {
             log.error("Error putting cache entry for city: {}", cityName, e);
@@ -111,7 +321,31 @@ public class LRUWeatherCache implements WeatherCache {
     }
     
     @Override
-    public void update(String cityName, Object weatherData, ApiVersion apiVersion, long timestamp) {
+    public void restore(CacheEntry entry) {
+        if (entry == null) {
+            throw new IllegalArgumentException("Cache entry cannot be null");
+        }
+        
+        try {
+            CacheEntry restored = weighted && entry.weightBytes() <= 0
+                ? entry.withWeightBytes(estimateWeight(entry.cityName(), entry))
+                : entry;
+            CacheEntry winner = cache.asMap().compute(entry.cityName(), (key, existing) ->
+                isNewer(existing, restored.timestamp()) ? existing : restored);
+            
+            if (log.isDebugEnabled()) {
+                log.debug("Cache entry restored: city={}, timestamp={}, ttlMillis={}, applied={}",
+                    entry.cityName(), entry.timestamp(), entry.ttlMillis(), winner == restored);
+            }
+        } catch (Exception e) {
+            log.error("Error restoring cache entry for city: {}", entry.cityName(), e);
+            throw new CacheException("Failed to restore cache entry", e);
+        }
+    }
+    
+    @Override
+    public void update(String cityName, Object weatherData, WeatherResponse response,
+                       ApiVersion apiVersion, long timestamp) {
         if (cityName == null || cityName.isBlank()) {
             throw new IllegalArgumentException("City name cannot be null or blank");
         }
@@ -123,23 +357,37 @@ public class LRUWeatherCache implements WeatherCache {
         }
         
         try {
-            CacheEntry existingEntry = cache.getIfPresent(cityName);
-            if (existingEntry == null) {
+            // The weight does not depend on the TTL, so it is estimated outside the atomic step
+            CacheEntry current = cache.getIfPresent(cityName);
+            int weightBytes = weighted && current != null
+                ? estimateWeight(cityName, new CacheEntry(cityName, current.coordinates(), weatherData, response,
+                    apiVersion, timestamp))
+                : 0;
+            
+            // computeIfPresent does not bring back an entry removed or evicted concurrently
+            CacheEntry updatedEntry = cache.asMap().computeIfPresent(cityName, (key, existingEntry) -> {
+                if (isNewer(existingEntry, timestamp)) {
+                    return existingEntry;
+                }
+                return new CacheEntry(
+                    cityName,
+                    existingEntry.coordinates(),
+                    weatherData,
+                    response,
+                    apiVersion,
+                    timestamp,
+                    ttlFor(cityName, existingEntry, weatherData, timestamp),
+                    weightBytes
+                );
+            });
+            if (updatedEntry == null) {
                 throw new CacheException("Cannot update non-existent cache entry for city: " + cityName);
             }
             
-            CacheEntry updatedEntry = new CacheEntry(
-                cityName,
-                existingEntry.coordinates(),
-                weatherData,
-                apiVersion,
-                timestamp
-            );
-            cache.put(cityName, updatedEntry);
-            
             if (log.isDebugEnabled()) {
-                log.debug("Cache entry updated: city={}, apiVersion={}, timestamp={}",
-                    cityName, apiVersion, timestamp);
+                log.debug("Cache entry updated: city={}, apiVersion={}, timestamp={}, ttlMillis={}, applied={}",
+                    cityName, apiVersion, timestamp, updatedEntry.effectiveTtlMillis(ttlMillis),
+                    updatedEntry.timestamp() == timestamp);
             }
         } catch (Exception e) {
             log.error("Error updating cache entry for city: {}", cityName, e);
@@ -158,7 +406,7 @@ public class LRUWeatherCache implements WeatherCache {
             return false;
         }
         
-        return entry.isValid(currentTime, ttlMillis);
+        return entry.isValid(currentTime, entry.effectiveTtlMillis(ttlMillis));
     }
     
     @Override
@@ -189,6 +437,9 @@ public class LRUWeatherCache implements WeatherCache {
         
         try {
             cache.invalidate(cityName);
+            if (diskTier != null) {
+                diskTier.invalidate(cityName);
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Cache entry removed: city={}", cityName);
             }
@@ -202,6 +453,9 @@ public class LRUWeatherCache implements WeatherCache {
     public void clear() {
         try {
             cache.invalidateAll();
+            if (diskTier != null) {
+                diskTier.clear();
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Cache cleared");
             }
@@ -215,5 +469,59 @@ public class LRUWeatherCache implements WeatherCache {
     public int size() {
         return (int) cache.estimatedSize();
     }
+    
+    @Override
+    public long weightBytes() {
+        return cache.policy().eviction()
+            .filter(eviction -> eviction.isWeighted())
+            .map(eviction -> eviction.weightedSize().orElse(0))
+            .orElseGet(() -> cache.asMap().entrySet().stream()
+                .mapToLong(entry -> weigh(entry.getKey(), entry.getValue()))
+                .sum());
+    }
+    
+    /**
+     * Weight of a cache entry: the estimate stored in it when it was written, if any.
+     */
+    private static int weigh(String key, CacheEntry entry) {
+        return entry.weightBytes() > 0 ? entry.weightBytes() : estimateWeight(key, entry);
+    }
+    
+    /**
+     * Estimated heap size of a cache entry, including its key and Caffeine's node.
+     */
+    private static int estimateWeight(String key, CacheEntry entry) {
+        long bytes = Constants.CACHE_NODE_OVERHEAD_BYTES
+            + HeapSizeEstimator.estimate(key)
+            + HeapSizeEstimator.estimate(entry);
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+    
+    @Override
+    public void close() {
+        if (diskTier != null) {
+            diskTier.close();
+        }
+    }
+    
+    /**
+     * Expires entries after their own TTL plus the soft-expiry period, counted from the write.
+     */
+    private class CacheEntryExpiry implements Expiry<String, CacheEntry> {
+        
+        @Override
+        public long expireAfterCreate(String key, CacheEntry value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(retentionOf(value));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, CacheEntry value, long currentTime, long currentDuration) {
+            return TimeUnit.MILLISECONDS.toNanos(retentionOf(value));
+        }
+        
+        @Override
+        public long expireAfterRead(String key, CacheEntry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
-
@@ -0,0 +1,369 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.sterkhovkv.openweathermap.exception.CacheException;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Disk cache tier backed by a memory-mapped, append-only segment file.
+ * Entries are appended as records encoded with {@link CacheEntryCodec}; an on-heap index maps
+ * each key to the location of its latest record. Overwritten, removed and expired records become
+ * garbage that background compaction drops by copying live records into a new segment;
+ * writes never compact inline, so they stay cheap enough for eviction callbacks.
+ * Used by {@link LRUWeatherCache} as a second tier for entries evicted from memory.
+ * Thread-safe.
+ */
+@Slf4j
+public class MappedSegmentCache implements AutoCloseable {
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".dat";
+
+    private final Path directory;
+    private final int capacityBytes;
+    private final long retentionMillis;
+    private final Map<String, RecordLocation> index = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService compactor;
+    private Path segmentFile;
+    private MappedByteBuffer segment;
+    private int writePosition;
+    private int liveBytes;
+    private boolean compactionRequested;
+    private boolean closed;
+
+    /**
+     * Creates a disk tier in the given directory.
+     * Each segment gets a new file with a unique name, so several instances can share the directory;
+     * segment files left in it by a previous run are neither reused nor deleted.
+     * Background maintenance begins with {@link #start()}.
+     *
+     * @param directory directory for segment files (created if missing)
+     * @param capacityBytes maximum size of a segment file in bytes
+     * @param retentionMillis how long entries are kept after their fetch timestamp
+     * @throws CacheException if the segment file cannot be created
+     */
+    public MappedSegmentCache(Path directory, int capacityBytes, long retentionMillis) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        if (capacityBytes <= 0) {
+            throw new IllegalArgumentException("capacityBytes must be positive");
+        }
+        if (retentionMillis <= 0) {
+            throw new IllegalArgumentException("retentionMillis must be positive");
+        }
+
+        this.directory = directory;
+        this.capacityBytes = capacityBytes;
+        this.retentionMillis = retentionMillis;
+
+        try {
+            Files.createDirectories(directory);
+            this.segmentFile = nextSegmentFile();
+            this.segment = mapSegment(segmentFile);
+        } catch (IOException e) {
+            throw new CacheException("Failed to create disk cache segment in " + directory, e);
+        }
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "MappedSegmentCompactor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts periodic background maintenance.
+     * Note: instance is not designed to be restarted after {@link #close()}.
+     *
+     * @return this instance
+     */
+    public MappedSegmentCache start() {
+        compactor.scheduleWithFixedDelay(
+            this::runMaintenance,
+            Constants.DISK_CACHE_MAINTENANCE_INTERVAL_SECONDS,
+            Constants.DISK_CACHE_MAINTENANCE_INTERVAL_SECONDS,
+            TimeUnit.SECONDS
+        );
+        return this;
+    }
+
+    /**
+     * Appends an entry, replacing any previous record for its key.
+     * Entries past the retention period or older than the stored record are ignored.
+     * If the segment is full, the entry is dropped and compaction is requested in the background.
+     *
+     * @param entry entry to store; {@link CacheEntry#cityName()} is used as the key
+     */
+    public void put(CacheEntry entry) {
+        if (!isRetained(entry.timestamp(), System.currentTimeMillis())) {
+            return;
+        }
+
+        byte[] encoded = CacheEntryCodec.encode(entry);
+        int recordSize = Integer.BYTES + encoded.length;
+
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            RecordLocation existing = index.get(entry.cityName());
+            if (existing != null && existing.timestamp() > entry.timestamp()) {
+                return;
+            }
+            if (writePosition + recordSize > capacityBytes) {
+                log.debug("Disk cache segment is full, dropping entry: {}", entry.cityName());
+                requestCompaction();
+                return;
+            }
+
+            segment.putInt(writePosition, encoded.length);
+            segment.put(writePosition + Integer.BYTES, encoded);
+            RecordLocation previous = index.put(entry.cityName(),
+                new RecordLocation(writePosition, recordSize, entry.timestamp()));
+            if (previous != null) {
+                liveBytes -= previous.size();
+            }
+            writePosition += recordSize;
+            liveBytes += recordSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads an entry without removing it from this tier.
+     *
+     * @param key cache key
+     * @return entry, or null if not found or no longer retained
+     */
+    public CacheEntry get(String key) {
+        lock.lock();
+        try {
+            RecordLocation location = index.get(key);
+            if (closed || location == null || !isRetained(location.timestamp(), System.currentTimeMillis())) {
+                return null;
+            }
+
+            return CacheEntryCodec.decode(segment.slice(location.offset() + Integer.BYTES,
+                location.size() - Integer.BYTES));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key cache key
+     */
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            RecordLocation location = index.remove(key);
+            if (location != null) {
+                liveBytes -= location.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes an entry unless its record is newer than the given timestamp,
+     * for example after it has been promoted to memory.
+     *
+     * @param key cache key
+     * @param timestamp fetch timestamp of the copy that superseded the record
+     */
+    public void invalidate(String key, long timestamp) {
+        lock.lock();
+        try {
+            RecordLocation location = index.get(key);
+            if (location != null && location.timestamp() <= timestamp) {
+                index.remove(key);
+                liveBytes -= location.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            index.clear();
+            liveBytes = 0;
+            writePosition = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of entries, including expired ones not yet removed by maintenance.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes expired entries and compacts the segment when at least half of it is garbage.
+     * Runs periodically in the background.
+     */
+    void runMaintenance() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            long currentTime = System.currentTimeMillis();
+            index.values().removeIf(location -> {
+                if (isRetained(location.timestamp(), currentTime)) {
+                    return false;
+                }
+                liveBytes -= location.size();
+                return true;
+            });
+
+            if (writePosition - liveBytes > writePosition / 2) {
+                compact();
+            }
+        } catch (Exception e) {
+            log.error("Error during disk cache maintenance", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedules a compaction on the background thread, unless one is pending or there is no garbage.
+     * Must be called with the lock held.
+     */
+    private void requestCompaction() {
+        if (compactionRequested || liveBytes == writePosition) {
+            return;
+        }
+        compactionRequested = true;
+        compactor.execute(this::runCompaction);
+    }
+
+    private void runCompaction() {
+        lock.lock();
+        try {
+            compactionRequested = false;
+            if (!closed) {
+                compact();
+            }
+        } catch (Exception e) {
+            log.error("Error during disk cache compaction", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies live records into a new segment file and deletes the old one.
+     * Must be called with the lock held.
+     */
+    private void compact() {
+        if (liveBytes == writePosition) {
+            return;
+        }
+
+        try {
+            Path newFile = nextSegmentFile();
+            MappedByteBuffer newSegment = mapSegment(newFile);
+
+            int newPosition = 0;
+            for (Map.Entry<String, RecordLocation> entry : index.entrySet()) {
+                RecordLocation location = entry.getValue();
+                newSegment.put(newPosition, segment, location.offset(), location.size());
+                entry.setValue(new RecordLocation(newPosition, location.size(), location.timestamp()));
+                newPosition += location.size();
+            }
+
+            Path oldFile = segmentFile;
+            log.debug("Disk cache compacted: {} -> {} bytes, entries={}", writePosition, newPosition, index.size());
+            segmentFile = newFile;
+            segment = newSegment;
+            writePosition = newPosition;
+            liveBytes = newPosition;
+            Files.deleteIfExists(oldFile);
+        } catch (IOException e) {
+            throw new CacheException("Failed to compact disk cache segment", e);
+        }
+    }
+
+    private boolean isRetained(long timestamp, long currentTime) {
+        return (currentTime - timestamp) < retentionMillis;
+    }
+
+    private Path nextSegmentFile() throws IOException {
+        return Files.createTempFile(directory, SEGMENT_FILE_PREFIX, SEGMENT_FILE_SUFFIX);
+    }
+
+    private MappedByteBuffer mapSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        }
+    }
+
+    /**
+     * Stops background maintenance and deletes the segment file.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            index.clear();
+            Files.deleteIfExists(segmentFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete disk cache segment {}: {}", segmentFile, e.getMessage());
+        } finally {
+            lock.unlock();
+            compactor.shutdownNow();
+        }
+    }
+
+    /**
+     * Location of a record in the segment.
+     *
+     * @param offset    offset of the record (length prefix included)
+     * @param size      size of the record in bytes (length prefix included)
+     * @param timestamp fetch timestamp of the entry, kept on heap for expiry
+     */
+    private record RecordLocation(int offset, int size, long timestamp) {
+    }
+}
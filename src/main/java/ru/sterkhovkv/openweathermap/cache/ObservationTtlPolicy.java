@@ -0,0 +1,106 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.WeatherValues;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aligns the TTL of a cache entry to the upstream observation time (the dt field) instead of the fetch time.
+ * OpenWeather re-observes a location every few minutes, so an entry stays fresh until the next
+ * observation is expected to be published: dt + interval + {@link Constants#OBSERVATION_PUBLISH_DELAY_MILLIS}.
+ * If that moment has already passed when the data is fetched, the following observation is awaited.
+ * The interval is estimated per city from successive observation times (exponential smoothing,
+ * starting from {@link Constants#DEFAULT_OBSERVATION_INTERVAL_MILLIS}). Thread-safe.
+ */
+public class ObservationTtlPolicy implements TtlPolicy {
+
+    private final Cache<String, Cadence> cadences = Caffeine.newBuilder()
+        .maximumSize(Constants.OBSERVATION_CADENCE_MAX_CITIES)
+        .expireAfterAccess(Constants.OBSERVATION_CADENCE_TTL_HOURS, TimeUnit.HOURS)
+        .build();
+
+    /**
+     * {@inheritDoc}
+     * Returns 0 if the weather data has no observation time.
+     */
+    @Override
+    public long ttlFor(String cityName, CacheEntry previous, Object weatherData, long timestamp) {
+        long observedAt = WeatherValues.observedAtMillis(weatherData);
+        if (observedAt <= 0) {
+            return 0;
+        }
+
+        Cadence cadence = cadences.asMap().compute(cityName, (key, current) ->
+            observe(current != null ? current : initialCadence(previous), observedAt));
+        long refreshAt = nextRefreshMillis(observedAt, cadence.intervalMillis(), timestamp);
+        return Math.max(Constants.MIN_OBSERVATION_TTL_MILLIS, refreshAt - timestamp);
+    }
+
+    /**
+     * Gets the estimated interval between upstream observations of a city.
+     *
+     * @param cityName cache key of the city
+     * @return interval in milliseconds, or the default interval if the city has not been observed
+     */
+    public long getObservationIntervalMillis(String cityName) {
+        Cadence cadence = cadences.getIfPresent(cityName);
+        return cadence != null ? cadence.intervalMillis() : Constants.DEFAULT_OBSERVATION_INTERVAL_MILLIS;
+    }
+
+    /**
+     * Starts the estimate from the observation time of the entry being replaced, if any,
+     * so the first refresh after a restart already yields an interval sample.
+     */
+    private static Cadence initialCadence(CacheEntry previous) {
+        long previousObservedAt = previous != null ? WeatherValues.observedAtMillis(previous.weatherData()) : 0;
+        return new Cadence(previousObservedAt, Constants.DEFAULT_OBSERVATION_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Updates the cadence with a new observation time.
+     * A repeated observation leaves the estimate unchanged; a gap spanning several intervals
+     * (observations that were not fetched) is split into that many intervals.
+     */
+    static Cadence observe(Cadence current, long observedAt) {
+        if (current.lastObservedAt() <= 0) {
+            return new Cadence(observedAt, current.intervalMillis());
+        }
+        long sample = observedAt - current.lastObservedAt();
+        if (sample <= 0) {
+            return current;
+        }
+
+        long interval = current.intervalMillis();
+        long periods = Math.max(1, Math.round((double) sample / interval));
+        double perPeriod = (double) sample / periods;
+        long smoothed = Math.round(interval + Constants.OBSERVATION_INTERVAL_SMOOTHING * (perPeriod - interval));
+        long clamped = Math.clamp(smoothed,
+            Constants.MIN_OBSERVATION_INTERVAL_MILLIS, Constants.MAX_OBSERVATION_INTERVAL_MILLIS);
+        return new Cadence(observedAt, clamped);
+    }
+
+    /**
+     * Gets when the observation after observedAt should be available, not earlier than timestamp.
+     */
+    static long nextRefreshMillis(long observedAt, long intervalMillis, long timestamp) {
+        long refreshAt = observedAt + intervalMillis + Constants.OBSERVATION_PUBLISH_DELAY_MILLIS;
+        if (refreshAt <= timestamp) {
+            long missed = (timestamp - refreshAt) / intervalMillis + 1;
+            refreshAt += missed * intervalMillis;
+        }
+        return refreshAt;
+    }
+
+    /**
+     * Observation history of a city.
+     *
+     * @param lastObservedAt latest observation time in milliseconds, or 0 if unknown
+     * @param intervalMillis estimated interval between observations in milliseconds
+     */
+    record Cadence(long lastObservedAt, long intervalMillis) {
+    }
+}
@@ -0,0 +1,189 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of direct memory for {@link OffHeapWeatherCache}.
+ * Memory is reserved in slabs, each split into blocks of one power-of-two size class. Freed blocks
+ * go back to the free list of their class, and a slab is returned once all of its blocks are free.
+ * The total size of reserved slabs never exceeds the capacity.
+ * Thread-safe.
+ */
+final class OffHeapArena {
+
+    private static final int SIZE_CLASSES = Integer.numberOfTrailingZeros(Constants.OFF_HEAP_MAX_BLOCK_BYTES)
+        - Integer.numberOfTrailingZeros(Constants.OFF_HEAP_MIN_BLOCK_BYTES) + 1;
+
+    private final long capacityBytes;
+    private final int slabBytes;
+    private final List<Deque<Block>> freeBlocks;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long reservedBytes;
+
+    /**
+     * Creates an arena.
+     *
+     * @param capacityBytes maximum size of all slabs in bytes, or 0 for no limit
+     */
+    OffHeapArena(long capacityBytes) {
+        if (capacityBytes < 0) {
+            throw new IllegalArgumentException("capacityBytes cannot be negative");
+        }
+
+        this.capacityBytes = capacityBytes;
+        // A slab takes at most a fixed share of the capacity, so that one size class cannot reserve it all
+        this.slabBytes = capacityBytes > 0
+            ? (int) Math.min(Constants.OFF_HEAP_SLAB_BYTES, capacityBytes / Constants.OFF_HEAP_SLABS_PER_CAPACITY)
+            : Constants.OFF_HEAP_SLAB_BYTES;
+        this.freeBlocks = new ArrayList<>(SIZE_CLASSES);
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            freeBlocks.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Rounds a size up to the block size that holds it.
+     *
+     * @param size size in bytes
+     * @return block size, or -1 if the size exceeds the largest block
+     */
+    static int blockSizeFor(int size) {
+        if (size > Constants.OFF_HEAP_MAX_BLOCK_BYTES) {
+            return -1;
+        }
+        return Math.max(Constants.OFF_HEAP_MIN_BLOCK_BYTES, Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+    }
+
+    /**
+     * Checks whether a block for the given size can be allocated at all, once enough blocks are freed.
+     *
+     * @param size size in bytes
+     * @return true if the block size does not exceed the largest block or the capacity
+     */
+    boolean canHold(int size) {
+        int blockSize = blockSizeFor(size);
+        return blockSize > 0 && (capacityBytes == 0 || blockSize <= capacityBytes);
+    }
+
+    /**
+     * Allocates a block of at least the given size, reserving a new slab if its class has no free block.
+     *
+     * @param size size in bytes
+     * @return block with its whole capacity available, or null if the size exceeds the largest block
+     *         or a new slab would exceed the capacity
+     */
+    Block allocate(int size) {
+        int blockSize = blockSizeFor(size);
+        if (blockSize < 0) {
+            return null;
+        }
+
+        lock.lock();
+        try {
+            Deque<Block> blocks = freeBlocks.get(sizeClass(blockSize));
+            if (blocks.isEmpty() && !reserveSlab(blockSize, blocks)) {
+                return null;
+            }
+
+            Block block = blocks.pop();
+            block.slab.freeCount--;
+            return block;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a block to its size class. Must be called once per allocated block.
+     *
+     * @param block block that is no longer used
+     */
+    void free(Block block) {
+        lock.lock();
+        try {
+            Slab slab = block.slab;
+            Deque<Block> blocks = freeBlocks.get(sizeClass(slab.blockSize));
+            if (++slab.freeCount < slab.blockCount) {
+                blocks.push(block);
+                return;
+            }
+
+            blocks.removeIf(free -> free.slab == slab);
+            reservedBytes -= slab.memory.capacity();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the size of all reserved slabs, including free blocks.
+     *
+     * @return reserved direct memory in bytes
+     */
+    long reservedBytes() {
+        lock.lock();
+        try {
+            return reservedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserves a slab for a size class and adds its blocks to the free list.
+     * Must be called with the lock held.
+     */
+    private boolean reserveSlab(int blockSize, Deque<Block> blocks) {
+        int blockCount = Math.max(1, slabBytes / blockSize);
+        int size = blockCount * blockSize;
+        if (capacityBytes > 0 && reservedBytes + size > capacityBytes) {
+            return false;
+        }
+
+        Slab slab = new Slab(ByteBuffer.allocateDirect(size), blockSize, blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            blocks.push(new Block(slab, slab.memory.slice(i * blockSize, blockSize)));
+        }
+        reservedBytes += size;
+        return true;
+    }
+
+    private static int sizeClass(int blockSize) {
+        return Integer.numberOfTrailingZeros(blockSize)
+            - Integer.numberOfTrailingZeros(Constants.OFF_HEAP_MIN_BLOCK_BYTES);
+    }
+
+    /**
+     * Direct memory split into blocks of one size.
+     */
+    private static final class Slab {
+
+        private final ByteBuffer memory;
+        private final int blockSize;
+        private final int blockCount;
+        private int freeCount;
+
+        private Slab(ByteBuffer memory, int blockSize, int blockCount) {
+            this.memory = memory;
+            this.blockSize = blockSize;
+            this.blockCount = blockCount;
+            this.freeCount = blockCount;
+        }
+    }
+
+    /**
+     * Block of a slab.
+     *
+     * @param slab   slab the block belongs to
+     * @param memory the block's part of the slab
+     */
+    record Block(Slab slab, ByteBuffer memory) {
+    }
+}
@@ -0,0 +1,558 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.exception.CacheException;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.WeatherResponse;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Weather cache that keeps entries outside the Java heap.
+ * Each entry is encoded with {@link CacheEntryCodec} straight into a block of a pooled
+ * {@link OffHeapArena}; only a small index record (block reference and timestamp) stays on the heap.
+ * Features:
+ * - LRU eviction and TTL/retention semantics equal to {@link LRUWeatherCache}
+ * - Each hit decodes the entry from direct memory; the mapped response is not stored
+ * - Blocks of removed and evicted entries are returned to the pool once no reader uses them
+ * - With a byte bound, the direct memory of the pool is limited to it as well; when the pool is full,
+ *   least recently used entries are evicted to make room for a new one
+ * - Writes never replace an entry with older data
+ * - Thread-safe
+ */
+@Slf4j
+public class OffHeapWeatherCache implements WeatherCache {
+
+    private final Cache<String, OffHeapSlot> index;
+    private final OffHeapArena arena;
+    private final long ttlMillis;
+    private final long retentionMillis;
+    private volatile int typicalEntryBytes = Constants.OFF_HEAP_INITIAL_BLOCK_BYTES;
+
+    /**
+     * Creates a new cache instance.
+     *
+     * @param maxSize maximum number of entries
+     * @param ttlMinutes time-to-live in minutes
+     */
+    public OffHeapWeatherCache(int maxSize, long ttlMinutes) {
+        this(maxSize, ttlMinutes, ttlMinutes);
+    }
+
+    /**
+     * Creates a new cache instance that keeps soft-expired entries.
+     * See {@link LRUWeatherCache#LRUWeatherCache(int, long, long)}.
+     *
+     * @param maxSize maximum number of entries
+     * @param ttlMinutes time-to-live in minutes
+     * @param retentionMinutes how long entries are kept in minutes (not less than ttlMinutes)
+     */
+    public OffHeapWeatherCache(int maxSize, long ttlMinutes, long retentionMinutes) {
+        this(maxSize, ttlMinutes, retentionMinutes, 0);
+    }
+
+    /**
+     * Creates a new cache instance bounded by memory instead of entry count.
+     * When maxWeightBytes is positive, entries are weighed by the size of their block in direct memory
+     * plus their heap bookkeeping, and maxSize is not used for eviction. Direct memory reserved by the pool,
+     * including free blocks, is limited to maxWeightBytes; when it is full, least recently used entries
+     * are evicted to make room. Only an entry larger than maxWeightBytes is dropped.
+     *
+     * @param maxSize maximum number of entries, used if maxWeightBytes is 0
+     * @param ttlMinutes time-to-live in minutes
+     * @param retentionMinutes how long entries are kept in minutes (not less than ttlMinutes)
+     * @param maxWeightBytes maximum size of all entries in bytes, or 0 to bound by maxSize
+     */
+    public OffHeapWeatherCache(int maxSize, long ttlMinutes, long retentionMinutes, long maxWeightBytes) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (ttlMinutes <= 0) {
+            throw new IllegalArgumentException("ttlMinutes must be positive");
+        }
+        if (retentionMinutes < ttlMinutes) {
+            throw new IllegalArgumentException("retentionMinutes cannot be less than ttlMinutes");
+        }
+        if (maxWeightBytes < 0) {
+            throw new IllegalArgumentException("maxWeightBytes cannot be negative");
+        }
+
+        this.ttlMillis = ttlMinutes * Constants.MILLIS_PER_MINUTE;
+        this.retentionMillis = retentionMinutes * Constants.MILLIS_PER_MINUTE;
+        this.arena = new OffHeapArena(maxWeightBytes);
+
+        // Removal notifications run on the calling thread so that freed blocks are reusable at once
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+            .executor(Runnable::run)
+            .expireAfterWrite(retentionMinutes, TimeUnit.MINUTES);
+        if (maxWeightBytes > 0) {
+            builder.maximumWeight(maxWeightBytes).weigher(OffHeapWeatherCache::weigh);
+        } else {
+            builder.maximumSize(maxSize);
+        }
+
+        this.index = builder
+            .removalListener((String key, OffHeapSlot value, RemovalCause cause) -> {
+                if (log.isDebugEnabled()) {
+                    log.debug("Off-heap cache entry removed: city={}, cause={}", key, cause);
+                }
+                if (value != null) {
+                    value.release();
+                }
+            })
+            .build();
+    }
+
+    @Override
+    public CacheEntry get(String cityName) {
+        if (cityName == null || cityName.isBlank()) {
+            return null;
+        }
+
+        try {
+            OffHeapSlot slot = index.getIfPresent(cityName);
+            if (slot == null) {
+                return null;
+            }
+
+            long currentTime = System.currentTimeMillis();
+            if (!slot.isValid(currentTime, ttlMillis)) {
+                invalidateIfNotRetained(cityName, slot, currentTime);
+                return null;
+            }
+
+            return read(slot, CacheEntryCodec::decode);
+        } catch (Exception e) {
+            log.error("Error getting off-heap cache entry for city: {}", cityName, e);
+            throw new CacheException("Failed to get cache entry", e);
+        }
+    }
+
+    @Override
+    public CacheEntry getStale(String cityName) {
+        if (cityName == null || cityName.isBlank()) {
+            return null;
+        }
+
+        try {
+            OffHeapSlot slot = index.getIfPresent(cityName);
+            if (slot == null) {
+                return null;
+            }
+
+            long currentTime = System.currentTimeMillis();
+            if (invalidateIfNotRetained(cityName, slot, currentTime)) {
+                return null;
+            }
+
+            return read(slot, CacheEntryCodec::decode);
+        } catch (Exception e) {
+            log.error("Error getting stale off-heap cache entry for city: {}", cityName, e);
+            throw new CacheException("Failed to get stale cache entry", e);
+        }
+    }
+
+    private boolean invalidateIfNotRetained(String cityName, OffHeapSlot slot, long currentTime) {
+        if (slot.isValid(currentTime, retentionMillis)) {
+            return false;
+        }
+        index.invalidate(cityName);
+        return true;
+    }
+
+    @Override
+    public void put(String cityName, Coordinates coordinates, Object weatherData, WeatherResponse response,
+                    ApiVersion apiVersion, long timestamp) {
+        if (cityName == null || cityName.isBlank()) {
+            throw new IllegalArgumentException("City name cannot be null or blank");
+        }
+        if (coordinates == null) {
+            throw new IllegalArgumentException("Coordinates cannot be null");
+        }
+        if (weatherData == null) {
+            throw new IllegalArgumentException("Weather data cannot be null");
+        }
+        if (apiVersion == null) {
+            throw new IllegalArgumentException("API version cannot be null");
+        }
+
+        try {
+            if (!storeAndIndex(new CacheEntry(cityName, coordinates, weatherData, apiVersion, timestamp))) {
+                return;
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Off-heap cache entry added: city={}, apiVersion={}, timestamp={}",
+                    cityName, apiVersion, timestamp);
+            }
+        } catch (Exception e) {
+            log.error("Error putting off-heap cache entry for city: {}", cityName, e);
+            throw new CacheException("Failed to put cache entry", e);
+        }
+    }
+
+    @Override
+    public void restore(CacheEntry entry) {
+        if (entry == null) {
+            throw new IllegalArgumentException("Cache entry cannot be null");
+        }
+
+        try {
+            if (storeAndIndex(entry) && log.isDebugEnabled()) {
+                log.debug("Off-heap cache entry restored: city={}, timestamp={}, ttlMillis={}",
+                    entry.cityName(), entry.timestamp(), entry.ttlMillis());
+            }
+        } catch (Exception e) {
+            log.error("Error restoring off-heap cache entry for city: {}", entry.cityName(), e);
+            throw new CacheException("Failed to restore cache entry", e);
+        }
+    }
+
+    @Override
+    public void update(String cityName, Object weatherData, WeatherResponse response,
+                       ApiVersion apiVersion, long timestamp) {
+        if (cityName == null || cityName.isBlank()) {
+            throw new IllegalArgumentException("City name cannot be null or blank");
+        }
+        if (weatherData == null) {
+            throw new IllegalArgumentException("Weather data cannot be null");
+        }
+        if (apiVersion == null) {
+            throw new IllegalArgumentException("API version cannot be null");
+        }
+
+        try {
+            OffHeapSlot existingSlot = index.getIfPresent(cityName);
+            Coordinates coordinates = existingSlot != null
+                ? read(existingSlot, CacheEntryCodec::decodeCoordinates)
+                : null;
+            if (coordinates == null) {
+                throw new CacheException("Cannot update non-existent cache entry for city: " + cityName);
+            }
+
+            // Coordinates of a key do not change, so the entry is encoded outside the atomic step
+            OffHeapSlot slot = store(new CacheEntry(cityName, coordinates, weatherData, apiVersion, timestamp));
+            if (slot == null) {
+                return;
+            }
+            OffHeapSlot stored = index.asMap().computeIfPresent(cityName, (key, current) -> newerSlot(current, slot));
+            if (stored != slot) {
+                slot.release();
+            }
+            if (stored == null) {
+                throw new CacheException("Cannot update non-existent cache entry for city: " + cityName);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Off-heap cache entry updated: city={}, apiVersion={}, timestamp={}",
+                    cityName, apiVersion, timestamp);
+            }
+        } catch (Exception e) {
+            log.error("Error updating off-heap cache entry for city: {}", cityName, e);
+            throw new CacheException("Failed to update cache entry", e);
+        }
+    }
+
+    /**
+     * Keeps the stored slot if it holds newer data than the written one.
+     */
+    private static OffHeapSlot newerSlot(OffHeapSlot current, OffHeapSlot written) {
+        return current.timestamp() > written.timestamp() ? current : written;
+    }
+
+    /**
+     * Stores an entry and indexes it, unless the index holds a newer entry for its city.
+     *
+     * @return true if the entry was stored, false if the cache memory has no room for it
+     */
+    private boolean storeAndIndex(CacheEntry entry) {
+        OffHeapSlot slot = store(entry);
+        if (slot == null) {
+            return false;
+        }
+        if (index.asMap().merge(entry.cityName(), slot, OffHeapWeatherCache::newerSlot) != slot) {
+            slot.release();
+        }
+        return true;
+    }
+
+    /**
+     * Encodes an entry into the smallest block of the arena that holds it.
+     * The first attempt encodes into a block of the size of the last stored entry and moves a smaller
+     * entry to a tighter block. When that fails, the entry is encoded on the heap and entries are evicted
+     * to make room for its exact size, so that nothing is evicted for a wrong guess or kept oversized.
+     *
+     * @return slot holding the entry, or null if the entry is larger than the arena capacity
+     *         or its memory stays in use by readers even after evicting other entries
+     */
+    private OffHeapSlot store(CacheEntry entry) {
+        byte[] encoded = null;
+        OffHeapArena.Block block = arena.allocate(typicalEntryBytes);
+        if (block != null) {
+            int length = CacheEntryCodec.encode(entry, block.memory().clear());
+            if (length >= 0) {
+                typicalEntryBytes = length;
+                OffHeapArena.Block tight = shrink(block, length);
+                if (tight != null) {
+                    return new OffHeapSlot(arena, tight, length, entry.timestamp());
+                }
+                encoded = new byte[length];
+                block.memory().get(0, encoded);
+            }
+            arena.free(block);
+        }
+
+        if (encoded == null) {
+            encoded = CacheEntryCodec.encode(entry);
+            typicalEntryBytes = encoded.length;
+        }
+        if (OffHeapArena.blockSizeFor(encoded.length) < 0) {
+            throw new CacheException("Cache entry is too large for off-heap storage: " + entry.cityName());
+        }
+        block = allocate(encoded.length, entry.cityName());
+        if (block == null) {
+            log.warn("Off-heap cache entry does not fit into the cache memory, dropping it: {}", entry.cityName());
+            return null;
+        }
+        block.memory().clear().put(encoded);
+        return new OffHeapSlot(arena, block, encoded.length, entry.timestamp());
+    }
+
+    /**
+     * Allocates a block, evicting the least recently used entries while the arena is full.
+     * The arena can be full before the weight bound is reached, because slabs of one size class
+     * are reserved for it even when partly free; eviction frees their blocks for reuse.
+     *
+     * @param size size in bytes
+     * @param writtenKey key being written, never evicted to make room for its own entry
+     * @return block, or null if the size exceeds the arena capacity or nothing is left to evict
+     */
+    private OffHeapArena.Block allocate(int size, String writtenKey) {
+        OffHeapArena.Block block;
+        while ((block = arena.allocate(size)) == null) {
+            if (!arena.canHold(size) || !evictColdest(writtenKey)) {
+                return null;
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Evicts the entry the index would evict next, other than the given key.
+     *
+     * @return true if an entry was evicted
+     */
+    private boolean evictColdest(String writtenKey) {
+        Optional<String> coldest = index.policy().eviction()
+            .flatMap(eviction -> eviction.coldest(2).keySet().stream()
+                .filter(key -> !key.equals(writtenKey))
+                .findFirst());
+        coldest.ifPresent(key -> {
+            index.invalidate(key);
+            log.debug("Off-heap cache entry evicted to free memory: city={}", key);
+        });
+        return coldest.isPresent();
+    }
+
+    /**
+     * Moves an encoded entry into the smallest block that holds it, if the given block is larger.
+     *
+     * @return block holding the entry, or null if no tight block is free; the given block is then kept
+     */
+    private OffHeapArena.Block shrink(OffHeapArena.Block block, int length) {
+        if (OffHeapArena.blockSizeFor(length) == block.memory().capacity()) {
+            return block;
+        }
+
+        OffHeapArena.Block tight = arena.allocate(length);
+        if (tight == null) {
+            return null;
+        }
+        tight.memory().clear().put(block.memory().slice(0, length));
+        arena.free(block);
+        return tight;
+    }
+
+    /**
+     * Reads a slot while holding a reference to it, so that its block is not reused meanwhile.
+     *
+     * @return result of the reader, or null if the slot has been released
+     */
+    private static <T> T read(OffHeapSlot slot, Function<ByteBuffer, T> reader) {
+        if (!slot.retain()) {
+            return null;
+        }
+        try {
+            return reader.apply(slot.buffer());
+        } finally {
+            slot.release();
+        }
+    }
+
+    @Override
+    public boolean isValid(String cityName, long currentTime, long ttlMillis) {
+        if (cityName == null || cityName.isBlank()) {
+            return false;
+        }
+
+        OffHeapSlot slot = index.getIfPresent(cityName);
+        if (slot == null) {
+            return false;
+        }
+
+        return slot.isValid(currentTime, ttlMillis);
+    }
+
+    @Override
+    public Coordinates getCoordinates(String cityName) {
+        if (cityName == null || cityName.isBlank()) {
+            return null;
+        }
+
+        OffHeapSlot slot = index.getIfPresent(cityName);
+        return slot != null ? read(slot, CacheEntryCodec::decodeCoordinates) : null;
+    }
+
+    @Override
+    public List<String> getAllCities() {
+        try {
+            return new ArrayList<>(index.asMap().keySet());
+        } catch (Exception e) {
+            log.error("Error getting all cities from off-heap cache", e);
+            throw new CacheException("Failed to get all cities", e);
+        }
+    }
+
+    @Override
+    public void remove(String cityName) {
+        if (cityName == null || cityName.isBlank()) {
+            return;
+        }
+
+        try {
+            index.invalidate(cityName);
+            if (log.isDebugEnabled()) {
+                log.debug("Off-heap cache entry removed: city={}", cityName);
+            }
+        } catch (Exception e) {
+            log.error("Error removing off-heap cache entry for city: {}", cityName, e);
+            throw new CacheException("Failed to remove cache entry", e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            index.invalidateAll();
+            if (log.isDebugEnabled()) {
+                log.debug("Off-heap cache cleared");
+            }
+        } catch (Exception e) {
+            log.error("Error clearing off-heap cache", e);
+            throw new CacheException("Failed to clear cache", e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) index.estimatedSize();
+    }
+
+    @Override
+    public long weightBytes() {
+        return index.policy().eviction()
+            .filter(eviction -> eviction.isWeighted())
+            .map(eviction -> eviction.weightedSize().orElse(0))
+            .orElseGet(() -> index.asMap().entrySet().stream()
+                .mapToLong(entry -> weigh(entry.getKey(), entry.getValue()))
+                .sum());
+    }
+
+    /**
+     * Gets the direct memory reserved by the pool, including free blocks.
+     *
+     * @return reserved direct memory in bytes
+     */
+    public long reservedOffHeapBytes() {
+        return arena.reservedBytes();
+    }
+
+    /**
+     * Size of an entry: its block in direct memory plus the key, slot and Caffeine's node on the heap.
+     */
+    private static int weigh(String key, OffHeapSlot slot) {
+        long bytes = Constants.CACHE_NODE_OVERHEAD_BYTES
+            + HeapSizeEstimator.estimate(key)
+            + OffHeapSlot.HEAP_BYTES
+            + slot.block.memory().capacity();
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    /**
+     * Index record of an off-heap entry.
+     * The index holds one reference and each reader holds another while decoding;
+     * the block goes back to the arena when the last reference is released.
+     */
+    private static final class OffHeapSlot {
+
+        // Slot, its reference counter and the block record with its buffer view
+        private static final int HEAP_BYTES = 144;
+
+        private final OffHeapArena arena;
+        private final OffHeapArena.Block block;
+        private final int length;
+        private final long timestamp;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private OffHeapSlot(OffHeapArena arena, OffHeapArena.Block block, int length, long timestamp) {
+            this.arena = arena;
+            this.block = block;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+
+        long timestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Gets a view of the encoded entry. Only valid while a reference is held.
+         */
+        ByteBuffer buffer() {
+            return block.memory().slice(0, length);
+        }
+
+        boolean isValid(long currentTime, long ttlMillis) {
+            return (currentTime - timestamp) < ttlMillis;
+        }
+
+        boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                arena.free(block);
+            }
+        }
+    }
+}
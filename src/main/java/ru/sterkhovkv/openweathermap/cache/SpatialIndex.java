@@ -0,0 +1,269 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.NearbyLookupStats;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Grid index of cached points for nearest-neighbour lookups within a fixed radius.
+ * The globe is split into cells of about radius x radius (never smaller than
+ * {@link Constants#MIN_SPATIAL_CELL_KM}); a lookup only scans the cells around the query point,
+ * wider in longitude towards the poles. Longitude wraps around the antimeridian.
+ * Records hit, miss and distance statistics of lookups. Thread-safe.
+ */
+public class SpatialIndex {
+
+    private final double radiusKm;
+    private final double cellDegrees;
+    private final int lonCells;
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+    private final Map<String, Coordinates> points = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final DoubleAdder hitDistanceSum = new DoubleAdder();
+    private final DoubleAccumulator maxHitDistance = new DoubleAccumulator(Math::max, 0);
+
+    /**
+     * Creates an empty index.
+     *
+     * @param radiusKm search radius in kilometres
+     */
+    public SpatialIndex(double radiusKm) {
+        if (!(radiusKm > 0)) {
+            throw new IllegalArgumentException("radiusKm must be positive");
+        }
+
+        this.radiusKm = radiusKm;
+        this.cellDegrees = Math.max(radiusKm, Constants.MIN_SPATIAL_CELL_KM) / Constants.KM_PER_DEGREE;
+        this.lonCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Adds a point or moves an existing one.
+     *
+     * @param key cache key of the point
+     * @param coordinates coordinates of the point
+     */
+    public void add(String key, Coordinates coordinates) {
+        long cell = cellOf(coordinates);
+        Coordinates previous = points.put(key, coordinates);
+        if (previous != null && cellOf(previous) != cell) {
+            removeFromCell(cellOf(previous), key);
+        }
+        cells.compute(cell, (c, keys) -> {
+            Set<String> cellKeys = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            cellKeys.add(key);
+            return cellKeys;
+        });
+    }
+
+    /**
+     * Removes a point.
+     *
+     * @param key cache key of the point
+     */
+    public void remove(String key) {
+        Coordinates previous = points.remove(key);
+        if (previous != null) {
+            removeFromCell(cellOf(previous), key);
+        }
+    }
+
+    /**
+     * Removes all points. Statistics are kept.
+     */
+    public void clear() {
+        points.clear();
+        cells.clear();
+    }
+
+    /**
+     * Gets the number of indexed points.
+     *
+     * @return number of points
+     */
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * Finds the nearest point within the radius that is accepted by the filter and records the
+     * result in the statistics. Points are tested in order of increasing distance.
+     *
+     * @param coordinates query point
+     * @param filter accepts keys whose entries can be used, e.g. fresh cache entries
+     * @return nearest accepted point, or null if there is none within the radius
+     */
+    public Neighbour findNearest(Coordinates coordinates, Predicate<String> filter) {
+        List<Neighbour> candidates = new ArrayList<>();
+        forEachWithinRadius(coordinates, (key, point, distanceKm) ->
+            candidates.add(new Neighbour(key, point, distanceKm)));
+        candidates.sort(Comparator.comparingDouble(Neighbour::distanceKm));
+
+        for (Neighbour candidate : candidates) {
+            if (filter.test(candidate.key())) {
+                hits.increment();
+                hitDistanceSum.add(candidate.distanceKm());
+                maxHitDistance.accumulate(candidate.distanceKm());
+                return candidate;
+            }
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Collects up to {@code keys.length} nearest points within the radius that are accepted by
+     * the filter, in order of increasing distance. The filter is only called for points that are
+     * closer than the ones already collected. Statistics are not recorded.
+     *
+     * @param coordinates query point
+     * @param filter accepts keys whose entries can be used
+     * @param keys receives the keys of the collected points
+     * @param distancesKm receives the distances of the collected points (same length as keys)
+     * @return number of collected points
+     */
+    public int collectNearest(Coordinates coordinates, Predicate<String> filter, String[] keys, double[] distancesKm) {
+        if (keys.length != distancesKm.length) {
+            throw new IllegalArgumentException("keys and distancesKm must have the same length");
+        }
+
+        int[] count = new int[1];
+        forEachWithinRadius(coordinates, (key, point, distanceKm) -> {
+            int size = count[0];
+            if (size == keys.length && distanceKm >= distancesKm[size - 1]) {
+                return;
+            }
+            if (!filter.test(key)) {
+                return;
+            }
+
+            // Insertion into the sorted arrays, dropping the farthest point when full
+            int i = size == keys.length ? size - 1 : size;
+            while (i > 0 && distancesKm[i - 1] > distanceKm) {
+                keys[i] = keys[i - 1];
+                distancesKm[i] = distancesKm[i - 1];
+                i--;
+            }
+            keys[i] = key;
+            distancesKm[i] = distanceKm;
+            count[0] = Math.min(size + 1, keys.length);
+        });
+        return count[0];
+    }
+
+    /**
+     * Gets lookup statistics since the index was created.
+     *
+     * @return lookup statistics
+     */
+    public NearbyLookupStats getStats() {
+        long hitCount = hits.sum();
+        return new NearbyLookupStats(
+            hitCount,
+            misses.sum(),
+            hitCount == 0 ? 0 : hitDistanceSum.sum() / hitCount,
+            maxHitDistance.get()
+        );
+    }
+
+    private void forEachWithinRadius(Coordinates coordinates, PointVisitor visitor) {
+        int latCell = latCellOf(coordinates.lat());
+        int lonCell = lonCellOf(coordinates.lon());
+        int lonSpan = lonSpanCells(coordinates.lat());
+
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            if (lonSpan * 2 + 1 >= lonCells) {
+                for (int lon = 0; lon < lonCells; lon++) {
+                    visitCell(pack(latCell + dLat, lon), coordinates, visitor);
+                }
+            } else {
+                for (int dLon = -lonSpan; dLon <= lonSpan; dLon++) {
+                    visitCell(pack(latCell + dLat, Math.floorMod(lonCell + dLon, lonCells)), coordinates, visitor);
+                }
+            }
+        }
+    }
+
+    private void visitCell(long cell, Coordinates coordinates, PointVisitor visitor) {
+        Set<String> keys = cells.get(cell);
+        if (keys == null) {
+            return;
+        }
+
+        for (String key : keys) {
+            Coordinates point = points.get(key);
+            if (point == null) {
+                continue;
+            }
+            double distanceKm = coordinates.distanceKm(point);
+            if (distanceKm <= radiusKm) {
+                visitor.visit(key, point, distanceKm);
+            }
+        }
+    }
+
+    /**
+     * Number of longitude cells on each side of the query cell that can contain points within the
+     * radius. A degree of longitude shrinks with cos(latitude), so more cells are scanned near the
+     * poles; the widest latitude of the neighbouring cells is used.
+     */
+    private int lonSpanCells(double lat) {
+        double widestLat = Math.min(90, Math.abs(lat) + cellDegrees);
+        double kmPerLonDegree = Constants.KM_PER_DEGREE * Math.cos(Math.toRadians(widestLat));
+        if (kmPerLonDegree * cellDegrees * lonCells <= radiusKm * 2) {
+            return lonCells;
+        }
+        return (int) Math.ceil(radiusKm / (kmPerLonDegree * cellDegrees));
+    }
+
+    private void removeFromCell(long cell, String key) {
+        cells.computeIfPresent(cell, (c, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private long cellOf(Coordinates coordinates) {
+        return pack(latCellOf(coordinates.lat()), lonCellOf(coordinates.lon()));
+    }
+
+    private int latCellOf(double lat) {
+        return (int) Math.floor((lat + 90) / cellDegrees);
+    }
+
+    private int lonCellOf(double lon) {
+        return Math.floorMod((int) Math.floor((lon + 180) / cellDegrees), lonCells);
+    }
+
+    private static long pack(int latCell, int lonCell) {
+        return ((long) latCell << Integer.SIZE) | (lonCell & 0xFFFFFFFFL);
+    }
+
+    @FunctionalInterface
+    private interface PointVisitor {
+        void visit(String key, Coordinates point, double distanceKm);
+    }
+
+    /**
+     * Point found by a nearest-neighbour lookup.
+     *
+     * @param key         cache key of the point
+     * @param coordinates coordinates of the point
+     * @param distanceKm  distance from the query point in kilometres
+     */
+    public record Neighbour(String key, Coordinates coordinates, double distanceKm) {
+    }
+}
@@ -0,0 +1,21 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+
+/**
+ * Computes the TTL of each cache entry when it is written.
+ * The TTL is stored on the {@link CacheEntry} and used instead of the cache-wide TTL.
+ */
+public interface TtlPolicy {
+
+    /**
+     * Computes the TTL of a new entry.
+     *
+     * @param cityName    cache key of the entry
+     * @param previous    entry being replaced, or null if there is none
+     * @param weatherData new weather data (WeatherDataV2 or WeatherDataV3)
+     * @param timestamp   fetch timestamp of the new entry in milliseconds
+     * @return TTL in milliseconds, or 0 to use the cache-wide TTL
+     */
+    long ttlFor(String cityName, CacheEntry previous, Object weatherData, long timestamp);
+}
@@ -0,0 +1,73 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.WeatherValues;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+/**
+ * Computes the TTL of a cache entry from how much the weather changed since the previous entry.
+ * Volatility is the sum of the temperature change divided by {@link Constants#VOLATILITY_TEMP_DELTA_SCALE},
+ * the wind speed change divided by {@link Constants#VOLATILITY_WIND_DELTA_SCALE}, and 1 if the
+ * condition id changed, capped at 1. The TTL goes linearly from maxTtlMillis (no change)
+ * to minTtlMillis (volatility 1), so stable weather is refreshed less often.
+ */
+public class VolatilityTtlPolicy implements TtlPolicy {
+
+    private final long minTtlMillis;
+    private final long maxTtlMillis;
+
+    /**
+     * Creates a policy.
+     *
+     * @param minTtlMillis TTL of entries whose weather changes quickly, in milliseconds
+     * @param maxTtlMillis TTL of entries whose weather does not change, in milliseconds
+     */
+    public VolatilityTtlPolicy(long minTtlMillis, long maxTtlMillis) {
+        if (minTtlMillis <= 0) {
+            throw new IllegalArgumentException("minTtlMillis must be positive");
+        }
+        if (maxTtlMillis < minTtlMillis) {
+            throw new IllegalArgumentException("maxTtlMillis cannot be less than minTtlMillis");
+        }
+
+        this.minTtlMillis = minTtlMillis;
+        this.maxTtlMillis = maxTtlMillis;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Returns 0 if there is no previous entry to compare with.
+     */
+    @Override
+    public long ttlFor(String cityName, CacheEntry previous, Object weatherData, long timestamp) {
+        if (previous == null) {
+            return 0;
+        }
+
+        double volatility = volatility(previous.weatherData(), weatherData);
+        return maxTtlMillis - Math.round(volatility * (maxTtlMillis - minTtlMillis));
+    }
+
+    /**
+     * Volatility between two observations, from 0 (no change) to 1.
+     * Values missing in either observation are not counted.
+     */
+    static double volatility(Object previousData, Object weatherData) {
+        double volatility = delta(WeatherValues.temp(previousData), WeatherValues.temp(weatherData))
+            / Constants.VOLATILITY_TEMP_DELTA_SCALE
+            + delta(WeatherValues.windSpeed(previousData), WeatherValues.windSpeed(weatherData))
+            / Constants.VOLATILITY_WIND_DELTA_SCALE;
+
+        Integer previousCondition = WeatherValues.conditionId(previousData);
+        Integer condition = WeatherValues.conditionId(weatherData);
+        if (previousCondition != null && condition != null && !previousCondition.equals(condition)) {
+            volatility += 1;
+        }
+        return Math.min(1, volatility);
+    }
+
+    private static double delta(double previous, double current) {
+        double delta = Math.abs(current - previous);
+        return Double.isNaN(delta) ? 0 : delta;
+    }
+}
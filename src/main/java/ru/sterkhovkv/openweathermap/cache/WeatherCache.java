@@ -3,6 +3,7 @@ package ru.sterkhovkv.openweathermap.cache;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
 import ru.sterkhovkv.openweathermap.model.CacheEntry;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.WeatherResponse;
 
 import java.util.List;
 
@@ -19,6 +20,15 @@ public interface WeatherCache {
      */
     CacheEntry get(String cityName);
 
+    /**
+     * Gets weather data from cache even if its TTL has passed (soft-expired),
+     * as long as the entry is still retained by the cache.
+     *
+     * @param cityName city name
+     * @return cached weather data, or null if not found or no longer retained
+     */
+    CacheEntry getStale(String cityName);
+
     /**
      * Puts weather data into cache.
      *
@@ -28,7 +38,32 @@ public interface WeatherCache {
      * @param apiVersion  API version used
      * @param timestamp   timestamp in milliseconds
      */
-    void put(String cityName, Coordinates coordinates, Object weatherData, ApiVersion apiVersion, long timestamp);
+    default void put(String cityName, Coordinates coordinates, Object weatherData,
+                     ApiVersion apiVersion, long timestamp) {
+        put(cityName, coordinates, weatherData, null, apiVersion, timestamp);
+    }
+
+    /**
+     * Puts weather data into cache together with its mapped response.
+     *
+     * @param cityName    city name
+     * @param coordinates city coordinates
+     * @param weatherData weather data (WeatherDataV2 or WeatherDataV3)
+     * @param response    weather data mapped to the SDK response, or null
+     * @param apiVersion  API version used
+     * @param timestamp   timestamp in milliseconds
+     */
+    void put(String cityName, Coordinates coordinates, Object weatherData, WeatherResponse response,
+             ApiVersion apiVersion, long timestamp);
+
+    /**
+     * Puts an entry as is, for example one restored from a snapshot.
+     * Unlike put, the entry keeps its own TTL instead of getting one from the TTL policy.
+     * The entry is ignored if the cache holds newer data for its city.
+     *
+     * @param entry entry to store; {@link CacheEntry#cityName()} is used as the key
+     */
+    void restore(CacheEntry entry);
 
     /**
      * Updates existing cache entry with new weather data.
@@ -38,14 +73,27 @@ public interface WeatherCache {
      * @param apiVersion  API version used
      * @param timestamp   new timestamp
      */
-    void update(String cityName, Object weatherData, ApiVersion apiVersion, long timestamp);
+    default void update(String cityName, Object weatherData, ApiVersion apiVersion, long timestamp) {
+        update(cityName, weatherData, null, apiVersion, timestamp);
+    }
+
+    /**
+     * Updates existing cache entry with new weather data and its mapped response.
+     *
+     * @param cityName    city name
+     * @param weatherData new weather data (WeatherDataV2 or WeatherDataV3)
+     * @param response    new weather data mapped to the SDK response, or null
+     * @param apiVersion  API version used
+     * @param timestamp   new timestamp
+     */
+    void update(String cityName, Object weatherData, WeatherResponse response, ApiVersion apiVersion, long timestamp);
 
     /**
      * Checks if cache entry exists and is valid.
      *
      * @param cityName    city name
      * @param currentTime current timestamp in milliseconds
-     * @param ttlMillis   time-to-live in milliseconds
+     * @param ttlMillis   time-to-live in milliseconds, used if the entry has no TTL of its own
      * @return true if entry exists and is valid, false otherwise
      */
     boolean isValid(String cityName, long currentTime, long ttlMillis);
@@ -83,5 +131,22 @@ public interface WeatherCache {
      * @return number of entries in cache
      */
     int size();
-}
 
+    /**
+     * Gets the estimated memory used by the cached entries, including per-entry bookkeeping.
+     * Default implementation returns -1 (not tracked).
+     *
+     * @return size of all entries in bytes, or -1 if not tracked
+     */
+    default long weightBytes() {
+        return -1;
+    }
+
+    /**
+     * Releases resources held by the cache, such as background threads or files.
+     * The cache must not be used after closing.
+     * Default implementation does nothing.
+     */
+    default void close() {
+    }
+}
@@ -2,9 +2,8 @@ package ru.sterkhovkv.openweathermap.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatusCode;
-import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriBuilder;
 import reactor.core.publisher.Mono;
@@ -15,8 +14,12 @@ import ru.sterkhovkv.openweathermap.exception.SDKException;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
+import java.io.InputStream;
 import java.time.Duration;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Base class for weather API clients with common logic.
@@ -31,11 +34,13 @@ abstract class BaseWeatherApiClient implements WeatherApiClient {
     protected final ApiRateLimiter rateLimiter;
     protected final ObjectMapper objectMapper;
     protected final String apiLabel;
+    private final Duration rateLimitMaxWait;
 
     protected BaseWeatherApiClient(
         String apiKey,
         SDKConfig config,
         ApiRateLimiter rateLimiter,
+        HttpTransport httpTransport,
         String baseUrl,
         String apiLabel) {
 
@@ -48,18 +53,18 @@ abstract class BaseWeatherApiClient implements WeatherApiClient {
         if (rateLimiter == null) {
             throw new IllegalArgumentException("Rate limiter cannot be null");
         }
+        if (httpTransport == null) {
+            throw new IllegalArgumentException("HTTP transport cannot be null");
+        }
 
         this.apiKey = apiKey;
         this.config = config;
         this.rateLimiter = rateLimiter;
         this.objectMapper = new ObjectMapper();
         this.apiLabel = apiLabel;
+        this.rateLimitMaxWait = Duration.ofMillis(config.getRateLimitMaxWaitMillis());
 
-        this.webClient = WebClient.builder()
-            .baseUrl(baseUrl)
-            .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(Constants.WEB_CLIENT_BYTE_BUFFER_SIZE))
-            .build();
+        this.webClient = httpTransport.createWebClient(baseUrl);
     }
 
     @Override
@@ -68,46 +73,100 @@ abstract class BaseWeatherApiClient implements WeatherApiClient {
             throw new IllegalArgumentException("Coordinates cannot be null");
         }
 
-        rateLimiter.checkAndAcquire();
-
-        try {
-            long startTime = System.currentTimeMillis();
-            log.debug("Fetching weather data ({}) for coordinates: lat={}, lon={}, units={}, lang={}",
-                apiLabel, coordinates.lat(), coordinates.lon(), config.getUnits(), config.getLang());
+        return fetchWeatherAsync(coordinates).block();
+    }
 
-            String responseBody = executeRequest(coordinates);
+    @Override
+    public Mono<Object> fetchWeatherAsync(Coordinates coordinates) {
+        if (coordinates == null) {
+            return Mono.error(new IllegalArgumentException("Coordinates cannot be null"));
+        }
 
-            Object weatherData = parseResponse(responseBody);
-            validateResponse(weatherData);
+        return fetch(coordinates, () -> executeRequest(coordinates), this::parseAndValidate);
+    }
 
-            long duration = System.currentTimeMillis() - startTime;
-            log.debug("Weather data ({}) fetched successfully for coordinates: lat={}, lon={}, durationMs={}",
-                apiLabel, coordinates.lat(), coordinates.lon(), duration);
+    /**
+     * Acquires a rate limit permit, waiting up to rateLimitMaxWaitMillis for it,
+     * executes a request and parses its body.
+     * Errors other than SDKException are mapped to NetworkException.
+     *
+     * @param target  requested location, for logging
+     * @param request executes the request
+     * @param parser  parses the response body
+     */
+    protected <T> Mono<T> fetch(Object target, Supplier<Mono<DataBuffer>> request,
+                                Function<DataBuffer, T> parser) {
+        return rateLimiter.acquireAsync(rateLimitMaxWait)
+            .then(Mono.defer(() -> {
+                long startTime = System.currentTimeMillis();
+                log.debug("Fetching weather data ({}) for {}, units={}, lang={}",
+                    apiLabel, target, config.getUnits(), config.getLang());
+
+                return request.get()
+                    .map(parser)
+                    .doOnNext(weatherData -> {
+                        long duration = System.currentTimeMillis() - startTime;
+                        log.debug("Weather data ({}) fetched successfully for {}, durationMs={}",
+                            apiLabel, target, duration);
+                    });
+            }))
+            .onErrorMap(e -> !(e instanceof SDKException), e -> {
+                log.error("Error fetching weather data ({}) for {}", apiLabel, target, e);
+                if (e instanceof TimeoutException) {
+                    return new NetworkException("Request timeout while fetching weather data", e);
+                }
+                return new NetworkException("Failed to fetch weather data", e);
+            });
+    }
 
+    private Object parseAndValidate(DataBuffer responseBody) {
+        return parse(responseBody, stream -> {
+            Object weatherData = parseResponse(stream);
+            validateResponse(weatherData);
             return weatherData;
+        });
+    }
 
+    /**
+     * Parses a response body and releases it.
+     * Errors other than SDKException are mapped to NetworkException.
+     */
+    protected <T> T parse(DataBuffer responseBody, JsonBodies.BodyReader<T> reader) {
+        try {
+            return JsonBodies.read(responseBody, reader);
         } catch (SDKException e) {
             throw e;
         } catch (Exception e) {
-            log.error("Error fetching weather data ({}) for coordinates: lat={}, lon={}",
-                apiLabel, coordinates.lat(), coordinates.lon(), e);
-            if (e instanceof TimeoutException) {
-                throw new NetworkException("Request timeout while fetching weather data", e);
-            }
-            throw new NetworkException("Failed to fetch weather data", e);
+            throw new NetworkException("Failed to parse weather data from " + apiLabel, e);
         }
     }
 
+    /**
+     * Executes HTTP request for coordinates with error handling.
+     */
+    protected Mono<DataBuffer> executeRequest(Coordinates coordinates) {
+        return executeRequest(getEndpoint(), builder -> {
+            builder
+                .queryParam(Constants.QUERY_PARAM_LAT, coordinates.lat())
+                .queryParam(Constants.QUERY_PARAM_LON, coordinates.lon());
+            customizeUri(builder);
+        });
+    }
+
     /**
      * Executes HTTP request with error handling.
+     * The returned Mono emits the raw response body bytes and never blocks the caller.
+     * Error bodies are buffered as a String for ApiErrorMapper.
+     *
+     * @param endpoint       endpoint path
+     * @param locationParams adds the query parameters selecting the location(s)
      */
-    protected String executeRequest(Coordinates coordinates) {
-        String responseBody = webClient.get()
+    protected Mono<DataBuffer> executeRequest(String endpoint, Consumer<UriBuilder> locationParams) {
+        WebClient.ResponseSpec responseSpec = webClient.get()
             .uri(uriBuilder -> {
-                UriBuilder builder = uriBuilder
-                    .path(getEndpoint())
-                    .queryParam(Constants.QUERY_PARAM_LAT, coordinates.lat())
-                    .queryParam(Constants.QUERY_PARAM_LON, coordinates.lon())
+                UriBuilder builder = uriBuilder.path(endpoint);
+                locationParams.accept(builder);
+                builder
                     .queryParam(Constants.QUERY_PARAM_UNITS, config.getUnits().getApiValue())
                     .queryParam(Constants.QUERY_PARAM_APPID, apiKey);
 
@@ -115,8 +174,6 @@ abstract class BaseWeatherApiClient implements WeatherApiClient {
                     builder.queryParam(Constants.QUERY_PARAM_LANG, config.getLang());
                 }
 
-                customizeUri(builder);
-
                 return builder.build();
             })
             .retrieve()
@@ -125,23 +182,18 @@ abstract class BaseWeatherApiClient implements WeatherApiClient {
                     response.statusCode().value(), body))))
             .onStatus(HttpStatusCode::is5xxServerError, response -> Mono.error(new NetworkException(
                 apiLabel + " server error: " + response.statusCode()
-            )))
-            .bodyToMono(String.class)
-            .timeout(Duration.ofSeconds(Constants.DEFAULT_TIMOUT_DURATION))
-            .block();
-
-        if (responseBody == null || responseBody.isBlank()) {
-            throw new NetworkException("Empty response from " + apiLabel);
-        }
+            )));
 
-        return responseBody;
+        return JsonBodies.join(responseSpec.bodyToFlux(DataBuffer.class))
+            .timeout(Duration.ofSeconds(config.getRequestTimeoutSeconds()))
+            .switchIfEmpty(Mono.error(() -> new NetworkException("Empty response from " + apiLabel)));
     }
 
     /**
-     * Parses JSON response to weather data object.
+     * Parses the JSON response body (UTF-8 bytes) to weather data object.
      * Must be implemented by subclasses.
      */
-    protected abstract Object parseResponse(String responseBody) throws Exception;
+    protected abstract Object parseResponse(InputStream responseBody) throws Exception;
 
     /**
      * Validates parsed weather data.
@@ -1,6 +1,11 @@
 package ru.sterkhovkv.openweathermap.client;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.GeocodingEntry;
+
+import java.util.Map;
 
 /**
  * Client for OpenWeather Geocoding API.
@@ -20,5 +25,38 @@ public interface GeocodingClient {
      * @throws ru.sterkhovkv.openweathermap.exception.BadRequestException   if request is invalid
      */
     Coordinates getCoordinates(String cityName);
-}
 
+    /**
+     * Gets coordinates for a city name without blocking the caller.
+     * Errors are signalled through the returned Mono with the same exception types
+     * as {@link #getCoordinates(String)}.
+     * Default implementation runs the blocking lookup on a bounded elastic scheduler.
+     *
+     * @param cityName city name
+     * @return Mono emitting coordinates (lat, lon)
+     */
+    default Mono<Coordinates> getCoordinatesAsync(String cityName) {
+        return Mono.fromCallable(() -> getCoordinates(cityName))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Exports the coordinate cache, for example to save it across restarts.
+     * Default implementation has no cache and returns an empty map.
+     *
+     * @return cached entries keyed by normalized city name
+     */
+    default Map<String, GeocodingEntry> exportCache() {
+        return Map.of();
+    }
+
+    /**
+     * Imports previously exported coordinates into the cache.
+     * Entries keep their original timestamps; entries older than the cache TTL are ignored.
+     * Default implementation has no cache and ignores the entries.
+     *
+     * @param entries cached entries keyed by normalized city name
+     */
+    default void importCache(Map<String, GeocodingEntry> entries) {
+    }
+}
@@ -2,12 +2,11 @@ package ru.sterkhovkv.openweathermap.client;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
-
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatusCode;
-import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import ru.sterkhovkv.openweathermap.config.ApiRateLimiter;
@@ -16,11 +15,14 @@ import ru.sterkhovkv.openweathermap.exception.CityNotFoundException;
 import ru.sterkhovkv.openweathermap.exception.NetworkException;
 import ru.sterkhovkv.openweathermap.exception.SDKException;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.GeocodingEntry;
+import ru.sterkhovkv.openweathermap.util.CacheKeys;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
 import java.time.Duration;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of GeocodingClient using WebClient.
@@ -31,11 +33,16 @@ public class GeocodingClientImpl implements GeocodingClient {
 
     private final WebClient webClient;
     private final String apiKey;
+    private final long requestTimeoutSeconds;
+    private final Duration rateLimitMaxWait;
     private final ApiRateLimiter rateLimiter;
     private final ObjectMapper objectMapper;
-    private final Cache<String, Coordinates> geocodeCache;
+    private final Cache<String, GeocodingEntry> geocodeCache;
+    // Null when negative caching is disabled (negativeCacheTtlMinutes is 0)
+    private final Cache<String, Boolean> notFoundCache;
 
-    public GeocodingClientImpl(String apiKey, SDKConfig config, ApiRateLimiter rateLimiter) {
+    public GeocodingClientImpl(String apiKey, SDKConfig config, ApiRateLimiter rateLimiter,
+                               HttpTransport httpTransport) {
         if (apiKey == null || apiKey.isBlank()) {
             throw new IllegalArgumentException("API key cannot be null or blank");
         }
@@ -45,20 +52,27 @@ public class GeocodingClientImpl implements GeocodingClient {
         if (rateLimiter == null) {
             throw new IllegalArgumentException("Rate limiter cannot be null");
         }
+        if (httpTransport == null) {
+            throw new IllegalArgumentException("HTTP transport cannot be null");
+        }
 
         this.apiKey = apiKey;
+        this.requestTimeoutSeconds = config.getRequestTimeoutSeconds();
+        this.rateLimitMaxWait = Duration.ofMillis(config.getRateLimitMaxWaitMillis());
         this.rateLimiter = rateLimiter;
         this.objectMapper = new ObjectMapper();
         this.geocodeCache = Caffeine.newBuilder()
             .maximumSize(Constants.GEOCODING_CACHE_MAX_SIZE)
-            .expireAfterWrite(Duration.ofHours(Constants.GEOCODING_CACHE_TTL_HOURS))
-            .build();
-
-        this.webClient = WebClient.builder()
-            .baseUrl(Constants.GEOCODING_API_BASE_URL)
-            .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
-            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(Constants.WEB_CLIENT_BYTE_BUFFER_SIZE))
+            .expireAfter(new GeocodingEntryExpiry())
             .build();
+        this.notFoundCache = config.getNegativeCacheTtlMinutes() > 0
+            ? Caffeine.newBuilder()
+                .maximumSize(Constants.GEOCODING_NEGATIVE_CACHE_MAX_SIZE)
+                .expireAfterWrite(Duration.ofMinutes(config.getNegativeCacheTtlMinutes()))
+                .build()
+            : null;
+
+        this.webClient = httpTransport.createWebClient(Constants.GEOCODING_API_BASE_URL);
     }
 
     @Override
@@ -67,21 +81,65 @@ public class GeocodingClientImpl implements GeocodingClient {
             throw new IllegalArgumentException("City name cannot be null or blank");
         }
 
-        String normalizedCity = normalizeCityName(cityName);
+        return getCoordinatesAsync(cityName).block();
+    }
+
+    @Override
+    public Mono<Coordinates> getCoordinatesAsync(String cityName) {
+        if (cityName == null || cityName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("City name cannot be null or blank"));
+        }
+
+        return Mono.defer(() -> {
+            String normalizedCity = CacheKeys.forCity(cityName);
+
+            // Local cache lookup
+            GeocodingEntry cached = geocodeCache.getIfPresent(normalizedCity);
+            if (cached != null) {
+                log.debug("Geocoding cache hit for city: {} -> lat={}, lon={}",
+                    normalizedCity, cached.coordinates().lat(), cached.coordinates().lon());
+                return Mono.just(cached.coordinates());
+            }
+
+            // Cities recently not found fail without spending a rate-limited call
+            if (notFoundCache != null && notFoundCache.getIfPresent(normalizedCity) != null) {
+                log.debug("Negative geocoding cache hit for city: {}", normalizedCity);
+                return Mono.error(new CityNotFoundException("City not found: " + cityName));
+            }
+
+            // Fetch and parse if not in cache
+            Mono<Coordinates> fetched = fetchGeocodingResponse(normalizedCity, cityName)
+                .map(responseBody -> parseAndSelect(cityName, responseBody))
+                .doOnNext(coordinates -> geocodeCache.put(normalizedCity,
+                    new GeocodingEntry(coordinates, System.currentTimeMillis())));
+            return notFoundCache != null
+                ? fetched.doOnError(CityNotFoundException.class, e -> notFoundCache.put(normalizedCity, Boolean.TRUE))
+                : fetched;
+        });
+    }
+
+    @Override
+    public Map<String, GeocodingEntry> exportCache() {
+        return Map.copyOf(geocodeCache.asMap());
+    }
 
-        // Local cache lookup
-        Coordinates cached = geocodeCache.getIfPresent(normalizedCity);
-        if (cached != null) {
-            log.debug("Geocoding cache hit for city: {} -> lat={}, lon={}",
-                normalizedCity, cached.lat(), cached.lon());
-            return cached;
+    @Override
+    public void importCache(Map<String, GeocodingEntry> entries) {
+        if (entries == null) {
+            return;
         }
 
-        // Fetch and parse if not in cache
-        String responseBody = fetchGeocodingResponse(normalizedCity, cityName);
-        Coordinates coordinates = parseAndSelect(cityName, responseBody);
-        geocodeCache.put(normalizedCity, coordinates);
-        return coordinates;
+        long currentTime = System.currentTimeMillis();
+        entries.forEach((cityKey, entry) -> {
+            if (remainingTtlMillis(entry, currentTime) > 0) {
+                geocodeCache.asMap().putIfAbsent(cityKey, entry);
+            }
+        });
+    }
+
+    private static long remainingTtlMillis(GeocodingEntry entry, long currentTime) {
+        long ttlMillis = TimeUnit.HOURS.toMillis(Constants.GEOCODING_CACHE_TTL_HOURS);
+        return ttlMillis - (currentTime - entry.timestamp());
     }
 
     private static Coordinates extractCoordinatesFromResponse(String cityName, List<GeocodingResponse> results) {
@@ -97,49 +155,43 @@ public class GeocodingClientImpl implements GeocodingClient {
         return new Coordinates(firstResult.getLat(), firstResult.getLon());
     }
 
-    private String fetchGeocodingResponse(String normalizedCity, String originalCity) {
-        // Check rate limit before making request
-        rateLimiter.checkAndAcquire();
-
-        try {
-            log.debug("Fetching coordinates for city: {} (normalized: {})", originalCity, normalizedCity);
-
-            String responseBody = webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                    .path(Constants.GEOCODING_DIRECT_ENDPOINT)
-                    .queryParam(Constants.QUERY_PARAM_CITY_NAME, normalizedCity)
-                    .queryParam(Constants.QUERY_PARAM_LIMIT, Constants.GEOCODING_DEFAULT_LIMIT)
-                    .queryParam(Constants.QUERY_PARAM_APPID, apiKey)
-                    .build())
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, response -> response.bodyToMono(String.class)
-                    .flatMap(body -> Mono.error(ApiErrorMapper.mapToSDKException("Geocoding API",
-                        response.statusCode().value(), body))))
-                .onStatus(HttpStatusCode::is5xxServerError, response -> Mono.error(new NetworkException(
-                    "OpenWeather Geocoding API server error: " + response.statusCode()
-                )))
-                .bodyToMono(String.class)
-                .timeout(Duration.ofSeconds(Constants.DEFAULT_TIMOUT_DURATION))
-                .block();
-
-            if (responseBody == null || responseBody.isBlank()) {
-                throw new CityNotFoundException("City not found: " + originalCity);
-            }
-            return responseBody;
-        } catch (SDKException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Error fetching coordinates for city: {}", originalCity, e);
-            throw new NetworkException("Failed to fetch coordinates for city: " + originalCity, e);
-        }
+    private Mono<DataBuffer> fetchGeocodingResponse(String normalizedCity, String originalCity) {
+        // Wait for a rate limit permit before making request
+        return rateLimiter.acquireAsync(rateLimitMaxWait)
+            .then(Mono.defer(() -> {
+                log.debug("Fetching coordinates for city: {} (normalized: {})", originalCity, normalizedCity);
+
+                WebClient.ResponseSpec responseSpec = webClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                        .path(Constants.GEOCODING_DIRECT_ENDPOINT)
+                        .queryParam(Constants.QUERY_PARAM_CITY_NAME, normalizedCity)
+                        .queryParam(Constants.QUERY_PARAM_LIMIT, Constants.GEOCODING_DEFAULT_LIMIT)
+                        .queryParam(Constants.QUERY_PARAM_APPID, apiKey)
+                        .build())
+                    .retrieve()
+                    .onStatus(HttpStatusCode::is4xxClientError, response -> response.bodyToMono(String.class)
+                        .flatMap(body -> Mono.error(ApiErrorMapper.mapToSDKException("Geocoding API",
+                            response.statusCode().value(), body))))
+                    .onStatus(HttpStatusCode::is5xxServerError, response -> Mono.error(new NetworkException(
+                        "OpenWeather Geocoding API server error: " + response.statusCode()
+                    )));
+
+                return JsonBodies.join(responseSpec.bodyToFlux(DataBuffer.class))
+                    .timeout(Duration.ofSeconds(requestTimeoutSeconds));
+            }))
+            .switchIfEmpty(Mono.error(() -> new CityNotFoundException("City not found: " + originalCity)))
+            .onErrorMap(e -> !(e instanceof SDKException), e -> {
+                log.error("Error fetching coordinates for city: {}", originalCity, e);
+                return new NetworkException("Failed to fetch coordinates for city: " + originalCity, e);
+            });
     }
 
-    private Coordinates parseAndSelect(String cityName, String responseBody) {
+    private Coordinates parseAndSelect(String cityName, DataBuffer responseBody) {
         try {
-            List<GeocodingResponse> results = objectMapper.readValue(
-                responseBody,
+            List<GeocodingResponse> results = JsonBodies.read(responseBody, stream -> objectMapper.readValue(
+                stream,
                 objectMapper.getTypeFactory().constructCollectionType(List.class, GeocodingResponse.class)
-            );
+            ));
             Coordinates coordinates = extractCoordinatesFromResponse(cityName, results);
             log.debug("Coordinates found for city {}: lat={}, lon={}", cityName, coordinates.lat(), coordinates.lon());
             return coordinates;
@@ -150,9 +202,30 @@ public class GeocodingClientImpl implements GeocodingClient {
         }
     }
 
-    private static String normalizeCityName(String raw) {
-        String trimmed = raw.trim();
-        String collapsed = trimmed.replaceAll("\\s+", " ");
-        return collapsed.toLowerCase(Locale.ROOT);
+    /**
+     * Expires geocoding entries GEOCODING_CACHE_TTL_HOURS after their fetch timestamp,
+     * so imported entries keep their original age.
+     */
+    private static class GeocodingEntryExpiry implements Expiry<String, GeocodingEntry> {
+
+        @Override
+        public long expireAfterCreate(String key, GeocodingEntry value, long currentTime) {
+            return remainingNanos(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, GeocodingEntry value, long currentTime, long currentDuration) {
+            return remainingNanos(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, GeocodingEntry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private static long remainingNanos(GeocodingEntry value) {
+            long remainingMillis = remainingTtlMillis(value, System.currentTimeMillis());
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
     }
 }
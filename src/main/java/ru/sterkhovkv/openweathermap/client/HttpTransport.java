@@ -0,0 +1,120 @@
+package ru.sterkhovkv.openweathermap.client;
+
+import io.netty.channel.ChannelOption;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.sterkhovkv.openweathermap.config.HttpTransportConfig;
+import ru.sterkhovkv.openweathermap.exception.IllegalSDKStateException;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP transport shared by the API clients: a Reactor Netty connection pool and an HttpClient
+ * configured from {@link HttpTransportConfig}.
+ * One transport can be injected into several SDK instances through SDKConfig.httpTransport,
+ * so they reuse the same connections. An injected transport is not closed by the SDK;
+ * call {@link #close()} after the last SDK instance using it is destroyed.
+ */
+@Slf4j
+public final class HttpTransport implements AutoCloseable {
+
+    @Getter
+    private final HttpTransportConfig config;
+    private final ConnectionProvider connectionProvider;
+    private final ReactorClientHttpConnector connector;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a transport with the default configuration.
+     */
+    public HttpTransport() {
+        this(HttpTransportConfig.defaultConfig());
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param config transport configuration
+     */
+    public HttpTransport(HttpTransportConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.config = config.validate();
+
+        ConnectionProvider.Builder providerBuilder = ConnectionProvider.builder(Constants.HTTP_CONNECTION_POOL_NAME)
+            .maxConnections(config.getMaxConnections())
+            .pendingAcquireMaxCount(config.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(Duration.ofSeconds(config.getPendingAcquireTimeoutSeconds()))
+            .maxIdleTime(Duration.ofSeconds(config.getMaxIdleTimeSeconds()))
+            .evictInBackground(Duration.ofSeconds(config.getMaxIdleTimeSeconds()));
+        if (config.getMaxLifeTimeSeconds() > 0) {
+            providerBuilder.maxLifeTime(Duration.ofSeconds(config.getMaxLifeTimeSeconds()));
+        }
+        this.connectionProvider = providerBuilder.build();
+
+        int connectTimeoutMillis = (int) Math.min(Integer.MAX_VALUE,
+            TimeUnit.SECONDS.toMillis(config.getConnectTimeoutSeconds()));
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+            .option(ChannelOption.SO_KEEPALIVE, config.isKeepAlive())
+            .keepAlive(config.isKeepAlive())
+            .responseTimeout(Duration.ofSeconds(config.getReadTimeoutSeconds()))
+            .compress(config.isCompress());
+        this.connector = new ReactorClientHttpConnector(httpClient);
+
+        log.debug("HTTP transport created: maxConnections={}, pendingAcquireMaxCount={}, keepAlive={}, "
+                + "connectTimeoutSeconds={}, readTimeoutSeconds={}, compress={}",
+            config.getMaxConnections(), config.getPendingAcquireMaxCount(), config.isKeepAlive(),
+            config.getConnectTimeoutSeconds(), config.getReadTimeoutSeconds(), config.isCompress());
+    }
+
+    /**
+     * Creates a WebClient for JSON APIs that sends its requests through this transport.
+     *
+     * @param baseUrl base URL of the API
+     * @return WebClient instance
+     * @throws IllegalSDKStateException if the transport has been closed
+     */
+    public WebClient createWebClient(String baseUrl) {
+        if (closed) {
+            throw new IllegalSDKStateException("HTTP transport has been closed");
+        }
+        return WebClient.builder()
+            .baseUrl(baseUrl)
+            .clientConnector(connector)
+            .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(Constants.WEB_CLIENT_BYTE_BUFFER_SIZE))
+            .build();
+    }
+
+    /**
+     * Checks if the transport has been closed.
+     *
+     * @return true if closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes all pooled connections. WebClients created by this transport can no longer be used.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        connectionProvider.dispose();
+        log.debug("HTTP transport closed");
+    }
+}
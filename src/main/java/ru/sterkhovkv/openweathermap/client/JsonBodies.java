@@ -0,0 +1,62 @@
+package ru.sterkhovkv.openweathermap.client;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.io.InputStream;
+
+/**
+ * Reads JSON response bodies as bytes.
+ * The Netty buffers of a body are joined without copying and handed to Jackson as a byte stream,
+ * so the payload is never decoded into an intermediate String.
+ */
+final class JsonBodies {
+
+    private JsonBodies() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Collects the response body into a single buffer of at most WEB_CLIENT_BYTE_BUFFER_SIZE bytes.
+     * The caller must release the buffer, e.g. with {@link #read(DataBuffer, BodyReader)}.
+     *
+     * @param body body buffers, e.g. from {@code ResponseSpec.bodyToFlux(DataBuffer.class)}
+     * @return Mono with the body, empty if the body has no bytes
+     */
+    static Mono<DataBuffer> join(Flux<DataBuffer> body) {
+        return DataBufferUtils.join(body, Constants.WEB_CLIENT_BYTE_BUFFER_SIZE)
+            .filter(joined -> {
+                if (joined.readableByteCount() > 0) {
+                    return true;
+                }
+                DataBufferUtils.release(joined);
+                return false;
+            })
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    /**
+     * Parses a joined body and releases it.
+     *
+     * @param body   joined body
+     * @param reader parser reading the body stream
+     * @return parsed value
+     */
+    static <T> T read(DataBuffer body, BodyReader<T> reader) throws Exception {
+        try (InputStream stream = body.asInputStream(true)) {
+            return reader.read(stream);
+        }
+    }
+
+    /**
+     * Parses a value from a body stream.
+     */
+    @FunctionalInterface
+    interface BodyReader<T> {
+
+        T read(InputStream stream) throws Exception;
+    }
+}
@@ -0,0 +1,274 @@
+package ru.sterkhovkv.openweathermap.client;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.sterkhovkv.openweathermap.exception.NetworkException;
+import ru.sterkhovkv.openweathermap.model.CompactWeatherData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for LEAN parser mode.
+ * Reads a response token by token and keeps only the fields used by WeatherResponse;
+ * all other values, including nested objects and arrays, are skipped without being materialized.
+ */
+public final class LeanWeatherParser {
+
+    private LeanWeatherParser() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Parses a Current Weather API 2.5 response.
+     *
+     * @param parser parser positioned before the response
+     * @return projected weather data
+     * @throws NetworkException if the response has no main data
+     */
+    public static CompactWeatherData parseV2(JsonParser parser) throws IOException {
+        startObject(parser);
+        CompactWeatherData data = readV2(parser);
+        if (data == null) {
+            throw new NetworkException("Invalid weather data: main data is null");
+        }
+        return data;
+    }
+
+    /**
+     * Parses a Current Weather API 2.5 group response ({@code {"cnt": ..., "list": [...]}}).
+     * Entries without main data are skipped.
+     *
+     * @param parser parser positioned before the response
+     * @return projected weather data of the listed cities
+     */
+    public static List<CompactWeatherData> parseV2Group(JsonParser parser) throws IOException {
+        List<CompactWeatherData> result = new ArrayList<>();
+
+        startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (!"list".equals(field) || parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                CompactWeatherData data = readV2(parser);
+                if (data != null) {
+                    result.add(data);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the fields of a Current Weather API 2.5 object; the parser is positioned at its start.
+     *
+     * @return projected weather data, or null if the object has no main data
+     */
+    private static CompactWeatherData readV2(JsonParser parser) throws IOException {
+        CompactWeatherData data = new CompactWeatherData();
+        boolean hasMain = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "weather" -> readConditions(parser, data);
+                case "main" -> {
+                    hasMain = parser.currentToken() == JsonToken.START_OBJECT;
+                    readMain(parser, data);
+                }
+                case "visibility" -> data.setVisibility(intValue(parser));
+                case "wind" -> readWind(parser, data);
+                case "dt" -> data.setDatetime(longValue(parser));
+                case "sys" -> readSys(parser, data);
+                case "timezone" -> data.setTimezone(intValue(parser));
+                case "name" -> data.setName(textValue(parser));
+                case "id" -> data.setCityId(intValue(parser));
+                default -> parser.skipChildren();
+            }
+        }
+
+        return hasMain ? data : null;
+    }
+
+    /**
+     * Parses a One Call API 3.0 response.
+     *
+     * @param parser parser positioned before the response
+     * @return projected weather data
+     * @throws NetworkException if the response has no current weather
+     */
+    public static CompactWeatherData parseV3(JsonParser parser) throws IOException {
+        CompactWeatherData data = new CompactWeatherData();
+        boolean hasCurrent = false;
+
+        startObject(parser);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "timezone_offset" -> data.setTimezone(intValue(parser));
+                case "current" -> {
+                    hasCurrent = parser.currentToken() == JsonToken.START_OBJECT;
+                    readCurrent(parser, data);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (!hasCurrent) {
+            throw new NetworkException("Invalid weather data: current weather is null");
+        }
+        return data;
+    }
+
+    private static void startObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+    }
+
+    private static void readMain(JsonParser parser, CompactWeatherData data) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "temp" -> data.setTemp(doubleValue(parser));
+                case "feels_like" -> data.setFeelsLike(doubleValue(parser));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readWind(JsonParser parser, CompactWeatherData data) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("speed".equals(field)) {
+                data.setWindSpeed(doubleValue(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readSys(JsonParser parser, CompactWeatherData data) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "sunrise" -> data.setSunrise(longValue(parser));
+                case "sunset" -> data.setSunset(longValue(parser));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readCurrent(JsonParser parser, CompactWeatherData data) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "dt" -> data.setDatetime(longValue(parser));
+                case "sunrise" -> data.setSunrise(longValue(parser));
+                case "sunset" -> data.setSunset(longValue(parser));
+                case "temp" -> data.setTemp(doubleValue(parser));
+                case "feels_like" -> data.setFeelsLike(doubleValue(parser));
+                case "visibility" -> data.setVisibility(intValue(parser));
+                case "wind_speed" -> data.setWindSpeed(doubleValue(parser));
+                case "weather" -> readConditions(parser, data);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads the first weather condition of an array and skips the others.
+     */
+    private static void readConditions(JsonParser parser, CompactWeatherData data) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        boolean first = true;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (first && parser.currentToken() == JsonToken.START_OBJECT) {
+                readCondition(parser, data);
+            } else {
+                parser.skipChildren();
+            }
+            first = false;
+        }
+    }
+
+    private static void readCondition(JsonParser parser, CompactWeatherData data) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> data.setConditionId(intValue(parser));
+                case "main" -> data.setConditionMain(textValue(parser));
+                case "description" -> data.setConditionDescription(textValue(parser));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static double doubleValue(JsonParser parser) throws IOException {
+        if (parser.currentToken().isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        parser.skipChildren();
+        return Double.NaN;
+    }
+
+    private static int intValue(JsonParser parser) throws IOException {
+        if (parser.currentToken().isNumeric()) {
+            return parser.getValueAsInt();
+        }
+        parser.skipChildren();
+        return CompactWeatherData.MISSING_INT;
+    }
+
+    private static long longValue(JsonParser parser) throws IOException {
+        if (parser.currentToken().isNumeric()) {
+            return parser.getValueAsLong();
+        }
+        parser.skipChildren();
+        return CompactWeatherData.MISSING_LONG;
+    }
+
+    private static String textValue(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
@@ -1,8 +1,13 @@
 package ru.sterkhovkv.openweathermap.client;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Common interface for weather API clients (both v2.5 and v3.0).
  * Returns weather data as a generic object that will be converted to WeatherResponse.
@@ -21,6 +26,57 @@ public interface WeatherApiClient {
      */
     Object fetchWeather(Coordinates coordinates);
 
+    /**
+     * Fetches weather data for given coordinates without blocking the caller.
+     * Errors are signalled through the returned Mono with the same exception types
+     * as {@link #fetchWeather(Coordinates)}.
+     * Default implementation runs the blocking fetch on a bounded elastic scheduler.
+     *
+     * @param coordinates geographic coordinates
+     * @return Mono emitting weather data (WeatherDataV2 or WeatherDataV3)
+     */
+    default Mono<Object> fetchWeatherAsync(Coordinates coordinates) {
+        return Mono.fromCallable(() -> fetchWeather(coordinates))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Gets the maximum number of city ids {@link #fetchWeatherByCityIdsAsync(Collection)} accepts
+     * in one call. City ids are reported by the API in earlier responses
+     * (see {@link ru.sterkhovkv.openweathermap.model.WeatherValues#cityId(Object)}).
+     * Default implementation returns 0: the client cannot fetch weather by city id.
+     *
+     * @return maximum number of city ids per call, or 0 if not supported
+     */
+    default int getMaxCityIdBatchSize() {
+        return 0;
+    }
+
+    /**
+     * Fetches weather data for several cities in a single API call.
+     * Blocking wrapper over {@link #fetchWeatherByCityIdsAsync(Collection)}.
+     *
+     * @param cityIds city ids, at most {@link #getMaxCityIdBatchSize()}
+     * @return weather data by city id; ids the API did not return are absent
+     */
+    default Map<Integer, Object> fetchWeatherByCityIds(Collection<Integer> cityIds) {
+        return fetchWeatherByCityIdsAsync(cityIds).block();
+    }
+
+    /**
+     * Fetches weather data for several cities in a single API call, which counts as one call
+     * against the rate limit. Errors are signalled with the same exception types as
+     * {@link #fetchWeather(Coordinates)}.
+     * Default implementation signals UnsupportedOperationException.
+     *
+     * @param cityIds city ids, at most {@link #getMaxCityIdBatchSize()}
+     * @return Mono emitting weather data by city id; ids the API did not return are absent
+     */
+    default Mono<Map<Integer, Object>> fetchWeatherByCityIdsAsync(Collection<Integer> cityIds) {
+        return Mono.error(new UnsupportedOperationException(
+            "Fetching weather by city id is not supported by API " + getApiVersion()));
+    }
+
     /**
      * Gets the API version this client supports.
      *
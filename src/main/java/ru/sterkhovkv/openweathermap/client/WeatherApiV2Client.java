@@ -1,19 +1,39 @@
 package ru.sterkhovkv.openweathermap.client;
 
+import com.fasterxml.jackson.core.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 import ru.sterkhovkv.openweathermap.config.ApiRateLimiter;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.config.ParserMode;
 import ru.sterkhovkv.openweathermap.config.SDKConfig;
 import ru.sterkhovkv.openweathermap.exception.NetworkException;
+import ru.sterkhovkv.openweathermap.model.CompactWeatherData;
+import ru.sterkhovkv.openweathermap.model.WeatherValues;
 import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherGroupV2;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 /**
  * Implementation of WeatherApiClient for OpenWeather Current Weather API 2.5.
+ * Besides single coordinates, fetches up to {@value Constants#WEATHER_API_V2_MAX_GROUP_SIZE} cities
+ * by city id in one group request.
  */
+@Slf4j
 public class WeatherApiV2Client extends BaseWeatherApiClient {
 
-    public WeatherApiV2Client(String apiKey, SDKConfig config, ApiRateLimiter rateLimiter) {
-        super(apiKey, config, rateLimiter, Constants.WEATHER_API_V2_BASE_URL, "Current Weather API");
+    public WeatherApiV2Client(String apiKey, SDKConfig config, ApiRateLimiter rateLimiter,
+                              HttpTransport httpTransport) {
+        super(apiKey, config, rateLimiter, httpTransport, Constants.WEATHER_API_V2_BASE_URL, "Current Weather API");
     }
 
     @Override
@@ -22,12 +42,90 @@ public class WeatherApiV2Client extends BaseWeatherApiClient {
     }
 
     @Override
-    protected Object parseResponse(String responseBody) throws Exception {
+    public int getMaxCityIdBatchSize() {
+        return Constants.WEATHER_API_V2_MAX_GROUP_SIZE;
+    }
+
+    @Override
+    public Mono<Map<Integer, Object>> fetchWeatherByCityIdsAsync(Collection<Integer> cityIds) {
+        Set<Integer> ids;
+        try {
+            ids = validateCityIds(cityIds);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+
+        String idList = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return fetch(
+            "city ids: " + idList,
+            () -> executeRequest(Constants.WEATHER_API_V2_GROUP_ENDPOINT,
+                builder -> builder.queryParam(Constants.QUERY_PARAM_ID, idList)),
+            body -> parse(body, this::parseGroupResponse)
+        );
+    }
+
+    private static Set<Integer> validateCityIds(Collection<Integer> cityIds) {
+        if (cityIds == null || cityIds.isEmpty()) {
+            throw new IllegalArgumentException("City ids cannot be null or empty");
+        }
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Integer cityId : cityIds) {
+            if (cityId == null || cityId <= 0) {
+                throw new IllegalArgumentException("City id must be positive");
+            }
+            ids.add(cityId);
+        }
+        if (ids.size() > Constants.WEATHER_API_V2_MAX_GROUP_SIZE) {
+            throw new IllegalArgumentException(
+                "At most " + Constants.WEATHER_API_V2_MAX_GROUP_SIZE + " city ids can be fetched in one call");
+        }
+        return ids;
+    }
+
+    /**
+     * Parses a group response. Entries without main data or city id are skipped,
+     * so their cities are reported as missing.
+     */
+    private Map<Integer, Object> parseGroupResponse(InputStream responseBody) throws Exception {
+        List<?> entries;
+        if (config.getParserMode() == ParserMode.LEAN) {
+            try (JsonParser parser = objectMapper.createParser(responseBody)) {
+                entries = LeanWeatherParser.parseV2Group(parser);
+            }
+        } else {
+            WeatherGroupV2 group = objectMapper.readValue(responseBody, WeatherGroupV2.class);
+            entries = group != null && group.getList() != null ? group.getList() : List.of();
+        }
+
+        Map<Integer, Object> weatherByCityId = new HashMap<>();
+        for (Object weatherData : entries) {
+            Integer cityId = WeatherValues.cityId(weatherData);
+            if (cityId == null
+                || weatherData instanceof WeatherDataV2 data && data.getMain() == null) {
+                log.debug("Skipping invalid entry of {} group response: cityId={}", apiLabel, cityId);
+                continue;
+            }
+            weatherByCityId.put(cityId, weatherData);
+        }
+        return weatherByCityId;
+    }
+
+    @Override
+    protected Object parseResponse(InputStream responseBody) throws Exception {
+        if (config.getParserMode() == ParserMode.LEAN) {
+            try (JsonParser parser = objectMapper.createParser(responseBody)) {
+                return LeanWeatherParser.parseV2(parser);
+            }
+        }
         return objectMapper.readValue(responseBody, WeatherDataV2.class);
     }
 
     @Override
     protected void validateResponse(Object weatherData) {
+        if (weatherData instanceof CompactWeatherData) {
+            // Required data is checked while parsing
+            return;
+        }
         if (!(weatherData instanceof WeatherDataV2 data)) {
             throw new NetworkException("Invalid weather data type in response");
         }
@@ -1,20 +1,26 @@
 package ru.sterkhovkv.openweathermap.client;
 
+import com.fasterxml.jackson.core.JsonParser;
 import org.springframework.web.util.UriBuilder;
 import ru.sterkhovkv.openweathermap.config.ApiRateLimiter;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.config.ParserMode;
 import ru.sterkhovkv.openweathermap.config.SDKConfig;
 import ru.sterkhovkv.openweathermap.exception.NetworkException;
+import ru.sterkhovkv.openweathermap.model.CompactWeatherData;
 import ru.sterkhovkv.openweathermap.model.v3.WeatherDataV3;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
+import java.io.InputStream;
+
 /**
  * Implementation of WeatherApiClient for OpenWeather One Call API 3.0.
  */
 public class WeatherApiV3Client extends BaseWeatherApiClient {
 
-    public WeatherApiV3Client(String apiKey, SDKConfig config, ApiRateLimiter rateLimiter) {
-        super(apiKey, config, rateLimiter, Constants.WEATHER_API_V3_BASE_URL, "One Call API");
+    public WeatherApiV3Client(String apiKey, SDKConfig config, ApiRateLimiter rateLimiter,
+                              HttpTransport httpTransport) {
+        super(apiKey, config, rateLimiter, httpTransport, Constants.WEATHER_API_V3_BASE_URL, "One Call API");
     }
 
     @Override
@@ -28,12 +34,21 @@ public class WeatherApiV3Client extends BaseWeatherApiClient {
     }
 
     @Override
-    protected Object parseResponse(String responseBody) throws Exception {
+    protected Object parseResponse(InputStream responseBody) throws Exception {
+        if (config.getParserMode() == ParserMode.LEAN) {
+            try (JsonParser parser = objectMapper.createParser(responseBody)) {
+                return LeanWeatherParser.parseV3(parser);
+            }
+        }
         return objectMapper.readValue(responseBody, WeatherDataV3.class);
     }
 
     @Override
     protected void validateResponse(Object weatherData) {
+        if (weatherData instanceof CompactWeatherData) {
+            // Required data is checked while parsing
+            return;
+        }
         if (!(weatherData instanceof WeatherDataV3 data)) {
             throw new NetworkException("Invalid weather data type in response");
         }
@@ -1,110 +1,481 @@
 package ru.sterkhovkv.openweathermap.config;
 
 import lombok.Getter;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import ru.sterkhovkv.openweathermap.exception.ApiRateLimitException;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
+import java.time.Duration;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
 
 /**
  * Rate limiter for API calls to prevent exceeding API quotas.
- * Tracks calls per day and per minute.
+ * Tracks calls per day (reset at midnight UTC) and per minute (a sliding window of the last 60 seconds).
+ * <p>
+ * Lock-free: the per-minute window is a ring of per-second counters and the daily count is a single
+ * counter, all updated with CAS, so acquiring a permit neither blocks nor allocates.
+ * Each ring slot packs the epoch second it counts (upper 32 bits) and the number of calls (lower 32 bits);
+ * a slot holding an older second is reset by the first call that reuses it.
+ * A call is counted first and withdrawn if the window turns out to be over the limit, so the limit is
+ * never exceeded; concurrent calls at the limit may both be rejected.
+ * <p>
+ * {@link #checkAndAcquire()} fails immediately when a limit is reached. {@link #acquire(Duration)} and
+ * {@link #acquireAsync(Duration)} instead wait up to a given time for a permit. Waiting callers are served
+ * in FIFO order: only the oldest waiter retries, when the oldest call leaves the per-minute window,
+ * and a waiter that cannot get a permit before its deadline (e.g. the daily limit is reached) fails at once.
+ * <p>
+ * Each call has a {@link RequestPriority}. BACKGROUND calls leave interactiveReservePercent of both limits
+ * to INTERACTIVE calls: they are rejected (or wait) once the remaining headroom drops to the reserve.
+ * Waiting INTERACTIVE callers are served before waiting BACKGROUND ones.
  */
 public class ApiRateLimiter {
 
+    private static final int WINDOW_SECONDS = (int) (Constants.MILLIS_PER_MINUTE / Constants.MILLIS_PER_SECOND);
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+    private static final int PERCENT = 100;
+
     @Getter
     private final int maxCallsPerDay;
 
     @Getter
     private final int maxCallsPerMinute;
 
-    private final AtomicInteger callsToday = new AtomicInteger(0);
-    private final Queue<Long> callTimestamps = new ConcurrentLinkedQueue<>();
-    private volatile long dayResetTime;
+    @Getter
+    private final int interactiveReservePercent;
+
+    private final int backgroundCallsPerDay;
+    private final int backgroundCallsPerMinute;
+    private final AtomicLongArray secondSlots = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLong dailyCalls = new AtomicLong();
+    private final LongSupplier clock;
+    private final Scheduler timer;
+    private final Queue<Waiter> interactiveWaiters = new ConcurrentLinkedQueue<>();
+    private final Queue<Waiter> backgroundWaiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    /**
+     * Time of the latest scheduled retry of the oldest waiter; accessed only while draining.
+     */
+    private long retryScheduledAt;
 
     public ApiRateLimiter(int maxCallsPerDay, int maxCallsPerMinute) {
+        this(maxCallsPerDay, maxCallsPerMinute, 0);
+    }
+
+    /**
+     * Creates a rate limiter keeping a share of both limits for INTERACTIVE calls.
+     *
+     * @param interactiveReservePercent percentage of each limit (rounded down) BACKGROUND calls cannot use,
+     *                                  from 0 to 99
+     */
+    public ApiRateLimiter(int maxCallsPerDay, int maxCallsPerMinute, int interactiveReservePercent) {
+        this(maxCallsPerDay, maxCallsPerMinute, interactiveReservePercent, System::currentTimeMillis,
+            Schedulers.parallel());
+    }
+
+    /**
+     * Creates a rate limiter reading the time from the given clock.
+     *
+     * @param clock current time in milliseconds since the epoch
+     */
+    ApiRateLimiter(int maxCallsPerDay, int maxCallsPerMinute, LongSupplier clock) {
+        this(maxCallsPerDay, maxCallsPerMinute, 0, clock, Schedulers.parallel());
+    }
+
+    /**
+     * Creates a rate limiter reading the time from the given clock.
+     *
+     * @param clock current time in milliseconds since the epoch
+     * @param timer scheduler running the retries of waiting callers
+     */
+    ApiRateLimiter(int maxCallsPerDay, int maxCallsPerMinute, int interactiveReservePercent, LongSupplier clock,
+                   Scheduler timer) {
         if (maxCallsPerDay <= 0 || maxCallsPerMinute <= 0) {
             throw new IllegalArgumentException("Rate limits must be positive");
         }
+        if (interactiveReservePercent < 0 || interactiveReservePercent > Constants.MAX_INTERACTIVE_RESERVE_PERCENT) {
+            throw new IllegalArgumentException("Interactive reserve must be between 0 and "
+                + Constants.MAX_INTERACTIVE_RESERVE_PERCENT + " percent");
+        }
         this.maxCallsPerDay = maxCallsPerDay;
         this.maxCallsPerMinute = maxCallsPerMinute;
-        this.dayResetTime = calculateNextDayReset();
+        this.interactiveReservePercent = interactiveReservePercent;
+        this.backgroundCallsPerDay = withoutReserve(maxCallsPerDay, interactiveReservePercent);
+        this.backgroundCallsPerMinute = withoutReserve(maxCallsPerMinute, interactiveReservePercent);
+        this.clock = clock;
+        this.timer = timer;
+    }
+
+    private static int withoutReserve(int limit, int reservePercent) {
+        return limit - (int) ((long) limit * reservePercent / PERCENT);
     }
 
     /**
-     * Checks if a new API call can be made and registers it.
+     * Checks if a new INTERACTIVE API call can be made and registers it.
      * Throws ApiRateLimitException if limits are exceeded.
      *
      * @throws ApiRateLimitException if daily or per-minute limit is exceeded
      */
-    public synchronized void checkAndAcquire() {
-        long currentTime = System.currentTimeMillis();
+    public void checkAndAcquire() {
+        checkAndAcquire(RequestPriority.INTERACTIVE);
+    }
 
-        // Reset daily counter if needed
-        if (currentTime >= dayResetTime) {
-            resetDailyCounter();
+    /**
+     * Checks if a new API call of the given priority can be made and registers it.
+     *
+     * @throws ApiRateLimitException if the daily or per-minute limit of the priority is exceeded
+     */
+    public void checkAndAcquire(RequestPriority priority) {
+        long currentTime = clock.getAsLong();
+        if (tryAcquire(currentTime, priority) != 0) {
+            throw limitExceeded(currentTime, priority);
         }
+    }
 
-        // Check daily limit
-        if (callsToday.get() >= maxCallsPerDay) {
-            throw new ApiRateLimitException(
-                String.format("Daily API limit exceeded: %d calls per day", maxCallsPerDay)
-            );
+    /**
+     * Waits for a permit for an INTERACTIVE call, parking the calling thread, if a limit is reached.
+     *
+     * @param maxWait maximum time to wait; zero fails immediately like {@link #checkAndAcquire()}
+     * @throws ApiRateLimitException if no permit becomes available within maxWait,
+     *                               or the thread is interrupted while waiting
+     */
+    public void acquire(Duration maxWait) {
+        acquire(maxWait, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Waits for a permit for a call of the given priority, parking the calling thread, if a limit is reached.
+     * Waiting callers of the same priority get permits in the order they started waiting.
+     *
+     * @param maxWait maximum time to wait; zero fails immediately like {@link #checkAndAcquire(RequestPriority)}
+     * @throws ApiRateLimitException if no permit becomes available within maxWait,
+     *                               or the thread is interrupted while waiting
+     */
+    public void acquire(Duration maxWait, RequestPriority priority) {
+        long maxWaitMillis = toMillis(maxWait);
+        long currentTime = clock.getAsLong();
+        if (noneWaitingAhead(priority) && tryAcquire(currentTime, priority) == 0) {
+            return;
+        }
+        if (maxWaitMillis == 0) {
+            throw limitExceeded(currentTime, priority);
         }
 
-        // Clean up old timestamps (older than 1 minute)
-        cleanupOldTimestamps(currentTime);
+        Waiter waiter = enqueue(currentTime + maxWaitMillis, priority);
+        try {
+            waiter.permit.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (waiter.permit.cancel(false)) {
+                throw limitExceeded(clock.getAsLong(), priority);
+            }
+            awaitOutcome(waiter);
+        } catch (ExecutionException e) {
+            throw (ApiRateLimitException) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (waiter.permit.cancel(false)) {
+                throw new ApiRateLimitException("Interrupted while waiting for an API rate limit permit", e);
+            }
+            awaitOutcome(waiter);
+        }
+    }
 
-        // Check per-minute limit
-        int callsLastMinute = callTimestamps.size();
-        if (callsLastMinute >= maxCallsPerMinute) {
-            throw new ApiRateLimitException(
-                String.format("Per-minute API limit exceeded: %d calls per minute", maxCallsPerMinute)
-            );
+    /**
+     * Returns a Mono that completes when a permit is acquired. If a limit is reached, the Mono is delayed
+     * until a permit becomes available; no thread is blocked while waiting.
+     * The priority of the call is read from the subscriber context (see {@link RequestPriority#asContext()}).
+     * Waiting subscribers of the same priority get permits in the order they subscribed.
+     *
+     * @param maxWait maximum time to wait; zero fails immediately like {@link #checkAndAcquire()}
+     * @return Mono completing empty once a permit is acquired, or signalling ApiRateLimitException
+     *         if no permit becomes available within maxWait
+     */
+    public Mono<Void> acquireAsync(Duration maxWait) {
+        long maxWaitMillis = toMillis(maxWait);
+        return Mono.deferContextual(context -> {
+            RequestPriority priority = RequestPriority.from(context);
+            long currentTime = clock.getAsLong();
+            if (noneWaitingAhead(priority) && tryAcquire(currentTime, priority) == 0) {
+                return Mono.empty();
+            }
+            if (maxWaitMillis == 0) {
+                return Mono.error(limitExceeded(currentTime, priority));
+            }
+
+            Waiter waiter = enqueue(currentTime + maxWaitMillis, priority);
+            return Mono.fromFuture(waiter.permit)
+                .timeout(Duration.ofMillis(maxWaitMillis), Mono.defer(() -> waiter.permit.cancel(false)
+                    ? Mono.error(limitExceeded(clock.getAsLong(), priority))
+                    : Mono.<Void>fromRunnable(() -> awaitOutcome(waiter))), timer);
+        });
+    }
+
+    /**
+     * Returns or throws the outcome of a waiter that was completed before it could give up:
+     * the permit may have been granted, or the waiter may have been failed by {@link #serveWaiters()}.
+     */
+    private static void awaitOutcome(Waiter waiter) {
+        try {
+            waiter.permit.join();
+        } catch (CompletionException e) {
+            throw (ApiRateLimitException) e.getCause();
+        }
+    }
+
+    private static long toMillis(Duration maxWait) {
+        if (maxWait == null || maxWait.isNegative()) {
+            throw new IllegalArgumentException("Max wait cannot be null or negative");
+        }
+        return maxWait.toMillis();
+    }
+
+    /**
+     * Checks that no waiting caller has to be served before a call of the given priority.
+     */
+    private boolean noneWaitingAhead(RequestPriority priority) {
+        return interactiveWaiters.isEmpty()
+            && (priority == RequestPriority.INTERACTIVE || backgroundWaiters.isEmpty());
+    }
+
+    private Waiter enqueue(long deadline, RequestPriority priority) {
+        Waiter waiter = new Waiter(deadline, new CompletableFuture<>());
+        waitersOf(priority).offer(waiter);
+        drain();
+        return waiter;
+    }
+
+    private Queue<Waiter> waitersOf(RequestPriority priority) {
+        return priority == RequestPriority.INTERACTIVE ? interactiveWaiters : backgroundWaiters;
+    }
+
+    /**
+     * Hands out permits to waiters in FIFO order, INTERACTIVE waiters first. Runs on one thread at a time: a call made while
+     * another thread is draining makes that thread drain once more instead.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
         }
+        int missed = 1;
+        do {
+            serveWaiters();
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
 
-        // Register the call
-        callTimestamps.offer(currentTime);
-        callsToday.incrementAndGet();
+    private void serveWaiters() {
+        // BACKGROUND limits are never higher, so BACKGROUND waiters cannot be served while INTERACTIVE ones wait
+        if (serveWaiters(RequestPriority.INTERACTIVE)) {
+            serveWaiters(RequestPriority.BACKGROUND);
+        }
     }
 
     /**
-     * Removes timestamps older than 1 minute.
+     * Serves the waiters of a priority until the oldest one has to wait; schedules its retry.
      *
-     * @param currentTime current timestamp in milliseconds
-     */
-    private void cleanupOldTimestamps(long currentTime) {
-        long oneMinuteAgo = currentTime - Constants.MILLIS_PER_MINUTE;
-        while (!callTimestamps.isEmpty()) {
-            Long oldest = callTimestamps.peek();
-            if (oldest != null && oldest < oneMinuteAgo) {
-                callTimestamps.poll();
-            } else {
+     * @return true if no waiter of the priority is left
+     */
+    private boolean serveWaiters(RequestPriority priority) {
+        Queue<Waiter> waiters = waitersOf(priority);
+        Waiter head;
+        while ((head = waiters.peek()) != null) {
+            if (head.permit.isDone()) {
+                waiters.poll();
+                continue;
+            }
+
+            long currentTime = clock.getAsLong();
+            long delay = tryAcquire(currentTime, priority);
+            if (delay == 0) {
+                waiters.poll();
+                if (!head.permit.complete(null)) {
+                    // The waiter gave up in the meantime
+                    release(currentTime);
+                }
+                continue;
+            }
+            if (currentTime + delay > head.deadline) {
+                waiters.poll();
+                head.permit.completeExceptionally(limitExceeded(currentTime, priority));
+                continue;
+            }
+
+            long retryAt = currentTime + delay;
+            if (retryScheduledAt <= currentTime || retryScheduledAt > retryAt) {
+                retryScheduledAt = retryAt;
+                timer.schedule(this::drain, delay, TimeUnit.MILLISECONDS);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Registers a call if both limits of its priority allow it.
+     *
+     * @return 0 if the call was registered, otherwise the time in milliseconds until a permit
+     *         may become available
+     */
+    private long tryAcquire(long currentTime, RequestPriority priority) {
+        long day = currentTime / Constants.MILLIS_PER_DAY;
+        long second = currentTime / Constants.MILLIS_PER_SECOND;
+
+        if (!tryAcquireDaily(day, dailyLimit(priority))) {
+            return (day + 1) * Constants.MILLIS_PER_DAY - currentTime;
+        }
+
+        if (!tryAcquireSecond(second, minuteLimit(priority))) {
+            releaseDaily(day);
+            return Math.max(1, windowFreesAt(second) - currentTime);
+        }
+        return 0;
+    }
+
+    private void release(long currentTime) {
+        releaseDaily(currentTime / Constants.MILLIS_PER_DAY);
+        releaseSecond(currentTime / Constants.MILLIS_PER_SECOND);
+    }
+
+    private int dailyLimit(RequestPriority priority) {
+        return priority == RequestPriority.INTERACTIVE ? maxCallsPerDay : backgroundCallsPerDay;
+    }
+
+    private int minuteLimit(RequestPriority priority) {
+        return priority == RequestPriority.INTERACTIVE ? maxCallsPerMinute : backgroundCallsPerMinute;
+    }
+
+    private ApiRateLimitException limitExceeded(long currentTime, RequestPriority priority) {
+        String scope = priority == RequestPriority.INTERACTIVE ? "" : " for background requests";
+        long current = dailyCalls.get();
+        if (epochOf(current) >= currentTime / Constants.MILLIS_PER_DAY && countOf(current) >= dailyLimit(priority)) {
+            return new ApiRateLimitException(
+                String.format("Daily API limit exceeded%s: %d calls per day", scope, dailyLimit(priority))
+            );
+        }
+        return new ApiRateLimitException(
+            String.format("Per-minute API limit exceeded%s: %d calls per minute", scope, minuteLimit(priority))
+        );
+    }
+
+    /**
+     * Registers a call in the daily counter unless the given daily limit is reached.
+     * The counter packs the day (upper 32 bits) and the number of calls that day (lower 32 bits).
+     */
+    private boolean tryAcquireDaily(long day, int limit) {
+        while (true) {
+            long current = dailyCalls.get();
+            long countedDay = Math.max(epochOf(current), day);
+            long calls = epochOf(current) == countedDay ? countOf(current) : 0;
+            if (calls >= limit) {
+                return false;
+            }
+            if (dailyCalls.compareAndSet(current, pack(countedDay, calls + 1))) {
+                return true;
+            }
+        }
+    }
+
+    private void releaseDaily(long day) {
+        while (true) {
+            long current = dailyCalls.get();
+            if (epochOf(current) < day || countOf(current) == 0) {
+                return;
+            }
+            if (dailyCalls.compareAndSet(current, current - 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Registers a call in the slot of the current second, then withdraws it if the window is over the given limit.
+     */
+    private boolean tryAcquireSecond(long second, int limit) {
+        int index = slotIndex(second);
+        while (true) {
+            long current = secondSlots.get(index);
+            // A slot already holding a newer second (read by a thread with a later clock) is not reset
+            long next = epochOf(current) >= second ? current + 1 : pack(second, 1);
+            if (secondSlots.compareAndSet(index, current, next)) {
                 break;
             }
         }
+
+        if (callsInWindow(second) <= limit) {
+            return true;
+        }
+        releaseSecond(second);
+        return false;
+    }
+
+    private void releaseSecond(long second) {
+        int index = slotIndex(second);
+        while (true) {
+            long current = secondSlots.get(index);
+            if (epochOf(current) < second || countOf(current) == 0) {
+                return;
+            }
+            if (secondSlots.compareAndSet(index, current, current - 1)) {
+                return;
+            }
+        }
     }
 
     /**
-     * Resets daily counter and updates reset time.
+     * Gets the time when the oldest call in the window ending at the given second leaves it.
      */
-    private void resetDailyCounter() {
-        callsToday.set(0);
-        dayResetTime = calculateNextDayReset();
+    private long windowFreesAt(long second) {
+        long oldest = second;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            long slot = secondSlots.get(i);
+            long slotSecond = epochOf(slot);
+            if (countOf(slot) > 0 && slotSecond < oldest && slotSecond > second - WINDOW_SECONDS) {
+                oldest = slotSecond;
+            }
+        }
+        return (oldest + WINDOW_SECONDS) * Constants.MILLIS_PER_SECOND;
     }
 
     /**
-     * Calculates next day reset time (midnight UTC).
-     *
-     * @return timestamp of next midnight UTC
+     * Sums the calls of the slots that belong to the window ending at the given second.
      */
-    private long calculateNextDayReset() {
-        long now = System.currentTimeMillis();
-        // Calculate milliseconds until next midnight UTC
-        long millisInDay = Constants.MILLIS_PER_DAY;
-        return ((now / millisInDay) + 1) * millisInDay;
+    private long callsInWindow(long second) {
+        long calls = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            long slot = secondSlots.get(i);
+            long slotSecond = epochOf(slot);
+            if (slotSecond <= second && slotSecond > second - WINDOW_SECONDS) {
+                calls += countOf(slot);
+            }
+        }
+        return calls;
+    }
+
+    private static int slotIndex(long second) {
+        return (int) (second % WINDOW_SECONDS);
+    }
+
+    private static long pack(long epoch, long count) {
+        return epoch << 32 | count;
+    }
+
+    private static long epochOf(long packed) {
+        return packed >>> 32;
+    }
+
+    private static long countOf(long packed) {
+        return packed & COUNT_MASK;
     }
 
     /**
@@ -113,7 +484,19 @@ public class ApiRateLimiter {
      * @return number of calls today
      */
     public int getCallsToday() {
-        return callsToday.get();
+        long current = dailyCalls.get();
+        long day = clock.getAsLong() / Constants.MILLIS_PER_DAY;
+        return epochOf(current) >= day ? (int) countOf(current) : 0;
+    }
+
+    /**
+     * Gets the number of calls of the given priority that can still be made today.
+     * For BACKGROUND calls the interactive reserve is not counted.
+     *
+     * @return remaining calls today
+     */
+    public int getRemainingCallsToday(RequestPriority priority) {
+        return Math.max(0, dailyLimit(priority) - getCallsToday());
     }
 
     /**
@@ -122,7 +505,12 @@ public class ApiRateLimiter {
      * @return number of calls in the last minute
      */
     public int getCallsLastMinute() {
-        cleanupOldTimestamps(System.currentTimeMillis());
-        return callTimestamps.size();
+        return (int) callsInWindow(clock.getAsLong() / Constants.MILLIS_PER_SECOND);
+    }
+
+    /**
+     * Caller waiting for a permit until its deadline.
+     */
+    private record Waiter(long deadline, CompletableFuture<Void> permit) {
     }
 }
@@ -0,0 +1,18 @@
+package ru.sterkhovkv.openweathermap.config;
+
+/**
+ * Where the weather cache keeps its entries.
+ */
+public enum CacheStorage {
+
+    /**
+     * Weather data objects on the Java heap (LRUWeatherCache).
+     */
+    HEAP,
+
+    /**
+     * Compact binary encoding of each entry in direct memory, with an on-heap index (OffHeapWeatherCache).
+     * Suited for tracking tens of thousands of cities; each hit decodes the entry.
+     */
+    OFF_HEAP
+}
@@ -0,0 +1,137 @@
+package ru.sterkhovkv.openweathermap.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Configuration of the HTTP transport (connection pool and HTTP client settings)
+ * used by the API clients. See {@link ru.sterkhovkv.openweathermap.client.HttpTransport}.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class HttpTransportConfig {
+
+    /**
+     * Maximum number of open connections in the pool.
+     * Default: 50.
+     */
+    @Builder.Default
+    private int maxConnections = 50;
+
+    /**
+     * Maximum number of requests waiting for a free connection when the pool is exhausted.
+     * Further requests fail immediately.
+     * Default: 500.
+     */
+    @Builder.Default
+    private int pendingAcquireMaxCount = 500;
+
+    /**
+     * Maximum time in seconds a request waits for a free connection.
+     * Default: 10 seconds.
+     */
+    @Builder.Default
+    private long pendingAcquireTimeoutSeconds = 10;
+
+    /**
+     * Time in seconds after which an idle connection is closed.
+     * Idle connections are also evicted in the background at this interval.
+     * Default: 30 seconds.
+     */
+    @Builder.Default
+    private long maxIdleTimeSeconds = 30;
+
+    /**
+     * Maximum lifetime of a connection in seconds, after which it is closed once idle.
+     * 0 means no limit.
+     * Default: 300 seconds.
+     */
+    @Builder.Default
+    private long maxLifeTimeSeconds = 300;
+
+    /**
+     * Whether connections are kept alive and reused between requests (HTTP keep-alive and TCP keep-alive).
+     * Default: true.
+     */
+    @Builder.Default
+    private boolean keepAlive = true;
+
+    /**
+     * Connection timeout in seconds.
+     * Default: 10 seconds.
+     */
+    @Builder.Default
+    private long connectTimeoutSeconds = 10;
+
+    /**
+     * Maximum time in seconds to wait for a response after the request is sent.
+     * Default: 30 seconds.
+     */
+    @Builder.Default
+    private long readTimeoutSeconds = 30;
+
+    /**
+     * Whether compressed (gzip) responses are requested.
+     * Default: true.
+     */
+    @Builder.Default
+    private boolean compress = true;
+
+    /**
+     * Creates a default configuration.
+     *
+     * @return default transport configuration
+     */
+    public static HttpTransportConfig defaultConfig() {
+        return HttpTransportConfig.builder().build().validate();
+    }
+
+    /**
+     * Creates the configuration of the transport an SDK instance uses when none is injected:
+     * default pool settings with the timeouts of the SDK configuration.
+     *
+     * @param config SDK configuration
+     * @return transport configuration
+     */
+    public static HttpTransportConfig fromSdkConfig(SDKConfig config) {
+        return HttpTransportConfig.builder()
+            .connectTimeoutSeconds(config.getConnectTimeoutSeconds())
+            .readTimeoutSeconds(config.getRequestTimeoutSeconds())
+            .build()
+            .validate();
+    }
+
+    /**
+     * Validates configuration values.
+     * Throws IllegalArgumentException if any value is invalid.
+     *
+     * @return this instance for method chaining
+     * @throws IllegalArgumentException if any configuration value is invalid
+     */
+    public HttpTransportConfig validate() {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections must be positive");
+        }
+        if (pendingAcquireMaxCount <= 0) {
+            throw new IllegalArgumentException("pendingAcquireMaxCount must be positive");
+        }
+        if (pendingAcquireTimeoutSeconds <= 0) {
+            throw new IllegalArgumentException("pendingAcquireTimeoutSeconds must be positive");
+        }
+        if (maxIdleTimeSeconds <= 0) {
+            throw new IllegalArgumentException("maxIdleTimeSeconds must be positive");
+        }
+        if (maxLifeTimeSeconds < 0) {
+            throw new IllegalArgumentException("maxLifeTimeSeconds cannot be negative");
+        }
+        if (connectTimeoutSeconds <= 0) {
+            throw new IllegalArgumentException("connectTimeoutSeconds must be positive");
+        }
+        if (readTimeoutSeconds <= 0) {
+            throw new IllegalArgumentException("readTimeoutSeconds must be positive");
+        }
+        return this;
+    }
+}
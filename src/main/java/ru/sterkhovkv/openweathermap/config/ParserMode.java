@@ -0,0 +1,19 @@
+package ru.sterkhovkv.openweathermap.config;
+
+/**
+ * How API responses are decoded.
+ */
+public enum ParserMode {
+
+    /**
+     * Binds the whole response to WeatherDataV2 or WeatherDataV3.
+     * Cached raw data contains every field returned by the API.
+     */
+    FULL,
+
+    /**
+     * Streams the response and keeps only the fields used by WeatherResponse in a CompactWeatherData;
+     * the other fields are skipped without being materialized. Cached raw data is a CompactWeatherData.
+     */
+    LEAN
+}
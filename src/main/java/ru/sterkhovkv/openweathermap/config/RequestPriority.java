@@ -0,0 +1,42 @@
+package ru.sterkhovkv.openweathermap.config;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Priority class of an API call, used by ApiRateLimiter to keep part of the quota for user-facing requests.
+ * The priority of an async call is read from the Reactor context (see {@link #asContext()});
+ * calls without one are INTERACTIVE.
+ */
+public enum RequestPriority {
+
+    /**
+     * Request made on behalf of an SDK caller waiting for the result. May use the whole quota.
+     */
+    INTERACTIVE,
+
+    /**
+     * Polling, background refresh and other work nobody is waiting for. Never uses the share of the quota
+     * reserved for interactive requests (SDKConfig.interactiveReservePercent).
+     */
+    BACKGROUND;
+
+    /**
+     * Gets a Reactor context marking the calls made by a Mono or Flux with this priority.
+     *
+     * @return context to pass to contextWrite
+     */
+    public Context asContext() {
+        return Context.of(RequestPriority.class, this);
+    }
+
+    /**
+     * Gets the priority stored in a Reactor context.
+     *
+     * @param context subscriber context
+     * @return stored priority, or INTERACTIVE if there is none
+     */
+    public static RequestPriority from(ContextView context) {
+        return context.getOrDefault(RequestPriority.class, INTERACTIVE);
+    }
+}
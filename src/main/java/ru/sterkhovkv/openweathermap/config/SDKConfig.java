@@ -3,6 +3,10 @@ package ru.sterkhovkv.openweathermap.config;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import ru.sterkhovkv.openweathermap.client.HttpTransport;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.nio.file.Path;
 
 /**
  * Configuration class for OpenWeatherMap SDK.
@@ -28,19 +32,48 @@ public class SDKConfig {
     private int maxCallsPerMinute = 60;
     
     /**
-     * Request timeout in seconds.
+     * Maximum time in milliseconds an API call waits for a rate limit permit when a limit is reached.
+     * Waiting calls are served in the order they started waiting; the async API waits without blocking
+     * a thread. A call that cannot get a permit in time (e.g. the daily limit is reached) fails with
+     * ApiRateLimitException.
+     * Default: 0 (fail fast: a call over the limit fails immediately).
+     */
+    @Builder.Default
+    private long rateLimitMaxWaitMillis = 0;
+    
+    /**
+     * Percentage of maxCallsPerDay and maxCallsPerMinute (rounded down) reserved for interactive requests
+     * (getWeather and the other SDK methods). Background work (polling, stale-while-revalidate refreshes)
+     * stops making calls once the remaining headroom of either limit drops to the reserve, so it cannot
+     * make user-facing requests fail with ApiRateLimitException. Must be between 0 and 99.
+     * Default: 0 (background work may use the whole quota).
+     */
+    @Builder.Default
+    private int interactiveReservePercent = 0;
+    
+    /**
+     * Request timeout in seconds: the maximum time of a whole API call.
+     * Also used as the read timeout of the HTTP transport the SDK creates when httpTransport is not set.
      * Default: 30 seconds.
      */
     @Builder.Default
     private long requestTimeoutSeconds = 30;
     
     /**
-     * Connection timeout in seconds.
+     * Connection timeout in seconds of the HTTP transport the SDK creates when httpTransport is not set.
      * Default: 10 seconds.
      */
     @Builder.Default
     private long connectTimeoutSeconds = 10;
     
+    /**
+     * HTTP transport (connection pool and HTTP client settings) used for all API calls.
+     * The same transport can be shared by several SDK instances; it is not closed on destroy().
+     * Optional parameter. If not set, the SDK creates its own transport with the default pool settings,
+     * connectTimeoutSeconds and requestTimeoutSeconds, and closes it on destroy().
+     */
+    private HttpTransport httpTransport;
+    
     /**
      * Maximum cache size (number of cities).
      * Default: 10 (as per requirements).
@@ -48,6 +81,16 @@ public class SDKConfig {
     @Builder.Default
     private int cacheSize = 10;
     
+    /**
+     * Maximum memory used by the weather cache in bytes.
+     * When set, entries are weighed by their size (estimated heap size for HEAP storage, encoded size
+     * for OFF_HEAP storage) and the least recently used ones are evicted when the total exceeds it;
+     * cacheSize is then not used for eviction. The current total is reported by getCacheWeightBytes().
+     * Default: 0 (the cache is bounded by cacheSize).
+     */
+    @Builder.Default
+    private long cacheMaxBytes = 0;
+    
     /**
      * Cache time-to-live in minutes.
      * Weather data is considered up-to-date if less than this time has passed.
@@ -56,6 +99,66 @@ public class SDKConfig {
     @Builder.Default
     private long cacheTtlMinutes = 10;
     
+    /**
+     * Where cached weather data is stored.
+     * Default: HEAP. Use OFF_HEAP for very large cache sizes to reduce GC pressure.
+     */
+    @Builder.Default
+    private CacheStorage cacheStorage = CacheStorage.HEAP;
+    
+    /**
+     * Volatility-driven TTL.
+     * When enabled, each refreshed entry gets a TTL between minCacheTtlMinutes and maxCacheTtlMinutes:
+     * the more temperature, wind speed or weather condition changed since the previous value,
+     * the shorter the TTL. Entries cached for the first time use cacheTtlMinutes.
+     * Supported only with HEAP cache storage.
+     * Default: false (all entries use cacheTtlMinutes).
+     */
+    @Builder.Default
+    private boolean variableTtl = false;
+    
+    /**
+     * TTL in minutes of entries whose weather changes quickly. Ignored unless variableTtl is enabled.
+     * Default: 5 minutes.
+     */
+    @Builder.Default
+    private long minCacheTtlMinutes = 5;
+    
+    /**
+     * TTL in minutes of entries whose weather does not change. Ignored unless variableTtl is enabled.
+     * Default: 30 minutes.
+     */
+    @Builder.Default
+    private long maxCacheTtlMinutes = 30;
+    
+    /**
+     * Observation-aligned TTL.
+     * When enabled, an entry stays fresh until the next upstream observation (the dt field) is expected
+     * to be published, instead of for cacheTtlMinutes after the fetch. The interval between observations
+     * is estimated per city. Cannot be combined with variableTtl; supported only with HEAP cache storage.
+     * Default: false.
+     */
+    @Builder.Default
+    private boolean observationAlignedTtl = false;
+    
+    /**
+     * Stale-while-revalidate for ON_DEMAND mode.
+     * When enabled, an entry older than cacheTtlMinutes but younger than maxStalenessMinutes
+     * is returned immediately and a single background refresh is started.
+     * Default: false (expired entries are always fetched synchronously).
+     */
+    @Builder.Default
+    private boolean staleWhileRevalidate = false;
+    
+    /**
+     * Maximum age in minutes of an entry that may still be served in stale-while-revalidate mode.
+     * Older entries are fetched synchronously. Must not be less than cacheTtlMinutes.
+     * Ignored unless staleWhileRevalidate is enabled.
+     * Default: 60 minutes.
+     */
+    @Builder.Default
+    private long maxStalenessMinutes = 60;
+    
     /**
      * Polling interval in minutes.
      * How often the SDK should update weather data in polling mode.
@@ -71,6 +174,18 @@ public class SDKConfig {
     @Builder.Default
     private PollingStrategy pollingStrategy = PollingStrategy.STRICT;
     
+    /**
+     * Quota-aware polling for POLLING mode.
+     * When enabled, the delay until the next tick is planned after every tick from the daily quota left
+     * (maxCallsPerDay without the interactive reserve) and the current number of cached cities, so polling
+     * does not use up the quota before UTC midnight. pollingIntervalMinutes is the shortest interval; if the
+     * quota left does not cover refreshing every city once, polling pauses until midnight.
+     * The planned cadence is reported by OpenWeatherMapSDK.getPollingCadence().
+     * Default: false (fixed pollingIntervalMinutes).
+     */
+    @Builder.Default
+    private boolean quotaAwarePolling = false;
+    
     /**
      * Epsilon in minutes for PREEMPTIVE_EPSILON strategy. If remaining TTL is below this value,
      * the entry will be refreshed on the current tick. Ignored for other strategies.
@@ -79,6 +194,77 @@ public class SDKConfig {
     @Builder.Default
     private long preemptiveEpsilonMinutes = 1;
     
+    /**
+     * Maximum number of concurrent upstream fetches for batch requests.
+     * Effective concurrency never exceeds maxCallsPerMinute.
+     * Default: 8.
+     */
+    @Builder.Default
+    private int batchConcurrency = 8;
+    
+    /**
+     * How long in minutes a city that was not found by the Geocoding API is remembered.
+     * Repeated requests for it fail with CityNotFoundException without an API call.
+     * 0 disables negative caching.
+     * Default: 10 minutes.
+     */
+    @Builder.Default
+    private long negativeCacheTtlMinutes = 10;
+    
+    /**
+     * File where the weather and geocoding caches are saved for a warm restart.
+     * When set, the snapshot is loaded when the SDK is created and saved on destroy().
+     * Restored entries keep their original fetch timestamps.
+     * Optional parameter. If not set, caches start empty.
+     */
+    private Path snapshotPath;
+    
+    /**
+     * Interval in minutes for saving the cache snapshot while the SDK is running.
+     * 0 saves it only on destroy(). Ignored unless snapshotPath is set.
+     * Default: 0.
+     */
+    @Builder.Default
+    private long snapshotIntervalMinutes = 0;
+    
+    /**
+     * Directory for the disk cache tier.
+     * When set, entries evicted from the in-memory cache because of cacheSize are moved to a
+     * memory-mapped file in this directory and moved back to memory when requested again.
+     * Supported only with HEAP cache storage. Each SDK instance creates its own file with a unique name,
+     * so instances may share the directory. The file is deleted on destroy(); files left by a process
+     * that did not shut down cleanly are not reused or removed.
+     * Optional parameter. If not set, evicted entries are dropped.
+     */
+    private Path diskCachePath;
+    
+    /**
+     * Maximum size of the disk cache tier file in megabytes (1 to 2047).
+     * When the file is full, further evicted entries are dropped. Ignored unless diskCachePath is set.
+     * Default: 256.
+     */
+    @Builder.Default
+    private int diskCacheMaxMegabytes = 256;
+    
+    /**
+     * Radius in kilometres within which a coordinate lookup may be answered from the nearest
+     * fresh cached point instead of calling the API (up to 100 km).
+     * Lookups of city names are not affected. 0 disables nearby lookups.
+     * Default: 0.
+     */
+    @Builder.Default
+    private double nearbyCacheRadiusKm = 0;
+    
+    /**
+     * Number of fresh cached points within nearbyCacheRadiusKm used to estimate weather at a
+     * coordinate lookup by inverse distance weighting (2 to 8). The estimate is returned only when
+     * that many points are found, and is flagged with {@code WeatherResponse.isInterpolated()}.
+     * Requires nearbyCacheRadiusKm. 0 disables interpolation.
+     * Default: 0.
+     */
+    @Builder.Default
+    private int interpolationNeighbours = 0;
+    
     /**
      * OpenWeather API version to use.
      * Default: V3_0 (One Call API 3.0).
@@ -87,6 +273,16 @@ public class SDKConfig {
     @Builder.Default
     private ApiVersion apiVersion = ApiVersion.V3_0;
     
+    /**
+     * How API responses are decoded.
+     * FULL binds the whole response to WeatherDataV2/V3 (the raw model is available from cache entries).
+     * LEAN streams the response and keeps only the fields used by WeatherResponse in a CompactWeatherData,
+     * which is faster and keeps cached entries smaller.
+     * Default: FULL.
+     */
+    @Builder.Default
+    private ParserMode parserMode = ParserMode.FULL;
+    
     /**
      * Temperature units for weather data.
      * Default: STANDARD (Kelvin for temperature, meter/sec for wind speed).
@@ -127,18 +323,52 @@ public class SDKConfig {
         if (maxCallsPerMinute <= 0) {
             throw new IllegalArgumentException("maxCallsPerMinute must be positive");
         }
+        if (rateLimitMaxWaitMillis < 0) {
+            throw new IllegalArgumentException("rateLimitMaxWaitMillis cannot be negative");
+        }
+        if (interactiveReservePercent < 0 || interactiveReservePercent > Constants.MAX_INTERACTIVE_RESERVE_PERCENT) {
+            throw new IllegalArgumentException("interactiveReservePercent must be between 0 and "
+                + Constants.MAX_INTERACTIVE_RESERVE_PERCENT);
+        }
         if (requestTimeoutSeconds <= 0) {
             throw new IllegalArgumentException("requestTimeoutSeconds must be positive");
         }
         if (connectTimeoutSeconds <= 0) {
             throw new IllegalArgumentException("connectTimeoutSeconds must be positive");
         }
+        if (httpTransport != null && httpTransport.isClosed()) {
+            throw new IllegalArgumentException("httpTransport has been closed");
+        }
         if (cacheSize <= 0) {
             throw new IllegalArgumentException("cacheSize must be positive");
         }
+        if (cacheMaxBytes < 0) {
+            throw new IllegalArgumentException("cacheMaxBytes cannot be negative");
+        }
         if (cacheTtlMinutes <= 0) {
             throw new IllegalArgumentException("cacheTtlMinutes must be positive");
         }
+        if (cacheStorage == null) {
+            throw new IllegalArgumentException("cacheStorage cannot be null");
+        }
+        if (variableTtl && minCacheTtlMinutes <= 0) {
+            throw new IllegalArgumentException("minCacheTtlMinutes must be positive");
+        }
+        if (variableTtl && (cacheTtlMinutes < minCacheTtlMinutes || cacheTtlMinutes > maxCacheTtlMinutes)) {
+            throw new IllegalArgumentException("cacheTtlMinutes must be between minCacheTtlMinutes and maxCacheTtlMinutes");
+        }
+        if (variableTtl && cacheStorage != CacheStorage.HEAP) {
+            throw new IllegalArgumentException("variableTtl is supported only with HEAP cache storage");
+        }
+        if (observationAlignedTtl && variableTtl) {
+            throw new IllegalArgumentException("observationAlignedTtl cannot be combined with variableTtl");
+        }
+        if (observationAlignedTtl && cacheStorage != CacheStorage.HEAP) {
+            throw new IllegalArgumentException("observationAlignedTtl is supported only with HEAP cache storage");
+        }
+        if (staleWhileRevalidate && maxStalenessMinutes < cacheTtlMinutes) {
+            throw new IllegalArgumentException("maxStalenessMinutes cannot be less than cacheTtlMinutes");
+        }
         if (pollingIntervalMinutes <= 0) {
             throw new IllegalArgumentException("pollingIntervalMinutes must be positive");
         }
@@ -148,9 +378,39 @@ public class SDKConfig {
         if (preemptiveEpsilonMinutes < 0) {
             throw new IllegalArgumentException("preemptiveEpsilonMinutes cannot be negative");
         }
+        if (batchConcurrency <= 0) {
+            throw new IllegalArgumentException("batchConcurrency must be positive");
+        }
+        if (negativeCacheTtlMinutes < 0) {
+            throw new IllegalArgumentException("negativeCacheTtlMinutes cannot be negative");
+        }
+        if (snapshotIntervalMinutes < 0) {
+            throw new IllegalArgumentException("snapshotIntervalMinutes cannot be negative");
+        }
+        if (diskCacheMaxMegabytes <= 0 || diskCacheMaxMegabytes > Constants.MAX_DISK_CACHE_MEGABYTES) {
+            throw new IllegalArgumentException("diskCacheMaxMegabytes must be between 1 and " + Constants.MAX_DISK_CACHE_MEGABYTES);
+        }
+        if (diskCachePath != null && cacheStorage != CacheStorage.HEAP) {
+            throw new IllegalArgumentException("diskCachePath is supported only with HEAP cache storage");
+        }
+        if (!(nearbyCacheRadiusKm >= 0 && nearbyCacheRadiusKm <= Constants.MAX_NEARBY_CACHE_RADIUS_KM)) {
+            throw new IllegalArgumentException(
+                "nearbyCacheRadiusKm must be between 0 and " + Constants.MAX_NEARBY_CACHE_RADIUS_KM);
+        }
+        if (interpolationNeighbours != 0 && (interpolationNeighbours < Constants.MIN_INTERPOLATION_NEIGHBOURS
+            || interpolationNeighbours > Constants.MAX_INTERPOLATION_NEIGHBOURS)) {
+            throw new IllegalArgumentException("interpolationNeighbours must be 0 or between "
+                + Constants.MIN_INTERPOLATION_NEIGHBOURS + " and " + Constants.MAX_INTERPOLATION_NEIGHBOURS);
+        }
+        if (interpolationNeighbours != 0 && nearbyCacheRadiusKm == 0) {
+            throw new IllegalArgumentException("interpolationNeighbours requires nearbyCacheRadiusKm");
+        }
         if (apiVersion == null) {
             throw new IllegalArgumentException("apiVersion cannot be null");
         }
+        if (parserMode == null) {
+            throw new IllegalArgumentException("parserMode cannot be null");
+        }
         if (units == null) {
             throw new IllegalArgumentException("units cannot be null");
         }
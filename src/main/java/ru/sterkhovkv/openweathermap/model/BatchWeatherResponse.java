@@ -0,0 +1,37 @@
+package ru.sterkhovkv.openweathermap.model;
+
+import ru.sterkhovkv.openweathermap.exception.SDKException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of a batch weather request.
+ * Every requested city appears in exactly one of the two maps.
+ *
+ * @param results  Weather responses by city name, in request order.
+ * @param failures Errors by city name, in request order.
+ */
+public record BatchWeatherResponse(
+
+    Map<String, WeatherResponse> results,
+
+    Map<String, SDKException> failures
+
+) {
+
+    public BatchWeatherResponse {
+        results = Collections.unmodifiableMap(new LinkedHashMap<>(results));
+        failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+
+    /**
+     * Checks if any city in the batch failed.
+     *
+     * @return true if at least one city failed, false otherwise
+     */
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
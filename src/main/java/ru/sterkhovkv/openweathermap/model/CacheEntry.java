@@ -5,12 +5,17 @@ import ru.sterkhovkv.openweathermap.config.ApiVersion;
 /**
  * Cache entry for weather data.
  * Stores weather data with timestamp and coordinates for cache management.
+ * The mapped response is built once when the entry is written, so cache hits can return it without mapping.
  *
  * @param cityName    City name.
  * @param coordinates Geographic coordinates of the city.
  * @param weatherData Weather data (WeatherDataV2 or WeatherDataV3).
+ * @param response    Weather data mapped to the SDK response, or null if not mapped yet.
  * @param apiVersion  API version used to fetch this data.
  * @param timestamp   Timestamp when the data was fetched (Unix timestamp in milliseconds).
+ * @param ttlMillis   Time-to-live of this entry in milliseconds, or 0 if the cache-wide TTL applies.
+ * @param weightBytes Estimated size of this entry in a byte-bounded cache, computed once when the entry
+ *                    is written, or 0 if not estimated.
  */
 public record CacheEntry(
 
@@ -20,12 +25,74 @@ public record CacheEntry(
 
     Object weatherData,
 
+    WeatherResponse response,
+
     ApiVersion apiVersion,
 
-    long timestamp
+    long timestamp,
+
+    long ttlMillis,
+
+    int weightBytes
 
 ) {
 
+    /**
+     * Creates a cache entry without a weight estimate.
+     *
+     * @param cityName    City name.
+     * @param coordinates Geographic coordinates of the city.
+     * @param weatherData Weather data (WeatherDataV2 or WeatherDataV3).
+     * @param response    Weather data mapped to the SDK response, or null if not mapped yet.
+     * @param apiVersion  API version used to fetch this data.
+     * @param timestamp   Timestamp when the data was fetched (Unix timestamp in milliseconds).
+     * @param ttlMillis   Time-to-live of this entry in milliseconds, or 0 if the cache-wide TTL applies.
+     */
+    public CacheEntry(String cityName, Coordinates coordinates, Object weatherData, WeatherResponse response,
+                      ApiVersion apiVersion, long timestamp, long ttlMillis) {
+        this(cityName, coordinates, weatherData, response, apiVersion, timestamp, ttlMillis, 0);
+    }
+
+    /**
+     * Creates a cache entry that uses the cache-wide TTL.
+     *
+     * @param cityName    City name.
+     * @param coordinates Geographic coordinates of the city.
+     * @param weatherData Weather data (WeatherDataV2 or WeatherDataV3).
+     * @param response    Weather data mapped to the SDK response, or null if not mapped yet.
+     * @param apiVersion  API version used to fetch this data.
+     * @param timestamp   Timestamp when the data was fetched (Unix timestamp in milliseconds).
+     */
+    public CacheEntry(String cityName, Coordinates coordinates, Object weatherData, WeatherResponse response,
+                      ApiVersion apiVersion, long timestamp) {
+        this(cityName, coordinates, weatherData, response, apiVersion, timestamp, 0);
+    }
+
+    /**
+     * Creates a cache entry without a pre-mapped response.
+     *
+     * @param cityName    City name.
+     * @param coordinates Geographic coordinates of the city.
+     * @param weatherData Weather data (WeatherDataV2 or WeatherDataV3).
+     * @param apiVersion  API version used to fetch this data.
+     * @param timestamp   Timestamp when the data was fetched (Unix timestamp in milliseconds).
+     */
+    public CacheEntry(String cityName, Coordinates coordinates, Object weatherData,
+                      ApiVersion apiVersion, long timestamp) {
+        this(cityName, coordinates, weatherData, null, apiVersion, timestamp);
+    }
+
+    /**
+     * Creates a copy of this entry with the given weight estimate.
+     *
+     * @param weightBytes estimated size of the entry in bytes
+     * @return entry with the weight set
+     */
+    public CacheEntry withWeightBytes(int weightBytes) {
+        return new CacheEntry(cityName, coordinates, weatherData, response, apiVersion, timestamp, ttlMillis,
+            weightBytes);
+    }
+
     /**
      * Checks if the cache entry is still valid (not expired).
      *
@@ -36,5 +103,15 @@ public record CacheEntry(
     public boolean isValid(long currentTime, long ttlMillis) {
         return (currentTime - timestamp) < ttlMillis;
     }
+
+    /**
+     * Gets the TTL that applies to this entry.
+     *
+     * @param defaultTtlMillis cache-wide time-to-live in milliseconds
+     * @return own TTL of the entry if set, otherwise defaultTtlMillis
+     */
+    public long effectiveTtlMillis(long defaultTtlMillis) {
+        return ttlMillis > 0 ? ttlMillis : defaultTtlMillis;
+    }
 }
 
@@ -0,0 +1,37 @@
+package ru.sterkhovkv.openweathermap.model;
+
+import lombok.Data;
+
+/**
+ * Weather data decoded in LEAN parser mode: only the fields used by WeatherResponse,
+ * for both API versions, held in primitive fields.
+ * Missing numbers are NaN (doubles) or {@link #MISSING_INT} / {@link #MISSING_LONG}.
+ */
+@Data
+public class CompactWeatherData {
+
+    public static final int MISSING_INT = Integer.MIN_VALUE;
+    public static final long MISSING_LONG = Long.MIN_VALUE;
+
+    private double temp = Double.NaN;
+    private double feelsLike = Double.NaN;
+    private double windSpeed = Double.NaN;
+    private int visibility = MISSING_INT;
+    private int timezone = MISSING_INT;
+    private int conditionId = MISSING_INT;
+    private long datetime = MISSING_LONG;
+    private long sunrise = MISSING_LONG;
+    private long sunset = MISSING_LONG;
+    private String conditionMain;
+    private String conditionDescription;
+
+    /**
+     * City name returned by the API (Current Weather API 2.5 only).
+     */
+    private String name;
+
+    /**
+     * City id returned by the API (Current Weather API 2.5 only).
+     */
+    private int cityId = MISSING_INT;
+}
@@ -1,5 +1,7 @@
 package ru.sterkhovkv.openweathermap.model;
 
+import ru.sterkhovkv.openweathermap.util.Constants;
+
 /**
  * Geographic coordinates (latitude and longitude).
  *
@@ -13,4 +15,19 @@ public record Coordinates(
     double lon
 
 ) {
+
+    /**
+     * Calculates the great-circle distance to another point (haversine formula).
+     *
+     * @param other other point
+     * @return distance in kilometres
+     */
+    public double distanceKm(Coordinates other) {
+        double dLat = Math.toRadians(other.lat - lat);
+        double dLon = Math.toRadians(other.lon - lon);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(other.lat))
+            * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * Constants.EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
 }
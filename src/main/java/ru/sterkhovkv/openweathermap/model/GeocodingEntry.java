@@ -0,0 +1,16 @@
+package ru.sterkhovkv.openweathermap.model;
+
+/**
+ * Cached geocoding result.
+ *
+ * @param coordinates Geographic coordinates of the city.
+ * @param timestamp   Timestamp when the coordinates were fetched (Unix timestamp in milliseconds).
+ */
+public record GeocodingEntry(
+
+    Coordinates coordinates,
+
+    long timestamp
+
+) {
+}
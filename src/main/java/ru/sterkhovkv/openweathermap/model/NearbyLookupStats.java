@@ -0,0 +1,33 @@
+package ru.sterkhovkv.openweathermap.model;
+
+/**
+ * Statistics of coordinate lookups answered from a nearby cached point.
+ * Only lookups that missed the exact point and searched the neighbourhood are counted.
+ *
+ * @param hits              Lookups answered from a fresh entry within the radius.
+ * @param misses            Lookups that found no fresh entry within the radius.
+ * @param averageDistanceKm Average distance in kilometres to the entry used for a hit (0 if no hits).
+ * @param maxDistanceKm     Largest distance in kilometres to the entry used for a hit (0 if no hits).
+ */
+public record NearbyLookupStats(
+
+    long hits,
+
+    long misses,
+
+    double averageDistanceKm,
+
+    double maxDistanceKm
+
+) {
+
+    /**
+     * Gets the share of neighbourhood searches answered from cache.
+     *
+     * @return hit rate from 0 to 1 (0 if nothing was searched)
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
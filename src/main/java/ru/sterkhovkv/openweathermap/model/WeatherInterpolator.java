@@ -0,0 +1,90 @@
+package ru.sterkhovkv.openweathermap.model;
+
+/**
+ * Estimates weather at a point from cached entries around it using inverse distance weighting
+ * (weight = 1 / distance^2). Temperature, feels-like temperature and wind speed are interpolated;
+ * the other fields are taken from the nearest entry. Values are read from the cached
+ * WeatherDataV2/V3 into primitive arrays, so no intermediate responses are mapped.
+ */
+public final class WeatherInterpolator {
+
+    /**
+     * Distance in kilometres below which a neighbour is treated as the query point itself.
+     */
+    private static final double COINCIDENT_DISTANCE_KM = 1e-6;
+
+    private WeatherInterpolator() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Builds an interpolated response.
+     *
+     * @param neighbours  cached entries, ordered by increasing distance
+     * @param distancesKm distances of the entries from the query point in kilometres
+     * @param count       number of entries to use from the arrays
+     * @return response flagged as {@link WeatherResponse#isInterpolated() interpolated}, without a name
+     */
+    public static WeatherResponse interpolate(CacheEntry[] neighbours, double[] distancesKm, int count) {
+        if (count <= 0 || count > neighbours.length || count > distancesKm.length) {
+            throw new IllegalArgumentException("count must be between 1 and the length of the arrays");
+        }
+
+        double[] weights = new double[count];
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            weights[i] = distancesKm[i] < COINCIDENT_DISTANCE_KM
+                ? Double.POSITIVE_INFINITY
+                : 1 / (distancesKm[i] * distancesKm[i]);
+        }
+
+        for (int i = 0; i < count; i++) {
+            values[i] = WeatherValues.temp(neighbours[i].weatherData());
+        }
+        Double temp = weightedAverage(values, weights, count);
+
+        for (int i = 0; i < count; i++) {
+            values[i] = WeatherValues.feelsLike(neighbours[i].weatherData());
+        }
+        Double feelsLike = weightedAverage(values, weights, count);
+
+        for (int i = 0; i < count; i++) {
+            values[i] = WeatherValues.windSpeed(neighbours[i].weatherData());
+        }
+        Double windSpeed = weightedAverage(values, weights, count);
+
+        CacheEntry nearest = neighbours[0];
+        return WeatherResponseMapper.fromCacheEntry(nearest, null).toBuilder()
+            .temperature(WeatherResponse.TemperatureInfo.builder()
+                .temp(temp)
+                .feelsLike(feelsLike)
+                .build())
+            .wind(windSpeed != null ? WeatherResponse.WindInfo.builder().speed(windSpeed).build() : null)
+            .name(null)
+            .interpolated(true)
+            .build();
+    }
+
+    /**
+     * Weighted average of the values that are not NaN.
+     * An infinite weight (coincident point) makes its value the result.
+     *
+     * @return average, or null if all values are NaN
+     */
+    static Double weightedAverage(double[] values, double[] weights, int count) {
+        double weightedSum = 0;
+        double weightSum = 0;
+        for (int i = 0; i < count; i++) {
+            double value = values[i];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            if (weights[i] == Double.POSITIVE_INFINITY) {
+                return value;
+            }
+            weightedSum += weights[i] * value;
+            weightSum += weights[i];
+        }
+        return weightSum > 0 ? weightedSum / weightSum : null;
+    }
+}
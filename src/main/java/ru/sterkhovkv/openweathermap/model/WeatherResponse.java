@@ -9,7 +9,7 @@ import lombok.Getter;
  * This is the structure returned to SDK users as specified in requirements.
  */
 @Getter
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 public class WeatherResponse {
 
@@ -53,6 +53,12 @@ public class WeatherResponse {
      */
     private String name;
 
+    /**
+     * True if temperature, feels-like temperature and wind speed are estimated from nearby
+     * cached points rather than reported by the API for this location.
+     */
+    private boolean interpolated;
+
     @Getter
     @Builder
     @AllArgsConstructor
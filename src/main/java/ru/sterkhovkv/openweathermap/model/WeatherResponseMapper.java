@@ -5,14 +5,14 @@ import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
 import ru.sterkhovkv.openweathermap.model.v3.WeatherDataV3;
 
 /**
- * Mapper for converting WeatherData (V2 or V3) to WeatherResponse.
+ * Mapper for converting WeatherData (V2, V3 or CompactWeatherData) to WeatherResponse.
  */
 public class WeatherResponseMapper {
 
     /**
      * Converts weather data (V2 or V3) and city name to WeatherResponse.
      *
-     * @param weatherData weather data from API (WeatherDataV2 or WeatherDataV3)
+     * @param weatherData weather data from API (WeatherDataV2, WeatherDataV3 or CompactWeatherData)
      * @param apiVersion  API version used
      * @param cityName    city name
      * @return WeatherResponse for SDK users
@@ -24,6 +24,9 @@ public class WeatherResponseMapper {
         if (apiVersion == null) {
             throw new IllegalArgumentException("API version cannot be null");
         }
+        if (weatherData instanceof CompactWeatherData compactData) {
+            return toResponseCompact(compactData, cityName);
+        }
 
         return switch (apiVersion) {
             case V3_0 -> toResponseV3((WeatherDataV3) weatherData, cityName);
@@ -31,6 +34,33 @@ public class WeatherResponseMapper {
         };
     }
 
+    /**
+     * Returns the response for a cache entry.
+     * Uses the response mapped when the entry was written; a copy is made only when the
+     * requested city name differs from the stored one and the API did not provide a name.
+     *
+     * @param entry    cache entry
+     * @param cityName city name requested by the caller, or null
+     * @return WeatherResponse for SDK users
+     */
+    public static WeatherResponse fromCacheEntry(CacheEntry entry, String cityName) {
+        WeatherResponse response = entry.response();
+        if (response == null) {
+            return toResponse(entry.weatherData(), entry.apiVersion(), cityName);
+        }
+        if (cityName == null || cityName.equals(response.getName()) || hasApiCityName(entry.weatherData())) {
+            return response;
+        }
+        return response.toBuilder().name(cityName).build();
+    }
+
+    private static boolean hasApiCityName(Object weatherData) {
+        if (weatherData instanceof CompactWeatherData compactData) {
+            return compactData.getName() != null;
+        }
+        return weatherData instanceof WeatherDataV2 weatherDataV2 && weatherDataV2.getName() != null;
+    }
+
     /**
      * Converts WeatherDataV3 to WeatherResponse.
      */
@@ -139,4 +169,63 @@ public class WeatherResponseMapper {
             .name(finalCityName)
             .build();
     }
+
+    /**
+     * Converts CompactWeatherData to WeatherResponse.
+     */
+    private static WeatherResponse toResponseCompact(CompactWeatherData weatherData, String cityName) {
+        WeatherResponse.WeatherInfo weatherInfo = null;
+        if (weatherData.getConditionMain() != null || weatherData.getConditionDescription() != null) {
+            weatherInfo = WeatherResponse.WeatherInfo.builder()
+                .main(weatherData.getConditionMain())
+                .description(weatherData.getConditionDescription())
+                .build();
+        }
+
+        WeatherResponse.TemperatureInfo temperatureInfo = WeatherResponse.TemperatureInfo.builder()
+            .temp(valueOf(weatherData.getTemp()))
+            .feelsLike(valueOf(weatherData.getFeelsLike()))
+            .build();
+
+        WeatherResponse.WindInfo windInfo = null;
+        if (!Double.isNaN(weatherData.getWindSpeed())) {
+            windInfo = WeatherResponse.WindInfo.builder()
+                .speed(weatherData.getWindSpeed())
+                .build();
+        }
+
+        WeatherResponse.SystemInfo systemInfo = null;
+        if (weatherData.getSunrise() != CompactWeatherData.MISSING_LONG
+            || weatherData.getSunset() != CompactWeatherData.MISSING_LONG) {
+            systemInfo = WeatherResponse.SystemInfo.builder()
+                .sunrise(valueOf(weatherData.getSunrise()))
+                .sunset(valueOf(weatherData.getSunset()))
+                .build();
+        }
+
+        String finalCityName = weatherData.getName() != null ? weatherData.getName() : cityName;
+
+        return WeatherResponse.builder()
+            .weather(weatherInfo)
+            .temperature(temperatureInfo)
+            .visibility(valueOf(weatherData.getVisibility()))
+            .wind(windInfo)
+            .datetime(valueOf(weatherData.getDatetime()))
+            .sys(systemInfo)
+            .timezone(valueOf(weatherData.getTimezone()))
+            .name(finalCityName)
+            .build();
+    }
+
+    private static Double valueOf(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static Integer valueOf(int value) {
+        return value == CompactWeatherData.MISSING_INT ? null : value;
+    }
+
+    private static Long valueOf(long value) {
+        return value == CompactWeatherData.MISSING_LONG ? null : value;
+    }
 }
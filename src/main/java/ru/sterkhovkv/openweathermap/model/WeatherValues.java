@@ -0,0 +1,136 @@
+package ru.sterkhovkv.openweathermap.model;
+
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.model.v3.WeatherDataV3;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads individual current-weather values from raw API data (WeatherDataV2, WeatherDataV3 or CompactWeatherData)
+ * without mapping it to a response. Missing values are returned as NaN or null.
+ */
+public final class WeatherValues {
+
+    private WeatherValues() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Gets the temperature.
+     *
+     * @param weatherData WeatherDataV2, WeatherDataV3 or CompactWeatherData
+     * @return temperature, or NaN if missing
+     */
+    public static double temp(Object weatherData) {
+        if (weatherData instanceof CompactWeatherData data) {
+            return data.getTemp();
+        }
+        if (weatherData instanceof WeatherDataV2 data) {
+            return data.getMain() != null ? orNaN(data.getMain().getTemp()) : Double.NaN;
+        }
+        if (weatherData instanceof WeatherDataV3 data) {
+            return data.getCurrent() != null ? orNaN(data.getCurrent().getTemp()) : Double.NaN;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Gets the feels-like temperature.
+     *
+     * @param weatherData WeatherDataV2, WeatherDataV3 or CompactWeatherData
+     * @return feels-like temperature, or NaN if missing
+     */
+    public static double feelsLike(Object weatherData) {
+        if (weatherData instanceof CompactWeatherData data) {
+            return data.getFeelsLike();
+        }
+        if (weatherData instanceof WeatherDataV2 data) {
+            return data.getMain() != null ? orNaN(data.getMain().getFeelsLike()) : Double.NaN;
+        }
+        if (weatherData instanceof WeatherDataV3 data) {
+            return data.getCurrent() != null ? orNaN(data.getCurrent().getFeelsLike()) : Double.NaN;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Gets the wind speed.
+     *
+     * @param weatherData WeatherDataV2, WeatherDataV3 or CompactWeatherData
+     * @return wind speed, or NaN if missing
+     */
+    public static double windSpeed(Object weatherData) {
+        if (weatherData instanceof CompactWeatherData data) {
+            return data.getWindSpeed();
+        }
+        if (weatherData instanceof WeatherDataV2 data) {
+            return data.getWind() != null ? orNaN(data.getWind().getSpeed()) : Double.NaN;
+        }
+        if (weatherData instanceof WeatherDataV3 data) {
+            return data.getCurrent() != null ? orNaN(data.getCurrent().getWindSpeed()) : Double.NaN;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Gets the id of the primary weather condition (e.g. 800 for clear sky, 2xx for thunderstorm).
+     *
+     * @param weatherData WeatherDataV2, WeatherDataV3 or CompactWeatherData
+     * @return condition id, or null if missing
+     */
+    public static Integer conditionId(Object weatherData) {
+        if (weatherData instanceof CompactWeatherData data) {
+            return data.getConditionId() != CompactWeatherData.MISSING_INT ? data.getConditionId() : null;
+        }
+        if (weatherData instanceof WeatherDataV2 data) {
+            List<WeatherDataV2.WeatherCondition> conditions = data.getWeather();
+            return conditions != null && !conditions.isEmpty() ? conditions.getFirst().getId() : null;
+        }
+        if (weatherData instanceof WeatherDataV3 data && data.getCurrent() != null) {
+            List<WeatherDataV3.WeatherCondition> conditions = data.getCurrent().getWeather();
+            return conditions != null && !conditions.isEmpty() ? conditions.getFirst().getId() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the upstream observation time (the dt field).
+     *
+     * @param weatherData WeatherDataV2, WeatherDataV3 or CompactWeatherData
+     * @return observation time in milliseconds since the epoch, or 0 if missing
+     */
+    public static long observedAtMillis(Object weatherData) {
+        Long datetime = null;
+        if (weatherData instanceof CompactWeatherData data) {
+            datetime = data.getDatetime() != CompactWeatherData.MISSING_LONG ? data.getDatetime() : null;
+        } else if (weatherData instanceof WeatherDataV2 data) {
+            datetime = data.getDatetime();
+        } else if (weatherData instanceof WeatherDataV3 data && data.getCurrent() != null) {
+            datetime = data.getCurrent().getDatetime();
+        }
+        return datetime != null ? TimeUnit.SECONDS.toMillis(datetime) : 0;
+    }
+
+    /**
+     * Gets the city id (the id field of Current Weather API 2.5 responses).
+     * City ids select cities in group requests, see
+     * {@link ru.sterkhovkv.openweathermap.client.WeatherApiClient#fetchWeatherByCityIdsAsync}.
+     *
+     * @param weatherData WeatherDataV2, WeatherDataV3 or CompactWeatherData
+     * @return city id, or null if missing or not positive (always null for One Call API 3.0)
+     */
+    public static Integer cityId(Object weatherData) {
+        Integer cityId = null;
+        if (weatherData instanceof CompactWeatherData data) {
+            cityId = data.getCityId();
+        } else if (weatherData instanceof WeatherDataV2 data) {
+            cityId = data.getCityId();
+        }
+        return cityId != null && cityId > 0 ? cityId : null;
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.sterkhovkv.openweathermap.model.v2;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Internal model for a group response of OpenWeather Current Weather API 2.5
+ * (current weather for several city ids).
+ * Maps the API response structure.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class WeatherGroupV2 {
+
+    @JsonProperty("cnt")
+    private Integer count;
+
+    @JsonProperty("list")
+    private List<WeatherDataV2> list;
+}
@@ -0,0 +1,96 @@
+package ru.sterkhovkv.openweathermap.scheduler;
+
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+/**
+ * Polling cadence planned by a quota-aware WeatherPollingScheduler after a tick.
+ *
+ * @param intervalMillis          delay until the next regular tick
+ * @param callsPerRefresh         API calls needed to refresh every cached city once
+ * @param remainingCallsToday     calls polling may still make today (without the interactive reserve)
+ * @param refreshesUntilMidnight  full refreshes the remaining calls pay for until UTC midnight
+ * @param nextTickAt              time of the next regular tick in milliseconds since the epoch
+ * @param alignedCallsPerInterval extra calls per interval made by ticks aligned to entries' own TTLs
+ * @param alignedTicks            whether ticks aligned to entries' own TTLs may run; false if the quota
+ *                                does not pay for them
+ */
+public record PollingCadence(
+    long intervalMillis,
+    int callsPerRefresh,
+    int remainingCallsToday,
+    int refreshesUntilMidnight,
+    long nextTickAt,
+    int alignedCallsPerInterval,
+    boolean alignedTicks
+) {
+
+    /**
+     * Plans the interval so the remaining daily calls last until UTC midnight, for cities without their own TTLs.
+     * See {@link #plan(long, long, int, int, long[])}.
+     *
+     * @param currentTime         current time in milliseconds since the epoch
+     * @param minIntervalMillis   configured polling interval, the shortest interval planned
+     * @param callsPerRefresh     API calls needed to refresh every cached city once
+     * @param remainingCallsToday calls polling may still make today
+     * @return planned cadence
+     */
+    public static PollingCadence plan(long currentTime, long minIntervalMillis, int callsPerRefresh,
+                                      int remainingCallsToday) {
+        return plan(currentTime, minIntervalMillis, callsPerRefresh, remainingCallsToday, new long[0]);
+    }
+
+    /**
+     * Plans the interval so the remaining daily calls last until UTC midnight.
+     * The interval is the configured one while the quota allows it, and is stretched otherwise;
+     * if the remaining calls do not pay for a single full refresh, polling pauses until midnight.
+     * An entry whose own TTL is shorter than the interval is refreshed by aligned ticks each time it
+     * expires, which costs calls on top of the regular refresh. Aligned ticks are planned only if the
+     * quota pays for them at the planned interval; otherwise they are disabled and such entries wait
+     * for the regular ticks.
+     *
+     * @param currentTime         current time in milliseconds since the epoch
+     * @param minIntervalMillis   configured polling interval, the shortest interval planned
+     * @param callsPerRefresh     API calls needed to refresh every cached city once
+     * @param remainingCallsToday calls polling may still make today
+     * @param ownTtlsMillis       own TTLs of cached entries refreshed by aligned ticks
+     * @return planned cadence
+     */
+    public static PollingCadence plan(long currentTime, long minIntervalMillis, int callsPerRefresh,
+                                      int remainingCallsToday, long[] ownTtlsMillis) {
+        long untilMidnight = (currentTime / Constants.MILLIS_PER_DAY + 1) * Constants.MILLIS_PER_DAY - currentTime;
+        if (callsPerRefresh == 0) {
+            return new PollingCadence(minIntervalMillis, 0, remainingCallsToday, 0, currentTime + minIntervalMillis,
+                0, true);
+        }
+
+        int refreshes = remainingCallsToday / callsPerRefresh;
+        long intervalMillis = refreshes == 0
+            ? untilMidnight
+            : Math.max(minIntervalMillis, (untilMidnight + refreshes - 1) / refreshes);
+
+        int alignedCalls = alignedCallsPerInterval(intervalMillis, ownTtlsMillis);
+        if (alignedCalls > 0) {
+            int refreshesWithAligned = remainingCallsToday / (callsPerRefresh + alignedCalls);
+            if (refreshesWithAligned > 0 && (long) refreshesWithAligned * intervalMillis >= untilMidnight) {
+                return new PollingCadence(intervalMillis, callsPerRefresh, remainingCallsToday, refreshesWithAligned,
+                    currentTime + intervalMillis, alignedCalls, true);
+            }
+        }
+        return new PollingCadence(intervalMillis, callsPerRefresh, remainingCallsToday, refreshes,
+            currentTime + intervalMillis, 0, alignedCalls == 0);
+    }
+
+    /**
+     * Counts the refreshes that aligned ticks add per interval: an entry with an own TTL shorter than
+     * the interval is refreshed each time it expires instead of once per regular tick.
+     */
+    private static int alignedCallsPerInterval(long intervalMillis, long[] ownTtlsMillis) {
+        long calls = 0;
+        for (long ttlMillis : ownTtlsMillis) {
+            if (ttlMillis > 0 && ttlMillis < intervalMillis) {
+                calls += (intervalMillis + ttlMillis - 1) / ttlMillis - 1;
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, calls);
+    }
+}
@@ -2,11 +2,14 @@ package ru.sterkhovkv.openweathermap.scheduler;
 
 import ru.sterkhovkv.openweathermap.cache.WeatherCache;
 import ru.sterkhovkv.openweathermap.client.WeatherApiClient;
+import ru.sterkhovkv.openweathermap.config.ApiRateLimiter;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
 import ru.sterkhovkv.openweathermap.config.PollingStrategy;
 
 /**
  * Configuration for WeatherPollingScheduler.
+ * With quotaAware set, the interval is planned on every tick from the daily quota left in rateLimiter
+ * (see {@link PollingCadence}); pollingIntervalMinutes is then the shortest interval.
  */
 public record PollingSchedulerConfig(
     WeatherCache cache,
@@ -15,8 +18,17 @@ public record PollingSchedulerConfig(
     long pollingIntervalMinutes,
     long cacheTtlMinutes,
     PollingStrategy pollingStrategy,
-    long preemptiveEpsilonMinutes
+    long preemptiveEpsilonMinutes,
+    ApiRateLimiter rateLimiter,
+    boolean quotaAware
 ) {
+    public PollingSchedulerConfig(WeatherCache cache, WeatherApiClient weatherApiClient, ApiVersion apiVersion,
+                                  long pollingIntervalMinutes, long cacheTtlMinutes, PollingStrategy pollingStrategy,
+                                  long preemptiveEpsilonMinutes) {
+        this(cache, weatherApiClient, apiVersion, pollingIntervalMinutes, cacheTtlMinutes, pollingStrategy,
+            preemptiveEpsilonMinutes, null, false);
+    }
+
     public PollingSchedulerConfig {
         if (cache == null) {
             throw new IllegalArgumentException("Cache cannot be null");
@@ -39,6 +51,9 @@ public record PollingSchedulerConfig(
         if (preemptiveEpsilonMinutes < 0) {
             throw new IllegalArgumentException("Preemptive epsilon cannot be negative");
         }
+        if (quotaAware && rateLimiter == null) {
+            throw new IllegalArgumentException("Rate limiter is required for quota-aware polling");
+        }
     }
 }
 
@@ -6,6 +6,7 @@ import ru.sterkhovkv.openweathermap.model.CacheEntry;
 
 /**
  * Strategy for deciding whether to update a city in polling mode.
+ * Entries with their own TTL (variable TTL) are judged by it instead of the cache-wide TTL.
  */
 final class UpdateDecisionStrategy {
 
@@ -19,7 +20,7 @@ final class UpdateDecisionStrategy {
      * @param cache         weather cache
      * @param cityName      city name
      * @param currentTime   current timestamp in milliseconds
-     * @param ttlMillis     time-to-live in milliseconds
+     * @param ttlMillis     time-to-live in milliseconds, used for entries without their own TTL
      * @param epsilonMillis epsilon in milliseconds for PREEMPTIVE_EPSILON strategy
      * @return true if city should be updated, false otherwise
      */
@@ -33,7 +34,7 @@ final class UpdateDecisionStrategy {
 
         return switch (strategy) {
             case STRICT -> true;
-            case EXPIRED_ONLY -> !cache.isValid(cityName, currentTime, ttlMillis);
+            case EXPIRED_ONLY -> shouldUpdatePreemptive(cache, cityName, currentTime, ttlMillis, 0);
             case PREEMPTIVE_EPSILON -> shouldUpdatePreemptive(cache, cityName, currentTime, ttlMillis, epsilonMillis);
         };
     }
@@ -51,7 +52,7 @@ final class UpdateDecisionStrategy {
         }
 
         long age = currentTime - entry.timestamp();
-        long remaining = ttlMillis - age;
+        long remaining = entry.effectiveTtlMillis(ttlMillis) - age;
         return remaining <= Math.max(0, epsilonMillis);
     }
 }
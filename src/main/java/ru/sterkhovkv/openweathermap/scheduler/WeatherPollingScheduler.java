@@ -1,36 +1,59 @@
 package ru.sterkhovkv.openweathermap.scheduler;
 
 import lombok.extern.slf4j.Slf4j;
+import ru.sterkhovkv.openweathermap.config.PollingStrategy;
+import ru.sterkhovkv.openweathermap.config.RequestPriority;
+import ru.sterkhovkv.openweathermap.exception.ApiRateLimitException;
 import ru.sterkhovkv.openweathermap.exception.NetworkException;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.WeatherResponse;
+import ru.sterkhovkv.openweathermap.model.WeatherResponseMapper;
+import ru.sterkhovkv.openweathermap.model.WeatherValues;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Scheduler for background weather data updates in POLLING mode.
  * Periodically updates expired weather data for all cached cities.
+ * With EXPIRED_ONLY and PREEMPTIVE_EPSILON, entries that have their own TTL (variable or
+ * observation-aligned) and become due before the next regular tick get an extra tick at that moment.
+ * API calls are made with BACKGROUND priority: once the rate limiter rejects one (the headroom reserved
+ * for interactive requests is reached), the tick stops and the remaining cities are deferred to the next one.
+ * In quota-aware mode the delay until the next regular tick is planned after every tick, so the daily quota
+ * left lasts until UTC midnight for the current set of cities (see {@link PollingCadence}).
  */
 @Slf4j
 public class WeatherPollingScheduler {
 
     private final PollingSchedulerConfig config;
     private final ScheduledExecutorService scheduler;
-    private ScheduledFuture<?> pollingTask;
+    private volatile ScheduledFuture<?> pollingTask;
+    private volatile ScheduledFuture<?> alignedTask;
+    private volatile PollingCadence plannedCadence;
     private volatile boolean stopped = false;
 
     public WeatherPollingScheduler(PollingSchedulerConfig config) {
         this.config = Objects.requireNonNull(config, "Config cannot be null");
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
             Thread t = new Thread(r, "WeatherPollingScheduler");
             t.setDaemon(true);
             return t;
         });
+        // Pending aligned ticks must not delay shutdown
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.scheduler = executor;
     }
 
     /**
@@ -45,6 +68,13 @@ public class WeatherPollingScheduler {
 
         stopped = false;
 
+        if (config.quotaAware()) {
+            pollingTask = scheduler.schedule(this::runQuotaAwareTick, 0, TimeUnit.MILLISECONDS);
+            log.info("Polling scheduler started with quota-aware interval of at least {} minutes, strategy: {}",
+                config.pollingIntervalMinutes(), config.pollingStrategy());
+            return;
+        }
+
         pollingTask = scheduler.scheduleWithFixedDelay(
             this::updateExpiredCities,
             0,
@@ -56,6 +86,15 @@ public class WeatherPollingScheduler {
             config.pollingIntervalMinutes(), config.pollingStrategy());
     }
 
+    /**
+     * Gets the cadence planned after the latest regular tick in quota-aware mode.
+     *
+     * @return planned cadence, or null if the scheduler is not quota-aware or no tick has run yet
+     */
+    public PollingCadence getPlannedCadence() {
+        return plannedCadence;
+    }
+
     /**
      * Stops the polling scheduler and releases resources.
      * After stop, this scheduler instance should not be started again.
@@ -71,6 +110,10 @@ public class WeatherPollingScheduler {
             pollingTask.cancel(false);
             pollingTask = null;
         }
+        if (alignedTask != null) {
+            alignedTask.cancel(false);
+            alignedTask = null;
+        }
 
         scheduler.shutdown();
         try {
@@ -87,6 +130,85 @@ public class WeatherPollingScheduler {
         log.info("Polling scheduler stopped");
     }
 
+    /**
+     * Runs a regular tick in quota-aware mode and schedules the next one.
+     */
+    private void runQuotaAwareTick() {
+        updateExpiredCities();
+        if (stopped) {
+            return;
+        }
+
+        long minIntervalMillis = config.pollingIntervalMinutes() * Constants.MILLIS_PER_MINUTE;
+        long intervalMillis = minIntervalMillis;
+        try {
+            List<String> cities = config.cache().getAllCities();
+            PollingCadence cadence = PollingCadence.plan(
+                System.currentTimeMillis(),
+                minIntervalMillis,
+                estimateCallsPerRefresh(cities),
+                config.rateLimiter().getRemainingCallsToday(RequestPriority.BACKGROUND),
+                ownTtlsMillis(cities)
+            );
+            plannedCadence = cadence;
+            intervalMillis = cadence.intervalMillis();
+            if (!cadence.alignedTicks()) {
+                cancelAlignedTick();
+            }
+            log.info("Polling cadence: intervalMinutes={}, callsPerRefresh={}, remainingCallsToday={}, "
+                    + "refreshesUntilMidnight={}, alignedCallsPerInterval={}, alignedTicks={}",
+                intervalMillis / Constants.MILLIS_PER_MINUTE, cadence.callsPerRefresh(),
+                cadence.remainingCallsToday(), cadence.refreshesUntilMidnight(),
+                cadence.alignedCallsPerInterval(), cadence.alignedTicks());
+        } catch (Exception e) {
+            log.error("Error planning polling cadence, using the configured interval", e);
+        }
+        pollingTask = scheduler.schedule(this::runQuotaAwareTick, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Estimates the API calls needed to refresh all given cities once, taking grouping by city id into account.
+     */
+    private int estimateCallsPerRefresh(List<String> cities) {
+        int batchSize = config.weatherApiClient().getMaxCityIdBatchSize();
+        if (batchSize <= 0) {
+            return cities.size();
+        }
+
+        Set<Integer> cityIds = new HashSet<>();
+        int singleCalls = 0;
+        for (String cityName : cities) {
+            Integer cityId = getCachedCityId(cityName);
+            if (cityId != null) {
+                cityIds.add(cityId);
+            } else {
+                singleCalls++;
+            }
+        }
+        return singleCalls + (cityIds.size() + batchSize - 1) / batchSize;
+    }
+
+    /**
+     * Collects the own TTLs of cached entries that aligned ticks refresh; none with the STRICT strategy.
+     */
+    private long[] ownTtlsMillis(List<String> cities) {
+        if (config.pollingStrategy() == PollingStrategy.STRICT) {
+            return new long[0];
+        }
+        return cities.stream()
+            .map(config.cache()::getStale)
+            .filter(entry -> entry != null && entry.ttlMillis() > 0)
+            .mapToLong(CacheEntry::ttlMillis)
+            .toArray();
+    }
+
+    private void cancelAlignedTick() {
+        ScheduledFuture<?> pending = alignedTask;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+    }
+
     /**
      * Updates expired cities in cache.
      */
@@ -112,49 +234,166 @@ public class WeatherPollingScheduler {
             UpdateStats stats = processCities(cities, tickStart, ttlMillis, epsilonMillis);
 
             long durationMs = System.currentTimeMillis() - tickStart;
-            log.info("Polling tick: strategy={}, cities={}, updated={}, failed={}, skipped={}, durationMs={}",
-                config.pollingStrategy(), cities.size(), stats.updated(), stats.failed(),
-                stats.skipped(), durationMs);
+            log.info("Polling tick: strategy={}, cities={}, updated={}, failed={}, skipped={}, deferred={}, "
+                    + "apiCalls={}, durationMs={}", config.pollingStrategy(), cities.size(), stats.updated,
+                stats.failed, stats.skipped, stats.deferred, stats.apiCalls, durationMs);
+
+            scheduleAlignedTick(cities, epsilonMillis);
 
         } catch (Exception e) {
             log.error("Error in polling update cycle", e);
         }
     }
 
+    /**
+     * Schedules an extra tick when the earliest entry with its own TTL becomes due, if that
+     * happens before the next regular tick. Entries already past due wait for the regular tick,
+     * so failing cities are not retried in a loop. In quota-aware mode no tick is scheduled
+     * while the planned cadence does not pay for aligned ticks.
+     */
+    private void scheduleAlignedTick(List<String> cities, long epsilonMillis) {
+        if (stopped || config.pollingStrategy() == PollingStrategy.STRICT) {
+            return;
+        }
+
+        PollingCadence cadence = plannedCadence;
+        if (cadence != null && !cadence.alignedTicks()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long nextTick = cadence != null && cadence.nextTickAt() > now
+            ? cadence.nextTickAt()
+            : now + config.pollingIntervalMinutes() * Constants.MILLIS_PER_MINUTE;
+        long leadMillis = config.pollingStrategy() == PollingStrategy.PREEMPTIVE_EPSILON ? epsilonMillis : 0;
+        long earliest = nextTick;
+        for (String cityName : cities) {
+            CacheEntry entry = config.cache().getStale(cityName);
+            if (entry == null || entry.ttlMillis() <= 0) {
+                continue;
+            }
+            long dueAt = entry.timestamp() + entry.ttlMillis() - leadMillis;
+            if (dueAt > now && dueAt < earliest) {
+                earliest = dueAt;
+            }
+        }
+        if (earliest == nextTick) {
+            return;
+        }
+
+        long delayMillis = earliest - now;
+        ScheduledFuture<?> pending = alignedTask;
+        if (pending != null && !pending.isDone()) {
+            if (pending.getDelay(TimeUnit.MILLISECONDS) <= delayMillis) {
+                return;
+            }
+            pending.cancel(false);
+        }
+        alignedTask = scheduler.schedule(this::updateExpiredCities, delayMillis, TimeUnit.MILLISECONDS);
+        log.debug("Aligned polling tick scheduled in {} ms", delayMillis);
+    }
+
     /**
      * Processes all cities and returns update statistics.
+     * Due cities whose city id is known from their cached data are refreshed in groups of
+     * up to getMaxCityIdBatchSize() ids per API call, if the client supports it; the others
+     * (and cities missing from a group response) are refreshed one call each.
+     * Once a call is rejected by the rate limiter, the remaining due cities are deferred.
      */
     private UpdateStats processCities(List<String> cities, long currentTime, long ttlMillis, long epsilonMillis) {
-        int updated = 0;
-        int failed = 0;
-        int skipped = 0;
+        UpdateStats stats = new UpdateStats();
+        int batchSize = config.weatherApiClient().getMaxCityIdBatchSize();
+        Map<Integer, List<String>> citiesById = new LinkedHashMap<>();
+        List<String> singleCities = new ArrayList<>();
 
         for (String cityName : cities) {
+            if (!shouldUpdateCity(cityName, currentTime, ttlMillis, epsilonMillis)) {
+                stats.record(UpdateResult.SKIPPED);
+                continue;
+            }
+            Integer cityId = batchSize > 0 ? getCachedCityId(cityName) : null;
+            if (cityId != null) {
+                citiesById.computeIfAbsent(cityId, id -> new ArrayList<>()).add(cityName);
+            } else {
+                singleCities.add(cityName);
+            }
+        }
+
+        List<Integer> cityIds = new ArrayList<>(citiesById.keySet());
+        for (int from = 0; from < cityIds.size() && !stopped; from += batchSize) {
+            List<Integer> group = cityIds.subList(from, Math.min(from + batchSize, cityIds.size()));
+            if (stats.deferred > 0) {
+                recordGroup(group, citiesById, UpdateResult.DEFERRED, stats);
+            } else {
+                updateGroup(group, citiesById, singleCities, currentTime, stats);
+            }
+        }
+
+        for (String cityName : singleCities) {
             if (stopped) {
                 break;
             }
+            if (stats.deferred > 0) {
+                stats.record(UpdateResult.DEFERRED);
+                continue;
+            }
+            stats.apiCalls++;
+            stats.record(updateSingleCity(cityName, currentTime));
+        }
 
-            UpdateResult result = updateSingleCity(cityName, currentTime, ttlMillis, epsilonMillis);
-            switch (result) {
-                case UPDATED -> updated++;
-                case FAILED -> failed++;
-                case SKIPPED -> skipped++;
+        return stats;
+    }
+
+    /**
+     * Refreshes the cities of a group of city ids with one API call.
+     * Cities the response does not contain are added to singleCities.
+     */
+    private void updateGroup(List<Integer> cityIds, Map<Integer, List<String>> citiesById,
+                             List<String> singleCities, long currentTime, UpdateStats stats) {
+        Map<Integer, Object> weatherByCityId;
+        try {
+            log.debug("Updating weather data for {} city ids in one call", cityIds.size());
+            stats.apiCalls++;
+            weatherByCityId = config.weatherApiClient().fetchWeatherByCityIdsAsync(cityIds)
+                .contextWrite(RequestPriority.BACKGROUND.asContext())
+                .block();
+        } catch (ApiRateLimitException e) {
+            log.info("Polling yields to interactive requests: {}", e.getMessage());
+            recordGroup(cityIds, citiesById, UpdateResult.DEFERRED, stats);
+            return;
+        } catch (Exception e) {
+            if (e instanceof NetworkException) {
+                log.warn("Failed to update weather for city ids {}: {}", cityIds, e.getMessage());
+            } else {
+                log.error("Unexpected error updating weather for city ids: {}", cityIds, e);
             }
+            recordGroup(cityIds, citiesById, UpdateResult.FAILED, stats);
+            return;
         }
 
-        return new UpdateStats(updated, failed, skipped);
+        for (Integer cityId : cityIds) {
+            Object weatherData = weatherByCityId != null ? weatherByCityId.get(cityId) : null;
+            for (String cityName : citiesById.get(cityId)) {
+                if (weatherData == null) {
+                    singleCities.add(cityName);
+                } else {
+                    stats.record(storeWeather(cityName, weatherData, currentTime));
+                }
+            }
+        }
+    }
+
+    private static void recordGroup(List<Integer> cityIds, Map<Integer, List<String>> citiesById,
+                                    UpdateResult result, UpdateStats stats) {
+        cityIds.forEach(cityId -> citiesById.get(cityId).forEach(city -> stats.record(result)));
     }
 
     /**
-     * Updates a single city if needed.
+     * Updates a single city with its own API call.
      *
      * @return update result
      */
-    private UpdateResult updateSingleCity(String cityName, long currentTime, long ttlMillis, long epsilonMillis) {
-        if (!shouldUpdateCity(cityName, currentTime, ttlMillis, epsilonMillis)) {
-            return UpdateResult.SKIPPED;
-        }
-
+    private UpdateResult updateSingleCity(String cityName, long currentTime) {
         Coordinates coordinates = config.cache().getCoordinates(cityName);
         if (coordinates == null) {
             log.warn("Coordinates not found in cache for city: {}, removing", cityName);
@@ -164,10 +403,14 @@ public class WeatherPollingScheduler {
 
         try {
             log.debug("Updating weather data for city: {}", cityName);
-            Object weatherData = config.weatherApiClient().fetchWeather(coordinates);
-            config.cache().update(cityName, weatherData, config.apiVersion(), currentTime);
-            return UpdateResult.UPDATED;
-
+            Object weatherData = config.weatherApiClient().fetchWeatherAsync(coordinates)
+                .contextWrite(RequestPriority.BACKGROUND.asContext())
+                .block();
+            return storeWeather(cityName, weatherData, currentTime);
+
+        } catch (ApiRateLimitException e) {
+            log.info("Polling yields to interactive requests: {}", e.getMessage());
+            return UpdateResult.DEFERRED;
         } catch (NetworkException e) {
             log.warn("Failed to update weather for city {}: {}", cityName, e.getMessage());
             return UpdateResult.FAILED;
@@ -177,6 +420,37 @@ public class WeatherPollingScheduler {
         }
     }
 
+    private UpdateResult storeWeather(String cityName, Object weatherData, long currentTime) {
+        try {
+            WeatherResponse response = WeatherResponseMapper.toResponse(
+                weatherData, config.apiVersion(), getCachedResponseName(cityName));
+            config.cache().update(cityName, weatherData, response, config.apiVersion(), currentTime);
+            return UpdateResult.UPDATED;
+        } catch (Exception e) {
+            log.error("Unexpected error updating weather for city: {}", cityName, e);
+            return UpdateResult.FAILED;
+        }
+    }
+
+    /**
+     * Gets the city id reported by the API in the currently cached data.
+     */
+    private Integer getCachedCityId(String cityName) {
+        CacheEntry entry = config.cache().getStale(cityName);
+        return entry != null ? WeatherValues.cityId(entry.weatherData()) : null;
+    }
+
+    /**
+     * Gets the city name of the currently cached response, so refreshed entries keep it.
+     */
+    private String getCachedResponseName(String cityName) {
+        CacheEntry entry = config.cache().getStale(cityName);
+        if (entry == null || entry.response() == null) {
+            return null;
+        }
+        return entry.response().getName();
+    }
+
     /**
      * Determines if a city should be updated based on polling strategy.
      */
@@ -197,13 +471,31 @@ public class WeatherPollingScheduler {
     private enum UpdateResult {
         UPDATED,
         FAILED,
-        SKIPPED
+        SKIPPED,
+        /**
+         * Not updated in this tick because the rate limiter rejected a polling call.
+         */
+        DEFERRED
     }
 
     /**
      * Statistics for a polling update cycle.
      */
-    private record UpdateStats(int updated, int failed, int skipped) {
+    private static final class UpdateStats {
+        private int updated;
+        private int failed;
+        private int skipped;
+        private int deferred;
+        private int apiCalls;
+
+        private void record(UpdateResult result) {
+            switch (result) {
+                case UPDATED -> updated++;
+                case FAILED -> failed++;
+                case SKIPPED -> skipped++;
+                case DEFERRED -> deferred++;
+            }
+        }
     }
 }
 
@@ -0,0 +1,43 @@
+package ru.sterkhovkv.openweathermap.util;
+
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+
+import java.util.Locale;
+
+/**
+ * Builds cache keys shared by the weather cache and the geocoding cache.
+ */
+public final class CacheKeys {
+
+    /**
+     * Prefix of coordinate keys; no city name can start with it.
+     */
+    public static final String COORDINATES_PREFIX = "geo:";
+
+    private CacheKeys() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Builds the canonical key for a city name.
+     * Names that differ only in case or spacing ("Berlin", " berlin ") map to the same key.
+     *
+     * @param cityName raw city name
+     * @return canonical city key
+     */
+    public static String forCity(String cityName) {
+        return CityNames.normalize(cityName);
+    }
+
+    /**
+     * Builds the cache key for coordinates.
+     * Coordinates are rounded to 4 decimal places (about 10 meters),
+     * so points closer than that share one entry.
+     *
+     * @param coordinates geographic coordinates
+     * @return cache key
+     */
+    public static String forCoordinates(Coordinates coordinates) {
+        return String.format(Locale.ROOT, COORDINATES_PREFIX + "%.4f,%.4f", coordinates.lat(), coordinates.lon());
+    }
+}
@@ -0,0 +1,26 @@
+package ru.sterkhovkv.openweathermap.util;
+
+import java.util.Locale;
+
+/**
+ * Utility for working with city names.
+ */
+public final class CityNames {
+
+    private CityNames() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Normalizes a city name: trims it, collapses inner whitespace and converts it to lower case.
+     * Names that differ only in case or spacing normalize to the same value.
+     *
+     * @param cityName raw city name
+     * @return normalized city name
+     */
+    public static String normalize(String cityName) {
+        String trimmed = cityName.trim();
+        String collapsed = trimmed.replaceAll("\\s+", " ");
+        return collapsed.toLowerCase(Locale.ROOT);
+    }
+}
@@ -19,6 +19,7 @@ public final class Constants {
 
     // Weather API endpoints
     public static final String WEATHER_API_V2_ENDPOINT = "/weather";
+    public static final String WEATHER_API_V2_GROUP_ENDPOINT = "/group";
     public static final String WEATHER_API_V3_ENDPOINT = "/onecall";
 
     // Query parameters
@@ -30,6 +31,11 @@ public final class Constants {
     public static final String QUERY_PARAM_EXCLUDE = "exclude";
     public static final String QUERY_PARAM_UNITS = "units";
     public static final String QUERY_PARAM_LANG = "lang";
+    public static final String QUERY_PARAM_ID = "id";
+
+    // Current Weather API 2.5 group requests
+    public static final int WEATHER_API_V2_MAX_GROUP_SIZE = 20;
+    public static final int CITY_ID_INDEX_MAX_SIZE = 10_000;
 
     // One Call API exclude values
     public static final String EXCLUDE_MINUTELY = "minutely";
@@ -45,15 +51,57 @@ public final class Constants {
     public static final int GEOCODING_DEFAULT_LIMIT = 1;
     public static final int GEOCODING_CACHE_MAX_SIZE = 100;
     public static final int GEOCODING_CACHE_TTL_HOURS = 24;
+    public static final int GEOCODING_NEGATIVE_CACHE_MAX_SIZE = 1000;
 
     // Web Client properties
     public static final int WEB_CLIENT_BYTE_BUFFER_SIZE = 1024 * 1024;
-    public static final int DEFAULT_TIMOUT_DURATION = 30;
+    public static final String HTTP_CONNECTION_POOL_NAME = "openweathermap";
+
+    // Disk cache tier
+    public static final int DISK_CACHE_MAINTENANCE_INTERVAL_SECONDS = 60;
+    public static final int BYTES_PER_MEGABYTE = 1024 * 1024;
+    public static final int MAX_DISK_CACHE_MEGABYTES = 2047;
+
+    // Nearby coordinate lookup
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    public static final double MAX_NEARBY_CACHE_RADIUS_KM = 100;
+    public static final double MIN_SPATIAL_CELL_KM = 0.1;
+    public static final int MIN_INTERPOLATION_NEIGHBOURS = 2;
+    public static final int MAX_INTERPOLATION_NEIGHBOURS = 8;
+
+    // Volatility-driven cache TTL
+    public static final double VOLATILITY_TEMP_DELTA_SCALE = 3.0;
+    public static final double VOLATILITY_WIND_DELTA_SCALE = 5.0;
+
+    // Byte-weighted cache eviction
+    public static final int CACHE_NODE_OVERHEAD_BYTES = 64;
+
+    // Off-heap cache memory pool
+    public static final int OFF_HEAP_MIN_BLOCK_BYTES = 64;
+    public static final int OFF_HEAP_MAX_BLOCK_BYTES = 16 * 1024 * 1024;
+    public static final int OFF_HEAP_INITIAL_BLOCK_BYTES = 1024;
+    public static final int OFF_HEAP_SLAB_BYTES = 64 * 1024;
+    public static final int OFF_HEAP_SLABS_PER_CAPACITY = 8;
+
+    // Observation-aligned cache TTL
+    public static final long DEFAULT_OBSERVATION_INTERVAL_MILLIS = 10 * 60 * 1000;
+    public static final long MIN_OBSERVATION_INTERVAL_MILLIS = 60 * 1000;
+    public static final long MAX_OBSERVATION_INTERVAL_MILLIS = 60 * 60 * 1000;
+    public static final long OBSERVATION_PUBLISH_DELAY_MILLIS = 30 * 1000;
+    public static final long MIN_OBSERVATION_TTL_MILLIS = 60 * 1000;
+    public static final double OBSERVATION_INTERVAL_SMOOTHING = 0.3;
+    public static final int OBSERVATION_CADENCE_MAX_CITIES = 10_000;
+    public static final int OBSERVATION_CADENCE_TTL_HOURS = 24;
+
+    // Rate limit priorities
+    public static final int MAX_INTERACTIVE_RESERVE_PERCENT = 99;
 
     // Scheduler shutdown timeout
     public static final int SCHEDULER_SHUTDOWN_TIMEOUT_SECONDS = 30;
 
     // Time conversion
+    public static final long MILLIS_PER_SECOND = 1000;
     public static final long MILLIS_PER_MINUTE = 60 * 1000;
     public static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
 
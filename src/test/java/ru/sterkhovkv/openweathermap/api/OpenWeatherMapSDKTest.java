@@ -3,26 +3,48 @@ package ru.sterkhovkv.openweathermap.api;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.sterkhovkv.openweathermap.cache.CacheSnapshot;
+import ru.sterkhovkv.openweathermap.cache.CacheSnapshotStore;
+import ru.sterkhovkv.openweathermap.cache.WeatherCache;
 import ru.sterkhovkv.openweathermap.client.GeocodingClient;
 import ru.sterkhovkv.openweathermap.client.WeatherApiClient;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.config.CacheStorage;
+import ru.sterkhovkv.openweathermap.config.RequestPriority;
 import ru.sterkhovkv.openweathermap.config.SDKConfig;
+import ru.sterkhovkv.openweathermap.exception.ApiRateLimitException;
 import ru.sterkhovkv.openweathermap.exception.CityNotFoundException;
 import ru.sterkhovkv.openweathermap.exception.IllegalSDKStateException;
 import ru.sterkhovkv.openweathermap.exception.InvalidApiKeyException;
 import ru.sterkhovkv.openweathermap.exception.NetworkException;
 import ru.sterkhovkv.openweathermap.factory.SDKFactory;
+import ru.sterkhovkv.openweathermap.model.BatchWeatherResponse;
 import ru.sterkhovkv.openweathermap.model.CacheEntry;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.NearbyLookupStats;
 import ru.sterkhovkv.openweathermap.model.WeatherResponse;
 import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.util.CacheKeys;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,16 +54,31 @@ class OpenWeatherMapSDKTest {
     private static final String TEST_API_KEY = "test-api-key-for-sdk";
     private static final String TEST_CITY_NAME = "Moscow";
     private static final String TEST_CITY_LONDON = "London";
+    private static final String TEST_CITY_UNKNOWN = "Atlantis";
+    private static final String TEST_CITY_NAME_VARIANT = "  moscow ";
+    private static final String SNAPSHOT_FILE_NAME = "weather-cache.snapshot";
+    private static final String TEST_CITY_NAME_ALIAS = "Moscow, RU";
     private static final String EMPTY_STRING = "";
     private static final String BLANK_STRING = "   ";
     private static final String API_KEY_MASK = "****";
     private static final int EMPTY_CACHE_SIZE = 0;
     private static final int TEST_CACHE_SIZE = 20;
     private static final long TEST_CACHE_TTL_MINUTES = 15;
+    private static final long TEST_MAX_CACHE_TTL_MINUTES = 30;
     private static final double MOSCOW_LAT = 55.7558;
     private static final double MOSCOW_LON = 37.6173;
     private static final double LONDON_LAT = 51.5074;
     private static final double LONDON_LON = -0.1278;
+    private static final double MOSCOW_NEARBY_LAT = 55.7600;
+    private static final double MOSCOW_OUTSIDE_RADIUS_LAT = 55.8000;
+    private static final double NEARBY_CACHE_RADIUS_KM = 1.0;
+    private static final double INTERPOLATION_OFFSET_DEGREES = 0.01;
+    private static final double COLD_TEMP = 270.0;
+    private static final double WARM_TEMP = 280.0;
+    private static final double TEMP_DELTA = 0.01;
+    private static final double INVALID_LAT = 90.5;
+    private static final double INVALID_LON = -180.5;
+    private static final String MOSCOW_CACHE_KEY = CacheKeys.forCoordinates(new Coordinates(MOSCOW_LAT, MOSCOW_LON));
     private static final String FIELD_GEOCODING_CLIENT = "geocodingClient";
     private static final String FIELD_WEATHER_API_CLIENT = "weatherApiClient";
     private static final long TEST_TEMP = 273;
@@ -52,11 +89,17 @@ class OpenWeatherMapSDKTest {
     private static final int TEST_TIMEZONE = 3600;
     private static final String WEATHER_MAIN = "Clear";
     private static final String WEATHER_DESCRIPTION = "clear sky";
-
-    @Mock
+    private static final long FUTURE_TIMEOUT_SECONDS = 5;
+    private static final int CONCURRENT_CALLERS = 8;
+    private static final long TEST_MAX_STALENESS_MINUTES = 10;
+    private static final int MOSCOW_CITY_ID = 524901;
+    private static final int LONDON_CITY_ID = 2643743;
+    private static final int TEST_GROUP_SIZE = 20;
+
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private GeocodingClient geocodingClient;
 
-    @Mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private WeatherApiClient weatherApiClient;
 
     @BeforeEach
@@ -233,7 +276,7 @@ class OpenWeatherMapSDKTest {
 
         WeatherResponse response1 = sdk.getWeather(TEST_CITY_NAME);
 
-        makeCacheEntryExpired(sdk, TEST_CITY_NAME);
+        makeCacheEntryExpired(sdk, MOSCOW_CACHE_KEY);
 
         WeatherResponse response2 = sdk.getWeather(TEST_CITY_NAME);
 
@@ -375,6 +418,593 @@ class OpenWeatherMapSDKTest {
         assertEquals(EMPTY_CACHE_SIZE, sdk.getCacheSize());
     }
 
+    @Test
+    void testGetWeatherAsyncSuccess() {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        WeatherDataV2 weatherData = createTestWeatherDataV2();
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(coordinates);
+        when(weatherApiClient.fetchWeather(coordinates)).thenReturn(weatherData);
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        WeatherResponse response = sdk.getWeatherAsync(TEST_CITY_NAME).block();
+
+        assertNotNull(response);
+        assertEquals(TEST_CITY_NAME, response.getName());
+        assertEquals(1, sdk.getCacheSize());
+        verify(weatherApiClient, times(1)).fetchWeather(coordinates);
+    }
+
+    @Test
+    void testGetWeatherAsyncIsLazy() {
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        sdk.getWeatherAsync(TEST_CITY_NAME);
+        sdk.getWeatherAsync(null);
+
+        verify(geocodingClient, never()).getCoordinates(any());
+        verify(weatherApiClient, never()).fetchWeather(any());
+    }
+
+    @Test
+    void testGetWeatherAsyncSignalsErrors() {
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME))
+            .thenThrow(new CityNotFoundException("City not found: " + TEST_CITY_NAME));
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        assertThrows(CityNotFoundException.class, () -> sdk.getWeatherAsync(TEST_CITY_NAME).block());
+        assertThrows(IllegalArgumentException.class, () -> sdk.getWeatherAsync(BLANK_STRING).block());
+    }
+
+    @Test
+    void testGetWeatherFuture() throws Exception {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        WeatherDataV2 weatherData = createTestWeatherDataV2();
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(coordinates);
+        when(weatherApiClient.fetchWeather(coordinates)).thenReturn(weatherData);
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        CompletableFuture<WeatherResponse> future = sdk.getWeatherFuture(TEST_CITY_NAME);
+        WeatherResponse response = future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertNotNull(response);
+        assertEquals(TEST_CITY_NAME, response.getName());
+
+        WeatherResponse cached = sdk.getWeatherFuture(TEST_CITY_NAME).get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(response.getName(), cached.getName());
+        verify(weatherApiClient, times(1)).fetchWeather(coordinates);
+    }
+
+    @Test
+    void testGetWeatherFutureAfterDestroy() {
+        OpenWeatherMapSDK sdk = SDKFactory.getInstance(TEST_API_KEY, SDKMode.ON_DEMAND);
+        sdk.destroy();
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> sdk.getWeatherFuture(TEST_CITY_NAME).get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalSDKStateException.class, exception.getCause());
+    }
+
+    @Test
+    void testCacheHitReturnsStoredResponse() {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        WeatherDataV2 weatherData = createTestWeatherDataV2();
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(coordinates);
+        when(weatherApiClient.fetchWeather(coordinates)).thenReturn(weatherData);
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        WeatherResponse response1 = sdk.getWeather(TEST_CITY_NAME);
+        WeatherResponse response2 = sdk.getWeather(TEST_CITY_NAME);
+
+        assertSame(response1, response2);
+    }
+
+    @Test
+    void testGetWeatherWithOffHeapCache() {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        WeatherDataV2 weatherData = createTestWeatherDataV2();
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(coordinates);
+        when(weatherApiClient.fetchWeather(coordinates)).thenReturn(weatherData);
+
+        SDKConfig config = SDKConfig.builder()
+            .apiVersion(ApiVersion.V2_5)
+            .cacheStorage(CacheStorage.OFF_HEAP)
+            .build();
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, config);
+
+        WeatherResponse response1 = sdk.getWeather(TEST_CITY_NAME);
+        WeatherResponse response2 = sdk.getWeather(TEST_CITY_NAME);
+
+        assertEquals(TEST_CITY_NAME, response2.getName());
+        assertEquals(response1.getTemperature().getTemp(), response2.getTemperature().getTemp());
+        assertEquals(1, sdk.getCacheSize());
+        verify(weatherApiClient, times(1)).fetchWeather(coordinates);
+    }
+
+    @Test
+    void testWarmRestartRestoresCacheSnapshot(@TempDir Path tempDir) {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        WeatherDataV2 weatherData = createTestWeatherDataV2();
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(coordinates);
+        when(weatherApiClient.fetchWeather(coordinates)).thenReturn(weatherData);
+
+        SDKConfig config = SDKConfig.builder()
+            .apiVersion(ApiVersion.V2_5)
+            .snapshotPath(tempDir.resolve(SNAPSHOT_FILE_NAME))
+            .build();
+
+        OpenWeatherMapSDK sdk1 = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, config);
+        sdk1.getWeather(TEST_CITY_NAME);
+        sdk1.destroy();
+
+        OpenWeatherMapSDK sdk2 = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, config);
+        assertEquals(1, sdk2.getCacheSize());
+
+        WeatherResponse response = sdk2.getWeather(TEST_CITY_NAME);
+
+        assertEquals(TEST_CITY_NAME, response.getName());
+        verify(weatherApiClient, times(1)).fetchWeather(coordinates);
+    }
+
+    @Test
+    void testWarmRestartKeepsOriginalTimestamps(@TempDir Path tempDir) throws Exception {
+        Path snapshotPath = tempDir.resolve(SNAPSHOT_FILE_NAME);
+        long currentTime = System.currentTimeMillis();
+        long freshTimestamp = currentTime - Constants.MILLIS_PER_MINUTE;
+        long expiredTimestamp = currentTime - (TEST_CACHE_TTL_MINUTES + 1) * Constants.MILLIS_PER_MINUTE;
+        Coordinates moscow = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        Coordinates london = new Coordinates(LONDON_LAT, LONDON_LON);
+
+        new CacheSnapshotStore(snapshotPath).write(new CacheSnapshot(
+            List.of(
+                new CacheEntry(MOSCOW_CACHE_KEY, moscow, createTestWeatherDataV2(), ApiVersion.V2_5, freshTimestamp),
+                new CacheEntry(CacheKeys.forCoordinates(london), london,
+                    createTestWeatherDataV2ForCity(TEST_CITY_LONDON), ApiVersion.V2_5, expiredTimestamp)
+            ),
+            Map.of()
+        ));
+
+        SDKConfig config = SDKConfig.builder()
+            .apiVersion(ApiVersion.V2_5)
+            .cacheTtlMinutes(TEST_CACHE_TTL_MINUTES)
+            .snapshotPath(snapshotPath)
+            .build();
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, config);
+
+        assertEquals(1, sdk.getCacheSize());
+        assertEquals(freshTimestamp, getCacheEntry(sdk, MOSCOW_CACHE_KEY).timestamp());
+        assertEquals(TEST_CITY_NAME, sdk.getWeatherByCoordinates(moscow).getName());
+        verifyNoInteractions(weatherApiClient);
+    }
+
+    @Test
+    void testWarmRestartKeepsEntryTtl(@TempDir Path tempDir) throws Exception {
+        Path snapshotPath = tempDir.resolve(SNAPSHOT_FILE_NAME);
+        long ttlMillis = TEST_MAX_CACHE_TTL_MINUTES * Constants.MILLIS_PER_MINUTE;
+        // Expired under the cache-wide TTL, fresh under the TTL the entry was given
+        long timestamp = System.currentTimeMillis() - (TEST_CACHE_TTL_MINUTES + 1) * Constants.MILLIS_PER_MINUTE;
+        Coordinates moscow = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+
+        new CacheSnapshotStore(snapshotPath).write(new CacheSnapshot(
+            List.of(new CacheEntry(MOSCOW_CACHE_KEY, moscow, createTestWeatherDataV2(), null, ApiVersion.V2_5,
+                timestamp, ttlMillis)),
+            Map.of()
+        ));
+
+        SDKConfig config = SDKConfig.builder()
+            .apiVersion(ApiVersion.V2_5)
+            .cacheTtlMinutes(TEST_CACHE_TTL_MINUTES)
+            .variableTtl(true)
+            .maxCacheTtlMinutes(TEST_MAX_CACHE_TTL_MINUTES)
+            .snapshotPath(snapshotPath)
+            .build();
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, config);
+
+        assertEquals(ttlMillis, getCacheEntry(sdk, MOSCOW_CACHE_KEY).ttlMillis());
+        assertEquals(TEST_CITY_NAME, sdk.getWeatherByCoordinates(moscow).getName());
+        verifyNoInteractions(weatherApiClient);
+    }
+
+    @Test
+    void testCityAliasesShareOneCacheEntry() {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        WeatherDataV2 weatherData = createTestWeatherDataV2();
+
+        when(geocodingClient.getCoordinates(anyString())).thenReturn(coordinates);
+        when(weatherApiClient.fetchWeather(coordinates)).thenReturn(weatherData);
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        sdk.getWeather(TEST_CITY_NAME);
+        sdk.getWeather(TEST_CITY_NAME_VARIANT);
+        sdk.getWeather(TEST_CITY_NAME_ALIAS);
+        sdk.getWeatherByCoordinates(coordinates);
+
+        assertEquals(1, sdk.getCacheSize());
+        verify(weatherApiClient, times(1)).fetchWeather(coordinates);
+        verify(geocodingClient, times(1)).getCoordinates(TEST_CITY_NAME_ALIAS);
+    }
+
+    @Test
+    void testGetWeatherByCoordinatesSkipsGeocoding() {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        WeatherDataV2 weatherData = createTestWeatherDataV2();
+
+        when(weatherApiClient.fetchWeather(coordinates)).thenReturn(weatherData);
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        WeatherResponse response = sdk.getWeatherByCoordinates(MOSCOW_LAT, MOSCOW_LON);
+
+        assertNotNull(response);
+        assertEquals(TEST_CITY_NAME, response.getName());
+        assertEquals(1, sdk.getCacheSize());
+        verifyNoInteractions(geocodingClient);
+    }
+
+    @Test
+    void testGetWeatherByCoordinatesCacheHit() {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        WeatherDataV2 weatherData = createTestWeatherDataV2();
+
+        when(weatherApiClient.fetchWeather(coordinates)).thenReturn(weatherData);
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        WeatherResponse response1 = sdk.getWeatherByCoordinates(coordinates);
+        WeatherResponse response2 = sdk.getWeatherByCoordinatesAsync(coordinates)
+            .block(Duration.ofSeconds(FUTURE_TIMEOUT_SECONDS));
+
+        assertNotNull(response2);
+        assertEquals(response1.getName(), response2.getName());
+        verify(weatherApiClient, times(1)).fetchWeather(coordinates);
+    }
+
+    @Test
+    void testGetWeatherByCoordinatesUsesNearbyCachedPoint() {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        Coordinates farCoordinates = new Coordinates(MOSCOW_OUTSIDE_RADIUS_LAT, MOSCOW_LON);
+
+        when(weatherApiClient.fetchWeather(coordinates)).thenReturn(createTestWeatherDataV2());
+        when(weatherApiClient.fetchWeather(farCoordinates)).thenReturn(createTestWeatherDataV2());
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, SDKConfig.builder()
+            .apiVersion(ApiVersion.V2_5)
+            .cacheSize(TEST_CACHE_SIZE)
+            .cacheTtlMinutes(TEST_CACHE_TTL_MINUTES)
+            .nearbyCacheRadiusKm(NEARBY_CACHE_RADIUS_KM)
+            .build());
+
+        WeatherResponse response = sdk.getWeatherByCoordinates(coordinates);
+        WeatherResponse nearby = sdk.getWeatherByCoordinates(MOSCOW_NEARBY_LAT, MOSCOW_LON);
+        sdk.getWeatherByCoordinates(farCoordinates);
+
+        assertSame(response, nearby);
+        verify(weatherApiClient, times(1)).fetchWeather(coordinates);
+        verify(weatherApiClient, times(1)).fetchWeather(farCoordinates);
+        verify(weatherApiClient, never()).fetchWeather(new Coordinates(MOSCOW_NEARBY_LAT, MOSCOW_LON));
+
+        NearbyLookupStats stats = sdk.getNearbyLookupStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertTrue(stats.maxDistanceKm() > 0 && stats.maxDistanceKm() <= NEARBY_CACHE_RADIUS_KM);
+    }
+
+    @Test
+    void testGetWeatherByCoordinatesInterpolatesBetweenCachedPoints() {
+        Coordinates west = new Coordinates(MOSCOW_LAT, MOSCOW_LON - INTERPOLATION_OFFSET_DEGREES);
+        Coordinates east = new Coordinates(MOSCOW_LAT, MOSCOW_LON + INTERPOLATION_OFFSET_DEGREES);
+        WeatherDataV2 westData = createTestWeatherDataV2();
+        westData.getMain().setTemp(COLD_TEMP);
+        WeatherDataV2 eastData = createTestWeatherDataV2();
+        eastData.getMain().setTemp(WARM_TEMP);
+
+        when(weatherApiClient.fetchWeather(west)).thenReturn(westData);
+        when(weatherApiClient.fetchWeather(east)).thenReturn(eastData);
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, SDKConfig.builder()
+            .apiVersion(ApiVersion.V2_5)
+            .cacheSize(TEST_CACHE_SIZE)
+            .cacheTtlMinutes(TEST_CACHE_TTL_MINUTES)
+            .nearbyCacheRadiusKm(NEARBY_CACHE_RADIUS_KM)
+            .interpolationNeighbours(2)
+            .build());
+
+        assertFalse(sdk.getWeatherByCoordinates(west).isInterpolated());
+        sdk.getWeatherByCoordinates(east);
+        WeatherResponse estimate = sdk.getWeatherByCoordinates(MOSCOW_LAT, MOSCOW_LON);
+
+        assertTrue(estimate.isInterpolated());
+        assertEquals((COLD_TEMP + WARM_TEMP) / 2, estimate.getTemperature().getTemp(), TEMP_DELTA);
+        verify(weatherApiClient, never()).fetchWeather(new Coordinates(MOSCOW_LAT, MOSCOW_LON));
+    }
+
+    @Test
+    void testGetWeatherByCoordinatesThrowsOnInvalidCoordinates() {
+        OpenWeatherMapSDK sdk = SDKFactory.getInstance(TEST_API_KEY, SDKMode.ON_DEMAND);
+
+        assertThrows(IllegalArgumentException.class, () -> sdk.getWeatherByCoordinates(null));
+        assertThrows(IllegalArgumentException.class, () -> sdk.getWeatherByCoordinates(INVALID_LAT, MOSCOW_LON));
+        assertThrows(IllegalArgumentException.class, () -> sdk.getWeatherByCoordinates(MOSCOW_LAT, INVALID_LON));
+        assertThrows(IllegalArgumentException.class, () -> sdk.getWeatherByCoordinates(Double.NaN, MOSCOW_LON));
+    }
+
+    @Test
+    void testGetWeatherBatchReportsPerCityFailures() {
+        Coordinates moscowCoords = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        Coordinates londonCoords = new Coordinates(LONDON_LAT, LONDON_LON);
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(moscowCoords);
+        when(geocodingClient.getCoordinates(TEST_CITY_LONDON)).thenReturn(londonCoords);
+        when(geocodingClient.getCoordinates(TEST_CITY_UNKNOWN))
+            .thenThrow(new CityNotFoundException("City not found: " + TEST_CITY_UNKNOWN));
+        when(weatherApiClient.fetchWeather(moscowCoords)).thenReturn(createTestWeatherDataV2());
+        when(weatherApiClient.fetchWeather(londonCoords)).thenReturn(createTestWeatherDataV2ForCity(TEST_CITY_LONDON));
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        BatchWeatherResponse batch = sdk.getWeatherBatch(
+            List.of(TEST_CITY_NAME, TEST_CITY_UNKNOWN, TEST_CITY_LONDON, TEST_CITY_NAME));
+
+        assertEquals(List.of(TEST_CITY_NAME, TEST_CITY_LONDON), List.copyOf(batch.results().keySet()));
+        assertEquals(TEST_CITY_LONDON, batch.results().get(TEST_CITY_LONDON).getName());
+        assertTrue(batch.hasFailures());
+        assertInstanceOf(CityNotFoundException.class, batch.failures().get(TEST_CITY_UNKNOWN));
+        assertEquals(2, sdk.getCacheSize());
+        verify(weatherApiClient, times(1)).fetchWeather(moscowCoords);
+    }
+
+    @Test
+    void testGetWeatherBatchFetchesOnlyCacheMisses() {
+        Coordinates moscowCoords = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        Coordinates londonCoords = new Coordinates(LONDON_LAT, LONDON_LON);
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(moscowCoords);
+        when(geocodingClient.getCoordinates(TEST_CITY_LONDON)).thenReturn(londonCoords);
+        when(weatherApiClient.fetchWeather(moscowCoords)).thenReturn(createTestWeatherDataV2());
+        when(weatherApiClient.fetchWeather(londonCoords)).thenReturn(createTestWeatherDataV2ForCity(TEST_CITY_LONDON));
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+        sdk.getWeather(TEST_CITY_NAME);
+
+        BatchWeatherResponse batch = sdk.getWeatherBatch(List.of(TEST_CITY_NAME, TEST_CITY_LONDON));
+
+        assertFalse(batch.hasFailures());
+        assertEquals(2, batch.results().size());
+        verify(weatherApiClient, times(1)).fetchWeather(moscowCoords);
+        verify(weatherApiClient, times(1)).fetchWeather(londonCoords);
+    }
+
+    @Test
+    void testGetWeatherBatchGroupsCitiesWithKnownIds() throws Exception {
+        Coordinates moscowCoords = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        Coordinates londonCoords = new Coordinates(LONDON_LAT, LONDON_LON);
+        WeatherDataV2 moscowData = createTestWeatherDataV2();
+        moscowData.setCityId(MOSCOW_CITY_ID);
+        WeatherDataV2 londonData = createTestWeatherDataV2ForCity(TEST_CITY_LONDON);
+        londonData.setCityId(LONDON_CITY_ID);
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(moscowCoords);
+        when(geocodingClient.getCoordinates(TEST_CITY_LONDON)).thenReturn(londonCoords);
+        when(weatherApiClient.fetchWeather(moscowCoords)).thenReturn(moscowData);
+        when(weatherApiClient.fetchWeather(londonCoords)).thenReturn(londonData);
+        doReturn(TEST_GROUP_SIZE).when(weatherApiClient).getMaxCityIdBatchSize();
+        doReturn(Mono.just(Map.of(MOSCOW_CITY_ID, moscowData, LONDON_CITY_ID, londonData)))
+            .when(weatherApiClient).fetchWeatherByCityIdsAsync(List.of(MOSCOW_CITY_ID, LONDON_CITY_ID));
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+        sdk.getWeather(TEST_CITY_NAME);
+        sdk.getWeather(TEST_CITY_LONDON);
+        long expired = System.currentTimeMillis() - (TEST_CACHE_TTL_MINUTES + 1) * Constants.MILLIS_PER_MINUTE;
+        setCacheEntryTimestamp(sdk, MOSCOW_CACHE_KEY, expired);
+        setCacheEntryTimestamp(sdk, CacheKeys.forCoordinates(londonCoords), expired);
+
+        BatchWeatherResponse batch = sdk.getWeatherBatch(List.of(TEST_CITY_NAME, TEST_CITY_LONDON));
+
+        assertFalse(batch.hasFailures());
+        assertEquals(TEST_CITY_LONDON, batch.results().get(TEST_CITY_LONDON).getName());
+        verify(weatherApiClient, times(1)).fetchWeatherByCityIdsAsync(List.of(MOSCOW_CITY_ID, LONDON_CITY_ID));
+        verify(weatherApiClient, times(1)).fetchWeather(moscowCoords);
+        verify(weatherApiClient, times(1)).fetchWeather(londonCoords);
+        assertNotNull(sdk.getWeather(TEST_CITY_LONDON));
+        verify(weatherApiClient, times(1)).fetchWeather(londonCoords);
+    }
+
+    @Test
+    void testGetWeatherBatchThrowsOnInvalidInput() {
+        OpenWeatherMapSDK sdk = SDKFactory.getInstance(TEST_API_KEY, SDKMode.ON_DEMAND);
+
+        assertThrows(IllegalArgumentException.class, () -> sdk.getWeatherBatch(null));
+        assertThrows(IllegalArgumentException.class, () -> sdk.getWeatherBatch(List.of(TEST_CITY_NAME, BLANK_STRING)));
+    }
+
+    @Test
+    void testConcurrentMissesAreCoalesced() throws Exception {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(geocodingClient.getCoordinates(anyString())).thenReturn(coordinates);
+        when(weatherApiClient.fetchWeather(coordinates)).thenAnswer(invocation -> {
+            release.await(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return createTestWeatherDataV2();
+        });
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        List<CompletableFuture<WeatherResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_CALLERS; i++) {
+            futures.add(sdk.getWeatherFuture(i % 2 == 0 ? TEST_CITY_NAME : TEST_CITY_NAME_VARIANT));
+        }
+        release.countDown();
+
+        for (CompletableFuture<WeatherResponse> future : futures) {
+            assertEquals(TEST_CITY_NAME, future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS).getName());
+        }
+        verify(geocodingClient, times(1)).getCoordinates(anyString());
+        verify(weatherApiClient, times(1)).fetchWeather(coordinates);
+        assertEquals(CONCURRENT_CALLERS - 1, sdk.getCoalescedRequestCount());
+    }
+
+    @Test
+    void testCoalescedCallersShareException() {
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenAnswer(invocation -> {
+            release.await(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            throw new CityNotFoundException("City not found: " + TEST_CITY_NAME);
+        });
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        CompletableFuture<WeatherResponse> first = sdk.getWeatherFuture(TEST_CITY_NAME);
+        CompletableFuture<WeatherResponse> second = sdk.getWeatherFuture(TEST_CITY_NAME);
+        release.countDown();
+
+        ExecutionException firstError = assertThrows(ExecutionException.class,
+            () -> first.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        ExecutionException secondError = assertThrows(ExecutionException.class,
+            () -> second.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(CityNotFoundException.class, firstError.getCause());
+        assertSame(firstError.getCause(), secondError.getCause());
+        assertEquals(1, sdk.getCoalescedRequestCount());
+    }
+
+    @Test
+    void testCoalescedCallersFailWhenFetchCompletesEmpty() {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        Sinks.Empty<Object> release = Sinks.empty();
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(coordinates);
+        doReturn(release.asMono()).when(weatherApiClient).fetchWeatherAsync(coordinates);
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createV2Config());
+
+        CompletableFuture<WeatherResponse> first = sdk.getWeatherFuture(TEST_CITY_NAME);
+        CompletableFuture<WeatherResponse> second = sdk.getWeatherFuture(TEST_CITY_NAME);
+        release.tryEmitEmpty();
+
+        ExecutionException firstError = assertThrows(ExecutionException.class,
+            () -> first.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        ExecutionException secondError = assertThrows(ExecutionException.class,
+            () -> second.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(NetworkException.class, firstError.getCause());
+        assertInstanceOf(NetworkException.class, secondError.getCause());
+    }
+
+    @Test
+    void testStaleWhileRevalidateReturnsStaleEntryAndRefreshesOnce() throws Exception {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(coordinates);
+        when(weatherApiClient.fetchWeather(coordinates))
+            .thenReturn(createTestWeatherDataV2())
+            .thenAnswer(invocation -> {
+                release.await(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                return createTestWeatherDataV2();
+            });
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createStaleWhileRevalidateConfig());
+        sdk.getWeather(TEST_CITY_NAME);
+        setCacheEntryTimestamp(sdk, MOSCOW_CACHE_KEY, System.currentTimeMillis() - 2 * Constants.MILLIS_PER_MINUTE);
+
+        WeatherResponse stale1 = sdk.getWeather(TEST_CITY_NAME);
+        WeatherResponse stale2 = sdk.getWeather(TEST_CITY_NAME);
+        release.countDown();
+
+        assertEquals(TEST_CITY_NAME, stale1.getName());
+        assertEquals(TEST_CITY_NAME, stale2.getName());
+        verify(weatherApiClient, timeout(FUTURE_TIMEOUT_SECONDS * 1000).times(2)).fetchWeather(coordinates);
+    }
+
+    @Test
+    void testStaleWhileRevalidateBlocksBeyondMaxStaleness() throws Exception {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(coordinates);
+        when(weatherApiClient.fetchWeather(coordinates))
+            .thenReturn(createTestWeatherDataV2())
+            .thenAnswer(invocation -> {
+                release.await(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                return createTestWeatherDataV2();
+            });
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createStaleWhileRevalidateConfig());
+        sdk.getWeather(TEST_CITY_NAME);
+        setCacheEntryTimestamp(sdk, MOSCOW_CACHE_KEY,
+            System.currentTimeMillis() - (TEST_MAX_STALENESS_MINUTES + 1) * Constants.MILLIS_PER_MINUTE);
+
+        CompletableFuture<WeatherResponse> future = sdk.getWeatherFuture(TEST_CITY_NAME);
+        assertFalse(future.isDone());
+
+        release.countDown();
+        assertNotNull(future.get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        verify(weatherApiClient, times(2)).fetchWeather(coordinates);
+    }
+
+    @Test
+    void testInteractiveCallerDoesNotJoinBackgroundRefresh() throws Exception {
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        List<RequestPriority> priorities = new CopyOnWriteArrayList<>();
+        Sinks.One<Object> backgroundFetch = Sinks.one();
+        CountDownLatch backgroundStarted = new CountDownLatch(1);
+
+        when(geocodingClient.getCoordinates(TEST_CITY_NAME)).thenReturn(coordinates);
+        doAnswer(invocation -> Mono.deferContextual(context -> {
+            RequestPriority priority = RequestPriority.from(context);
+            priorities.add(priority);
+            if (priority == RequestPriority.BACKGROUND) {
+                backgroundStarted.countDown();
+                return backgroundFetch.asMono();
+            }
+            return Mono.just(createTestWeatherDataV2());
+        })).when(weatherApiClient).fetchWeatherAsync(coordinates);
+
+        OpenWeatherMapSDK sdk = createSDKWithMocks(TEST_API_KEY, SDKMode.ON_DEMAND, createStaleWhileRevalidateConfig());
+        sdk.getWeather(TEST_CITY_NAME);
+        setCacheEntryTimestamp(sdk, MOSCOW_CACHE_KEY, System.currentTimeMillis() - 2 * Constants.MILLIS_PER_MINUTE);
+        sdk.getWeather(TEST_CITY_NAME);
+        assertTrue(backgroundStarted.await(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        setCacheEntryTimestamp(sdk, MOSCOW_CACHE_KEY,
+            System.currentTimeMillis() - (TEST_MAX_STALENESS_MINUTES + 1) * Constants.MILLIS_PER_MINUTE);
+
+        // The background refresh is still in flight and would be rejected once the quota reserve is reached
+        WeatherResponse response = sdk.getWeatherFuture(TEST_CITY_NAME).get(FUTURE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        backgroundFetch.tryEmitError(new ApiRateLimitException("Background calls are limited"));
+
+        assertEquals(TEST_CITY_NAME, response.getName());
+        assertEquals(List.of(RequestPriority.INTERACTIVE, RequestPriority.BACKGROUND, RequestPriority.INTERACTIVE),
+            priorities);
+        assertEquals(0, sdk.getCoalescedRequestCount());
+    }
+
+    private SDKConfig createStaleWhileRevalidateConfig() {
+        return SDKConfig.builder()
+            .apiVersion(ApiVersion.V2_5)
+            .cacheSize(TEST_CACHE_SIZE)
+            .cacheTtlMinutes(1)
+            .staleWhileRevalidate(true)
+            .maxStalenessMinutes(TEST_MAX_STALENESS_MINUTES)
+            .build();
+    }
+
+    private SDKConfig createV2Config() {
+        return SDKConfig.builder()
+            .apiVersion(ApiVersion.V2_5)
+            .cacheSize(TEST_CACHE_SIZE)
+            .cacheTtlMinutes(TEST_CACHE_TTL_MINUTES)
+            .build();
+    }
+
     private OpenWeatherMapSDK createSDKWithMocks(String apiKey, SDKMode mode, SDKConfig config) {
         OpenWeatherMapSDK sdk = new OpenWeatherMapSDK(apiKey, mode, config);
         try {
@@ -424,23 +1054,34 @@ class OpenWeatherMapSDKTest {
         return weatherData;
     }
 
-    private void makeCacheEntryExpired(OpenWeatherMapSDK sdk, String cityName) throws Exception {
+    private void makeCacheEntryExpired(OpenWeatherMapSDK sdk, String cacheKey) throws Exception {
+        setCacheEntryTimestamp(sdk, cacheKey, System.currentTimeMillis() - (2 * Constants.MILLIS_PER_MINUTE));
+    }
+
+    private CacheEntry getCacheEntry(OpenWeatherMapSDK sdk, String cacheKey) throws Exception {
+        Field cacheField = OpenWeatherMapSDK.class.getDeclaredField("cache");
+        cacheField.setAccessible(true);
+        return ((WeatherCache) cacheField.get(sdk)).get(cacheKey);
+    }
+
+    private void setCacheEntryTimestamp(OpenWeatherMapSDK sdk, String cacheKey, long timestamp) throws Exception {
         Field cacheField = OpenWeatherMapSDK.class.getDeclaredField("cache");
         cacheField.setAccessible(true);
         Object cache = cacheField.get(sdk);
 
-        Method getMethod = cache.getClass().getDeclaredMethod("get", String.class);
+        Method getMethod = cache.getClass().getDeclaredMethod("getStale", String.class);
         getMethod.setAccessible(true);
 
         Method putMethod = cache.getClass().getDeclaredMethod("put",
-            String.class, Coordinates.class, Object.class, ApiVersion.class, long.class);
+            String.class, Coordinates.class, Object.class, WeatherResponse.class, ApiVersion.class, long.class);
         putMethod.setAccessible(true);
 
-        CacheEntry entry = (CacheEntry) getMethod.invoke(cache, cityName);
+        CacheEntry entry = (CacheEntry) getMethod.invoke(cache, cacheKey);
         if (entry != null) {
-            long expiredTimestamp = System.currentTimeMillis() - (2 * Constants.MILLIS_PER_MINUTE);
-            putMethod.invoke(cache, cityName, entry.coordinates(), entry.weatherData(),
-                entry.apiVersion(), expiredTimestamp);
+            // The cache ignores writes older than the stored entry
+            ((WeatherCache) cache).remove(cacheKey);
+            putMethod.invoke(cache, cacheKey, entry.coordinates(), entry.weatherData(),
+                entry.response(), entry.apiVersion(), timestamp);
         }
     }
 }
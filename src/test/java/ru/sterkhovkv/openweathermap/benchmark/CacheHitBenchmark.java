@@ -0,0 +1,125 @@
+package ru.sterkhovkv.openweathermap.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.sterkhovkv.openweathermap.cache.LRUWeatherCache;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.WeatherInterpolator;
+import ru.sterkhovkv.openweathermap.model.WeatherResponse;
+import ru.sterkhovkv.openweathermap.model.WeatherResponseMapper;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a weather cache hit.
+ * {@code mapOnHit} reproduces the previous behaviour (mapping the raw data on every read),
+ * {@code storedResponse} returns the response mapped when the entry was written,
+ * {@code interpolate} estimates weather from three cached neighbours.
+ * Run {@link #main(String[])} to see allocations per hit ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheHitBenchmark {
+
+    private static final String CITY_RAW = "Moscow";
+    private static final String CITY_MAPPED = "London";
+    private static final int CACHE_SIZE = 10;
+    private static final long CACHE_TTL_MINUTES = 60;
+
+    private static final double[] NEIGHBOUR_DISTANCES_KM = {0.4, 0.7, 0.9};
+
+    private LRUWeatherCache cache;
+    private CacheEntry[] neighbours;
+
+    @Setup
+    public void setUp() {
+        cache = new LRUWeatherCache(CACHE_SIZE, CACHE_TTL_MINUTES);
+        long timestamp = System.currentTimeMillis();
+
+        WeatherDataV2 rawData = createWeatherData(CITY_RAW);
+        cache.put(CITY_RAW, new Coordinates(55.7558, 37.6173), rawData, ApiVersion.V2_5, timestamp);
+
+        WeatherDataV2 mappedData = createWeatherData(CITY_MAPPED);
+        WeatherResponse response = WeatherResponseMapper.toResponse(mappedData, ApiVersion.V2_5, CITY_MAPPED);
+        cache.put(CITY_MAPPED, new Coordinates(51.5074, -0.1278), mappedData, response, ApiVersion.V2_5, timestamp);
+
+        neighbours = new CacheEntry[NEIGHBOUR_DISTANCES_KM.length];
+        for (int i = 0; i < neighbours.length; i++) {
+            neighbours[i] = new CacheEntry(CITY_MAPPED, new Coordinates(51.5074, -0.1278), mappedData, response,
+                ApiVersion.V2_5, timestamp);
+        }
+    }
+
+    @Benchmark
+    public WeatherResponse mapOnHit() {
+        return WeatherResponseMapper.fromCacheEntry(cache.get(CITY_RAW), CITY_RAW);
+    }
+
+    @Benchmark
+    public WeatherResponse storedResponse() {
+        return WeatherResponseMapper.fromCacheEntry(cache.get(CITY_MAPPED), CITY_MAPPED);
+    }
+
+    @Benchmark
+    public WeatherResponse interpolate() {
+        return WeatherInterpolator.interpolate(neighbours, NEIGHBOUR_DISTANCES_KM, neighbours.length);
+    }
+
+    private static WeatherDataV2 createWeatherData(String cityName) {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+        weatherData.setName(cityName);
+        weatherData.setDatetime(1675744800L);
+        weatherData.setVisibility(10000);
+        weatherData.setTimezone(3600);
+
+        WeatherDataV2.MainData main = new WeatherDataV2.MainData();
+        main.setTemp(273.0);
+        main.setFeelsLike(270.0);
+        weatherData.setMain(main);
+
+        WeatherDataV2.Wind wind = new WeatherDataV2.Wind();
+        wind.setSpeed(2.5);
+        weatherData.setWind(wind);
+
+        WeatherDataV2.WeatherCondition condition = new WeatherDataV2.WeatherCondition();
+        condition.setMain("Clear");
+        condition.setDescription("clear sky");
+        weatherData.setWeather(List.of(condition));
+
+        WeatherDataV2.SystemData sys = new WeatherDataV2.SystemData();
+        sys.setSunrise(1675744800L);
+        sys.setSunset(1675778400L);
+        weatherData.setSys(sys);
+
+        return weatherData;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(CacheHitBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
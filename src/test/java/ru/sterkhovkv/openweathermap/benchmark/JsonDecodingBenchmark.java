@@ -0,0 +1,151 @@
+package ru.sterkhovkv.openweathermap.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import ru.sterkhovkv.openweathermap.client.LeanWeatherParser;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.model.v3.WeatherDataV3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding of a response body held in Netty buffers.
+ * {@code stringBody} reproduces the previous behaviour (decoding the body to a String, then parsing it),
+ * {@code byteStream} parses the body bytes directly, {@code leanProjection} streams the body bytes
+ * through the LEAN parser mode, keeping only the fields used by WeatherResponse.
+ * The typical payload is a Current Weather API 2.5 response; the large one is a One Call API 3.0
+ * response with minutely, hourly and daily data.
+ * Run {@link #main(String[])} to see allocations per decode ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDecodingBenchmark {
+
+    private static final int MINUTELY_POINTS = 60;
+    private static final int HOURLY_POINTS = 48;
+    private static final int DAILY_POINTS = 8;
+
+    @Param({"typical", "large"})
+    public String payload;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+    private byte[] body;
+    private Class<?> type;
+    private boolean large;
+
+    @Setup
+    public void setUp() {
+        large = "large".equals(payload);
+        body = (large ? oneCallJson() : currentWeatherJson()).getBytes(StandardCharsets.UTF_8);
+        type = large ? WeatherDataV3.class : WeatherDataV2.class;
+    }
+
+    @Benchmark
+    public Object stringBody() throws IOException {
+        DataBuffer buffer = wrapBody();
+        return objectMapper.readValue(buffer.toString(StandardCharsets.UTF_8), type);
+    }
+
+    @Benchmark
+    public Object byteStream() throws IOException {
+        DataBuffer buffer = wrapBody();
+        try (InputStream stream = buffer.asInputStream()) {
+            return objectMapper.readValue(stream, type);
+        }
+    }
+
+    @Benchmark
+    public Object leanProjection() throws IOException {
+        DataBuffer buffer = wrapBody();
+        try (InputStream stream = buffer.asInputStream(); JsonParser parser = objectMapper.createParser(stream)) {
+            return large ? LeanWeatherParser.parseV3(parser) : LeanWeatherParser.parseV2(parser);
+        }
+    }
+
+    private DataBuffer wrapBody() {
+        return bufferFactory.wrap(Unpooled.wrappedBuffer(body));
+    }
+
+    private static String currentWeatherJson() {
+        return """
+            {"coord":{"lon":37.6173,"lat":55.7558},
+            "weather":[{"id":800,"main":"Clear","description":"ясно","icon":"01d"}],
+            "base":"stations",
+            "main":{"temp":271.15,"feels_like":266.4,"temp_min":270.1,"temp_max":272.3,"pressure":1021,
+            "humidity":74,"sea_level":1021,"grnd_level":1002},
+            "visibility":10000,"wind":{"speed":4.2,"deg":250,"gust":7.1},"clouds":{"all":0},
+            "dt":1675744800,"sys":{"type":2,"id":2000314,"country":"RU","sunrise":1675744800,"sunset":1675778400},
+            "timezone":10800,"id":524901,"name":"Москва","cod":200}
+            """;
+    }
+
+    private static String oneCallJson() {
+        StringBuilder json = new StringBuilder(64 * 1024);
+        json.append("{\"lat\":55.7558,\"lon\":37.6173,\"timezone\":\"Europe/Moscow\",\"timezone_offset\":10800,")
+            .append("\"current\":").append(pointJson(1675744800L)).append(",\"minutely\":[");
+        for (int i = 0; i < MINUTELY_POINTS; i++) {
+            json.append(i > 0 ? "," : "")
+                .append("{\"dt\":").append(1675744800L + i * 60L).append(",\"precipitation\":0}");
+        }
+        json.append("],\"hourly\":[");
+        for (int i = 0; i < HOURLY_POINTS; i++) {
+            json.append(i > 0 ? "," : "").append(pointJson(1675744800L + i * 3600L));
+        }
+        json.append("],\"daily\":[");
+        for (int i = 0; i < DAILY_POINTS; i++) {
+            long dt = 1675744800L + i * 86400L;
+            json.append(i > 0 ? "," : "")
+                .append("{\"dt\":").append(dt).append(",\"sunrise\":").append(dt).append(",\"sunset\":")
+                .append(dt + 33600).append(",\"summary\":\"Ожидается облачность до конца дня\",")
+                .append("\"temp\":{\"day\":271.1,\"min\":268.2,\"max\":272.4,\"night\":268.9,\"eve\":270.3,")
+                .append("\"morn\":268.5},\"feels_like\":{\"day\":266.2,\"night\":263.1,\"eve\":265.0,")
+                .append("\"morn\":262.8},\"pressure\":1021,\"humidity\":74,\"wind_speed\":4.2,\"wind_deg\":250,")
+                .append("\"weather\":[{\"id\":804,\"main\":\"Clouds\",\"description\":\"пасмурно\",")
+                .append("\"icon\":\"04d\"}],\"clouds\":100,\"pop\":0.2,\"uvi\":0.4}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String pointJson(long dt) {
+        return "{\"dt\":" + dt + ",\"sunrise\":1675744800,\"sunset\":1675778400,\"temp\":271.15,"
+            + "\"feels_like\":266.4,\"pressure\":1021,\"humidity\":74,\"dew_point\":267.2,\"uvi\":0.4,"
+            + "\"clouds\":0,\"visibility\":10000,\"wind_speed\":4.2,\"wind_deg\":250,\"wind_gust\":7.1,"
+            + "\"weather\":[{\"id\":800,\"main\":\"Clear\",\"description\":\"ясно\",\"icon\":\"01d\"}],\"pop\":0}";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(JsonDecodingBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
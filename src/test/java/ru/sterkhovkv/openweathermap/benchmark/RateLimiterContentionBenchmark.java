@@ -0,0 +1,66 @@
+package ru.sterkhovkv.openweathermap.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.sterkhovkv.openweathermap.config.ApiRateLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ApiRateLimiter under contention: all benchmark threads acquire permits from one limiter.
+ * The limits are high enough that no call is rejected, so the benchmark measures the bookkeeping of an
+ * accepted call. Run {@link #main(String[])} to measure with 1, 8 and 64 threads, including allocations
+ * per call ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterContentionBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 8, 64};
+
+    private ApiRateLimiter rateLimiter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        rateLimiter = new ApiRateLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public void checkAndAcquire() {
+        rateLimiter.checkAndAcquire();
+    }
+
+    @Benchmark
+    public int callsLastMinute() {
+        return rateLimiter.getCallsLastMinute();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                .include(RateLimiterContentionBenchmark.class.getSimpleName())
+                .threads(threads)
+                .addProfiler(GCProfiler.class)
+                .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.exception.CacheException;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.GeocodingEntry;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSnapshotStoreTest {
+
+    private static final String SNAPSHOT_FILE_NAME = "cache.snapshot";
+    private static final String TEST_CACHE_KEY = "geo:55.7558,37.6173";
+    private static final String TEST_CITY_KEY = "moscow";
+    private static final String TEST_CITY_NAME = "Moscow";
+    private static final double MOSCOW_LAT = 55.7558;
+    private static final double MOSCOW_LON = 37.6173;
+    private static final long TEST_TIMESTAMP = 1675744800000L;
+    private static final long TEST_TTL_MILLIS = 300000L;
+    private static final double TEST_TEMP = 273.15;
+    private static final byte[] CORRUPT_CONTENT = {1, 2, 3, 4, 5, 6};
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testWriteAndRead() {
+        CacheSnapshotStore store = new CacheSnapshotStore(tempDir.resolve(SNAPSHOT_FILE_NAME));
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        WeatherDataV2 weatherData = createWeatherData();
+
+        store.write(new CacheSnapshot(
+            List.of(new CacheEntry(TEST_CACHE_KEY, coordinates, weatherData, null, ApiVersion.V2_5, TEST_TIMESTAMP,
+                TEST_TTL_MILLIS)),
+            Map.of(TEST_CITY_KEY, new GeocodingEntry(coordinates, TEST_TIMESTAMP))
+        ));
+
+        CacheSnapshot snapshot = store.read();
+
+        assertEquals(1, snapshot.weatherEntries().size());
+        CacheEntry entry = snapshot.weatherEntries().getFirst();
+        assertEquals(TEST_CACHE_KEY, entry.cityName());
+        assertEquals(coordinates, entry.coordinates());
+        assertEquals(ApiVersion.V2_5, entry.apiVersion());
+        assertEquals(TEST_TIMESTAMP, entry.timestamp());
+        assertEquals(TEST_TTL_MILLIS, entry.ttlMillis());
+        assertEquals(weatherData, entry.weatherData());
+
+        assertEquals(new GeocodingEntry(coordinates, TEST_TIMESTAMP), snapshot.geocodingEntries().get(TEST_CITY_KEY));
+    }
+
+    @Test
+    void testWriteReplacesPreviousSnapshot() {
+        CacheSnapshotStore store = new CacheSnapshotStore(tempDir.resolve(SNAPSHOT_FILE_NAME));
+        Coordinates coordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+
+        store.write(new CacheSnapshot(List.of(), Map.of(TEST_CITY_KEY, new GeocodingEntry(coordinates, TEST_TIMESTAMP))));
+        store.write(CacheSnapshot.empty());
+
+        CacheSnapshot snapshot = store.read();
+        assertTrue(snapshot.weatherEntries().isEmpty());
+        assertTrue(snapshot.geocodingEntries().isEmpty());
+    }
+
+    @Test
+    void testReadMissingFileReturnsEmptySnapshot() {
+        CacheSnapshotStore store = new CacheSnapshotStore(tempDir.resolve(SNAPSHOT_FILE_NAME));
+
+        CacheSnapshot snapshot = store.read();
+
+        assertTrue(snapshot.weatherEntries().isEmpty());
+        assertTrue(snapshot.geocodingEntries().isEmpty());
+    }
+
+    @Test
+    void testReadCorruptFileThrows() throws IOException {
+        Path path = tempDir.resolve(SNAPSHOT_FILE_NAME);
+        Files.write(path, CORRUPT_CONTENT);
+
+        assertThrows(CacheException.class, () -> new CacheSnapshotStore(path).read());
+    }
+
+    @Test
+    void testConstructorThrowsOnNullPath() {
+        assertThrows(IllegalArgumentException.class, () -> new CacheSnapshotStore(null));
+    }
+
+    private static WeatherDataV2 createWeatherData() {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+        weatherData.setName(TEST_CITY_NAME);
+        WeatherDataV2.MainData main = new WeatherDataV2.MainData();
+        main.setTemp(TEST_TEMP);
+        weatherData.setMain(main);
+        return weatherData;
+    }
+}
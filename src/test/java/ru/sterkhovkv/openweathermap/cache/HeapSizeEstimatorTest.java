@@ -0,0 +1,62 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.WeatherResponse;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeapSizeEstimatorTest {
+
+    private static final String LATIN_STRING = "Moscow";
+    private static final String CYRILLIC_STRING = "Москва";
+    private static final long LATIN_STRING_BYTES = 48;
+    private static final long CYRILLIC_STRING_BYTES = 56;
+    private static final long BOXED_VALUE_BYTES = 16;
+    private static final long LONG_ARRAY_BYTES = 40;
+    private static final long COORDINATES_BYTES = 32;
+    private static final double TEST_TEMP = 273.15;
+    private static final long TEST_TIMESTAMP = 1000L;
+
+    @Test
+    void testNullAndSharedObjectsAreFree() {
+        assertEquals(0, HeapSizeEstimator.estimate(null));
+        assertEquals(0, HeapSizeEstimator.estimate(ApiVersion.V2_5));
+    }
+
+    @Test
+    void testStringsAndValues() {
+        assertEquals(LATIN_STRING_BYTES, HeapSizeEstimator.estimate(LATIN_STRING));
+        assertEquals(CYRILLIC_STRING_BYTES, HeapSizeEstimator.estimate(CYRILLIC_STRING));
+        assertEquals(BOXED_VALUE_BYTES, HeapSizeEstimator.estimate(TEST_TEMP));
+        assertEquals(LONG_ARRAY_BYTES, HeapSizeEstimator.estimate(new long[3]));
+    }
+
+    @Test
+    void testRecordFieldsAreCounted() {
+        // Header, two doubles, aligned
+        assertEquals(COORDINATES_BYTES, HeapSizeEstimator.estimate(new Coordinates(0, 0)));
+    }
+
+    @Test
+    void testEstimateGrowsWithObjectGraph() {
+        WeatherDataV2 empty = new WeatherDataV2();
+        WeatherDataV2 withCondition = new WeatherDataV2();
+        WeatherDataV2.WeatherCondition condition = new WeatherDataV2.WeatherCondition();
+        condition.setDescription(LATIN_STRING);
+        withCondition.setWeather(List.of(condition));
+
+        long emptyBytes = HeapSizeEstimator.estimate(empty);
+        long withConditionBytes = HeapSizeEstimator.estimate(withCondition);
+        assertTrue(withConditionBytes > emptyBytes + LATIN_STRING_BYTES);
+
+        CacheEntry entry = new CacheEntry(LATIN_STRING, new Coordinates(0, 0), withCondition,
+            WeatherResponse.builder().name(LATIN_STRING).build(), ApiVersion.V2_5, TEST_TIMESTAMP);
+        assertTrue(HeapSizeEstimator.estimate(entry) > withConditionBytes + COORDINATES_BYTES + LATIN_STRING_BYTES);
+    }
+}
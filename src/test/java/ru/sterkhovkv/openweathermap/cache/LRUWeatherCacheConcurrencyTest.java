@@ -0,0 +1,187 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import ru.sterkhovkv.openweathermap.client.WeatherApiClient;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.config.PollingStrategy;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.scheduler.PollingSchedulerConfig;
+import ru.sterkhovkv.openweathermap.scheduler.WeatherPollingScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Concurrent writers on the same keys: polling refreshes racing on-demand puts, and updates racing removals.
+ */
+class LRUWeatherCacheConcurrencyTest {
+
+    private static final int KEY_COUNT = 4;
+    private static final int CACHE_SIZE = 100;
+    private static final long CACHE_TTL_MINUTES = 10;
+    private static final long POLLING_INTERVAL_MINUTES = 1;
+    private static final long PREEMPTIVE_EPSILON_MINUTES = 0;
+    private static final int SCHEDULER_COUNT = 4;
+    private static final int ON_DEMAND_THREADS = 4;
+    private static final int CONCURRENT_OPERATIONS = 2;
+    private static final int ITERATIONS = 20_000;
+    private static final int MIN_TICKS = 100;
+    private static final long ON_DEMAND_LEAD_MILLIS = 60_000;
+    private static final long TICK_POLL_MILLIS = 1;
+    private static final long REMOVE_WAIT_MILLIS = 200;
+    private static final long RUN_TIMEOUT_SECONDS = 60;
+    private static final double TEST_TEMP = 280.0;
+    private static final String KEY_PREFIX = "city-";
+
+    private static final Coordinates TEST_COORDINATES = new Coordinates(55.7558, 37.6173);
+
+    @Test
+    void testPollingRefreshesNeverOverwriteNewerOnDemandData() throws Exception {
+        LRUWeatherCache cache = new LRUWeatherCache(CACHE_SIZE, CACHE_TTL_MINUTES);
+        long seedTimestamp = System.currentTimeMillis();
+        for (int key = 0; key < KEY_COUNT; key++) {
+            cache.put(KEY_PREFIX + key, TEST_COORDINATES, new WeatherDataV2(), ApiVersion.V2_5, seedTimestamp);
+        }
+
+        AtomicLongArray newestWritten = new AtomicLongArray(KEY_COUNT);
+        AtomicInteger ticks = new AtomicInteger();
+        AtomicBoolean writersRunning = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(ON_DEMAND_THREADS + SCHEDULER_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < ON_DEMAND_THREADS; thread++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                // On-demand data is stamped ahead of the clock, so every refresh stamped
+                // with its tick start is older than any on-demand write it races with
+                for (int i = 0; i < ITERATIONS || ticks.get() < MIN_TICKS; i++) {
+                    int key = i % KEY_COUNT;
+                    long timestamp = System.currentTimeMillis() + ON_DEMAND_LEAD_MILLIS;
+                    cache.put(KEY_PREFIX + key, TEST_COORDINATES, new WeatherDataV2(), ApiVersion.V2_5, timestamp);
+                    newestWritten.accumulateAndGet(key, timestamp, Math::max);
+                }
+                return null;
+            }));
+        }
+
+        // A scheduler ticks once when started, so each polling thread runs a new one per tick
+        List<Future<?>> pollers = new ArrayList<>();
+        for (int thread = 0; thread < SCHEDULER_COUNT; thread++) {
+            AtomicInteger fetches = new AtomicInteger();
+            WeatherApiClient client = mock(WeatherApiClient.class);
+            when(client.fetchWeatherAsync(any(Coordinates.class))).thenAnswer(invocation -> Mono.fromCallable(() -> {
+                fetches.incrementAndGet();
+                return createWeatherData();
+            }));
+            pollers.add(executor.submit(() -> {
+                start.await();
+                while (writersRunning.get()) {
+                    int tickFetches = fetches.get() + KEY_COUNT;
+                    WeatherPollingScheduler scheduler = new WeatherPollingScheduler(new PollingSchedulerConfig(cache,
+                        client, ApiVersion.V2_5, POLLING_INTERVAL_MINUTES, CACHE_TTL_MINUTES, PollingStrategy.STRICT,
+                        PREEMPTIVE_EPSILON_MINUTES));
+                    scheduler.start();
+                    while (fetches.get() < tickFetches) {
+                        Thread.sleep(TICK_POLL_MILLIS);
+                    }
+                    scheduler.stop();
+                    ticks.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        try {
+            start.countDown();
+            awaitAll(writers);
+            writersRunning.set(false);
+            awaitAll(pollers);
+        } finally {
+            writersRunning.set(false);
+            executor.shutdownNow();
+        }
+
+        assertTrue(ticks.get() >= MIN_TICKS);
+        for (int key = 0; key < KEY_COUNT; key++) {
+            CacheEntry entry = cache.getStale(KEY_PREFIX + key);
+            assertNotNull(entry);
+            assertEquals(newestWritten.get(key), entry.timestamp(),
+                "Newer on-demand data was overwritten for " + KEY_PREFIX + key);
+        }
+    }
+
+    @Test
+    void testUpdateNeverResurrectsConcurrentlyRemovedEntry() throws Exception {
+        // The TTL policy runs between reading the stored entry and writing the new one:
+        // a remove is issued right there and given a moment to complete. The initial put
+        // has no stored entry and does not pause
+        CountDownLatch updateInProgress = new CountDownLatch(1);
+        CountDownLatch removed = new CountDownLatch(1);
+        TtlPolicy pausingPolicy = (cityName, previous, weatherData, timestamp) -> {
+            if (previous == null) {
+                return 0;
+            }
+            updateInProgress.countDown();
+            try {
+                removed.await(REMOVE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        };
+        LRUWeatherCache cache = new LRUWeatherCache(CACHE_SIZE, CACHE_TTL_MINUTES, CACHE_TTL_MINUTES, null,
+            pausingPolicy);
+        String key = KEY_PREFIX + 0;
+        long timestamp = System.currentTimeMillis();
+        cache.put(key, TEST_COORDINATES, createWeatherData(), ApiVersion.V2_5, timestamp);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_OPERATIONS);
+        try {
+            Future<?> update = executor.submit(() -> {
+                cache.update(key, createWeatherData(), ApiVersion.V2_5, timestamp + 1);
+                return null;
+            });
+            Future<?> remove = executor.submit(() -> {
+                updateInProgress.await();
+                cache.remove(key);
+                removed.countDown();
+                return null;
+            });
+            awaitAll(List.of(update, remove));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNull(cache.getStale(key), "Removed entry was brought back by a concurrent update");
+    }
+
+    private static WeatherDataV2 createWeatherData() {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+        WeatherDataV2.MainData main = new WeatherDataV2.MainData();
+        main.setTemp(TEST_TEMP);
+        weatherData.setMain(main);
+        return weatherData;
+    }
+
+    private static void awaitAll(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            future.get(RUN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+}
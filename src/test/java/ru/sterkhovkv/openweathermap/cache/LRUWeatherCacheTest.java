@@ -2,13 +2,16 @@ package ru.sterkhovkv.openweathermap.cache;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
 import ru.sterkhovkv.openweathermap.exception.CacheException;
 import ru.sterkhovkv.openweathermap.model.CacheEntry;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.WeatherResponse;
 import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
 import ru.sterkhovkv.openweathermap.util.Constants;
 
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +24,7 @@ class LRUWeatherCacheTest {
     private static final long TEST_CACHE_TTL_LARGE = 15;
     private static final int SMALL_CACHE_SIZE = 2;
     private static final long SHORT_TTL_MINUTES = 1;
+    private static final long MAX_TTL_RETENTION_MINUTES = 30;
     private static final int INVALID_CACHE_SIZE_ZERO = 0;
     private static final int INVALID_CACHE_SIZE_NEGATIVE = -1;
     private static final long INVALID_TTL_ZERO = 0;
@@ -30,12 +34,17 @@ class LRUWeatherCacheTest {
     private static final int TWO_ENTRIES_CACHE_SIZE = 2;
     private static final int ITERATION_COUNT = 10;
     private static final long SLEEP_MILLIS = 100;
+    private static final int DISK_TIER_CAPACITY_BYTES = 64 * 1024;
+    private static final long DEMOTION_TIMEOUT_MILLIS = 5000;
     private static final long ONE_SECOND_MILLIS = 1000;
     private static final long TEN_SECONDS_MILLIS = 10 * Constants.MILLIS_PER_MINUTE / 6;
     private static final long TWENTY_SECONDS_MILLIS = 20 * Constants.MILLIS_PER_MINUTE / 3;
     private static final long TWO_MINUTES_MILLIS = 2 * Constants.MILLIS_PER_MINUTE;
     private static final long TEN_MINUTES_MILLIS = 10 * Constants.MILLIS_PER_MINUTE;
     private static final long ONE_MINUTE_MILLIS = Constants.MILLIS_PER_MINUTE;
+    private static final long THIRTY_MINUTES_MILLIS = 30 * Constants.MILLIS_PER_MINUTE;
+    private static final double COLD_TEMP = 270.0;
+    private static final double WARM_TEMP = 280.0;
 
     private static final String TEST_CITY_MOSCOW = "Moscow";
     private static final String TEST_CITY_LONDON = "London";
@@ -160,6 +169,137 @@ class LRUWeatherCacheTest {
         assertNull(entry);
     }
 
+    @Test
+    void testConstructorThrowsOnRetentionBelowTtl() {
+        assertThrows(IllegalArgumentException.class, () ->
+            new LRUWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES, SHORT_TTL_MINUTES));
+    }
+
+    @Test
+    void testGetStaleReturnsSoftExpiredEntry() {
+        LRUWeatherCache softCache = new LRUWeatherCache(DEFAULT_CACHE_SIZE, SHORT_TTL_MINUTES, DEFAULT_CACHE_TTL_MINUTES);
+
+        long softExpiredTimestamp = System.currentTimeMillis() - TWO_MINUTES_MILLIS;
+        softCache.put(TEST_CITY_MOSCOW, testCoordinates, testWeatherData, ApiVersion.V2_5, softExpiredTimestamp);
+
+        assertNull(softCache.get(TEST_CITY_MOSCOW));
+        CacheEntry staleEntry = softCache.getStale(TEST_CITY_MOSCOW);
+        assertNotNull(staleEntry);
+        assertEquals(softExpiredTimestamp, staleEntry.timestamp());
+        assertEquals(SINGLE_ENTRY_CACHE_SIZE, softCache.size());
+    }
+
+    @Test
+    void testGetStaleReturnsNullBeyondRetention() {
+        LRUWeatherCache softCache = new LRUWeatherCache(DEFAULT_CACHE_SIZE, SHORT_TTL_MINUTES, DEFAULT_CACHE_TTL_MINUTES);
+
+        long retentionExpiredTimestamp = System.currentTimeMillis() - TEN_MINUTES_MILLIS - ONE_SECOND_MILLIS;
+        softCache.put(TEST_CITY_MOSCOW, testCoordinates, testWeatherData, ApiVersion.V2_5, retentionExpiredTimestamp);
+
+        assertNull(softCache.getStale(TEST_CITY_MOSCOW));
+        assertNull(softCache.getStale(TEST_CITY_NON_EXISTENT));
+        assertEquals(EMPTY_CACHE_SIZE, softCache.size());
+    }
+
+    @Test
+    void testVariableTtlFollowsWeatherVolatility() {
+        LRUWeatherCache variableCache = new LRUWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES,
+            DEFAULT_CACHE_TTL_MINUTES, null, new VolatilityTtlPolicy(ONE_MINUTE_MILLIS, THIRTY_MINUTES_MILLIS));
+        long twentyMinutesAgo = System.currentTimeMillis() - 2 * TEN_MINUTES_MILLIS;
+
+        variableCache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherData(COLD_TEMP), ApiVersion.V2_5,
+            System.currentTimeMillis() - TWO_MINUTES_MILLIS - ONE_SECOND_MILLIS);
+        assertEquals(TEN_MINUTES_MILLIS, variableCache.get(TEST_CITY_MOSCOW).effectiveTtlMillis(TEN_MINUTES_MILLIS));
+
+        // Temperature jumped: minimum TTL
+        variableCache.update(TEST_CITY_MOSCOW, createWeatherData(WARM_TEMP), ApiVersion.V2_5,
+            System.currentTimeMillis() - TWO_MINUTES_MILLIS);
+        assertNull(variableCache.get(TEST_CITY_MOSCOW));
+        assertFalse(variableCache.isValid(TEST_CITY_MOSCOW, System.currentTimeMillis(), TEN_MINUTES_MILLIS));
+
+        // Unchanged weather: maximum TTL
+        variableCache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherData(WARM_TEMP), ApiVersion.V2_5,
+            twentyMinutesAgo - ONE_SECOND_MILLIS);
+        variableCache.update(TEST_CITY_MOSCOW, createWeatherData(WARM_TEMP), ApiVersion.V2_5, twentyMinutesAgo);
+        CacheEntry entry = variableCache.get(TEST_CITY_MOSCOW);
+        assertNotNull(entry);
+        assertEquals(THIRTY_MINUTES_MILLIS, entry.ttlMillis());
+    }
+
+    @Test
+    void testRestoreKeepsEntryTtl() {
+        LRUWeatherCache variableCache = new LRUWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES,
+            MAX_TTL_RETENTION_MINUTES, null,
+            new VolatilityTtlPolicy(ONE_MINUTE_MILLIS, THIRTY_MINUTES_MILLIS), Long.MAX_VALUE);
+        long twentyMinutesAgo = System.currentTimeMillis() - 2 * TEN_MINUTES_MILLIS;
+
+        variableCache.restore(new CacheEntry(TEST_CITY_MOSCOW, testCoordinates, testWeatherData, null,
+            ApiVersion.V2_5, twentyMinutesAgo, THIRTY_MINUTES_MILLIS));
+        variableCache.restore(new CacheEntry(TEST_CITY_MOSCOW, testCoordinates, new WeatherDataV2(), null,
+            ApiVersion.V2_5, twentyMinutesAgo - ONE_SECOND_MILLIS, ONE_MINUTE_MILLIS));
+
+        CacheEntry entry = variableCache.get(TEST_CITY_MOSCOW);
+        assertNotNull(entry);
+        assertSame(testWeatherData, entry.weatherData());
+        assertEquals(THIRTY_MINUTES_MILLIS, entry.ttlMillis());
+        assertTrue(entry.weightBytes() > 0);
+    }
+
+    @Test
+    void testOlderWritesAreIgnored() {
+        long timestamp = System.currentTimeMillis();
+        Object olderWeatherData = new WeatherDataV2();
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, testWeatherData, ApiVersion.V2_5, timestamp);
+
+        cache.update(TEST_CITY_MOSCOW, olderWeatherData, ApiVersion.V2_5, timestamp - ONE_SECOND_MILLIS);
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, olderWeatherData, ApiVersion.V2_5, timestamp - ONE_SECOND_MILLIS);
+
+        CacheEntry entry = cache.get(TEST_CITY_MOSCOW);
+        assertSame(testWeatherData, entry.weatherData());
+        assertEquals(timestamp, entry.timestamp());
+    }
+
+    @Test
+    void testWeightIsEstimatedOnceOnWrite() {
+        long timestamp = System.currentTimeMillis();
+        LRUWeatherCache weightedCache = new LRUWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES,
+            DEFAULT_CACHE_TTL_MINUTES, null, null, Long.MAX_VALUE);
+
+        weightedCache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherData(COLD_TEMP), ApiVersion.V2_5, timestamp);
+        CacheEntry entry = weightedCache.get(TEST_CITY_MOSCOW);
+
+        assertTrue(entry.weightBytes() > 0);
+
+        // Without a byte bound nothing is stored, and the weight is estimated when reported
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherData(COLD_TEMP), ApiVersion.V2_5, timestamp);
+        assertEquals(0, cache.get(TEST_CITY_MOSCOW).weightBytes());
+        assertEquals(entry.weightBytes(), cache.weightBytes());
+    }
+
+    @Test
+    void testWeightIsBounded() throws InterruptedException {
+        long timestamp = System.currentTimeMillis();
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherData(COLD_TEMP), ApiVersion.V2_5, timestamp);
+        long entryBytes = cache.weightBytes();
+        assertTrue(entryBytes > 0);
+
+        long maxWeightBytes = entryBytes * 5 / 2;
+        LRUWeatherCache weightedCache = new LRUWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES,
+            DEFAULT_CACHE_TTL_MINUTES, null, null, maxWeightBytes);
+        for (String city : List.of(TEST_CITY_MOSCOW, TEST_CITY_PARIS, TEST_CITY_TOKYO)) {
+            weightedCache.put(city, testCoordinates, createWeatherData(COLD_TEMP), ApiVersion.V2_5, timestamp);
+        }
+
+        long deadline = System.currentTimeMillis() + DEMOTION_TIMEOUT_MILLIS;
+        while (weightedCache.size() > TWO_ENTRIES_CACHE_SIZE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(SLEEP_MILLIS);
+        }
+        assertTrue(weightedCache.weightBytes() <= maxWeightBytes);
+        assertEquals(TWO_ENTRIES_CACHE_SIZE, weightedCache.size());
+        assertThrows(IllegalArgumentException.class, () -> new LRUWeatherCache(DEFAULT_CACHE_SIZE,
+            DEFAULT_CACHE_TTL_MINUTES, DEFAULT_CACHE_TTL_MINUTES, null, null, -1));
+    }
+
     @Test
     void testUpdate() {
         long timestamp = System.currentTimeMillis();
@@ -177,6 +317,54 @@ class LRUWeatherCacheTest {
         assertEquals(testCoordinates, entry.coordinates());
     }
 
+    @Test
+    void testPutAndUpdateStoreResponse() {
+        WeatherResponse response = WeatherResponse.builder().name(TEST_CITY_MOSCOW).build();
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, testWeatherData, response, ApiVersion.V2_5,
+            System.currentTimeMillis());
+
+        assertSame(response, cache.get(TEST_CITY_MOSCOW).response());
+
+        WeatherResponse newResponse = WeatherResponse.builder().name(TEST_CITY_MOSCOW).build();
+        cache.update(TEST_CITY_MOSCOW, testWeatherData, newResponse, ApiVersion.V2_5, System.currentTimeMillis());
+
+        assertSame(newResponse, cache.get(TEST_CITY_MOSCOW).response());
+    }
+
+    @Test
+    void testEvictedEntryIsPromotedFromDiskTier(@TempDir Path directory) throws InterruptedException {
+        MappedSegmentCache diskTier = new MappedSegmentCache(directory, DISK_TIER_CAPACITY_BYTES, TEN_MINUTES_MILLIS)
+            .start();
+        LRUWeatherCache tieredCache = new LRUWeatherCache(SINGLE_ENTRY_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES,
+            DEFAULT_CACHE_TTL_MINUTES, diskTier);
+        long timestamp = System.currentTimeMillis();
+
+        tieredCache.put(TEST_CITY_MOSCOW, testCoordinates, testWeatherData, ApiVersion.V2_5, timestamp);
+        tieredCache.put(TEST_CITY_LONDON, new Coordinates(LONDON_LAT, LONDON_LON),
+            testWeatherData, ApiVersion.V2_5, timestamp);
+
+        // Size eviction runs in Caffeine's maintenance, which may be deferred to its executor
+        long deadline = System.currentTimeMillis() + DEMOTION_TIMEOUT_MILLIS;
+        while (diskTier.size() < SINGLE_ENTRY_CACHE_SIZE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(SLEEP_MILLIS);
+        }
+
+        assertEquals(SINGLE_ENTRY_CACHE_SIZE, tieredCache.size());
+        assertEquals(SINGLE_ENTRY_CACHE_SIZE, diskTier.size());
+
+        String demotedCity = tieredCache.getAllCities().contains(TEST_CITY_MOSCOW) ? TEST_CITY_LONDON : TEST_CITY_MOSCOW;
+        CacheEntry promoted = tieredCache.get(demotedCity);
+
+        assertNotNull(promoted);
+        assertEquals(demotedCity, promoted.cityName());
+        assertEquals(timestamp, promoted.timestamp());
+        assertTrue(tieredCache.getAllCities().contains(demotedCity));
+
+        tieredCache.clear();
+        assertEquals(EMPTY_CACHE_SIZE, diskTier.size());
+        tieredCache.close();
+    }
+
     @Test
     void testUpdateThrowsOnNonExistentCity() {
         assertThrows(CacheException.class, () ->
@@ -325,5 +513,12 @@ class LRUWeatherCacheTest {
             "At most " + SMALL_CACHE_SIZE +
                 " cities should be accessible in cache after eviction, but found: " + foundCount);
     }
-}
 
+    private static WeatherDataV2 createWeatherData(double temp) {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+        WeatherDataV2.MainData main = new WeatherDataV2.MainData();
+        main.setTemp(temp);
+        weatherData.setMain(main);
+        return weatherData;
+    }
+}
@@ -0,0 +1,223 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSegmentCacheTest {
+
+    private static final int CAPACITY_BYTES = 64 * 1024;
+    private static final int TINY_CAPACITY_BYTES = 64;
+    private static final long RETENTION_MILLIS = 30 * Constants.MILLIS_PER_MINUTE;
+    private static final long ONE_HOUR_MILLIS = 60 * Constants.MILLIS_PER_MINUTE;
+    private static final int EMPTY_SIZE = 0;
+    private static final int SINGLE_ENTRY_SIZE = 1;
+    private static final int OVERWRITE_COUNT = 20;
+    private static final long SLEEP_MILLIS = 50;
+    private static final long COMPACTION_TIMEOUT_MILLIS = 5000;
+
+    private static final String TEST_CITY_MOSCOW = "Moscow";
+    private static final String TEST_CITY_LONDON = "London";
+    private static final double MOSCOW_LAT = 55.7558;
+    private static final double MOSCOW_LON = 37.6173;
+    private static final double TEST_TEMP = 273.15;
+    private static final long TEST_DATETIME = 1675744800L;
+
+    @TempDir
+    Path directory;
+
+    private MappedSegmentCache diskCache;
+
+    @BeforeEach
+    void setUp() {
+        diskCache = new MappedSegmentCache(directory, CAPACITY_BYTES, RETENTION_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        diskCache.close();
+    }
+
+    @Test
+    void testConstructorThrowsOnInvalidParameters() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new MappedSegmentCache(null, CAPACITY_BYTES, RETENTION_MILLIS));
+        assertThrows(IllegalArgumentException.class,
+            () -> new MappedSegmentCache(directory, EMPTY_SIZE, RETENTION_MILLIS));
+        assertThrows(IllegalArgumentException.class,
+            () -> new MappedSegmentCache(directory, CAPACITY_BYTES, EMPTY_SIZE));
+    }
+
+    @Test
+    void testPutAndGet() {
+        long timestamp = System.currentTimeMillis();
+        diskCache.put(createEntry(TEST_CITY_MOSCOW, timestamp));
+
+        CacheEntry entry = diskCache.get(TEST_CITY_MOSCOW);
+
+        assertNotNull(entry);
+        assertEquals(TEST_CITY_MOSCOW, entry.cityName());
+        assertEquals(new Coordinates(MOSCOW_LAT, MOSCOW_LON), entry.coordinates());
+        assertEquals(ApiVersion.V2_5, entry.apiVersion());
+        assertEquals(timestamp, entry.timestamp());
+        assertEquals(createWeatherData(), entry.weatherData());
+        assertEquals(SINGLE_ENTRY_SIZE, diskCache.size());
+    }
+
+    @Test
+    void testExpiredEntriesAreDropped() {
+        long expiredTimestamp = System.currentTimeMillis() - ONE_HOUR_MILLIS;
+        diskCache.put(createEntry(TEST_CITY_MOSCOW, expiredTimestamp));
+
+        assertEquals(EMPTY_SIZE, diskCache.size());
+        assertNull(diskCache.get(TEST_CITY_MOSCOW));
+    }
+
+    @Test
+    void testMaintenanceCompactsOverwrittenRecords() {
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < OVERWRITE_COUNT; i++) {
+            diskCache.put(createEntry(TEST_CITY_MOSCOW, timestamp + i));
+        }
+        diskCache.put(createEntry(TEST_CITY_LONDON, timestamp));
+
+        diskCache.runMaintenance();
+
+        assertEquals(2, diskCache.size());
+        assertEquals(timestamp + OVERWRITE_COUNT - 1, diskCache.get(TEST_CITY_MOSCOW).timestamp());
+        assertEquals(TEST_CITY_LONDON, diskCache.get(TEST_CITY_LONDON).cityName());
+        assertEquals(SINGLE_ENTRY_SIZE, countSegmentFiles());
+    }
+
+    @Test
+    void testPutDoesNotOverwriteNewerRecord() {
+        long timestamp = System.currentTimeMillis();
+        diskCache.put(createEntry(TEST_CITY_MOSCOW, timestamp));
+        diskCache.put(createEntry(TEST_CITY_MOSCOW, timestamp - 1));
+
+        assertEquals(timestamp, diskCache.get(TEST_CITY_MOSCOW).timestamp());
+    }
+
+    @Test
+    void testEntryIsDroppedWhenSegmentIsFull() {
+        MappedSegmentCache tinyCache = new MappedSegmentCache(directory.resolve("tiny"), TINY_CAPACITY_BYTES,
+            RETENTION_MILLIS);
+
+        tinyCache.put(createEntry(TEST_CITY_MOSCOW, System.currentTimeMillis()));
+
+        assertEquals(EMPTY_SIZE, tinyCache.size());
+        tinyCache.close();
+    }
+
+    @Test
+    void testFullSegmentIsCompactedInBackground() throws InterruptedException {
+        long timestamp = System.currentTimeMillis();
+        diskCache.put(createEntry(TEST_CITY_MOSCOW, timestamp));
+        // Overwrites fill the segment with garbage until a write is dropped
+        while (diskCache.get(TEST_CITY_MOSCOW).timestamp() == timestamp) {
+            diskCache.put(createEntry(TEST_CITY_MOSCOW, ++timestamp));
+        }
+
+        // The dropped write requested a compaction instead of running it inline
+        long deadline = System.currentTimeMillis() + COMPACTION_TIMEOUT_MILLIS;
+        while (diskCache.get(TEST_CITY_MOSCOW).timestamp() != timestamp && System.currentTimeMillis() < deadline) {
+            Thread.sleep(SLEEP_MILLIS);
+            diskCache.put(createEntry(TEST_CITY_MOSCOW, timestamp));
+        }
+        assertEquals(timestamp, diskCache.get(TEST_CITY_MOSCOW).timestamp());
+        assertEquals(SINGLE_ENTRY_SIZE, countSegmentFiles());
+    }
+
+    @Test
+    void testInstancesSharingDirectoryUseSeparateFiles() {
+        long timestamp = System.currentTimeMillis();
+        MappedSegmentCache otherCache = new MappedSegmentCache(directory, CAPACITY_BYTES, RETENTION_MILLIS);
+        diskCache.put(createEntry(TEST_CITY_MOSCOW, timestamp));
+        otherCache.put(createEntry(TEST_CITY_LONDON, timestamp));
+        assertEquals(2, countSegmentFiles());
+
+        otherCache.close();
+
+        assertEquals(SINGLE_ENTRY_SIZE, countSegmentFiles());
+        assertEquals(TEST_CITY_MOSCOW, diskCache.get(TEST_CITY_MOSCOW).cityName());
+        assertNull(diskCache.get(TEST_CITY_LONDON));
+    }
+
+    @Test
+    void testInvalidateAndClear() {
+        long timestamp = System.currentTimeMillis();
+        diskCache.put(createEntry(TEST_CITY_MOSCOW, timestamp));
+        diskCache.put(createEntry(TEST_CITY_LONDON, timestamp));
+
+        diskCache.invalidate(TEST_CITY_MOSCOW);
+        assertNull(diskCache.get(TEST_CITY_MOSCOW));
+        assertEquals(SINGLE_ENTRY_SIZE, diskCache.size());
+
+        diskCache.clear();
+        assertEquals(EMPTY_SIZE, diskCache.size());
+    }
+
+    @Test
+    void testGetKeepsEntryAndInvalidateSkipsNewerRecord() {
+        long timestamp = System.currentTimeMillis();
+        diskCache.put(createEntry(TEST_CITY_MOSCOW, timestamp));
+
+        assertEquals(timestamp, diskCache.get(TEST_CITY_MOSCOW).timestamp());
+        assertEquals(SINGLE_ENTRY_SIZE, diskCache.size());
+
+        diskCache.invalidate(TEST_CITY_MOSCOW, timestamp - 1);
+        assertEquals(SINGLE_ENTRY_SIZE, diskCache.size());
+
+        diskCache.invalidate(TEST_CITY_MOSCOW, timestamp);
+        assertNull(diskCache.get(TEST_CITY_MOSCOW));
+    }
+
+    @Test
+    void testCloseDeletesSegmentFile() {
+        diskCache.put(createEntry(TEST_CITY_MOSCOW, System.currentTimeMillis()));
+
+        diskCache.close();
+
+        assertEquals(EMPTY_SIZE, countSegmentFiles());
+        assertNull(diskCache.get(TEST_CITY_MOSCOW));
+    }
+
+    private long countSegmentFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static CacheEntry createEntry(String cityName, long timestamp) {
+        return new CacheEntry(cityName, new Coordinates(MOSCOW_LAT, MOSCOW_LON), createWeatherData(),
+            ApiVersion.V2_5, timestamp);
+    }
+
+    private static WeatherDataV2 createWeatherData() {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+        weatherData.setName(TEST_CITY_MOSCOW);
+        weatherData.setDatetime(TEST_DATETIME);
+
+        WeatherDataV2.MainData main = new WeatherDataV2.MainData();
+        main.setTemp(TEST_TEMP);
+        weatherData.setMain(main);
+        weatherData.setWeather(List.of());
+        return weatherData;
+    }
+}
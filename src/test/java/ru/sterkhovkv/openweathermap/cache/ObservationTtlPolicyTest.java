@@ -0,0 +1,83 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObservationTtlPolicyTest {
+
+    private static final String TEST_CITY = "Moscow";
+    private static final long OBSERVED_AT_SECONDS = 1675744800L;
+    private static final long OBSERVED_AT_MILLIS = TimeUnit.SECONDS.toMillis(OBSERVED_AT_SECONDS);
+    private static final long ONE_MINUTE_MILLIS = Constants.MILLIS_PER_MINUTE;
+    private static final long FIVE_MINUTES_SECONDS = 5 * 60;
+    private static final long FIVE_MINUTES_MILLIS = 5 * ONE_MINUTE_MILLIS;
+    private static final long DEFAULT_INTERVAL = Constants.DEFAULT_OBSERVATION_INTERVAL_MILLIS;
+    private static final long PUBLISH_DELAY = Constants.OBSERVATION_PUBLISH_DELAY_MILLIS;
+
+    private final ObservationTtlPolicy policy = new ObservationTtlPolicy();
+
+    @Test
+    void testEntryIsFreshUntilNextExpectedObservation() {
+        long fetchedAt = OBSERVED_AT_MILLIS + ONE_MINUTE_MILLIS;
+
+        long ttl = policy.ttlFor(TEST_CITY, null, createWeatherData(OBSERVED_AT_SECONDS), fetchedAt);
+
+        assertEquals(OBSERVED_AT_MILLIS + DEFAULT_INTERVAL + PUBLISH_DELAY - fetchedAt, ttl);
+    }
+
+    @Test
+    void testOverdueObservationWaitsForTheFollowingOne() {
+        long fetchedAt = OBSERVED_AT_MILLIS + DEFAULT_INTERVAL + PUBLISH_DELAY + ONE_MINUTE_MILLIS;
+
+        long ttl = policy.ttlFor(TEST_CITY, null, createWeatherData(OBSERVED_AT_SECONDS), fetchedAt);
+
+        assertEquals(DEFAULT_INTERVAL - ONE_MINUTE_MILLIS, ttl);
+    }
+
+    @Test
+    void testMissingObservationTimeUsesCacheWideTtl() {
+        assertEquals(0, policy.ttlFor(TEST_CITY, null, new WeatherDataV2(), OBSERVED_AT_MILLIS));
+    }
+
+    @Test
+    void testIntervalIsEstimatedFromSuccessiveObservations() {
+        CacheEntry previous = new CacheEntry(TEST_CITY, new Coordinates(0, 0),
+            createWeatherData(OBSERVED_AT_SECONDS), ApiVersion.V2_5, OBSERVED_AT_MILLIS);
+
+        long observedAt = OBSERVED_AT_SECONDS;
+        for (int i = 0; i < 20; i++) {
+            observedAt += FIVE_MINUTES_SECONDS;
+            policy.ttlFor(TEST_CITY, previous, createWeatherData(observedAt), TimeUnit.SECONDS.toMillis(observedAt));
+        }
+
+        assertEquals(FIVE_MINUTES_MILLIS, policy.getObservationIntervalMillis(TEST_CITY), ONE_MINUTE_MILLIS / 10);
+        assertEquals(DEFAULT_INTERVAL, policy.getObservationIntervalMillis("London"));
+    }
+
+    @Test
+    void testObserveIgnoresRepeatedObservationAndSplitsGaps() {
+        ObservationTtlPolicy.Cadence cadence = new ObservationTtlPolicy.Cadence(OBSERVED_AT_MILLIS, DEFAULT_INTERVAL);
+
+        assertSame(cadence, ObservationTtlPolicy.observe(cadence, OBSERVED_AT_MILLIS));
+
+        // Two missed observations at the expected interval keep the estimate
+        ObservationTtlPolicy.Cadence afterGap = ObservationTtlPolicy.observe(cadence,
+            OBSERVED_AT_MILLIS + 3 * DEFAULT_INTERVAL);
+        assertEquals(DEFAULT_INTERVAL, afterGap.intervalMillis());
+        assertEquals(OBSERVED_AT_MILLIS + 3 * DEFAULT_INTERVAL, afterGap.lastObservedAt());
+    }
+
+    private static WeatherDataV2 createWeatherData(long observedAtSeconds) {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+        weatherData.setDatetime(observedAtSeconds);
+        return weatherData;
+    }
+}
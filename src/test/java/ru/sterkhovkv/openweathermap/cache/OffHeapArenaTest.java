@@ -0,0 +1,67 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapArenaTest {
+
+    private static final int SMALL_SIZE = 100;
+    private static final int SMALL_BLOCK_BYTES = 128;
+    private static final int TINY_SIZE = 1;
+    private static final long UNBOUNDED = 0;
+    private static final long SMALL_CAPACITY_BYTES = 2 * SMALL_BLOCK_BYTES;
+    private static final long EMPTY_BYTES = 0;
+
+    @Test
+    void testBlockSizeFor() {
+        assertEquals(Constants.OFF_HEAP_MIN_BLOCK_BYTES, OffHeapArena.blockSizeFor(TINY_SIZE));
+        assertEquals(SMALL_BLOCK_BYTES, OffHeapArena.blockSizeFor(SMALL_SIZE));
+        assertEquals(SMALL_BLOCK_BYTES, OffHeapArena.blockSizeFor(SMALL_BLOCK_BYTES));
+        assertEquals(Constants.OFF_HEAP_MAX_BLOCK_BYTES,
+            OffHeapArena.blockSizeFor(Constants.OFF_HEAP_MAX_BLOCK_BYTES));
+        assertEquals(-1, OffHeapArena.blockSizeFor(Constants.OFF_HEAP_MAX_BLOCK_BYTES + 1));
+    }
+
+    @Test
+    void testFreedBlockIsReused() {
+        OffHeapArena arena = new OffHeapArena(UNBOUNDED);
+
+        OffHeapArena.Block first = arena.allocate(SMALL_SIZE);
+        OffHeapArena.Block second = arena.allocate(SMALL_SIZE);
+        assertEquals(SMALL_BLOCK_BYTES, first.memory().capacity());
+        assertTrue(first.memory().isDirect());
+        assertNotSame(first, second);
+        assertEquals(Constants.OFF_HEAP_SLAB_BYTES, arena.reservedBytes());
+
+        arena.free(first);
+        assertSame(first, arena.allocate(SMALL_SIZE));
+    }
+
+    @Test
+    void testSlabIsReturnedWhenAllBlocksAreFree() {
+        OffHeapArena arena = new OffHeapArena(UNBOUNDED);
+        OffHeapArena.Block first = arena.allocate(SMALL_SIZE);
+        OffHeapArena.Block second = arena.allocate(SMALL_SIZE);
+
+        arena.free(first);
+        assertEquals(Constants.OFF_HEAP_SLAB_BYTES, arena.reservedBytes());
+        arena.free(second);
+        assertEquals(EMPTY_BYTES, arena.reservedBytes());
+    }
+
+    @Test
+    void testAllocationFailsBeyondCapacity() {
+        OffHeapArena arena = new OffHeapArena(SMALL_CAPACITY_BYTES);
+
+        OffHeapArena.Block first = arena.allocate(SMALL_SIZE);
+        assertNotNull(arena.allocate(SMALL_SIZE));
+        assertNull(arena.allocate(SMALL_SIZE));
+        assertEquals(SMALL_CAPACITY_BYTES, arena.reservedBytes());
+
+        arena.free(first);
+        assertNotNull(arena.allocate(SMALL_SIZE));
+        assertNull(arena.allocate(Constants.OFF_HEAP_MAX_BLOCK_BYTES + 1));
+    }
+}
@@ -0,0 +1,356 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.exception.CacheException;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.CompactWeatherData;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.model.v3.WeatherDataV3;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapWeatherCacheTest {
+
+    private static final int DEFAULT_CACHE_SIZE = 10;
+    private static final long DEFAULT_CACHE_TTL_MINUTES = 10;
+    private static final long RETENTION_MINUTES = 30;
+    private static final int SMALL_CACHE_SIZE = 2;
+    private static final int INVALID_CACHE_SIZE_ZERO = 0;
+    private static final long INVALID_TTL_ZERO = 0;
+    private static final int EMPTY_CACHE_SIZE = 0;
+    private static final long EMPTY_OFF_HEAP_BYTES = 0;
+    private static final int ITERATION_COUNT = 10;
+    private static final long SLEEP_MILLIS = 100;
+    private static final long TWENTY_MINUTES_MILLIS = 20 * Constants.MILLIS_PER_MINUTE;
+    private static final long ONE_HOUR_MILLIS = 60 * Constants.MILLIS_PER_MINUTE;
+
+    private static final String TEST_CITY_MOSCOW = "Moscow";
+    private static final String TEST_CITY_LONDON = "London";
+    private static final String TEST_CITY_PARIS = "Paris";
+    private static final String TEST_TIMEZONE = "Europe/Moscow";
+    private static final double MOSCOW_LAT = 55.7558;
+    private static final double MOSCOW_LON = 37.6173;
+    private static final double LONDON_LAT = 51.5074;
+    private static final double LONDON_LON = -0.1278;
+    private static final double PARIS_LAT = 48.8566;
+    private static final double PARIS_LON = 2.3522;
+    private static final double TEST_TEMP = 273.15;
+    private static final int TEST_VISIBILITY = 10000;
+    private static final int TEST_CONDITION_ID = 800;
+    private static final long TEST_DATETIME = 1675744800L;
+    private static final String WEATHER_MAIN = "Clear";
+    private static final long EVICTION_TIMEOUT_MILLIS = 5000;
+    private static final long ARENA_BYTES = 16 * 1024;
+    private static final int LARGE_NAME_LENGTH = 6000;
+    private static final String TEST_CITY_BERLIN = "Berlin";
+
+    private OffHeapWeatherCache cache;
+    private Coordinates testCoordinates;
+
+    @BeforeEach
+    void setUp() {
+        cache = new OffHeapWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES);
+        testCoordinates = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+    }
+
+    @Test
+    void testConstructorThrowsOnInvalidParameters() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new OffHeapWeatherCache(INVALID_CACHE_SIZE_ZERO, DEFAULT_CACHE_TTL_MINUTES));
+        assertThrows(IllegalArgumentException.class,
+            () -> new OffHeapWeatherCache(DEFAULT_CACHE_SIZE, INVALID_TTL_ZERO));
+        assertThrows(IllegalArgumentException.class,
+            () -> new OffHeapWeatherCache(DEFAULT_CACHE_SIZE, RETENTION_MINUTES, DEFAULT_CACHE_TTL_MINUTES));
+        assertThrows(IllegalArgumentException.class,
+            () -> new OffHeapWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES, RETENTION_MINUTES, -1));
+    }
+
+    @Test
+    void testPutAndGetV2() {
+        long timestamp = System.currentTimeMillis();
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+
+        CacheEntry entry = cache.get(TEST_CITY_MOSCOW);
+
+        assertNotNull(entry);
+        assertEquals(TEST_CITY_MOSCOW, entry.cityName());
+        assertEquals(testCoordinates, entry.coordinates());
+        assertEquals(ApiVersion.V2_5, entry.apiVersion());
+        assertEquals(timestamp, entry.timestamp());
+        assertNull(entry.response());
+
+        WeatherDataV2 weatherData = assertInstanceOf(WeatherDataV2.class, entry.weatherData());
+        assertEquals(createWeatherDataV2(), weatherData);
+    }
+
+    @Test
+    void testPutAndGetV3() {
+        long timestamp = System.currentTimeMillis();
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV3(), ApiVersion.V3_0, timestamp);
+
+        CacheEntry entry = cache.get(TEST_CITY_MOSCOW);
+
+        assertNotNull(entry);
+        WeatherDataV3 weatherData = assertInstanceOf(WeatherDataV3.class, entry.weatherData());
+        assertEquals(createWeatherDataV3(), weatherData);
+    }
+
+    @Test
+    void testPutAndGetCompactData() {
+        CompactWeatherData compactData = new CompactWeatherData();
+        compactData.setTemp(TEST_TEMP);
+        compactData.setConditionId(TEST_CONDITION_ID);
+        compactData.setName(TEST_CITY_MOSCOW);
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, compactData, ApiVersion.V3_0, System.currentTimeMillis());
+
+        CacheEntry entry = cache.get(TEST_CITY_MOSCOW);
+
+        assertNotNull(entry);
+        assertEquals(compactData, assertInstanceOf(CompactWeatherData.class, entry.weatherData()));
+        assertTrue(Double.isNaN(((CompactWeatherData) entry.weatherData()).getWindSpeed()));
+        assertEquals(testCoordinates, cache.getCoordinates(TEST_CITY_MOSCOW));
+    }
+
+    @Test
+    void testGetReturnsNullForExpiredEntry() {
+        long expiredTimestamp = System.currentTimeMillis() - TWENTY_MINUTES_MILLIS;
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, expiredTimestamp);
+
+        assertNull(cache.get(TEST_CITY_MOSCOW));
+        assertFalse(cache.isValid(TEST_CITY_MOSCOW, System.currentTimeMillis(),
+            DEFAULT_CACHE_TTL_MINUTES * Constants.MILLIS_PER_MINUTE));
+    }
+
+    @Test
+    void testGetStaleWithinRetention() {
+        OffHeapWeatherCache softCache =
+            new OffHeapWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES, RETENTION_MINUTES);
+        long softExpiredTimestamp = System.currentTimeMillis() - TWENTY_MINUTES_MILLIS;
+        softCache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, softExpiredTimestamp);
+
+        assertNull(softCache.get(TEST_CITY_MOSCOW));
+        CacheEntry stale = softCache.getStale(TEST_CITY_MOSCOW);
+        assertNotNull(stale);
+        assertEquals(softExpiredTimestamp, stale.timestamp());
+    }
+
+    @Test
+    void testGetStaleBeyondRetention() {
+        OffHeapWeatherCache softCache =
+            new OffHeapWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES, RETENTION_MINUTES);
+        long expiredTimestamp = System.currentTimeMillis() - ONE_HOUR_MILLIS;
+        softCache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, expiredTimestamp);
+
+        assertNull(softCache.getStale(TEST_CITY_MOSCOW));
+        assertEquals(EMPTY_CACHE_SIZE, softCache.size());
+    }
+
+    @Test
+    void testUpdateKeepsCoordinates() {
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5,
+            System.currentTimeMillis());
+
+        long newTimestamp = System.currentTimeMillis();
+        cache.update(TEST_CITY_MOSCOW, createWeatherDataV3(), ApiVersion.V3_0, newTimestamp);
+
+        CacheEntry entry = cache.get(TEST_CITY_MOSCOW);
+        assertNotNull(entry);
+        assertEquals(testCoordinates, entry.coordinates());
+        assertEquals(ApiVersion.V3_0, entry.apiVersion());
+        assertEquals(newTimestamp, entry.timestamp());
+        assertEquals(testCoordinates, cache.getCoordinates(TEST_CITY_MOSCOW));
+    }
+
+    @Test
+    void testUpdateThrowsOnNonExistentCity() {
+        assertThrows(CacheException.class, () ->
+            cache.update(TEST_CITY_MOSCOW, createWeatherDataV2(), ApiVersion.V2_5, System.currentTimeMillis()));
+    }
+
+    @Test
+    void testRestoreKeepsEntryTtl() {
+        OffHeapWeatherCache staleCache =
+            new OffHeapWeatherCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES, RETENTION_MINUTES);
+        long timestamp = System.currentTimeMillis() - TWENTY_MINUTES_MILLIS;
+
+        staleCache.restore(new CacheEntry(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), null,
+            ApiVersion.V2_5, timestamp, ONE_HOUR_MILLIS));
+        staleCache.restore(new CacheEntry(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV3(), null,
+            ApiVersion.V3_0, timestamp - 1, DEFAULT_CACHE_TTL_MINUTES * Constants.MILLIS_PER_MINUTE));
+
+        CacheEntry entry = staleCache.getStale(TEST_CITY_MOSCOW);
+        assertNotNull(entry);
+        assertEquals(ApiVersion.V2_5, entry.apiVersion());
+        assertEquals(timestamp, entry.timestamp());
+        assertEquals(ONE_HOUR_MILLIS, entry.ttlMillis());
+    }
+
+    @Test
+    void testRemoveClearAndGetAllCities() {
+        long timestamp = System.currentTimeMillis();
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        cache.put(TEST_CITY_LONDON, new Coordinates(LONDON_LAT, LONDON_LON),
+            createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+
+        List<String> cities = cache.getAllCities();
+        assertTrue(cities.contains(TEST_CITY_MOSCOW));
+        assertTrue(cities.contains(TEST_CITY_LONDON));
+
+        cache.remove(TEST_CITY_MOSCOW);
+        assertNull(cache.get(TEST_CITY_MOSCOW));
+        assertNotNull(cache.get(TEST_CITY_LONDON));
+
+        cache.clear();
+        assertEquals(EMPTY_CACHE_SIZE, cache.size());
+    }
+
+    @Test
+    void testSizeIsBounded() throws InterruptedException {
+        OffHeapWeatherCache smallCache = new OffHeapWeatherCache(SMALL_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES);
+        long timestamp = System.currentTimeMillis();
+
+        smallCache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        smallCache.put(TEST_CITY_LONDON, new Coordinates(LONDON_LAT, LONDON_LON),
+            createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        for (int i = 0; i < ITERATION_COUNT; i++) {
+            smallCache.get(TEST_CITY_LONDON);
+        }
+        smallCache.put(TEST_CITY_PARIS, new Coordinates(PARIS_LAT, PARIS_LON),
+            createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+
+        Thread.sleep(SLEEP_MILLIS);
+
+        assertTrue(smallCache.size() <= SMALL_CACHE_SIZE);
+    }
+
+    @Test
+    void testWeightIsBounded() throws InterruptedException {
+        long timestamp = System.currentTimeMillis();
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        long entryBytes = cache.weightBytes();
+        assertTrue(entryBytes > 0);
+
+        long maxWeightBytes = entryBytes * 5 / 2;
+        OffHeapWeatherCache weightedCache = new OffHeapWeatherCache(SMALL_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES,
+            DEFAULT_CACHE_TTL_MINUTES, maxWeightBytes);
+        for (String city : List.of(TEST_CITY_MOSCOW, TEST_CITY_LONDON, TEST_CITY_PARIS)) {
+            weightedCache.put(city, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        }
+
+        long deadline = System.currentTimeMillis() + EVICTION_TIMEOUT_MILLIS;
+        while (weightedCache.size() > SMALL_CACHE_SIZE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(SLEEP_MILLIS);
+        }
+        assertTrue(weightedCache.weightBytes() <= maxWeightBytes);
+        assertEquals(SMALL_CACHE_SIZE, weightedCache.size());
+    }
+
+    @Test
+    void testBlocksAreReturnedToPool() {
+        long timestamp = System.currentTimeMillis();
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, timestamp - 1);
+        cache.update(TEST_CITY_MOSCOW, createWeatherDataV3(), ApiVersion.V3_0, timestamp + 1);
+        cache.put(TEST_CITY_LONDON, new Coordinates(LONDON_LAT, LONDON_LON),
+            createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        assertTrue(cache.reservedOffHeapBytes() > 0);
+
+        assertEquals(timestamp + 1, cache.get(TEST_CITY_MOSCOW).timestamp());
+        assertEquals(timestamp, cache.get(TEST_CITY_LONDON).timestamp());
+
+        cache.clear();
+        assertEquals(EMPTY_OFF_HEAP_BYTES, cache.reservedOffHeapBytes());
+    }
+
+    @Test
+    void testReservedMemoryIsBounded() {
+        long timestamp = System.currentTimeMillis();
+        cache.put(TEST_CITY_MOSCOW, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        long maxWeightBytes = cache.weightBytes() * 5 / 2;
+        OffHeapWeatherCache weightedCache = new OffHeapWeatherCache(SMALL_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES,
+            DEFAULT_CACHE_TTL_MINUTES, maxWeightBytes);
+
+        for (int i = 0; i < ITERATION_COUNT; i++) {
+            weightedCache.put(TEST_CITY_MOSCOW + i, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5,
+                timestamp);
+            assertTrue(weightedCache.reservedOffHeapBytes() <= maxWeightBytes);
+        }
+        assertEquals(SMALL_CACHE_SIZE, weightedCache.size());
+    }
+
+    @Test
+    void testFullArenaEvictsLeastRecentlyUsedEntry() {
+        long timestamp = System.currentTimeMillis();
+        OffHeapWeatherCache weightedCache = new OffHeapWeatherCache(SMALL_CACHE_SIZE, DEFAULT_CACHE_TTL_MINUTES,
+            DEFAULT_CACHE_TTL_MINUTES, ARENA_BYTES);
+        weightedCache.put(TEST_CITY_MOSCOW, testCoordinates, createLargeWeatherData(), ApiVersion.V2_5, timestamp);
+        weightedCache.put(TEST_CITY_LONDON, new Coordinates(LONDON_LAT, LONDON_LON),
+            createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        weightedCache.put(TEST_CITY_PARIS, new Coordinates(PARIS_LAT, PARIS_LON),
+            createWeatherDataV2(), ApiVersion.V2_5, timestamp);
+        for (int i = 0; i < ITERATION_COUNT; i++) {
+            assertNotNull(weightedCache.get(TEST_CITY_LONDON));
+            assertNotNull(weightedCache.get(TEST_CITY_PARIS));
+        }
+
+        // Two large entries do not fit into the arena together
+        weightedCache.put(TEST_CITY_BERLIN, testCoordinates, createLargeWeatherData(), ApiVersion.V2_5, timestamp);
+
+        assertNotNull(weightedCache.get(TEST_CITY_BERLIN));
+        assertNull(weightedCache.get(TEST_CITY_MOSCOW));
+        assertNotNull(weightedCache.get(TEST_CITY_LONDON));
+        assertNotNull(weightedCache.get(TEST_CITY_PARIS));
+        assertTrue(weightedCache.reservedOffHeapBytes() <= ARENA_BYTES);
+    }
+
+    @Test
+    void testNullAndBlankKeys() {
+        assertNull(cache.get(null));
+        assertNull(cache.getStale(" "));
+        assertNull(cache.getCoordinates(null));
+        assertThrows(IllegalArgumentException.class, () ->
+            cache.put(null, testCoordinates, createWeatherDataV2(), ApiVersion.V2_5, System.currentTimeMillis()));
+    }
+
+    private static WeatherDataV2 createWeatherDataV2() {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+        weatherData.setName(TEST_CITY_MOSCOW);
+        weatherData.setDatetime(TEST_DATETIME);
+        weatherData.setVisibility(TEST_VISIBILITY);
+
+        WeatherDataV2.MainData main = new WeatherDataV2.MainData();
+        main.setTemp(TEST_TEMP);
+        weatherData.setMain(main);
+
+        WeatherDataV2.WeatherCondition condition = new WeatherDataV2.WeatherCondition();
+        condition.setMain(WEATHER_MAIN);
+        weatherData.setWeather(List.of(condition));
+        return weatherData;
+    }
+
+    private static WeatherDataV2 createLargeWeatherData() {
+        WeatherDataV2 weatherData = createWeatherDataV2();
+        weatherData.setName("x".repeat(LARGE_NAME_LENGTH));
+        return weatherData;
+    }
+
+    private static WeatherDataV3 createWeatherDataV3() {
+        WeatherDataV3 weatherData = new WeatherDataV3();
+        weatherData.setLatitude(MOSCOW_LAT);
+        weatherData.setLongitude(MOSCOW_LON);
+        weatherData.setTimezone(TEST_TIMEZONE);
+
+        WeatherDataV3.CurrentWeather current = new WeatherDataV3.CurrentWeather();
+        current.setDatetime(TEST_DATETIME);
+        current.setTemp(TEST_TEMP);
+        current.setVisibility(TEST_VISIBILITY);
+        weatherData.setCurrent(current);
+        return weatherData;
+    }
+}
@@ -0,0 +1,142 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.NearbyLookupStats;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialIndexTest {
+
+    private static final double RADIUS_KM = 1.0;
+    private static final double DELTA_KM = 0.01;
+    private static final double MOSCOW_LONDON_DISTANCE_KM = 2500;
+    private static final double MOSCOW_LONDON_DELTA_KM = 10;
+    private static final int EMPTY_SIZE = 0;
+
+    private static final String MOSCOW_KEY = "geo:55.7558,37.6173";
+    private static final String MOSCOW_NEAR_KEY = "geo:55.7600,37.6200";
+    private static final String ANTIMERIDIAN_WEST_KEY = "geo:0.0000,179.9990";
+    private static final String NORTH_POLE_KEY = "geo:89.9990,0.0000";
+
+    private static final Coordinates MOSCOW = new Coordinates(55.7558, 37.6173);
+    private static final Coordinates MOSCOW_NEAR = new Coordinates(55.7600, 37.6200);
+    private static final Coordinates MOSCOW_QUERY = new Coordinates(55.7570, 37.6180);
+    private static final Coordinates MOSCOW_FAR = new Coordinates(55.8000, 37.6173);
+    private static final Coordinates LONDON = new Coordinates(51.5074, -0.1278);
+    private static final Coordinates ANTIMERIDIAN_WEST = new Coordinates(0, 179.999);
+    private static final Coordinates ANTIMERIDIAN_EAST = new Coordinates(0, -179.999);
+    private static final Coordinates NORTH_POLE = new Coordinates(89.999, 0);
+    private static final Coordinates NORTH_POLE_OPPOSITE = new Coordinates(89.999, 180);
+
+    private SpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SpatialIndex(RADIUS_KM);
+    }
+
+    @Test
+    void testConstructorThrowsOnInvalidRadius() {
+        assertThrows(IllegalArgumentException.class, () -> new SpatialIndex(0));
+        assertThrows(IllegalArgumentException.class, () -> new SpatialIndex(Double.NaN));
+    }
+
+    @Test
+    void testDistance() {
+        assertEquals(0, MOSCOW.distanceKm(MOSCOW), DELTA_KM);
+        assertEquals(MOSCOW_LONDON_DISTANCE_KM, MOSCOW.distanceKm(LONDON), MOSCOW_LONDON_DELTA_KM);
+    }
+
+    @Test
+    void testFindNearestReturnsClosestPointWithinRadius() {
+        index.add(MOSCOW_KEY, MOSCOW);
+        index.add(MOSCOW_NEAR_KEY, MOSCOW_NEAR);
+
+        SpatialIndex.Neighbour neighbour = index.findNearest(MOSCOW_QUERY, key -> true);
+
+        assertNotNull(neighbour);
+        assertEquals(MOSCOW_KEY, neighbour.key());
+        assertEquals(MOSCOW_QUERY.distanceKm(MOSCOW), neighbour.distanceKm(), DELTA_KM);
+    }
+
+    @Test
+    void testFindNearestSkipsRejectedPoints() {
+        index.add(MOSCOW_KEY, MOSCOW);
+        index.add(MOSCOW_NEAR_KEY, MOSCOW_NEAR);
+
+        SpatialIndex.Neighbour neighbour = index.findNearest(MOSCOW_QUERY, key -> !key.equals(MOSCOW_KEY));
+
+        assertNotNull(neighbour);
+        assertEquals(MOSCOW_NEAR_KEY, neighbour.key());
+    }
+
+    @Test
+    void testCollectNearestKeepsClosestAcceptedPoints() {
+        index.add(MOSCOW_KEY, MOSCOW);
+        index.add(MOSCOW_NEAR_KEY, MOSCOW_NEAR);
+        index.add(ANTIMERIDIAN_WEST_KEY, ANTIMERIDIAN_WEST);
+        String[] keys = new String[1];
+        double[] distances = new double[1];
+
+        int count = index.collectNearest(MOSCOW_QUERY, key -> true, keys, distances);
+
+        assertEquals(1, count);
+        assertEquals(MOSCOW_KEY, keys[0]);
+        assertEquals(MOSCOW_QUERY.distanceKm(MOSCOW), distances[0], DELTA_KM);
+
+        keys = new String[3];
+        distances = new double[3];
+        count = index.collectNearest(MOSCOW_QUERY, key -> true, keys, distances);
+
+        assertEquals(2, count);
+        assertEquals(MOSCOW_KEY, keys[0]);
+        assertEquals(MOSCOW_NEAR_KEY, keys[1]);
+        assertEquals(0, index.collectNearest(MOSCOW_QUERY, key -> false, keys, distances));
+    }
+
+    @Test
+    void testFindNearestIgnoresPointsOutsideRadius() {
+        index.add(MOSCOW_KEY, MOSCOW);
+
+        assertNull(index.findNearest(MOSCOW_FAR, key -> true));
+    }
+
+    @Test
+    void testFindNearestAcrossAntimeridianAndPole() {
+        index.add(ANTIMERIDIAN_WEST_KEY, ANTIMERIDIAN_WEST);
+        index.add(NORTH_POLE_KEY, NORTH_POLE);
+
+        assertEquals(ANTIMERIDIAN_WEST_KEY, index.findNearest(ANTIMERIDIAN_EAST, key -> true).key());
+        assertEquals(NORTH_POLE_KEY, index.findNearest(NORTH_POLE_OPPOSITE, key -> true).key());
+    }
+
+    @Test
+    void testAddMovesAndRemoveDeletesPoint() {
+        index.add(MOSCOW_KEY, LONDON);
+        index.add(MOSCOW_KEY, MOSCOW);
+
+        assertNull(index.findNearest(LONDON, key -> true));
+        assertNotNull(index.findNearest(MOSCOW, key -> true));
+
+        index.remove(MOSCOW_KEY);
+        assertNull(index.findNearest(MOSCOW, key -> true));
+        assertEquals(EMPTY_SIZE, index.size());
+    }
+
+    @Test
+    void testStats() {
+        index.add(MOSCOW_KEY, MOSCOW);
+
+        index.findNearest(MOSCOW_QUERY, key -> true);
+        index.findNearest(MOSCOW_FAR, key -> true);
+
+        NearbyLookupStats stats = index.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(MOSCOW_QUERY.distanceKm(MOSCOW), stats.averageDistanceKm(), DELTA_KM);
+        assertEquals(MOSCOW_QUERY.distanceKm(MOSCOW), stats.maxDistanceKm(), DELTA_KM);
+        assertEquals(0.5, stats.hitRate());
+    }
+}
@@ -0,0 +1,103 @@
+package ru.sterkhovkv.openweathermap.cache;
+
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.model.v3.WeatherDataV3;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VolatilityTtlPolicyTest {
+
+    private static final long MIN_TTL_MILLIS = 60_000;
+    private static final long MAX_TTL_MILLIS = 660_000;
+    private static final double DELTA = 1e-9;
+    private static final double BASE_TEMP = 280.0;
+    private static final double SMALL_TEMP_CHANGE = 1.5;
+    private static final double BASE_WIND_SPEED = 3.0;
+    private static final double WIND_SPEED_CHANGE = 2.5;
+    private static final int CLEAR_SKY = 800;
+    private static final int RAIN = 500;
+    private static final String TEST_CITY = "Moscow";
+    private static final long TEST_TIMESTAMP = 1000L;
+
+    private final VolatilityTtlPolicy policy = new VolatilityTtlPolicy(MIN_TTL_MILLIS, MAX_TTL_MILLIS);
+
+    @Test
+    void testConstructorThrowsOnInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new VolatilityTtlPolicy(0, MAX_TTL_MILLIS));
+        assertThrows(IllegalArgumentException.class, () -> new VolatilityTtlPolicy(MAX_TTL_MILLIS, MIN_TTL_MILLIS));
+    }
+
+    @Test
+    void testFirstEntryUsesCacheWideTtl() {
+        assertEquals(0, policy.ttlFor(TEST_CITY, null, createWeatherData(BASE_TEMP, BASE_WIND_SPEED, CLEAR_SKY),
+            TEST_TIMESTAMP));
+    }
+
+    @Test
+    void testUnchangedWeatherGetsMaxTtl() {
+        CacheEntry previous = createEntry(createWeatherData(BASE_TEMP, BASE_WIND_SPEED, CLEAR_SKY));
+
+        assertEquals(MAX_TTL_MILLIS, policy.ttlFor(TEST_CITY, previous,
+            createWeatherData(BASE_TEMP, BASE_WIND_SPEED, CLEAR_SKY), TEST_TIMESTAMP));
+    }
+
+    @Test
+    void testTtlShrinksWithTemperatureAndWindChange() {
+        CacheEntry previous = createEntry(createWeatherData(BASE_TEMP, BASE_WIND_SPEED, CLEAR_SKY));
+
+        // 1.5 / 3 = 0.5 of the range
+        long ttl = policy.ttlFor(TEST_CITY, previous,
+            createWeatherData(BASE_TEMP - SMALL_TEMP_CHANGE, BASE_WIND_SPEED, CLEAR_SKY), TEST_TIMESTAMP);
+        assertEquals((MIN_TTL_MILLIS + MAX_TTL_MILLIS) / 2, ttl);
+
+        // 0.5 + 2.5 / 5 = 1
+        ttl = policy.ttlFor(TEST_CITY, previous,
+            createWeatherData(BASE_TEMP - SMALL_TEMP_CHANGE, BASE_WIND_SPEED + WIND_SPEED_CHANGE, CLEAR_SKY),
+            TEST_TIMESTAMP);
+        assertEquals(MIN_TTL_MILLIS, ttl);
+    }
+
+    @Test
+    void testConditionChangeGetsMinTtl() {
+        CacheEntry previous = createEntry(createWeatherData(BASE_TEMP, BASE_WIND_SPEED, CLEAR_SKY));
+
+        assertEquals(MIN_TTL_MILLIS, policy.ttlFor(TEST_CITY, previous,
+            createWeatherData(BASE_TEMP, BASE_WIND_SPEED, RAIN), TEST_TIMESTAMP));
+    }
+
+    @Test
+    void testMissingValuesAreNotCounted() {
+        WeatherDataV3 withoutCurrent = new WeatherDataV3();
+
+        assertEquals(0, VolatilityTtlPolicy.volatility(withoutCurrent,
+            createWeatherData(BASE_TEMP, BASE_WIND_SPEED, CLEAR_SKY)), DELTA);
+    }
+
+    private static CacheEntry createEntry(Object weatherData) {
+        return new CacheEntry(TEST_CITY, new Coordinates(0, 0), weatherData, ApiVersion.V2_5, TEST_TIMESTAMP);
+    }
+
+    private static WeatherDataV2 createWeatherData(double temp, double windSpeed, int conditionId) {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+
+        WeatherDataV2.MainData main = new WeatherDataV2.MainData();
+        main.setTemp(temp);
+        weatherData.setMain(main);
+
+        WeatherDataV2.Wind wind = new WeatherDataV2.Wind();
+        wind.setSpeed(windSpeed);
+        weatherData.setWind(wind);
+
+        WeatherDataV2.WeatherCondition condition = new WeatherDataV2.WeatherCondition();
+        condition.setId(conditionId);
+        weatherData.setWeather(List.of(condition));
+
+        return weatherData;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.sterkhovkv.openweathermap.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import ru.sterkhovkv.openweathermap.config.ApiRateLimiter;
+import ru.sterkhovkv.openweathermap.config.SDKConfig;
+import ru.sterkhovkv.openweathermap.exception.CityNotFoundException;
+import ru.sterkhovkv.openweathermap.model.Coordinates;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GeocodingClientImplTest {
+
+    private static final String TEST_API_KEY = "test-api-key-for-geocoding";
+    private static final String TEST_CITY_UNKNOWN = "Atlantis";
+    private static final String TEST_CITY_MOSCOW = "Moscow";
+    private static final String NOT_FOUND_BODY = "[]";
+    private static final String MOSCOW_BODY = "[{\"name\":\"Moscow\",\"lat\":55.7558,\"lon\":37.6173}]";
+    private static final double MOSCOW_LAT = 55.7558;
+    private static final double MOSCOW_LON = 37.6173;
+    private static final int TEST_MAX_CALLS_PER_DAY = 1000;
+    private static final int TEST_MAX_CALLS_PER_MINUTE = 60;
+    private static final long TEST_NEGATIVE_CACHE_TTL_MINUTES = 10;
+    private static final long NEGATIVE_CACHE_DISABLED = 0;
+    private static final int LOOKUP_COUNT = 3;
+
+    private final AtomicInteger httpCalls = new AtomicInteger();
+    private ApiRateLimiter rateLimiter;
+    private HttpTransport httpTransport;
+    private String responseBody;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = spy(new ApiRateLimiter(TEST_MAX_CALLS_PER_DAY, TEST_MAX_CALLS_PER_MINUTE));
+        httpTransport = mock(HttpTransport.class);
+        when(httpTransport.createWebClient(Constants.GEOCODING_API_BASE_URL)).thenReturn(WebClient.builder()
+            .exchangeFunction(request -> {
+                httpCalls.incrementAndGet();
+                return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(responseBody)
+                    .build());
+            })
+            .build());
+        responseBody = NOT_FOUND_BODY;
+    }
+
+    @Test
+    void testUnknownCityIsNotLookedUpAgainWithinNegativeCacheTtl() {
+        GeocodingClientImpl client = createClient(TEST_NEGATIVE_CACHE_TTL_MINUTES);
+
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            assertThrows(CityNotFoundException.class, () -> client.getCoordinates(TEST_CITY_UNKNOWN));
+        }
+
+        assertEquals(1, httpCalls.get());
+        verify(rateLimiter, times(1)).acquireAsync(any(Duration.class));
+    }
+
+    @Test
+    void testUnknownCityIsLookedUpEveryTimeWhenNegativeCacheIsDisabled() {
+        GeocodingClientImpl client = createClient(NEGATIVE_CACHE_DISABLED);
+
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            assertThrows(CityNotFoundException.class, () -> client.getCoordinates(TEST_CITY_UNKNOWN));
+        }
+
+        assertEquals(LOOKUP_COUNT, httpCalls.get());
+        verify(rateLimiter, times(LOOKUP_COUNT)).acquireAsync(any(Duration.class));
+    }
+
+    @Test
+    void testFoundCityIsLookedUpOnce() {
+        GeocodingClientImpl client = createClient(TEST_NEGATIVE_CACHE_TTL_MINUTES);
+        responseBody = MOSCOW_BODY;
+
+        for (int i = 0; i < LOOKUP_COUNT; i++) {
+            assertEquals(new Coordinates(MOSCOW_LAT, MOSCOW_LON), client.getCoordinates(TEST_CITY_MOSCOW));
+        }
+
+        assertEquals(1, httpCalls.get());
+        verify(rateLimiter, times(1)).acquireAsync(any(Duration.class));
+    }
+
+    private GeocodingClientImpl createClient(long negativeCacheTtlMinutes) {
+        SDKConfig config = SDKConfig.builder()
+            .negativeCacheTtlMinutes(negativeCacheTtlMinutes)
+            .build();
+        return new GeocodingClientImpl(TEST_API_KEY, config, rateLimiter, httpTransport);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.sterkhovkv.openweathermap.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonBodiesTest {
+
+    private static final String CITY_NAME = "Москва";
+    private static final double TEST_TEMP = 273.15;
+    private static final String BODY_START = "{\"name\":\"" + CITY_NAME + "\",";
+    private static final String BODY_END = "\"main\":{\"temp\":" + TEST_TEMP + "}}";
+    private static final int RELEASED = 0;
+    private static final int EMPTY_BUFFER_CAPACITY = 16;
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testReadsBodySplitAcrossBuffersAndReleasesIt() throws Exception {
+        NettyDataBuffer first = wrap(BODY_START);
+        NettyDataBuffer second = wrap(BODY_END);
+
+        DataBuffer body = JsonBodies.join(Flux.just(first, second)).block();
+        assertNotNull(body);
+        WeatherDataV2 weatherData = JsonBodies.read(body,
+            stream -> objectMapper.readValue(stream, WeatherDataV2.class));
+
+        assertEquals(CITY_NAME, weatherData.getName());
+        assertEquals(TEST_TEMP, weatherData.getMain().getTemp());
+        assertEquals(RELEASED, first.getNativeBuffer().refCnt());
+        assertEquals(RELEASED, second.getNativeBuffer().refCnt());
+    }
+
+    @Test
+    void testEmptyBodyIsEmpty() {
+        NettyDataBuffer empty = bufferFactory.allocateBuffer(EMPTY_BUFFER_CAPACITY);
+
+        assertNull(JsonBodies.join(Flux.just(empty)).block());
+        assertNull(JsonBodies.join(Flux.empty()).block());
+        assertEquals(RELEASED, empty.getNativeBuffer().refCnt());
+    }
+
+    @Test
+    void testOversizedBodyFails() {
+        byte[] chunk = new byte[Constants.WEB_CLIENT_BYTE_BUFFER_SIZE];
+        NettyDataBuffer first = bufferFactory.wrap(Unpooled.wrappedBuffer(chunk));
+        NettyDataBuffer second = bufferFactory.wrap(Unpooled.wrappedBuffer(new byte[1]));
+
+        assertThrows(DataBufferLimitException.class, () -> JsonBodies.join(Flux.just(first, second)).block());
+        assertEquals(RELEASED, first.getNativeBuffer().refCnt());
+    }
+
+    @Test
+    void testReadReleasesBodyOnParseError() {
+        NettyDataBuffer body = wrap(BODY_START);
+
+        assertThrows(Exception.class, () -> JsonBodies.read(body,
+            stream -> objectMapper.readValue(stream, WeatherDataV2.class)));
+        assertEquals(RELEASED, body.getNativeBuffer().refCnt());
+    }
+
+    private NettyDataBuffer wrap(String json) {
+        return bufferFactory.wrap(Unpooled.wrappedBuffer(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
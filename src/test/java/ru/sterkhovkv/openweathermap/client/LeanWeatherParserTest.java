@@ -0,0 +1,151 @@
+package ru.sterkhovkv.openweathermap.client;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.exception.NetworkException;
+import ru.sterkhovkv.openweathermap.model.CompactWeatherData;
+import ru.sterkhovkv.openweathermap.model.WeatherResponse;
+import ru.sterkhovkv.openweathermap.model.WeatherResponseMapper;
+import ru.sterkhovkv.openweathermap.model.WeatherValues;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.model.v3.WeatherDataV3;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeanWeatherParserTest {
+
+    private static final String REQUESTED_CITY = "Moscow";
+    private static final int CONDITION_ID = 800;
+    private static final long OBSERVED_AT_MILLIS = 1675744800000L;
+    private static final int MOSCOW_CITY_ID = 524901;
+    private static final int LONDON_CITY_ID = 2643743;
+
+    private static final String V2_JSON = """
+        {"coord":{"lon":37.6173,"lat":55.7558},
+        "weather":[{"id":800,"main":"Clear","description":"ясно","icon":"01d"},
+        {"id":701,"main":"Mist","description":"mist","icon":"50d"}],
+        "base":"stations",
+        "main":{"temp":271.15,"feels_like":266.4,"pressure":1021,"humidity":74},
+        "visibility":10000,"wind":{"speed":4.2,"deg":250},"clouds":{"all":0},"rain":null,
+        "dt":1675744800,"sys":{"country":"RU","sunrise":1675744800,"sunset":1675778400},
+        "timezone":10800,"id":524901,"name":"Москва","cod":200}
+        """;
+
+    private static final String V3_JSON = """
+        {"lat":55.7558,"lon":37.6173,"timezone":"Europe/Moscow","timezone_offset":10800,
+        "current":{"dt":1675744800,"sunrise":1675744800,"sunset":1675778400,"temp":271.15,"feels_like":266.4,
+        "pressure":1021,"visibility":10000,"wind_speed":4.2,"wind_deg":250,
+        "weather":[{"id":800,"main":"Clear","description":"clear sky","icon":"01d"}]},
+        "hourly":[{"dt":1675748400,"temp":270.0,"weather":[{"id":801,"main":"Clouds"}]}],
+        "daily":[{"dt":1675764000,"temp":{"day":271.1,"min":268.2},"summary":"cloudy"}]}
+        """;
+
+    private static final String V2_GROUP_JSON = """
+        {"cnt":3,"list":[
+        {"coord":{"lon":37.6173,"lat":55.7558},"weather":[{"id":800,"main":"Clear"}],
+        "main":{"temp":271.15,"feels_like":266.4},"dt":1675744800,"id":524901,"name":"Moscow"},
+        {"id":1,"name":"Broken","main":null},
+        {"sys":{"sunrise":1675756000},"main":{"temp":280.5},"id":2643743,"name":"London"}]}
+        """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testV2ProjectionMatchesFullBinding() throws IOException {
+        CompactWeatherData compactData = parseV2(V2_JSON);
+        WeatherDataV2 fullData = objectMapper.readValue(V2_JSON, WeatherDataV2.class);
+
+        assertSameResponse(
+            WeatherResponseMapper.toResponse(fullData, ApiVersion.V2_5, REQUESTED_CITY),
+            WeatherResponseMapper.toResponse(compactData, ApiVersion.V2_5, REQUESTED_CITY));
+        assertEquals(CONDITION_ID, WeatherValues.conditionId(compactData));
+        assertEquals(WeatherValues.temp(fullData), WeatherValues.temp(compactData));
+        assertEquals(OBSERVED_AT_MILLIS, WeatherValues.observedAtMillis(compactData));
+    }
+
+    @Test
+    void testV3ProjectionMatchesFullBinding() throws IOException {
+        CompactWeatherData compactData = parseV3(V3_JSON);
+        WeatherDataV3 fullData = objectMapper.readValue(V3_JSON, WeatherDataV3.class);
+
+        WeatherResponse compactResponse = WeatherResponseMapper.toResponse(compactData, ApiVersion.V3_0,
+            REQUESTED_CITY);
+        assertSameResponse(
+            WeatherResponseMapper.toResponse(fullData, ApiVersion.V3_0, REQUESTED_CITY), compactResponse);
+        assertEquals(REQUESTED_CITY, compactResponse.getName());
+        assertEquals(WeatherValues.windSpeed(fullData), WeatherValues.windSpeed(compactData));
+    }
+
+    @Test
+    void testV2GroupSkipsEntriesWithoutMainData() throws IOException {
+        List<CompactWeatherData> entries;
+        try (JsonParser parser = objectMapper.createParser(V2_GROUP_JSON)) {
+            entries = LeanWeatherParser.parseV2Group(parser);
+        }
+
+        assertEquals(2, entries.size());
+        assertEquals(MOSCOW_CITY_ID, WeatherValues.cityId(entries.get(0)));
+        assertEquals(CONDITION_ID, WeatherValues.conditionId(entries.get(0)));
+        assertEquals(LONDON_CITY_ID, WeatherValues.cityId(entries.get(1)));
+        assertEquals("London", entries.get(1).getName());
+        assertEquals(MOSCOW_CITY_ID, WeatherValues.cityId(parseV2(V2_JSON)));
+        assertEquals(MOSCOW_CITY_ID, WeatherValues.cityId(objectMapper.readValue(V2_JSON, WeatherDataV2.class)));
+    }
+
+    @Test
+    void testMissingAndNullValues() throws IOException {
+        CompactWeatherData compactData = parseV2("{\"main\":{\"temp\":null},\"wind\":null,\"visibility\":\"n/a\"}");
+
+        assertTrue(Double.isNaN(compactData.getTemp()));
+        assertTrue(Double.isNaN(compactData.getWindSpeed()));
+        assertEquals(CompactWeatherData.MISSING_INT, compactData.getVisibility());
+        assertNull(WeatherValues.conditionId(compactData));
+        assertNull(WeatherValues.cityId(compactData));
+
+        WeatherResponse response = WeatherResponseMapper.toResponse(compactData, ApiVersion.V2_5, REQUESTED_CITY);
+        assertNull(response.getTemperature().getTemp());
+        assertNull(response.getWind());
+        assertNull(response.getSys());
+        assertNull(response.getWeather());
+        assertNull(response.getVisibility());
+    }
+
+    @Test
+    void testRequiredDataIsChecked() {
+        assertThrows(NetworkException.class, () -> parseV2("{\"name\":\"Moscow\",\"main\":null}"));
+        assertThrows(NetworkException.class, () -> parseV3("{\"timezone_offset\":0,\"hourly\":[]}"));
+        assertThrows(JsonParseException.class, () -> parseV2("[]"));
+    }
+
+    private CompactWeatherData parseV2(String json) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            return LeanWeatherParser.parseV2(parser);
+        }
+    }
+
+    private CompactWeatherData parseV3(String json) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            return LeanWeatherParser.parseV3(parser);
+        }
+    }
+
+    private static void assertSameResponse(WeatherResponse expected, WeatherResponse actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getWeather().getMain(), actual.getWeather().getMain());
+        assertEquals(expected.getWeather().getDescription(), actual.getWeather().getDescription());
+        assertEquals(expected.getTemperature().getTemp(), actual.getTemperature().getTemp());
+        assertEquals(expected.getTemperature().getFeelsLike(), actual.getTemperature().getFeelsLike());
+        assertEquals(expected.getVisibility(), actual.getVisibility());
+        assertEquals(expected.getWind().getSpeed(), actual.getWind().getSpeed());
+        assertEquals(expected.getDatetime(), actual.getDatetime());
+        assertEquals(expected.getSys().getSunrise(), actual.getSys().getSunrise());
+        assertEquals(expected.getSys().getSunset(), actual.getSys().getSunset());
+        assertEquals(expected.getTimezone(), actual.getTimezone());
+    }
+}
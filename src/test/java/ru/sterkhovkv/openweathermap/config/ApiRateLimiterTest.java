@@ -2,7 +2,22 @@ package ru.sterkhovkv.openweathermap.config;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import ru.sterkhovkv.openweathermap.exception.ApiRateLimitException;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +36,19 @@ class ApiRateLimiterTest {
     private static final int SECOND_CALL_COUNT = 2;
     private static final int PER_MINUTE_LIMIT_CALLS = 10;
     private static final int DAILY_LIMIT_CALLS = 5;
+    private static final long START_TIME_MILLIS = 1_675_744_800_000L;
+    private static final long HALF_MINUTE_MILLIS = 30_000;
+    private static final int CONCURRENT_THREADS = 8;
+    private static final int CALLS_PER_THREAD = 1000;
+    private static final long TERMINATION_TIMEOUT_SECONDS = 10;
+    private static final int WAITING_CALLERS = 3;
+    private static final Duration MAX_WAIT = Duration.ofMinutes(3);
+    private static final Duration SHORT_WAIT = Duration.ofMillis(50);
+    private static final int NO_RESERVE = 0;
+    private static final int INTERACTIVE_RESERVE_PERCENT = 20;
+    private static final int HALF_RESERVE_PERCENT = 50;
+    private static final int INVALID_RESERVE_PERCENT = 100;
+    private static final int BACKGROUND_CALLS_PER_MINUTE = 8;
 
     private ApiRateLimiter rateLimiter;
 
@@ -49,6 +77,10 @@ class ApiRateLimiterTest {
 
         assertThrows(IllegalArgumentException.class, () ->
             new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, INVALID_LIMIT_NEGATIVE));
+        assertThrows(IllegalArgumentException.class, () ->
+            new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, DEFAULT_MAX_CALLS_PER_MINUTE, INVALID_LIMIT_NEGATIVE));
+        assertThrows(IllegalArgumentException.class, () ->
+            new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, DEFAULT_MAX_CALLS_PER_MINUTE, INVALID_RESERVE_PERCENT));
     }
 
     @Test
@@ -101,4 +133,292 @@ class ApiRateLimiterTest {
         rateLimiter.checkAndAcquire();
         assertEquals(SECOND_CALL_COUNT, rateLimiter.getCallsLastMinute());
     }
+
+    @Test
+    void testPerMinuteWindowSlides() {
+        AtomicLong time = new AtomicLong(START_TIME_MILLIS);
+        ApiRateLimiter limiter = new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, TEST_MAX_CALLS_PER_MINUTE, time::get);
+
+        for (int i = 0; i < TEST_MAX_CALLS_PER_MINUTE - 1; i++) {
+            limiter.checkAndAcquire();
+        }
+        time.addAndGet(HALF_MINUTE_MILLIS);
+        limiter.checkAndAcquire();
+        assertThrows(ApiRateLimitException.class, limiter::checkAndAcquire);
+        assertEquals(TEST_MAX_CALLS_PER_MINUTE, limiter.getCallsLastMinute());
+
+        // The first calls leave the window, the later one is still counted
+        time.addAndGet(HALF_MINUTE_MILLIS);
+        assertEquals(FIRST_CALL_COUNT, limiter.getCallsLastMinute());
+        for (int i = 0; i < TEST_MAX_CALLS_PER_MINUTE - 1; i++) {
+            limiter.checkAndAcquire();
+        }
+        assertThrows(ApiRateLimitException.class, limiter::checkAndAcquire);
+        assertEquals(TEST_MAX_CALLS_PER_MINUTE * 2 - 1, limiter.getCallsToday());
+    }
+
+    @Test
+    void testDailyLimitResetsAtMidnightUtc() {
+        long beforeMidnight = (START_TIME_MILLIS / Constants.MILLIS_PER_DAY + 1) * Constants.MILLIS_PER_DAY - 1;
+        AtomicLong time = new AtomicLong(beforeMidnight);
+        ApiRateLimiter limiter = new ApiRateLimiter(SMALL_MAX_CALLS_PER_DAY, LARGE_MAX_CALLS_PER_MINUTE, time::get);
+
+        for (int i = 0; i < DAILY_LIMIT_CALLS; i++) {
+            limiter.checkAndAcquire();
+        }
+        assertThrows(ApiRateLimitException.class, limiter::checkAndAcquire);
+
+        time.incrementAndGet();
+        assertEquals(INITIAL_CALLS_COUNT, limiter.getCallsToday());
+        assertDoesNotThrow(() -> limiter.checkAndAcquire());
+        assertEquals(FIRST_CALL_COUNT, limiter.getCallsToday());
+    }
+
+    @Test
+    void testRejectedCallIsNotCounted() {
+        for (int i = 0; i < PER_MINUTE_LIMIT_CALLS; i++) {
+            rateLimiter.checkAndAcquire();
+        }
+        assertThrows(ApiRateLimitException.class, () -> rateLimiter.checkAndAcquire());
+
+        assertEquals(PER_MINUTE_LIMIT_CALLS, rateLimiter.getCallsToday());
+        assertEquals(PER_MINUTE_LIMIT_CALLS, rateLimiter.getCallsLastMinute());
+    }
+
+    @Test
+    void testConcurrentCallsNeverExceedLimit() throws Exception {
+        ApiRateLimiter limiter = new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY * CALLS_PER_THREAD,
+            LARGE_MAX_CALLS_PER_MINUTE, () -> START_TIME_MILLIS);
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_THREADS);
+        try {
+            for (int t = 0; t < CONCURRENT_THREADS; t++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                            try {
+                                limiter.checkAndAcquire();
+                                acquired.incrementAndGet();
+                            } catch (ApiRateLimitException e) {
+                                // Expected once the limit is reached
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+
+        assertEquals(LARGE_MAX_CALLS_PER_MINUTE, acquired.get());
+        assertEquals(LARGE_MAX_CALLS_PER_MINUTE, limiter.getCallsLastMinute());
+        assertEquals(LARGE_MAX_CALLS_PER_MINUTE, limiter.getCallsToday());
+    }
+
+    @Test
+    void testWaitingCallersAreServedInFifoOrderWhenWindowSlides() {
+        ManualTimer timer = new ManualTimer(START_TIME_MILLIS);
+        ApiRateLimiter limiter = new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, SECOND_CALL_COUNT, NO_RESERVE,
+            timer::now, timer);
+        limiter.checkAndAcquire();
+        limiter.checkAndAcquire();
+
+        List<Integer> served = new ArrayList<>();
+        for (int i = 0; i < WAITING_CALLERS; i++) {
+            int caller = i;
+            limiter.acquireAsync(MAX_WAIT).subscribe(null, null, () -> served.add(caller));
+        }
+        assertTrue(served.isEmpty());
+
+        // Both calls leave the window after a minute: the two oldest waiters get permits
+        timer.advance(Duration.ofMinutes(1));
+        assertEquals(List.of(0, 1), served);
+        assertEquals(SECOND_CALL_COUNT, limiter.getCallsLastMinute());
+
+        timer.advance(Duration.ofMinutes(1));
+        assertEquals(List.of(0, 1, 2), served);
+        assertEquals(WAITING_CALLERS + SECOND_CALL_COUNT, limiter.getCallsToday());
+    }
+
+    @Test
+    void testWaitingCallerFailsWhenPermitIsNotAvailableInTime() {
+        ManualTimer timer = new ManualTimer(START_TIME_MILLIS);
+        ApiRateLimiter limiter = new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, FIRST_CALL_COUNT, NO_RESERVE, timer::now,
+            timer);
+        limiter.checkAndAcquire();
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        limiter.acquireAsync(Duration.ofSeconds(HALF_MINUTE_MILLIS / Constants.MILLIS_PER_SECOND))
+            .subscribe(null, error::set);
+
+        assertInstanceOf(ApiRateLimitException.class, error.get());
+        assertEquals(FIRST_CALL_COUNT, limiter.getCallsToday());
+    }
+
+    @Test
+    void testCancelledWaiterDoesNotTakePermit() {
+        ManualTimer timer = new ManualTimer(START_TIME_MILLIS);
+        ApiRateLimiter limiter = new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, FIRST_CALL_COUNT, NO_RESERVE, timer::now,
+            timer);
+        limiter.checkAndAcquire();
+
+        AtomicInteger completed = new AtomicInteger();
+        Disposable cancelled = limiter.acquireAsync(MAX_WAIT).subscribe(null, null, completed::incrementAndGet);
+        limiter.acquireAsync(MAX_WAIT).subscribe(null, null, completed::incrementAndGet);
+        cancelled.dispose();
+
+        timer.advance(Duration.ofMinutes(1));
+        assertEquals(FIRST_CALL_COUNT, completed.get());
+        assertEquals(FIRST_CALL_COUNT, limiter.getCallsLastMinute());
+    }
+
+    @Test
+    void testWaitingAcquireFailsImmediatelyWhenDailyLimitIsReached() {
+        ApiRateLimiter limiter = new ApiRateLimiter(SMALL_MAX_CALLS_PER_DAY, LARGE_MAX_CALLS_PER_MINUTE);
+        for (int i = 0; i < DAILY_LIMIT_CALLS; i++) {
+            limiter.acquire(MAX_WAIT);
+        }
+
+        ApiRateLimitException exception = assertThrows(ApiRateLimitException.class, () -> limiter.acquire(MAX_WAIT));
+        assertTrue(exception.getMessage().startsWith("Daily"));
+    }
+
+    @Test
+    void testBlockingAcquire() {
+        ApiRateLimiter limiter = new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, FIRST_CALL_COUNT);
+
+        assertDoesNotThrow(() -> limiter.acquire(SHORT_WAIT));
+        assertThrows(ApiRateLimitException.class, () -> limiter.acquire(SHORT_WAIT));
+        assertThrows(ApiRateLimitException.class, () -> limiter.acquire(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> limiter.acquire(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> limiter.acquireAsync(null));
+        assertEquals(FIRST_CALL_COUNT, limiter.getCallsToday());
+    }
+
+    @Test
+    void testBackgroundCallsLeavePerMinuteReserveToInteractiveCalls() {
+        ApiRateLimiter limiter = new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, DEFAULT_MAX_CALLS_PER_MINUTE,
+            INTERACTIVE_RESERVE_PERCENT, () -> START_TIME_MILLIS, Schedulers.immediate());
+
+        for (int i = 0; i < BACKGROUND_CALLS_PER_MINUTE; i++) {
+            limiter.checkAndAcquire(RequestPriority.BACKGROUND);
+        }
+        ApiRateLimitException exception = assertThrows(ApiRateLimitException.class,
+            () -> limiter.checkAndAcquire(RequestPriority.BACKGROUND));
+        assertTrue(exception.getMessage().contains("background"));
+
+        for (int i = BACKGROUND_CALLS_PER_MINUTE; i < DEFAULT_MAX_CALLS_PER_MINUTE; i++) {
+            limiter.checkAndAcquire();
+        }
+        assertThrows(ApiRateLimitException.class, () -> limiter.checkAndAcquire(RequestPriority.INTERACTIVE));
+        assertEquals(DEFAULT_MAX_CALLS_PER_MINUTE, limiter.getCallsLastMinute());
+    }
+
+    @Test
+    void testBackgroundCallsLeaveDailyReserveToInteractiveCalls() {
+        ApiRateLimiter limiter = new ApiRateLimiter(PER_MINUTE_LIMIT_CALLS, LARGE_MAX_CALLS_PER_MINUTE,
+            HALF_RESERVE_PERCENT);
+
+        for (int i = 0; i < DAILY_LIMIT_CALLS; i++) {
+            limiter.acquire(Duration.ZERO, RequestPriority.BACKGROUND);
+        }
+        ApiRateLimitException exception = assertThrows(ApiRateLimitException.class,
+            () -> limiter.acquire(MAX_WAIT, RequestPriority.BACKGROUND));
+        assertTrue(exception.getMessage().startsWith("Daily"));
+
+        for (int i = 0; i < DAILY_LIMIT_CALLS; i++) {
+            limiter.acquire(Duration.ZERO);
+        }
+        assertEquals(PER_MINUTE_LIMIT_CALLS, limiter.getCallsToday());
+    }
+
+    @Test
+    void testInteractiveWaitersAreServedBeforeBackgroundWaiters() {
+        ManualTimer timer = new ManualTimer(START_TIME_MILLIS);
+        ApiRateLimiter limiter = new ApiRateLimiter(DEFAULT_MAX_CALLS_PER_DAY, FIRST_CALL_COUNT, NO_RESERVE, timer::now,
+            timer);
+        limiter.checkAndAcquire();
+
+        List<RequestPriority> served = new ArrayList<>();
+        limiter.acquireAsync(MAX_WAIT)
+            .contextWrite(RequestPriority.BACKGROUND.asContext())
+            .subscribe(null, null, () -> served.add(RequestPriority.BACKGROUND));
+        limiter.acquireAsync(MAX_WAIT)
+            .subscribe(null, null, () -> served.add(RequestPriority.INTERACTIVE));
+
+        timer.advance(Duration.ofMinutes(1));
+        assertEquals(List.of(RequestPriority.INTERACTIVE), served);
+
+        timer.advance(Duration.ofMinutes(1));
+        assertEquals(List.of(RequestPriority.INTERACTIVE, RequestPriority.BACKGROUND), served);
+    }
+
+    /**
+     * Scheduler running delayed tasks when the test advances its clock.
+     */
+    private static final class ManualTimer implements Scheduler {
+
+        private final List<Task> tasks = new ArrayList<>();
+        private long now;
+
+        ManualTimer(long startTime) {
+            this.now = startTime;
+        }
+
+        long now() {
+            return now;
+        }
+
+        void advance(Duration duration) {
+            now += duration.toMillis();
+            List<Task> due = new ArrayList<>();
+            tasks.removeIf(task -> task.dueAt <= now && due.add(task));
+            due.stream().filter(task -> !task.disposed).forEach(task -> task.runnable.run());
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            return schedule(task, 0, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+            Task scheduled = new Task(now + unit.toMillis(delay), task);
+            tasks.add(scheduled);
+            return scheduled;
+        }
+
+        @Override
+        public Worker createWorker() {
+            throw new UnsupportedOperationException();
+        }
+
+        private static final class Task implements Disposable {
+
+            private final long dueAt;
+            private final Runnable runnable;
+            private boolean disposed;
+
+            Task(long dueAt, Runnable runnable) {
+                this.dueAt = dueAt;
+                this.runnable = runnable;
+            }
+
+            @Override
+            public void dispose() {
+                disposed = true;
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return disposed;
+            }
+        }
+    }
 }
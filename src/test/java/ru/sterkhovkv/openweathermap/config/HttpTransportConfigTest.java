@@ -0,0 +1,79 @@
+package ru.sterkhovkv.openweathermap.config;
+
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.client.HttpTransport;
+import ru.sterkhovkv.openweathermap.exception.IllegalSDKStateException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTransportConfigTest {
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+    private static final int DEFAULT_PENDING_ACQUIRE_MAX_COUNT = 500;
+    private static final long DEFAULT_MAX_IDLE_TIME_SECONDS = 30;
+    private static final long DEFAULT_CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long DEFAULT_READ_TIMEOUT_SECONDS = 30;
+    private static final long TEST_CONNECT_TIMEOUT_SECONDS = 3;
+    private static final long TEST_REQUEST_TIMEOUT_SECONDS = 7;
+    private static final int INVALID_VALUE_ZERO = 0;
+    private static final int INVALID_VALUE_NEGATIVE = -1;
+    private static final String TEST_BASE_URL = "http://localhost";
+
+    @Test
+    void testDefaultConfig() {
+        HttpTransportConfig config = HttpTransportConfig.defaultConfig();
+
+        assertEquals(DEFAULT_MAX_CONNECTIONS, config.getMaxConnections());
+        assertEquals(DEFAULT_PENDING_ACQUIRE_MAX_COUNT, config.getPendingAcquireMaxCount());
+        assertEquals(DEFAULT_MAX_IDLE_TIME_SECONDS, config.getMaxIdleTimeSeconds());
+        assertEquals(DEFAULT_CONNECT_TIMEOUT_SECONDS, config.getConnectTimeoutSeconds());
+        assertEquals(DEFAULT_READ_TIMEOUT_SECONDS, config.getReadTimeoutSeconds());
+        assertTrue(config.isKeepAlive());
+        assertTrue(config.isCompress());
+    }
+
+    @Test
+    void testFromSdkConfigUsesSdkTimeouts() {
+        SDKConfig sdkConfig = SDKConfig.builder()
+            .connectTimeoutSeconds(TEST_CONNECT_TIMEOUT_SECONDS)
+            .requestTimeoutSeconds(TEST_REQUEST_TIMEOUT_SECONDS)
+            .build();
+
+        HttpTransportConfig config = HttpTransportConfig.fromSdkConfig(sdkConfig);
+
+        assertEquals(TEST_CONNECT_TIMEOUT_SECONDS, config.getConnectTimeoutSeconds());
+        assertEquals(TEST_REQUEST_TIMEOUT_SECONDS, config.getReadTimeoutSeconds());
+        assertEquals(DEFAULT_MAX_CONNECTIONS, config.getMaxConnections());
+    }
+
+    @Test
+    void testValidate() {
+        assertThrows(IllegalArgumentException.class, () ->
+            HttpTransportConfig.builder().maxConnections(INVALID_VALUE_ZERO).build().validate());
+        assertThrows(IllegalArgumentException.class, () ->
+            HttpTransportConfig.builder().pendingAcquireMaxCount(INVALID_VALUE_ZERO).build().validate());
+        assertThrows(IllegalArgumentException.class, () ->
+            HttpTransportConfig.builder().pendingAcquireTimeoutSeconds(INVALID_VALUE_ZERO).build().validate());
+        assertThrows(IllegalArgumentException.class, () ->
+            HttpTransportConfig.builder().maxIdleTimeSeconds(INVALID_VALUE_ZERO).build().validate());
+        assertThrows(IllegalArgumentException.class, () ->
+            HttpTransportConfig.builder().maxLifeTimeSeconds(INVALID_VALUE_NEGATIVE).build().validate());
+        assertThrows(IllegalArgumentException.class, () ->
+            HttpTransportConfig.builder().connectTimeoutSeconds(INVALID_VALUE_ZERO).build().validate());
+        assertThrows(IllegalArgumentException.class, () ->
+            HttpTransportConfig.builder().readTimeoutSeconds(INVALID_VALUE_ZERO).build().validate());
+        assertThrows(IllegalArgumentException.class, () ->
+            new HttpTransport(HttpTransportConfig.builder().maxConnections(INVALID_VALUE_ZERO).build()));
+    }
+
+    @Test
+    void testClosedTransportIsRejected() {
+        HttpTransport transport = new HttpTransport();
+        transport.close();
+
+        assertTrue(transport.isClosed());
+        assertThrows(IllegalSDKStateException.class, () -> transport.createWebClient(TEST_BASE_URL));
+        assertThrows(IllegalArgumentException.class, () ->
+            SDKConfig.builder().httpTransport(transport).build().validate());
+    }
+}
@@ -2,6 +2,8 @@ package ru.sterkhovkv.openweathermap.config;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Path;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class SDKConfigTest {
@@ -22,6 +24,9 @@ class SDKConfigTest {
     private static final long TEST_POLLING_INTERVAL_MINUTES = 5;
     private static final long TEST_PREEMPTIVE_EPSILON_MINUTES = 2;
     private static final String TEST_LANG = "ru";
+    private static final String DISK_CACHE_DIRECTORY = "weather-disk-cache";
+    private static final double TEST_NEARBY_CACHE_RADIUS_KM = 5.0;
+    private static final int TEST_INTERPOLATION_NEIGHBOURS = 3;
 
     private static final int VALID_TEST_MAX_CALLS_PER_DAY = 1000;
     private static final int VALID_TEST_MAX_CALLS_PER_MINUTE = 50;
@@ -31,9 +36,11 @@ class SDKConfigTest {
     private static final long VALID_TEST_CACHE_TTL_MINUTES = 12;
     private static final long VALID_TEST_POLLING_INTERVAL_MINUTES = 8;
     private static final long VALID_TEST_PREEMPTIVE_EPSILON_MINUTES = 0;
+    private static final long VALID_NEGATIVE_CACHE_DISABLED = 0;
 
     private static final int INVALID_VALUE_ZERO = 0;
     private static final int INVALID_VALUE_NEGATIVE = -1;
+    private static final int INVALID_RESERVE_PERCENT = 100;
 
     @Test
     void testDefaultConfig() {
@@ -51,6 +58,10 @@ class SDKConfigTest {
         assertEquals(DEFAULT_PREEMPTIVE_EPSILON_MINUTES, config.getPreemptiveEpsilonMinutes());
         assertEquals(ApiVersion.V3_0, config.getApiVersion());
         assertEquals(TemperatureUnits.STANDARD, config.getUnits());
+        assertEquals(ParserMode.FULL, config.getParserMode());
+        assertEquals(0, config.getRateLimitMaxWaitMillis());
+        assertEquals(0, config.getInteractiveReservePercent());
+        assertFalse(config.isQuotaAwarePolling());
     }
 
     @Test
@@ -157,6 +168,143 @@ class SDKConfigTest {
             .validate());
     }
 
+    @Test
+    void testValidateBatchConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .batchConcurrency(INVALID_VALUE_ZERO)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateSnapshotIntervalMinutes() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .snapshotIntervalMinutes(INVALID_VALUE_NEGATIVE)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateDiskCache() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .diskCacheMaxMegabytes(INVALID_VALUE_ZERO)
+            .build()
+            .validate());
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .diskCachePath(Path.of(DISK_CACHE_DIRECTORY))
+            .cacheStorage(CacheStorage.OFF_HEAP)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateCacheMaxBytes() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .cacheMaxBytes(INVALID_VALUE_NEGATIVE)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateVariableTtl() {
+        assertDoesNotThrow(() -> SDKConfig.builder()
+            .variableTtl(true)
+            .build()
+            .validate());
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .variableTtl(true)
+            .minCacheTtlMinutes(INVALID_VALUE_ZERO)
+            .build()
+            .validate());
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .variableTtl(true)
+            .maxCacheTtlMinutes(INVALID_VALUE_ZERO)
+            .build()
+            .validate());
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .variableTtl(true)
+            .cacheStorage(CacheStorage.OFF_HEAP)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateObservationAlignedTtl() {
+        assertDoesNotThrow(() -> SDKConfig.builder()
+            .observationAlignedTtl(true)
+            .build()
+            .validate());
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .observationAlignedTtl(true)
+            .variableTtl(true)
+            .build()
+            .validate());
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .observationAlignedTtl(true)
+            .cacheStorage(CacheStorage.OFF_HEAP)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateNearbyCacheRadiusKm() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .nearbyCacheRadiusKm(INVALID_VALUE_NEGATIVE)
+            .build()
+            .validate());
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .nearbyCacheRadiusKm(Double.NaN)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateInterpolationNeighbours() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .nearbyCacheRadiusKm(TEST_NEARBY_CACHE_RADIUS_KM)
+            .interpolationNeighbours(1)
+            .build()
+            .validate());
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .interpolationNeighbours(TEST_INTERPOLATION_NEIGHBOURS)
+            .build()
+            .validate());
+        assertEquals(TEST_INTERPOLATION_NEIGHBOURS, SDKConfig.builder()
+            .nearbyCacheRadiusKm(TEST_NEARBY_CACHE_RADIUS_KM)
+            .interpolationNeighbours(TEST_INTERPOLATION_NEIGHBOURS)
+            .build()
+            .validate()
+            .getInterpolationNeighbours());
+    }
+
+    @Test
+    void testValidateNegativeCacheTtlMinutes() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .negativeCacheTtlMinutes(INVALID_VALUE_NEGATIVE)
+            .build()
+            .validate());
+        assertDoesNotThrow(() -> SDKConfig.builder()
+            .negativeCacheTtlMinutes(VALID_NEGATIVE_CACHE_DISABLED)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateMaxStalenessMinutes() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .staleWhileRevalidate(true)
+            .cacheTtlMinutes(TEST_CACHE_TTL_MINUTES)
+            .maxStalenessMinutes(TEST_CACHE_TTL_MINUTES - 1)
+            .build()
+            .validate());
+
+        assertDoesNotThrow(() -> SDKConfig.builder()
+            .cacheTtlMinutes(TEST_CACHE_TTL_MINUTES)
+            .maxStalenessMinutes(TEST_CACHE_TTL_MINUTES - 1)
+            .build()
+            .validate());
+    }
+
     @Test
     void testValidateApiVersion() {
         assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
@@ -173,6 +321,34 @@ class SDKConfigTest {
             .validate());
     }
 
+    @Test
+    void testValidateRateLimitMaxWait() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .rateLimitMaxWaitMillis(INVALID_VALUE_NEGATIVE)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateInteractiveReservePercent() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .interactiveReservePercent(INVALID_VALUE_NEGATIVE)
+            .build()
+            .validate());
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .interactiveReservePercent(INVALID_RESERVE_PERCENT)
+            .build()
+            .validate());
+    }
+
+    @Test
+    void testValidateParserMode() {
+        assertThrows(IllegalArgumentException.class, () -> SDKConfig.builder()
+            .parserMode(null)
+            .build()
+            .validate());
+    }
+
     @Test
     void testValidConfig() {
         SDKConfig config = SDKConfig.builder()
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.sterkhovkv.openweathermap.api.OpenWeatherMapSDK;
 import ru.sterkhovkv.openweathermap.api.SDKMode;
+import ru.sterkhovkv.openweathermap.client.HttpTransport;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
 import ru.sterkhovkv.openweathermap.config.SDKConfig;
 import ru.sterkhovkv.openweathermap.exception.IllegalSDKStateException;
@@ -19,6 +20,7 @@ class SDKFactoryTest {
     private static final String EMPTY_STRING = "";
     private static final String BLANK_STRING = "   ";
     private static final int TEST_CACHE_SIZE = 20;
+    private static final String TEST_BASE_URL = "http://localhost";
     private static final int EMPTY_INSTANCES_COUNT = 0;
     private static final int SINGLE_INSTANCE_COUNT = 1;
     private static final int TWO_INSTANCES_COUNT = 2;
@@ -51,6 +53,25 @@ class SDKFactoryTest {
         assertEquals(SDKMode.ON_DEMAND, sdk.getMode());
     }
 
+    @Test
+    void testInstancesShareInjectedHttpTransport() {
+        try (HttpTransport transport = new HttpTransport()) {
+            SDKConfig config = SDKConfig.builder()
+                .apiVersion(ApiVersion.V2_5)
+                .httpTransport(transport)
+                .build();
+
+            SDKFactory.getInstance(TEST_API_KEY, SDKMode.ON_DEMAND, config);
+            SDKFactory.getInstance(TEST_API_KEY_2, SDKMode.ON_DEMAND, config);
+            assertEquals(TWO_INSTANCES_COUNT, SDKFactory.getInstanceCount());
+
+            // An injected transport outlives the instances using it
+            SDKFactory.removeAllInstances();
+            assertFalse(transport.isClosed());
+            assertNotNull(transport.createWebClient(TEST_BASE_URL));
+        }
+    }
+
     @Test
     void testGetInstanceReturnsSameInstanceForSameKey() {
         OpenWeatherMapSDK sdk1 = SDKFactory.getInstance(TEST_API_KEY, SDKMode.ON_DEMAND);
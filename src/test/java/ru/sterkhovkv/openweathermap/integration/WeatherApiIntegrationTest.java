@@ -3,6 +3,7 @@ package ru.sterkhovkv.openweathermap.integration;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import ru.sterkhovkv.openweathermap.api.OpenWeatherMapSDK;
@@ -34,10 +35,10 @@ class WeatherApiIntegrationTest {
     private static final String FIELD_GEOCODING_CLIENT = "geocodingClient";
     private static final String FIELD_WEATHER_API_CLIENT = "weatherApiClient";
 
-    @Mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private GeocodingClient geocodingClient;
 
-    @Mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private WeatherApiClient weatherApiClient;
 
     @BeforeEach
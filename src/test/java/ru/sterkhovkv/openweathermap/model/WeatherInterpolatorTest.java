@@ -0,0 +1,140 @@
+package ru.sterkhovkv.openweathermap.model;
+
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.config.ApiVersion;
+import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.model.v3.WeatherDataV3;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherInterpolatorTest {
+
+    private static final double DELTA = 1e-9;
+    private static final double NEAR_DISTANCE_KM = 1.0;
+    private static final double FAR_DISTANCE_KM = 2.0;
+    private static final double COINCIDENT_DISTANCE_KM = 0.0;
+    private static final double COLD_TEMP = 270.0;
+    private static final double WARM_TEMP = 280.0;
+    private static final double COLD_FEELS_LIKE = 265.0;
+    private static final double WARM_FEELS_LIKE = 275.0;
+    private static final double WIND_SPEED = 4.0;
+    private static final long TEST_DATETIME = 1675744800L;
+    private static final int TEST_VISIBILITY = 10000;
+    private static final String WEATHER_MAIN = "Clear";
+    private static final String NEAR_CITY = "Near";
+    private static final String FAR_CITY = "Far";
+    private static final long TIMESTAMP = 1000L;
+
+    @Test
+    void testEqualDistancesGiveMean() {
+        CacheEntry[] entries = {
+            createEntryV2(NEAR_CITY, COLD_TEMP, COLD_FEELS_LIKE),
+            createEntryV2(FAR_CITY, WARM_TEMP, WARM_FEELS_LIKE)
+        };
+        double[] distances = {NEAR_DISTANCE_KM, NEAR_DISTANCE_KM};
+
+        WeatherResponse response = WeatherInterpolator.interpolate(entries, distances, entries.length);
+
+        assertTrue(response.isInterpolated());
+        assertNull(response.getName());
+        assertEquals((COLD_TEMP + WARM_TEMP) / 2, response.getTemperature().getTemp(), DELTA);
+        assertEquals((COLD_FEELS_LIKE + WARM_FEELS_LIKE) / 2, response.getTemperature().getFeelsLike(), DELTA);
+        assertEquals(WIND_SPEED, response.getWind().getSpeed(), DELTA);
+    }
+
+    @Test
+    void testNearerPointWeighsMore() {
+        CacheEntry[] entries = {
+            createEntryV2(NEAR_CITY, COLD_TEMP, COLD_FEELS_LIKE),
+            createEntryV2(FAR_CITY, WARM_TEMP, WARM_FEELS_LIKE)
+        };
+        double[] distances = {NEAR_DISTANCE_KM, FAR_DISTANCE_KM};
+
+        WeatherResponse response = WeatherInterpolator.interpolate(entries, distances, entries.length);
+
+        // Weights 1 and 1/4
+        double expected = (COLD_TEMP + WARM_TEMP / 4) / (1 + 0.25);
+        assertEquals(expected, response.getTemperature().getTemp(), DELTA);
+        assertEquals(WEATHER_MAIN, response.getWeather().getMain());
+        assertEquals(TEST_VISIBILITY, response.getVisibility());
+        assertEquals(TEST_DATETIME, response.getDatetime());
+    }
+
+    @Test
+    void testCoincidentPointWins() {
+        CacheEntry[] entries = {
+            createEntryV2(NEAR_CITY, COLD_TEMP, COLD_FEELS_LIKE),
+            createEntryV2(FAR_CITY, WARM_TEMP, WARM_FEELS_LIKE)
+        };
+        double[] distances = {COINCIDENT_DISTANCE_KM, NEAR_DISTANCE_KM};
+
+        WeatherResponse response = WeatherInterpolator.interpolate(entries, distances, entries.length);
+
+        assertEquals(COLD_TEMP, response.getTemperature().getTemp(), DELTA);
+    }
+
+    @Test
+    void testMissingValuesAreSkipped() {
+        CacheEntry withoutFeelsLike = createEntryV2(NEAR_CITY, COLD_TEMP, null);
+        CacheEntry[] entries = {withoutFeelsLike, createEntryV3(WARM_TEMP, WARM_FEELS_LIKE)};
+        double[] distances = {NEAR_DISTANCE_KM, NEAR_DISTANCE_KM};
+
+        WeatherResponse response = WeatherInterpolator.interpolate(entries, distances, entries.length);
+
+        assertEquals((COLD_TEMP + WARM_TEMP) / 2, response.getTemperature().getTemp(), DELTA);
+        assertEquals(WARM_FEELS_LIKE, response.getTemperature().getFeelsLike(), DELTA);
+    }
+
+    @Test
+    void testWeightedAverageOfNaNValuesIsNull() {
+        double[] values = {Double.NaN, Double.NaN};
+        double[] weights = {1, 1};
+
+        assertNull(WeatherInterpolator.weightedAverage(values, weights, values.length));
+    }
+
+    @Test
+    void testInterpolateThrowsOnInvalidCount() {
+        CacheEntry[] entries = {createEntryV2(NEAR_CITY, COLD_TEMP, COLD_FEELS_LIKE)};
+        double[] distances = {NEAR_DISTANCE_KM};
+
+        assertThrows(IllegalArgumentException.class, () -> WeatherInterpolator.interpolate(entries, distances, 0));
+        assertThrows(IllegalArgumentException.class, () -> WeatherInterpolator.interpolate(entries, distances, 2));
+    }
+
+    private static CacheEntry createEntryV2(String cityName, double temp, Double feelsLike) {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+        weatherData.setName(cityName);
+        weatherData.setDatetime(TEST_DATETIME);
+        weatherData.setVisibility(TEST_VISIBILITY);
+
+        WeatherDataV2.MainData main = new WeatherDataV2.MainData();
+        main.setTemp(temp);
+        main.setFeelsLike(feelsLike);
+        weatherData.setMain(main);
+
+        WeatherDataV2.Wind wind = new WeatherDataV2.Wind();
+        wind.setSpeed(WIND_SPEED);
+        weatherData.setWind(wind);
+
+        WeatherDataV2.WeatherCondition condition = new WeatherDataV2.WeatherCondition();
+        condition.setMain(WEATHER_MAIN);
+        weatherData.setWeather(List.of(condition));
+
+        return new CacheEntry(cityName, new Coordinates(0, 0), weatherData, ApiVersion.V2_5, TIMESTAMP);
+    }
+
+    private static CacheEntry createEntryV3(double temp, double feelsLike) {
+        WeatherDataV3 weatherData = new WeatherDataV3();
+        WeatherDataV3.CurrentWeather current = new WeatherDataV3.CurrentWeather();
+        current.setDatetime(TEST_DATETIME);
+        current.setTemp(temp);
+        current.setFeelsLike(feelsLike);
+        current.setWindSpeed(WIND_SPEED);
+        weatherData.setCurrent(current);
+
+        return new CacheEntry(FAR_CITY, new Coordinates(0, 0), weatherData, ApiVersion.V3_0, TIMESTAMP);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.sterkhovkv.openweathermap.scheduler;
+
+import org.junit.jupiter.api.Test;
+import ru.sterkhovkv.openweathermap.util.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PollingCadenceTest {
+
+    private static final long MIDNIGHT_MILLIS = 1_675_728_000_000L;
+    private static final long NOON_MILLIS = MIDNIGHT_MILLIS + Constants.MILLIS_PER_DAY / 2;
+    private static final long MIN_INTERVAL_MILLIS = 10 * Constants.MILLIS_PER_MINUTE;
+    private static final int CALLS_PER_REFRESH = 10;
+    private static final int PLENTY_OF_CALLS = 10_000;
+    private static final int CALLS_FOR_TEN_REFRESHES = 105;
+    private static final int TEN_REFRESHES = 10;
+    private static final int TOO_FEW_CALLS = 5;
+    private static final long OWN_TTL_MILLIS = 4 * Constants.MILLIS_PER_MINUTE;
+    private static final long LONG_OWN_TTL_MILLIS = 20 * Constants.MILLIS_PER_MINUTE;
+    // An entry with a 4-minute TTL is refreshed 3 times per 10-minute interval, 2 more than planned
+    private static final int ALIGNED_CALLS_PER_INTERVAL = 2;
+
+    @Test
+    void testConfiguredIntervalIsKeptWhileQuotaAllowsIt() {
+        PollingCadence cadence = PollingCadence.plan(NOON_MILLIS, MIN_INTERVAL_MILLIS, CALLS_PER_REFRESH,
+            PLENTY_OF_CALLS);
+
+        assertEquals(MIN_INTERVAL_MILLIS, cadence.intervalMillis());
+        assertEquals(NOON_MILLIS + MIN_INTERVAL_MILLIS, cadence.nextTickAt());
+        assertEquals(PLENTY_OF_CALLS / CALLS_PER_REFRESH, cadence.refreshesUntilMidnight());
+    }
+
+    @Test
+    void testIntervalIsStretchedSoQuotaLastsUntilMidnight() {
+        PollingCadence cadence = PollingCadence.plan(NOON_MILLIS, MIN_INTERVAL_MILLIS, CALLS_PER_REFRESH,
+            CALLS_FOR_TEN_REFRESHES);
+
+        assertEquals(TEN_REFRESHES, cadence.refreshesUntilMidnight());
+        assertEquals(Constants.MILLIS_PER_DAY / 2 / TEN_REFRESHES, cadence.intervalMillis());
+        assertEquals(CALLS_PER_REFRESH, cadence.callsPerRefresh());
+        assertEquals(CALLS_FOR_TEN_REFRESHES, cadence.remainingCallsToday());
+    }
+
+    @Test
+    void testPollingPausesUntilMidnightWhenQuotaDoesNotCoverRefresh() {
+        PollingCadence cadence = PollingCadence.plan(NOON_MILLIS, MIN_INTERVAL_MILLIS, CALLS_PER_REFRESH,
+            TOO_FEW_CALLS);
+
+        assertEquals(0, cadence.refreshesUntilMidnight());
+        assertEquals(MIDNIGHT_MILLIS + Constants.MILLIS_PER_DAY, cadence.nextTickAt());
+    }
+
+    @Test
+    void testConfiguredIntervalIsUsedWithoutCities() {
+        PollingCadence cadence = PollingCadence.plan(NOON_MILLIS, MIN_INTERVAL_MILLIS, 0, 0);
+
+        assertEquals(MIN_INTERVAL_MILLIS, cadence.intervalMillis());
+    }
+
+    @Test
+    void testAlignedTicksAreCountedWhenQuotaPaysForThem() {
+        PollingCadence cadence = PollingCadence.plan(NOON_MILLIS, MIN_INTERVAL_MILLIS, CALLS_PER_REFRESH,
+            PLENTY_OF_CALLS, new long[] {OWN_TTL_MILLIS, LONG_OWN_TTL_MILLIS});
+
+        assertTrue(cadence.alignedTicks());
+        assertEquals(ALIGNED_CALLS_PER_INTERVAL, cadence.alignedCallsPerInterval());
+        assertEquals(MIN_INTERVAL_MILLIS, cadence.intervalMillis());
+        assertEquals(PLENTY_OF_CALLS / (CALLS_PER_REFRESH + ALIGNED_CALLS_PER_INTERVAL),
+            cadence.refreshesUntilMidnight());
+    }
+
+    @Test
+    void testAlignedTicksAreDisabledWhenQuotaDoesNotPayForThem() {
+        PollingCadence cadence = PollingCadence.plan(NOON_MILLIS, MIN_INTERVAL_MILLIS, CALLS_PER_REFRESH,
+            CALLS_FOR_TEN_REFRESHES, new long[] {OWN_TTL_MILLIS});
+
+        assertFalse(cadence.alignedTicks());
+        assertEquals(0, cadence.alignedCallsPerInterval());
+        assertEquals(TEN_REFRESHES, cadence.refreshesUntilMidnight());
+        assertEquals(Constants.MILLIS_PER_DAY / 2 / TEN_REFRESHES, cadence.intervalMillis());
+    }
+
+    @Test
+    void testAlignedTicksWithLongOwnTtlsCostNothingExtra() {
+        PollingCadence cadence = PollingCadence.plan(NOON_MILLIS, MIN_INTERVAL_MILLIS, CALLS_PER_REFRESH,
+            CALLS_FOR_TEN_REFRESHES, new long[] {Constants.MILLIS_PER_DAY});
+
+        assertTrue(cadence.alignedTicks());
+        assertEquals(0, cadence.alignedCallsPerInterval());
+    }
+}
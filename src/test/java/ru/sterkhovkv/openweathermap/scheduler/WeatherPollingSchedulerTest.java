@@ -5,19 +5,39 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
 import ru.sterkhovkv.openweathermap.cache.WeatherCache;
 import ru.sterkhovkv.openweathermap.client.WeatherApiClient;
+import ru.sterkhovkv.openweathermap.config.ApiRateLimiter;
 import ru.sterkhovkv.openweathermap.config.ApiVersion;
 import ru.sterkhovkv.openweathermap.config.PollingStrategy;
+import ru.sterkhovkv.openweathermap.config.RequestPriority;
+import ru.sterkhovkv.openweathermap.exception.ApiRateLimitException;
 import ru.sterkhovkv.openweathermap.exception.NetworkException;
+import ru.sterkhovkv.openweathermap.model.CacheEntry;
 import ru.sterkhovkv.openweathermap.model.Coordinates;
 import ru.sterkhovkv.openweathermap.model.v2.WeatherDataV2;
+import ru.sterkhovkv.openweathermap.util.Constants;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class WeatherPollingSchedulerTest {
@@ -34,6 +54,19 @@ class WeatherPollingSchedulerTest {
     private static final double LONDON_LAT = 51.5074;
     private static final double LONDON_LON = -0.1278;
     private static final String NETWORK_ERROR_MESSAGE = "Network error";
+    private static final String RATE_LIMIT_MESSAGE = "Per-minute API limit exceeded for background requests";
+    private static final long ENTRY_TTL_MILLIS = 300;
+    private static final int GROUP_SIZE = 20;
+    private static final int GROUPED_CITIES = 25;
+    private static final int FIRST_CITY_ID = 1000;
+    private static final int MISSING_CITY_ID = FIRST_CITY_ID + 7;
+    private static final String TEST_CITY_WITHOUT_ID = "Atlantis";
+    private static final double TEST_TEMP = 273.15;
+    private static final int MAX_CALLS_PER_DAY = 1000;
+    private static final int SMALL_MAX_CALLS_PER_DAY = 10;
+    private static final int MAX_CALLS_PER_MINUTE = 60;
+    private static final int INTERACTIVE_RESERVE_PERCENT = 20;
+    private static final long POLL_STEP_MILLIS = 10;
 
     @Mock
     private WeatherCache cache;
@@ -118,14 +151,14 @@ class WeatherPollingSchedulerTest {
         when(cache.getCoordinates(TEST_CITY_LONDON)).thenReturn(londonCoords);
 
         WeatherDataV2 weatherData = new WeatherDataV2();
-        when(weatherApiClient.fetchWeather(any(Coordinates.class))).thenReturn(weatherData);
+        when(weatherApiClient.fetchWeatherAsync(any(Coordinates.class))).thenReturn(Mono.just(weatherData));
 
         scheduler.start();
 
         Thread.sleep(TEST_SLEEP_MILLIS);
 
         verify(cache, atLeastOnce()).getAllCities();
-        verify(weatherApiClient, atLeastOnce()).fetchWeather(any(Coordinates.class));
+        verify(weatherApiClient, atLeastOnce()).fetchWeatherAsync(any(Coordinates.class));
     }
 
     @Test
@@ -141,7 +174,7 @@ class WeatherPollingSchedulerTest {
         }
 
         verify(cache, atLeastOnce()).getAllCities();
-        verify(weatherApiClient, never()).fetchWeather(any(Coordinates.class));
+        verify(weatherApiClient, never()).fetchWeatherAsync(any(Coordinates.class));
     }
 
     @Test
@@ -160,7 +193,7 @@ class WeatherPollingSchedulerTest {
 
         verify(cache, atLeastOnce()).getCoordinates(TEST_CITY_MOSCOW);
         verify(cache, atLeastOnce()).remove(TEST_CITY_MOSCOW);
-        verify(weatherApiClient, never()).fetchWeather(any(Coordinates.class));
+        verify(weatherApiClient, never()).fetchWeatherAsync(any(Coordinates.class));
     }
 
     @Test
@@ -171,14 +204,180 @@ class WeatherPollingSchedulerTest {
         Coordinates coords = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
         when(cache.getCoordinates(TEST_CITY_MOSCOW)).thenReturn(coords);
 
-        when(weatherApiClient.fetchWeather(any(Coordinates.class)))
-            .thenThrow(new NetworkException(NETWORK_ERROR_MESSAGE));
+        when(weatherApiClient.fetchWeatherAsync(any(Coordinates.class)))
+            .thenReturn(Mono.error(new NetworkException(NETWORK_ERROR_MESSAGE)));
 
         scheduler.start();
 
         Thread.sleep(TEST_SLEEP_MILLIS);
 
-        verify(weatherApiClient, atLeastOnce()).fetchWeather(any(Coordinates.class));
+        verify(weatherApiClient, atLeastOnce()).fetchWeatherAsync(any(Coordinates.class));
     }
-}
 
+    @Test
+    void testEntryWithOwnTtlIsRefreshedWhenDue() {
+        PollingSchedulerConfig expiredOnlyConfig = new PollingSchedulerConfig(
+            cache,
+            weatherApiClient,
+            ApiVersion.V2_5,
+            POLLING_INTERVAL_MINUTES,
+            CACHE_TTL_MINUTES,
+            PollingStrategy.EXPIRED_ONLY,
+            PREEMPTIVE_EPSILON_MINUTES
+        );
+        scheduler.stop();
+        scheduler = new WeatherPollingScheduler(expiredOnlyConfig);
+
+        Coordinates coords = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        CacheEntry entry = new CacheEntry(TEST_CITY_MOSCOW, coords, new WeatherDataV2(), null, ApiVersion.V2_5,
+            System.currentTimeMillis(), ENTRY_TTL_MILLIS);
+        when(cache.getAllCities()).thenReturn(List.of(TEST_CITY_MOSCOW));
+        when(cache.get(TEST_CITY_MOSCOW)).thenReturn(entry);
+        when(cache.getStale(TEST_CITY_MOSCOW)).thenReturn(entry);
+        when(cache.getCoordinates(TEST_CITY_MOSCOW)).thenReturn(coords);
+        when(weatherApiClient.fetchWeatherAsync(any(Coordinates.class))).thenReturn(Mono.just(new WeatherDataV2()));
+
+        scheduler.start();
+
+        // The regular tick skips the fresh entry; the next one is a minute away
+        verify(weatherApiClient, timeout(VERIFY_TIMEOUT_MILLIS)).fetchWeatherAsync(coords);
+    }
+
+    @Test
+    void testCitiesWithKnownIdsAreRefreshedInGroups() {
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < GROUPED_CITIES; i++) {
+            String cityName = "City" + i;
+            cities.add(cityName);
+            stubCachedCity(cityName, createWeatherData(FIRST_CITY_ID + i));
+        }
+        cities.add(TEST_CITY_WITHOUT_ID);
+        stubCachedCity(TEST_CITY_WITHOUT_ID, createWeatherData(null));
+        when(cache.getAllCities()).thenReturn(cities);
+
+        when(weatherApiClient.getMaxCityIdBatchSize()).thenReturn(GROUP_SIZE);
+        when(weatherApiClient.fetchWeatherByCityIdsAsync(anyCollection())).thenAnswer(invocation -> {
+            Collection<Integer> cityIds = invocation.getArgument(0);
+            Map<Integer, Object> weatherByCityId = new HashMap<>();
+            cityIds.stream()
+                .filter(cityId -> cityId != MISSING_CITY_ID)
+                .forEach(cityId -> weatherByCityId.put(cityId, createWeatherData(cityId)));
+            return Mono.just(weatherByCityId);
+        });
+        when(weatherApiClient.fetchWeatherAsync(any(Coordinates.class))).thenReturn(Mono.just(createWeatherData(null)));
+
+        scheduler.start();
+
+        // 25 known ids take two calls; the city without id and the one missing from the response one each
+        verify(cache, timeout(VERIFY_TIMEOUT_MILLIS).times(cities.size()))
+            .update(anyString(), any(), any(), eq(ApiVersion.V2_5), anyLong());
+        verify(weatherApiClient, times(2)).fetchWeatherByCityIdsAsync(anyCollection());
+        verify(weatherApiClient, times(2)).fetchWeatherAsync(any(Coordinates.class));
+        verify(cache).getCoordinates("City" + (MISSING_CITY_ID - FIRST_CITY_ID));
+        verify(cache).getCoordinates(TEST_CITY_WITHOUT_ID);
+    }
+
+    @Test
+    void testPollingYieldsWhenRateLimiterRejectsBackgroundCall() {
+        List<String> cities = List.of(TEST_CITY_MOSCOW, TEST_CITY_LONDON);
+        when(cache.getAllCities()).thenReturn(cities);
+        when(cache.getCoordinates(TEST_CITY_MOSCOW)).thenReturn(new Coordinates(MOSCOW_LAT, MOSCOW_LON));
+        when(cache.getCoordinates(TEST_CITY_LONDON)).thenReturn(new Coordinates(LONDON_LAT, LONDON_LON));
+
+        List<RequestPriority> priorities = new CopyOnWriteArrayList<>();
+        when(weatherApiClient.fetchWeatherAsync(any(Coordinates.class))).thenReturn(Mono.deferContextual(context -> {
+            priorities.add(RequestPriority.from(context));
+            return Mono.error(new ApiRateLimitException(RATE_LIMIT_MESSAGE));
+        }));
+
+        scheduler.start();
+
+        // The second city is deferred to the next tick instead of hitting the limit again
+        verify(weatherApiClient, timeout(VERIFY_TIMEOUT_MILLIS)).fetchWeatherAsync(any(Coordinates.class));
+        verify(cache, timeout(VERIFY_TIMEOUT_MILLIS)).getCoordinates(TEST_CITY_MOSCOW);
+        scheduler.stop();
+        verify(cache, never()).getCoordinates(TEST_CITY_LONDON);
+        verify(cache, never()).update(anyString(), any(), any(), any(), anyLong());
+        assertEquals(List.of(RequestPriority.BACKGROUND), priorities);
+    }
+
+    @Test
+    void testQuotaAwareSchedulerPlansCadenceFromRemainingQuota() throws Exception {
+        ApiRateLimiter rateLimiter = new ApiRateLimiter(MAX_CALLS_PER_DAY, MAX_CALLS_PER_MINUTE,
+            INTERACTIVE_RESERVE_PERCENT);
+        scheduler.stop();
+        scheduler = new WeatherPollingScheduler(new PollingSchedulerConfig(cache, weatherApiClient, ApiVersion.V2_5,
+            POLLING_INTERVAL_MINUTES, CACHE_TTL_MINUTES, PollingStrategy.STRICT, PREEMPTIVE_EPSILON_MINUTES,
+            rateLimiter, true));
+
+        List<String> cities = List.of(TEST_CITY_MOSCOW, TEST_CITY_LONDON);
+        when(cache.getAllCities()).thenReturn(cities);
+        when(cache.getCoordinates(TEST_CITY_MOSCOW)).thenReturn(new Coordinates(MOSCOW_LAT, MOSCOW_LON));
+        when(cache.getCoordinates(TEST_CITY_LONDON)).thenReturn(new Coordinates(LONDON_LAT, LONDON_LON));
+        when(weatherApiClient.fetchWeatherAsync(any(Coordinates.class))).thenReturn(Mono.just(createWeatherData(null)));
+        assertNull(scheduler.getPlannedCadence());
+
+        scheduler.start();
+
+        long deadline = System.currentTimeMillis() + VERIFY_TIMEOUT_MILLIS;
+        while (scheduler.getPlannedCadence() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_STEP_MILLIS);
+        }
+        PollingCadence cadence = scheduler.getPlannedCadence();
+        assertNotNull(cadence);
+        assertEquals(cities.size(), cadence.callsPerRefresh());
+        assertEquals(rateLimiter.getRemainingCallsToday(RequestPriority.BACKGROUND), cadence.remainingCallsToday());
+        assertTrue(cadence.intervalMillis() >= POLLING_INTERVAL_MINUTES * Constants.MILLIS_PER_MINUTE);
+    }
+
+    @Test
+    void testQuotaAwareSchedulerDisablesAlignedTicksTheQuotaDoesNotPayFor() {
+        ApiRateLimiter rateLimiter = new ApiRateLimiter(SMALL_MAX_CALLS_PER_DAY, MAX_CALLS_PER_MINUTE,
+            INTERACTIVE_RESERVE_PERCENT);
+        scheduler.stop();
+        scheduler = new WeatherPollingScheduler(new PollingSchedulerConfig(cache, weatherApiClient, ApiVersion.V2_5,
+            POLLING_INTERVAL_MINUTES, CACHE_TTL_MINUTES, PollingStrategy.EXPIRED_ONLY, PREEMPTIVE_EPSILON_MINUTES,
+            rateLimiter, true));
+
+        Coordinates coords = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        CacheEntry entry = new CacheEntry(TEST_CITY_MOSCOW, coords, new WeatherDataV2(), null, ApiVersion.V2_5,
+            System.currentTimeMillis(), ENTRY_TTL_MILLIS);
+        when(cache.getAllCities()).thenReturn(List.of(TEST_CITY_MOSCOW));
+        when(cache.get(TEST_CITY_MOSCOW)).thenReturn(entry);
+        when(cache.getStale(TEST_CITY_MOSCOW)).thenReturn(entry);
+        when(cache.getCoordinates(TEST_CITY_MOSCOW)).thenReturn(coords);
+        when(weatherApiClient.fetchWeatherAsync(any(Coordinates.class))).thenReturn(Mono.just(new WeatherDataV2()));
+
+        scheduler.start();
+
+        // Refreshing the entry every time its own TTL expires would spend the quota planned for the day
+        verify(weatherApiClient, after(TEST_SLEEP_MILLIS).never()).fetchWeatherAsync(any(Coordinates.class));
+        PollingCadence cadence = scheduler.getPlannedCadence();
+        assertNotNull(cadence);
+        assertFalse(cadence.alignedTicks());
+        assertEquals(0, cadence.alignedCallsPerInterval());
+    }
+
+    @Test
+    void testQuotaAwareConfigRequiresRateLimiter() {
+        assertThrows(IllegalArgumentException.class, () -> new PollingSchedulerConfig(cache, weatherApiClient,
+            ApiVersion.V2_5, POLLING_INTERVAL_MINUTES, CACHE_TTL_MINUTES, PollingStrategy.STRICT,
+            PREEMPTIVE_EPSILON_MINUTES, null, true));
+    }
+
+    private void stubCachedCity(String cityName, WeatherDataV2 weatherData) {
+        Coordinates coords = new Coordinates(MOSCOW_LAT, MOSCOW_LON);
+        CacheEntry entry = new CacheEntry(cityName, coords, weatherData, ApiVersion.V2_5, System.currentTimeMillis());
+        when(cache.getStale(cityName)).thenReturn(entry);
+        when(cache.getCoordinates(cityName)).thenReturn(coords);
+    }
+
+    private static WeatherDataV2 createWeatherData(Integer cityId) {
+        WeatherDataV2 weatherData = new WeatherDataV2();
+        weatherData.setCityId(cityId);
+        WeatherDataV2.MainData main = new WeatherDataV2.MainData();
+        main.setTemp(TEST_TEMP);
+        weatherData.setMain(main);
+        return weatherData;
+    }
+}